@@ -0,0 +1,140 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.i18ndirectives;
+
+import static java.util.Comparator.comparing;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.template.soy.data.SoyList;
+import com.google.template.soy.data.SoyRecord;
+import com.google.template.soy.data.SoyValueProvider;
+import com.google.template.soy.data.internal.ListImpl;
+import com.google.template.soy.data.internal.SoyRecordImpl;
+import com.google.template.soy.data.restricted.BooleanData;
+import com.google.template.soy.data.restricted.FloatData;
+import com.google.template.soy.data.restricted.IntegerData;
+import com.google.template.soy.data.restricted.StringData;
+import com.ibm.icu.text.Collator;
+import com.ibm.icu.text.CompactDecimalFormat;
+import com.ibm.icu.text.CompactDecimalFormat.CompactStyle;
+import com.ibm.icu.text.NumberFormat;
+import com.ibm.icu.text.RuleBasedCollator;
+import com.ibm.icu.util.ULocale;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@code formatNum} and {@code localeSort}, which look up their ICU formatters and
+ * collators in {@link I18nFormatCache}, against creating a new one for every call as they used to.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class I18nFormatBenchmark {
+
+  private static final int LIST_SIZE = 20;
+
+  private final ULocale locale = ULocale.GERMANY;
+  private final FloatData number = FloatData.forValue(1234567.891);
+  private final IntegerData fractionDigits = IntegerData.forValue(2);
+
+  private SoyList list;
+  private SoyRecord sortOptions;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    List<SoyValueProvider> items = new ArrayList<>();
+    for (int i = 0; i < LIST_SIZE; i++) {
+      items.add(StringData.forValue((i % 2 == 0 ? "Élément " : "element ") + (LIST_SIZE - i)));
+    }
+    list = ListImpl.forProviderList(items);
+    sortOptions =
+        new SoyRecordImpl(
+            ImmutableMap.of(
+                "numeric", BooleanData.TRUE, "sensitivity", StringData.forValue("base")));
+  }
+
+  @Benchmark
+  public String formatDecimal() {
+    return I18NDirectivesRuntime.formatNum(
+        locale, number, "decimal", "local", fractionDigits, null);
+  }
+
+  @Benchmark
+  public String formatCurrency() {
+    return I18NDirectivesRuntime.formatNum(locale, number, "currency", "local", null, null);
+  }
+
+  @Benchmark
+  public String formatCompact() {
+    return I18NDirectivesRuntime.formatNum(locale, number, "compact_long", "local", null, null);
+  }
+
+  @Benchmark
+  public ImmutableList<SoyValueProvider> localeSort() {
+    return I18NDirectivesRuntime.localeSort(locale, list, sortOptions);
+  }
+
+  @Benchmark
+  public String formatDecimalUncached() {
+    NumberFormat format = NumberFormat.getInstance(locale.setKeywordValue("numbers", "local"));
+    format.setMinimumFractionDigits(2);
+    format.setMaximumFractionDigits(2);
+    return format.format(number.toFloat());
+  }
+
+  @Benchmark
+  public String formatCurrencyUncached() {
+    return NumberFormat.getCurrencyInstance(locale.setKeywordValue("numbers", "local"))
+        .format(number.toFloat());
+  }
+
+  @Benchmark
+  public String formatCompactUncached() {
+    CompactDecimalFormat format =
+        CompactDecimalFormat.getInstance(
+            locale.setKeywordValue("numbers", "local"), CompactStyle.LONG);
+    format.setMaximumSignificantDigits(3);
+    return format.format(number.toFloat());
+  }
+
+  @Benchmark
+  public ImmutableList<SoyValueProvider> localeSortUncached() {
+    RuleBasedCollator collator = (RuleBasedCollator) Collator.getInstance(locale);
+    collator.setNumericCollation(true);
+    collator.setStrength(Collator.PRIMARY);
+    return ImmutableList.sortedCopyOf(
+        comparing((SoyValueProvider arg) -> arg.resolve().stringValue(), collator),
+        list.asJavaList());
+  }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.jbcsrc.api;
+
+import static com.google.common.base.Preconditions.checkState;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.template.soy.SoyFileSet;
+import com.google.template.soy.msgs.SoyMsgBundle;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput of {@link SoySauce.Renderer#renderHtml(AdvisingAppendable)} over a small
+ * corpus of templates that exercise the hot paths of the jbcsrc runtime.
+ *
+ * <p>Run with the {@code benchmarks} maven profile, e.g. {@code mvn -Pbenchmarks clean test-compile
+ * exec:exec@run-benchmarks}. Allocation rates are reported by the JMH GC profiler, which the
+ * profile enables by default.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SoySauceRenderBenchmark {
+
+  private static final int CALL_DEPTH = 50;
+  private static final int LIST_SIZE = 1000;
+  private static final int MSG_COUNT = 200;
+  private static final int ESCAPED_VALUE_COUNT = 200;
+
+  private SoySauce sauce;
+  private SoyMsgBundle msgBundle;
+
+  private Map<String, ?> deepCallsParams;
+  private Map<String, ?> forLoopParams;
+  private Map<String, ?> pluralMessagesParams;
+  private Map<String, ?> heavyEscapingParams;
+
+  private final BufferingAppendable output = new BufferingAppendable();
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    sauce = newFileSet().compileTemplates();
+    // Rendering with the extracted messages forces the translated message path rather than the
+    // inlined source messages.
+    msgBundle = newFileSet().extractMsgs();
+
+    deepCallsParams = ImmutableMap.of("depth", CALL_DEPTH, "label", "leaf & <node>");
+
+    List<Map<String, ?>> rows = new ArrayList<>();
+    for (int i = 0; i < LIST_SIZE; i++) {
+      rows.add(
+          ImmutableMap.of(
+              "id",
+              i,
+              "name",
+              "Item #" + i,
+              "price",
+              i * 1.25,
+              "tags",
+              ImmutableList.of("red", "green", "blue")));
+    }
+    forLoopParams = ImmutableMap.of("rows", rows);
+
+    List<Integer> counts = new ArrayList<>();
+    for (int i = 0; i < MSG_COUNT; i++) {
+      counts.add(i % 4);
+    }
+    pluralMessagesParams = ImmutableMap.of("counts", counts, "userName", "O'Brien <admin>");
+
+    List<String> values = new ArrayList<>();
+    for (int i = 0; i < ESCAPED_VALUE_COUNT; i++) {
+      values.add("\"quoted\" <b>bold</b> & 'single' </script> javascript:alert(" + i + ")");
+    }
+    heavyEscapingParams = ImmutableMap.of("values", values);
+  }
+
+  private static SoyFileSet newFileSet() {
+    return SoyFileSet.builder()
+        .add(SoySauceRenderBenchmark.class.getResource("render_benchmarks.soy"))
+        .build();
+  }
+
+  @Benchmark
+  public int deepCalls() throws IOException {
+    return render("render_benchmarks.deepCalls", deepCallsParams, /* msgs= */ null);
+  }
+
+  @Benchmark
+  public int forLoop() throws IOException {
+    return render("render_benchmarks.forLoop", forLoopParams, /* msgs= */ null);
+  }
+
+  @Benchmark
+  public int pluralMessages() throws IOException {
+    return render("render_benchmarks.pluralMessages", pluralMessagesParams, msgBundle);
+  }
+
+  @Benchmark
+  public int heavyEscaping() throws IOException {
+    return render("render_benchmarks.heavyEscaping", heavyEscapingParams, /* msgs= */ null);
+  }
+
+  private int render(String templateName, Map<String, ?> params, SoyMsgBundle msgs)
+      throws IOException {
+    output.reset();
+    SoySauce.Renderer renderer = sauce.renderTemplate(templateName).setData(params);
+    if (msgs != null) {
+      renderer.setMsgBundle(msgs);
+    }
+    SoySauce.WriteContinuation continuation = renderer.renderHtml(output);
+    checkState(continuation.result().isDone(), "unexpected detach in %s", templateName);
+    return output.length();
+  }
+
+  /** An {@link AdvisingAppendable} that reuses its buffer across renders. */
+  private static final class BufferingAppendable implements AdvisingAppendable {
+    private final StringBuilder delegate = new StringBuilder();
+
+    void reset() {
+      delegate.setLength(0);
+    }
+
+    int length() {
+      return delegate.length();
+    }
+
+    @Override
+    public AdvisingAppendable append(CharSequence csq) {
+      delegate.append(csq);
+      return this;
+    }
+
+    @Override
+    public AdvisingAppendable append(CharSequence csq, int start, int end) {
+      delegate.append(csq, start, end);
+      return this;
+    }
+
+    @Override
+    public AdvisingAppendable append(char c) {
+      delegate.append(c);
+      return this;
+    }
+
+    @Override
+    public boolean softLimitReached() {
+      return false;
+    }
+  }
+}
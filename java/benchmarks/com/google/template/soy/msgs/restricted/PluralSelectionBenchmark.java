@@ -0,0 +1,95 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.msgs.restricted;
+
+import com.google.common.collect.ImmutableList;
+import com.google.template.soy.msgs.restricted.SoyMsgPart.Case;
+import com.google.template.soy.msgs.restricted.SoyMsgPluralCaseSpec.Type;
+import com.ibm.icu.util.ULocale;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures {@link SoyMsgPluralPart#lookupCase} for a translated plural with an explicit {@code =0}
+ * case and every plural category, as a notification count message would have.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class PluralSelectionBenchmark {
+
+  /** The number of plural values selected per benchmark invocation. */
+  private static final int VALUE_COUNT = 100;
+
+  @Param({"en", "ru", "ar", "pl", "ja"})
+  public String locale;
+
+  private ULocale uLocale;
+  private SoyMsgPluralPart part;
+  private final double[] smallCounts = new double[VALUE_COUNT];
+  private final double[] largeCounts = new double[VALUE_COUNT];
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    uLocale = new ULocale(locale);
+    ImmutableList.Builder<Case<SoyMsgPluralCaseSpec>> cases = ImmutableList.builder();
+    cases.add(Case.create(new SoyMsgPluralCaseSpec(0), text("none")));
+    for (Type type : Type.values()) {
+      if (type != Type.EXPLICIT) {
+        cases.add(Case.create(SoyMsgPluralCaseSpec.forType(type), text(type.name())));
+      }
+    }
+    part = new SoyMsgPluralPart("NUM", 0, cases.build());
+    for (int i = 0; i < VALUE_COUNT; i++) {
+      smallCounts[i] = i;
+      largeCounts[i] = 1_000_000 + i * 7919;
+    }
+  }
+
+  @Benchmark
+  public void smallCounts(Blackhole bh) {
+    for (double count : smallCounts) {
+      bh.consume(part.lookupCase(count, uLocale));
+    }
+  }
+
+  @Benchmark
+  public void largeCounts(Blackhole bh) {
+    for (double count : largeCounts) {
+      bh.consume(part.lookupCase(count, uLocale));
+    }
+  }
+
+  private static ImmutableList<SoyMsgPart> text(String text) {
+    return ImmutableList.of(SoyMsgRawTextPart.of(text));
+  }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.tofu;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.template.soy.SoyFileSet;
+import com.google.template.soy.msgs.SoyMsgBundle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput of {@link SoyTofu} rendering the same corpus as the SoySauce render
+ * benchmarks, with and without {@link SoyFileSet.Builder#setCompileTofuTemplates}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+@SuppressWarnings("deprecation") // SoyTofu is deprecated but still used without jbcsrc
+public class TofuRenderBenchmark {
+
+  private static final int CALL_DEPTH = 50;
+  private static final int LIST_SIZE = 1000;
+  private static final int MSG_COUNT = 200;
+  private static final int ESCAPED_VALUE_COUNT = 200;
+
+  @Param({"false", "true"})
+  public boolean compileTemplates;
+
+  private SoyTofu tofu;
+  private SoyMsgBundle msgBundle;
+
+  private Map<String, ?> deepCallsParams;
+  private Map<String, ?> forLoopParams;
+  private Map<String, ?> pluralMessagesParams;
+  private Map<String, ?> heavyEscapingParams;
+
+  private final StringBuilder output = new StringBuilder();
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    tofu = newFileSet().compileToTofu();
+    msgBundle = newFileSet().extractMsgs();
+
+    deepCallsParams = ImmutableMap.of("depth", CALL_DEPTH, "label", "leaf & <node>");
+
+    List<Map<String, ?>> rows = new ArrayList<>();
+    for (int i = 0; i < LIST_SIZE; i++) {
+      rows.add(
+          ImmutableMap.of(
+              "id",
+              i,
+              "name",
+              "Item #" + i,
+              "price",
+              i * 1.25,
+              "tags",
+              ImmutableList.of("red", "green", "blue")));
+    }
+    forLoopParams = ImmutableMap.of("rows", rows);
+
+    List<Integer> counts = new ArrayList<>();
+    for (int i = 0; i < MSG_COUNT; i++) {
+      counts.add(i % 4);
+    }
+    pluralMessagesParams = ImmutableMap.of("counts", counts, "userName", "O'Brien <admin>");
+
+    List<String> values = new ArrayList<>();
+    for (int i = 0; i < ESCAPED_VALUE_COUNT; i++) {
+      values.add("\"quoted\" <b>bold</b> & 'single' </script> javascript:alert(" + i + ")");
+    }
+    heavyEscapingParams = ImmutableMap.of("values", values);
+  }
+
+  private SoyFileSet newFileSet() {
+    return SoyFileSet.builder()
+        .add(
+            TofuRenderBenchmark.class.getResource(
+                "/com/google/template/soy/jbcsrc/api/render_benchmarks.soy"))
+        .setCompileTofuTemplates(compileTemplates)
+        .build();
+  }
+
+  @Benchmark
+  public int deepCalls() {
+    return render("render_benchmarks.deepCalls", deepCallsParams, /* msgs= */ null);
+  }
+
+  @Benchmark
+  public int forLoop() {
+    return render("render_benchmarks.forLoop", forLoopParams, /* msgs= */ null);
+  }
+
+  @Benchmark
+  public int pluralMessages() {
+    return render("render_benchmarks.pluralMessages", pluralMessagesParams, msgBundle);
+  }
+
+  @Benchmark
+  public int heavyEscaping() {
+    return render("render_benchmarks.heavyEscaping", heavyEscapingParams, /* msgs= */ null);
+  }
+
+  private int render(String templateName, Map<String, ?> params, SoyMsgBundle msgs) {
+    output.setLength(0);
+    SoyTofu.Renderer renderer = tofu.newRenderer(templateName).setData(params);
+    if (msgs != null) {
+      renderer.setMsgBundle(msgs);
+    }
+    renderer.renderHtml(output);
+    return output.length();
+  }
+}
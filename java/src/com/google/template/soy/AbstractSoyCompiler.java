@@ -63,6 +63,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 import org.kohsuke.args4j.Argument;
 import org.kohsuke.args4j.CmdLineException;
@@ -192,6 +193,14 @@ public abstract class AbstractSoyCompiler {
       usage = "Whether to allow generated source files without the blessed comment.")
   private boolean allowUnblessedGeneratedFiles = true;
 
+  @Option(
+      name = "--compilerThreads",
+      usage =
+          "The number of threads to use for the compilation work that runs on each file"
+              + " independently, such as single file passes and jbcsrc code generation. The"
+              + " default of 1 does all the work on the main thread.")
+  private int compilerThreads = 1;
+
   @Option(
       name = "--javaPackage",
       required = false,
@@ -229,10 +238,39 @@ public abstract class AbstractSoyCompiler {
   }
 
   final void runMain(String... args) {
-    int status = run(args, System.err);
+    int status;
+    if (SoyCompilerWorker.isPersistentWorker(args)) {
+      try {
+        status =
+            new SoyCompilerWorker(this::newInstance, pluginLoader)
+                .run(System.in, System.out, System.err);
+      } catch (IOException e) {
+        e.printStackTrace(System.err);
+        status = 1;
+      }
+    } else {
+      status = run(args, System.err);
+    }
     System.exit(status);
   }
 
+  /**
+   * Creates a new compiler of the same type as this one, for running as a persistent worker.
+   *
+   * <p>Flags are parsed into fields of the compiler, so every work request needs a fresh instance.
+   * All compilers have a {@code (PluginLoader, SoyInputCache)} constructor for this purpose.
+   */
+  private AbstractSoyCompiler newInstance(PluginLoader pluginLoader, SoyInputCache cache) {
+    try {
+      return getClass()
+          .getDeclaredConstructor(PluginLoader.class, SoyInputCache.class)
+          .newInstance(pluginLoader, cache);
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException(
+          getClass().getName() + " doesn't support running as a persistent worker", e);
+    }
+  }
+
   @CheckReturnValue
   public int run(final String[] args, PrintStream err) {
     try {
@@ -274,6 +312,9 @@ public abstract class AbstractSoyCompiler {
     }
 
     validateFlags();
+    if (compilerThreads < 1) {
+      exitWithError("--compilerThreads must be at least 1, got " + compilerThreads);
+    }
     if (!arguments.isEmpty()) {
       exitWithError(
           "Found unexpected extra arguments passed on the command line:\n  "
@@ -367,7 +408,18 @@ public abstract class AbstractSoyCompiler {
       sfsBuilder.disableOptimizer();
     }
 
-    compile(sfsBuilder);
+    ForkJoinPool compilerPool = null;
+    if (compilerThreads > 1) {
+      compilerPool = new ForkJoinPool(compilerThreads);
+      sfsBuilder.runFilePassesInParallel(compilerPool);
+    }
+    try {
+      compile(sfsBuilder);
+    } finally {
+      if (compilerPool != null) {
+        compilerPool.shutdown();
+      }
+    }
     timer.stop();
     // Unless the build is faster than 1 second, issue a warning if more than half of the build is
     // constructing the guice injector.  This often happens just because the modules install too
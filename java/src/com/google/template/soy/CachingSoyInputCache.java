@@ -0,0 +1,223 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.SetMultimap;
+import com.google.protobuf.ByteString;
+import com.google.template.soy.base.SourceFilePath;
+import com.google.template.soy.base.internal.ContentHashSoyFileSupplier;
+import com.google.template.soy.base.internal.SoyFileSupplier;
+import com.google.template.soy.shared.SoyAstCache;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link SoyInputCache} that keeps compiler inputs in memory across compilations, for long
+ * running processes like {@link SoyCompilerWorker}.
+ *
+ * <p>Each cached file is associated with a version. The version is the digest supplied by the
+ * build tool through {@link #startRequest} if there is one, and otherwise the file's modification
+ * time and length. Whenever a file's version changes, everything read from it is evicted, along
+ * with everything read from files that {@linkplain #declareDependency depend} on it. Files that
+ * none of the last {@value #DEFAULT_MAX_IDLE_REQUESTS} compilations read are evicted too, so that
+ * files of targets the worker no longer builds don't stay in memory.
+ *
+ * <p>This class is not thread safe; compilations using it must run one at a time.
+ */
+final class CachingSoyInputCache implements SoyInputCache {
+
+  /** The maximum number of AST nodes to keep in the {@link SoyAstCache}. */
+  private static final long MAX_CACHED_AST_NODES = 2_000_000;
+
+  /** The number of compilations after which a file that none of them read is evicted. */
+  static final int DEFAULT_MAX_IDLE_REQUESTS = 100;
+
+  private static final class Entry {
+    final Object version;
+    final Map<CacheLoader<?>, Object> values = new IdentityHashMap<>();
+    /** The number of the last compilation that read the file. */
+    long lastRequest;
+
+    Entry(Object version) {
+      this.version = version;
+    }
+  }
+
+  private final int maxIdleRequests;
+  private final Map<File, Entry> entries = new HashMap<>();
+  /** Maps a file to the files that depend on it. */
+  private final SetMultimap<File, File> dependents = HashMultimap.create();
+  /** Maps a file to the files it depends on, the inverse of {@link #dependents}. */
+  private final SetMultimap<File, File> dependencies = HashMultimap.create();
+
+  private final SoyAstCache astCache = SoyAstCache.withMaxNodeCount(MAX_CACHED_AST_NODES);
+  private ImmutableMap<File, ByteString> digests = ImmutableMap.of();
+  private long requestCount;
+  private long hitCount;
+  private long missCount;
+
+  CachingSoyInputCache() {
+    this(DEFAULT_MAX_IDLE_REQUESTS);
+  }
+
+  CachingSoyInputCache(int maxIdleRequests) {
+    this.maxIdleRequests = maxIdleRequests;
+  }
+
+  /**
+   * Prepares the cache for a new compilation, evicting everything read from files that changed
+   * since they were cached, or that no recent compilation read.
+   *
+   * @param digests The digests of the compilation's inputs, as supplied by the build tool. May be
+   *     empty, in which case file modification times are used instead.
+   */
+  void startRequest(ImmutableMap<File, ByteString> digests) {
+    this.digests = digests;
+    requestCount++;
+    for (Map.Entry<File, Entry> entry : ImmutableList.copyOf(entries.entrySet())) {
+      // a previous eviction may already have cascaded to this file
+      if (entries.get(entry.getKey()) == entry.getValue()
+          && (requestCount - entry.getValue().lastRequest > maxIdleRequests
+              || !entry.getValue().version.equals(currentVersion(entry.getKey())))) {
+        evict(entry.getKey());
+      }
+    }
+  }
+
+  @Override
+  public <T> T read(File file, CacheLoader<T> loader, SoyCompilerFileReader reader)
+      throws IOException {
+    Object version = currentVersion(file);
+    Entry entry = entries.get(file);
+    if (entry != null && !entry.version.equals(version)) {
+      evict(file);
+      entry = null;
+    }
+    if (entry == null) {
+      entry = new Entry(version);
+      entries.put(file, entry);
+    }
+    entry.lastRequest = requestCount;
+    @SuppressWarnings("unchecked") // values are only stored by the loader that produced them
+    T value = (T) entry.values.get(loader);
+    if (value != null) {
+      hitCount++;
+      return value;
+    }
+    missCount++;
+    value = loader.read(file, reader, this);
+    entry.values.put(loader, value);
+    return value;
+  }
+
+  @Override
+  public void declareDependency(File file, File dependency) {
+    dependents.put(dependency, file);
+    dependencies.put(file, dependency);
+  }
+
+  @Override
+  public SoyAstCache astCache() {
+    return astCache;
+  }
+
+  @Override
+  public SoyFileSupplier createFileSupplier(
+      File file, SourceFilePath pathToUse, SoyCompilerFileReader reader)
+      throws FileNotFoundException {
+    // Versioning sources by content means unchanged files hit the AST cache even if the build tool
+    // rewrote them.
+    return new ContentHashSoyFileSupplier(reader.read(file), pathToUse);
+  }
+
+  /** Returns the number of reads that were served from the cache. */
+  long hitCount() {
+    return hitCount;
+  }
+
+  /** Returns the number of reads that had to load the file. */
+  long missCount() {
+    return missCount;
+  }
+
+  private Object currentVersion(File file) {
+    ByteString digest = digests.get(file);
+    if (digest != null) {
+      return digest;
+    }
+    return new FileStamp(file.lastModified(), file.length());
+  }
+
+  private void evict(File file) {
+    Entry entry = entries.remove(file);
+    if (entry != null) {
+      for (Map.Entry<CacheLoader<?>, Object> value : entry.values.entrySet()) {
+        onEvict(value.getKey(), value.getValue());
+      }
+    }
+    // the file declares its dependencies again if it is read again
+    for (File dependency : dependencies.removeAll(file)) {
+      dependents.remove(dependency, file);
+    }
+    for (File dependent : dependents.removeAll(file)) {
+      evict(dependent);
+    }
+  }
+
+  @SuppressWarnings("unchecked") // values are only stored by the loader that produced them
+  private static <T> void onEvict(CacheLoader<T> loader, Object value) {
+    try {
+      loader.onEvict((T) value);
+    } catch (IOException e) {
+      // The value is no longer used, so there is nothing useful to do with the failure.
+    }
+  }
+
+  /** The version of a file that the build tool didn't supply a digest for. */
+  private static final class FileStamp {
+    final long lastModified;
+    final long length;
+
+    FileStamp(long lastModified, long length) {
+      this.lastModified = lastModified;
+      this.length = length;
+    }
+
+    @Override
+    public boolean equals(@Nullable Object o) {
+      if (!(o instanceof FileStamp)) {
+        return false;
+      }
+      FileStamp other = (FileStamp) o;
+      return lastModified == other.lastModified && length == other.length;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(lastModified, length);
+    }
+  }
+}
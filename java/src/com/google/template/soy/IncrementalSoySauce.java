@@ -0,0 +1,275 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy;
+
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSetMultimap;
+import com.google.template.soy.SoyFileSetParser.ParseResult;
+import com.google.template.soy.base.SourceFilePath;
+import com.google.template.soy.base.internal.SoyFileKind;
+import com.google.template.soy.base.internal.SoyFileSupplier;
+import com.google.template.soy.error.SoyCompilationException;
+import com.google.template.soy.jbcsrc.RecompilableTemplates;
+import com.google.template.soy.jbcsrc.api.SoySauce;
+import com.google.template.soy.plugin.java.PluginInstances;
+import com.google.template.soy.shared.SoyAstCache;
+import com.google.template.soy.soytree.CompilationUnit;
+import com.google.template.soy.soytree.ImportNode;
+import com.google.template.soy.soytree.Metadata.CompilationUnitAndKind;
+import com.google.template.soy.soytree.SoyFileNode;
+import com.google.template.soy.soytree.SoyFileP;
+import com.google.template.soy.soytree.TemplateMetadataSerializer;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.Nullable;
+
+/**
+ * Templates compiled by {@link SoyFileSet#compileTemplatesIncrementally}, which can be compiled
+ * again when some of their files change.
+ *
+ * <p>{@link #recompile} parses and checks only the changed files, against the headers of the
+ * other files, and generates classes only for them. The classes of the other files are reused, so
+ * the cost of an edit is proportional to the size of the edited files rather than of the whole
+ * file set. If the header of a changed file changes, for example because a template gained a
+ * parameter, the files that import it are compiled again as well.
+ *
+ * <p>This class is thread safe. Renders can use {@link #soySauce} while another thread calls
+ * {@link #recompile}, and the new templates replace the old ones atomically once they compile.
+ */
+public final class IncrementalSoySauce {
+
+  static IncrementalSoySauce create(SoyFileSet fileSet, PluginInstances pluginInstances) {
+    // The files that are compiled again are parsed again whenever the set grows, so a cache is
+    // worth having even if the file set doesn't have one.
+    SoyAstCache cache =
+        fileSet.getSoyAstCache() != null ? fileSet.getSoyAstCache() : new SoyAstCache();
+    IncrementalSoySauce sauce = new IncrementalSoySauce(fileSet, pluginInstances, cache);
+    ImmutableMap<SourceFilePath, SoyFileSupplier> files = fileSet.getSoyFileSuppliers();
+    SoyFileSet allFiles = fileSet.withFiles(files, ImmutableList.of(), cache);
+    ParseResult result = allFiles.parseForRecompilation();
+    sauce.current =
+        sauce.newGeneration(
+            files,
+            /* previous= */ null,
+            result,
+            headers(result),
+            allFiles.recompileTemplates(result, /* previous= */ null, ImmutableSet.of()));
+    return sauce;
+  }
+
+  /** The templates of one compilation, and what the next compilation needs to know about them. */
+  private static final class Generation {
+    final ImmutableMap<SourceFilePath, SoyFileSupplier> files;
+    /** The header of every file, which is what other files can depend on. */
+    final ImmutableMap<SourceFilePath, SoyFileP> headers;
+    /** The files that import each file. */
+    final ImmutableSetMultimap<SourceFilePath, SourceFilePath> importers;
+
+    final RecompilableTemplates templates;
+    final SoySauce soySauce;
+    /** The files that were compiled for this generation. */
+    final ImmutableSet<SourceFilePath> compiledFiles;
+
+    Generation(
+        ImmutableMap<SourceFilePath, SoyFileSupplier> files,
+        ImmutableMap<SourceFilePath, SoyFileP> headers,
+        ImmutableSetMultimap<SourceFilePath, SourceFilePath> importers,
+        RecompilableTemplates templates,
+        SoySauce soySauce,
+        ImmutableSet<SourceFilePath> compiledFiles) {
+      this.files = files;
+      this.headers = headers;
+      this.importers = importers;
+      this.templates = templates;
+      this.soySauce = soySauce;
+      this.compiledFiles = compiledFiles;
+    }
+  }
+
+  /** The file set with the options to compile with. */
+  private final SoyFileSet options;
+
+  private final PluginInstances pluginInstances;
+  private final SoyAstCache cache;
+
+  /** The last successful compilation, which is only replaced while holding the lock. */
+  private volatile Generation current;
+
+  private IncrementalSoySauce(
+      SoyFileSet options, PluginInstances pluginInstances, SoyAstCache cache) {
+    this.options = options;
+    this.pluginInstances = pluginInstances;
+    this.cache = cache;
+  }
+
+  /** Returns the templates of the last successful compilation. */
+  public SoySauce soySauce() {
+    return current.soySauce;
+  }
+
+  /**
+   * Compiles the templates again with the given files replaced, or added if they are new.
+   *
+   * @return The new templates, which are also returned by {@link #soySauce} from now on.
+   * @throws SoyCompilationException If compilation fails, in which case {@link #soySauce} keeps
+   *     returning the previous templates.
+   */
+  public SoySauce recompile(Iterable<? extends SoyFileSupplier> changedFiles) {
+    return recompile(changedFiles, ImmutableList.of());
+  }
+
+  /**
+   * Compiles the templates again with the given files replaced, or added if they are new, and the
+   * given files removed.
+   *
+   * @return The new templates, which are also returned by {@link #soySauce} from now on.
+   * @throws SoyCompilationException If compilation fails, in which case {@link #soySauce} keeps
+   *     returning the previous templates.
+   */
+  public synchronized SoySauce recompile(
+      Iterable<? extends SoyFileSupplier> changedFiles, Iterable<SourceFilePath> removedFiles) {
+    Generation previous = current;
+    Map<SourceFilePath, SoyFileSupplier> files = new LinkedHashMap<>(previous.files);
+    Set<SourceFilePath> removed = ImmutableSet.copyOf(removedFiles);
+    files.keySet().removeAll(removed);
+    Set<SourceFilePath> toCompile = new LinkedHashSet<>();
+    for (SoyFileSupplier file : changedFiles) {
+      files.put(file.getFilePath(), file);
+      toCompile.add(file.getFilePath());
+      // Suppliers of in memory content don't necessarily have a new version.
+      cache.evict(file.getFilePath());
+    }
+    for (SourceFilePath path : removed) {
+      addImporters(previous, path, files, toCompile);
+    }
+
+    while (true) {
+      SoyFileSet fileSet =
+          options.withFiles(
+              files.entrySet().stream()
+                  .filter(e -> toCompile.contains(e.getKey()))
+                  .collect(toImmutableMap(Map.Entry::getKey, Map.Entry::getValue)),
+              dependencies(previous, files.keySet(), toCompile),
+              cache);
+      ParseResult result = fileSet.parseForRecompilation();
+      Map<SourceFilePath, SoyFileP> headers = headers(result);
+      boolean compileMore = false;
+      for (Map.Entry<SourceFilePath, SoyFileP> header : headers.entrySet()) {
+        if (!header.getValue().equals(previous.headers.get(header.getKey()))) {
+          compileMore |= addImporters(previous, header.getKey(), files, toCompile);
+        }
+      }
+      if (!compileMore) {
+        RecompilableTemplates templates =
+            fileSet.recompileTemplates(result, previous.templates, removed);
+        current =
+            newGeneration(ImmutableMap.copyOf(files), previous, result, headers, templates);
+        return current.soySauce;
+      }
+    }
+  }
+
+  /** Returns the files that were compiled by the last call to {@link #recompile}. */
+  @VisibleForTesting
+  ImmutableSet<SourceFilePath> lastCompiledFiles() {
+    return current.compiledFiles;
+  }
+
+  /** Adds the files that import {@code path} to {@code toCompile}. Returns true if any are new. */
+  private static boolean addImporters(
+      Generation previous,
+      SourceFilePath path,
+      Map<SourceFilePath, SoyFileSupplier> files,
+      Set<SourceFilePath> toCompile) {
+    boolean added = false;
+    for (SourceFilePath importer : previous.importers.get(path)) {
+      if (files.containsKey(importer)) {
+        added |= toCompile.add(importer);
+      }
+    }
+    return added;
+  }
+
+  /** Returns the headers of the files that aren't compiled, as a dependency of those that are. */
+  private static ImmutableList<CompilationUnitAndKind> dependencies(
+      Generation previous, Set<SourceFilePath> files, Set<SourceFilePath> toCompile) {
+    CompilationUnit.Builder unit = CompilationUnit.newBuilder();
+    for (SourceFilePath path : files) {
+      if (!toCompile.contains(path)) {
+        unit.addFile(previous.headers.get(path));
+      }
+    }
+    return unit.getFileCount() == 0
+        ? ImmutableList.of()
+        : ImmutableList.of(CompilationUnitAndKind.create(SoyFileKind.DEP, unit.build()));
+  }
+
+  /** Returns the headers of the files that were parsed. */
+  private static Map<SourceFilePath, SoyFileP> headers(ParseResult result) {
+    List<SoyFileNode> fileNodes = result.fileSet().getChildren();
+    List<SoyFileP> fileHeaders =
+        TemplateMetadataSerializer.compilationUnitFromFileSet(result.fileSet(), result.registry())
+            .getFileList();
+    Map<SourceFilePath, SoyFileP> headers = new LinkedHashMap<>();
+    for (int i = 0; i < fileNodes.size(); i++) {
+      headers.put(fileNodes.get(i).getFilePath(), fileHeaders.get(i));
+    }
+    return headers;
+  }
+
+  private Generation newGeneration(
+      ImmutableMap<SourceFilePath, SoyFileSupplier> files,
+      @Nullable Generation previous,
+      ParseResult result,
+      Map<SourceFilePath, SoyFileP> compiledHeaders,
+      RecompilableTemplates templates) {
+    Map<SourceFilePath, SoyFileP> headers = new HashMap<>();
+    ImmutableSetMultimap.Builder<SourceFilePath, SourceFilePath> importers =
+        ImmutableSetMultimap.builder();
+    if (previous != null) {
+      headers.putAll(previous.headers);
+      previous.importers.forEach(
+          (imported, importer) -> {
+            if (files.containsKey(importer) && !compiledHeaders.containsKey(importer)) {
+              importers.put(imported, importer);
+            }
+          });
+    }
+    headers.putAll(compiledHeaders);
+    for (SoyFileNode file : result.fileSet().getChildren()) {
+      for (ImportNode importNode : file.getImports()) {
+        importers.put(importNode.getSourceFilePath(), file.getFilePath());
+      }
+    }
+    return new Generation(
+        files,
+        files.keySet().stream().collect(toImmutableMap(path -> path, headers::get)),
+        importers.build(),
+        templates,
+        options.newSoySauce(templates.templates(), pluginInstances),
+        ImmutableSet.copyOf(compiledHeaders.keySet()));
+  }
+}
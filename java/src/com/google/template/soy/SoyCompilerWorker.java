@@ -0,0 +1,149 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableMap;
+import com.google.protobuf.ByteString;
+import com.google.template.soy.worker.Input;
+import com.google.template.soy.worker.WorkRequest;
+import com.google.template.soy.worker.WorkResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.function.BiFunction;
+
+/**
+ * Runs a Soy compiler as a Bazel persistent worker.
+ *
+ * <p>A worker is started with the {@code --persistent_worker} flag, and then reads {@link
+ * WorkRequest}s from stdin and writes a {@link WorkResponse} to stdout for each one. Each request
+ * is compiled by a new compiler instance, but all of them share one {@link PluginLoader} and one
+ * {@link CachingSoyInputCache}, so the JIT, loaded plugin classes, proto descriptors, compilation
+ * units and parsed Soy files all stay warm from one request to the next.
+ *
+ * <p>Requests are handled one at a time. The time taken by each request, along with cache
+ * statistics, is logged to stderr (which build tools typically write to a worker log), and is added
+ * to the response output when the request asks for verbose output.
+ */
+final class SoyCompilerWorker {
+  /** The flag that build tools pass to request the persistent worker protocol. */
+  static final String PERSISTENT_WORKER_FLAG = "--persistent_worker";
+
+  private final BiFunction<PluginLoader, SoyInputCache, AbstractSoyCompiler> compilerFactory;
+  private final PluginLoader pluginLoader;
+  private final CachingSoyInputCache cache = new CachingSoyInputCache();
+  private int requestCount;
+
+  SoyCompilerWorker(
+      BiFunction<PluginLoader, SoyInputCache, AbstractSoyCompiler> compilerFactory,
+      PluginLoader pluginLoader) {
+    this.compilerFactory = compilerFactory;
+    this.pluginLoader = pluginLoader;
+  }
+
+  /**
+   * Handles requests until {@code in} is closed.
+   *
+   * @return The exit status for the worker process.
+   */
+  int run(InputStream in, OutputStream out, PrintStream log) throws IOException {
+    // Compilers may print to System.out, which would corrupt the protocol stream, so send anything
+    // they print to the log instead.
+    PrintStream originalOut = System.out;
+    System.setOut(log);
+    try {
+      WorkRequest request;
+      while ((request = WorkRequest.parseDelimitedFrom(in)) != null) {
+        handle(request, log).writeDelimitedTo(out);
+        out.flush();
+      }
+      return 0;
+    } finally {
+      System.setOut(originalOut);
+    }
+  }
+
+  WorkResponse handle(WorkRequest request, PrintStream log) {
+    Stopwatch timer = Stopwatch.createStarted();
+    long astHits = cache.astCache().hitCount();
+    long astMisses = cache.astCache().missCount();
+    long inputHits = cache.hitCount();
+    long inputMisses = cache.missCount();
+    requestCount++;
+
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    PrintStream err = new PrintStream(output, /* autoFlush= */ true);
+    int exitCode;
+    try {
+      cache.startRequest(digests(request));
+      exitCode =
+          compilerFactory
+              .apply(pluginLoader, cache)
+              .run(request.getArgumentsList().toArray(new String[0]), err);
+    } catch (RuntimeException e) {
+      // run() reports compilation failures itself, so this is a bug in the worker.
+      e.printStackTrace(err);
+      exitCode = 1;
+    }
+    timer.stop();
+
+    String timing =
+        String.format(
+            "Soy worker request #%d finished in %s (exit code %d). Input cache: %d hits, %d misses;"
+                + " AST cache: %d hits, %d misses.",
+            requestCount,
+            timer,
+            exitCode,
+            cache.hitCount() - inputHits,
+            cache.missCount() - inputMisses,
+            cache.astCache().hitCount() - astHits,
+            cache.astCache().missCount() - astMisses);
+    log.println(timing);
+    if (request.getVerbosity() > 0) {
+      err.println(timing);
+    }
+    return WorkResponse.newBuilder()
+        .setExitCode(exitCode)
+        .setOutput(output.toString())
+        .setRequestId(request.getRequestId())
+        .build();
+  }
+
+  private static ImmutableMap<File, ByteString> digests(WorkRequest request) {
+    ImmutableMap.Builder<File, ByteString> digests = ImmutableMap.builder();
+    for (Input input : request.getInputsList()) {
+      if (!input.getDigest().isEmpty()) {
+        digests.put(new File(input.getPath()), input.getDigest());
+      }
+    }
+    return digests.buildKeepingLast();
+  }
+
+  /** Returns true if the arguments ask for the process to run as a persistent worker. */
+  static boolean isPersistentWorker(String... args) {
+    for (String arg : args) {
+      if (arg.equals(PERSISTENT_WORKER_FLAG)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
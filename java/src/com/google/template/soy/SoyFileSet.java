@@ -47,6 +47,7 @@ import com.google.template.soy.incrementaldomsrc.SoyIncrementalDomSrcOptions;
 import com.google.template.soy.javagencode.GenerateBuildersVisitor;
 import com.google.template.soy.javagencode.GenerateParseInfoVisitor;
 import com.google.template.soy.jbcsrc.BytecodeCompiler;
+import com.google.template.soy.jbcsrc.RecompilableTemplates;
 import com.google.template.soy.jbcsrc.api.SoySauce;
 import com.google.template.soy.jbcsrc.api.SoySauceImpl;
 import com.google.template.soy.jbcsrc.shared.CompiledTemplates;
@@ -100,6 +101,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -168,6 +170,10 @@ public final class SoyFileSet {
 
     private boolean optimize = true;
 
+    private boolean compileTofuTemplates = false;
+
+    @Nullable private ForkJoinPool filePassPool;
+
     private MethodChecker javaPluginValidator =
         (className, methodName, returnType, arguments) -> Response.error(Code.NO_SUCH_CLASS);
 
@@ -223,7 +229,7 @@ public final class SoyFileSet {
       SoyScopedData data = new SoySimpleScope();
       return new SoyFileSet(
           data,
-          typeRegistryBuilder.build(),
+          typeRegistryBuilder::build,
           ImmutableList.<SoyFunction>builder()
               .addAll(InternalPlugins.internalLegacyFunctions())
               .addAll(soyFunctions.build())
@@ -251,7 +257,9 @@ public final class SoyFileSet {
           optimize,
           generatedPathsToCheck,
           cssRegistry,
-          javaPluginValidator);
+          javaPluginValidator,
+          filePassPool,
+          compileTofuTemplates);
     }
 
     @CanIgnoreReturnValue
@@ -582,10 +590,41 @@ public final class SoyFileSet {
       this.skipPluginValidation = skipPluginValidation;
       return this;
     }
+
+    /**
+     * Parses files and runs the compiler passes that only look at a single file concurrently on the
+     * given pool. This can speed up compiling large file sets considerably. When compiling to a jar,
+     * the bytecode for each file is also generated on the pool.
+     *
+     * <p>Errors are still reported in a deterministic order. By default everything runs on the
+     * calling thread.
+     */
+    @CanIgnoreReturnValue
+    public Builder runFilePassesInParallel(ForkJoinPool pool) {
+      this.filePassPool = checkNotNull(pool);
+      return this;
+    }
+
+    /**
+     * Sets whether {@link #compileToTofu} compiles each template to a tree of closures the first
+     * time it is rendered, rather than walking the template AST on every render. Defaults to false.
+     *
+     * <p>The output is the same either way. Compiled templates render somewhat faster, since
+     * control flow and most expressions no longer go through the visitors, but escaping, calls and
+     * messages cost the same. The closures are held for as long as the {@code SoyTofu}.
+     */
+    @CanIgnoreReturnValue
+    public Builder setCompileTofuTemplates(boolean compileTofuTemplates) {
+      this.compileTofuTemplates = compileTofuTemplates;
+      return this;
+    }
   }
 
   private final SoyScopedData scopedData;
 
+  /** Creates the type registry, which holds types that are specific to one compilation. */
+  private final Supplier<SoyTypeRegistry> typeRegistries;
+
   private final SoyTypeRegistry typeRegistry;
   private final ImmutableMap<SourceFilePath, SoyFileSupplier> soyFileSuppliers;
   private final ImmutableList<CompilationUnitAndKind> compilationUnits;
@@ -609,6 +648,8 @@ public final class SoyFileSet {
   private final boolean optimize;
   private final ImmutableSet<SourceFilePath> generatedPathsToCheck;
   private final MethodChecker javaMethodChecker;
+  @Nullable private final ForkJoinPool filePassPool;
+  private final boolean compileTofuTemplates;
 
   /** For reporting errors during parsing. */
   private ErrorReporter errorReporter;
@@ -617,7 +658,7 @@ public final class SoyFileSet {
 
   SoyFileSet(
       SoyScopedData apiCallScopeProvider,
-      SoyTypeRegistry typeRegistry,
+      Supplier<SoyTypeRegistry> typeRegistries,
       ImmutableList<SoyFunction> soyFunctions,
       ImmutableList<SoyPrintDirective> printDirectives,
       ImmutableList<SoySourceFunctionDescriptor> soySourceFunctions,
@@ -633,9 +674,12 @@ public final class SoyFileSet {
       boolean optimize,
       Set<SourceFilePath> generatedPathsToCheck,
       Optional<CssRegistry> cssRegistry,
-      MethodChecker javaMethodChecker) {
+      MethodChecker javaMethodChecker,
+      @Nullable ForkJoinPool filePassPool,
+      boolean compileTofuTemplates) {
     this.scopedData = apiCallScopeProvider;
-    this.typeRegistry = typeRegistry;
+    this.typeRegistries = typeRegistries;
+    this.typeRegistry = typeRegistries.get();
     this.soyFileSuppliers = soyFileSuppliers;
     this.compilationUnits = compilationUnits;
     this.cache = cache;
@@ -652,6 +696,8 @@ public final class SoyFileSet {
     this.generatedPathsToCheck = ImmutableSet.copyOf(generatedPathsToCheck);
     this.cssRegistry = cssRegistry;
     this.javaMethodChecker = javaMethodChecker;
+    this.filePassPool = filePassPool;
+    this.compileTofuTemplates = compileTofuTemplates;
   }
 
   /** Returns the list of suppliers for the input Soy files. For testing use only! */
@@ -908,7 +954,10 @@ public final class SoyFileSet {
       ServerCompilationPrimitives primitives,
       Map<String, ? extends Supplier<Object>> pluginInstances) {
     return new BaseTofu(
-        scopedData.enterable(), primitives.soyTree, PluginInstances.of(pluginInstances));
+        scopedData.enterable(),
+        primitives.soyTree,
+        PluginInstances.of(pluginInstances),
+        compileTofuTemplates);
   }
 
   /**
@@ -950,6 +999,129 @@ public final class SoyFileSet {
         });
   }
 
+  /**
+   * Compiles this Soy file set into a set of java classes implementing the {@link SoySauce}
+   * interface, which can be compiled again when some of the files change.
+   *
+   * <p>This is meant for 'edit refresh' workflows in development servers. Rather than parsing and
+   * compiling all the files again after an edit, {@link IncrementalSoySauce#recompile} compiles
+   * only the changed files, against the headers of the other files, and reuses the classes already
+   * generated for them.
+   *
+   * @return The compiled templates, and the means to compile them again
+   * @throws SoyCompilationException If compilation fails.
+   */
+  public IncrementalSoySauce compileTemplatesIncrementally() {
+    return compileTemplatesIncrementally(ImmutableMap.of());
+  }
+
+  /**
+   * Like {@link #compileTemplatesIncrementally()}, with instances for the plugins that need them.
+   *
+   * @throws SoyCompilationException If compilation fails.
+   */
+  public IncrementalSoySauce compileTemplatesIncrementally(
+      Map<String, ? extends Supplier<Object>> pluginInstances) {
+    return IncrementalSoySauce.create(this, PluginInstances.of(pluginInstances));
+  }
+
+  /** Parses and checks this file set for {@link #recompileTemplates}. */
+  ParseResult parseForRecompilation() {
+    return entryPoint(
+        () -> {
+          ParseResult result = parse();
+          throwIfErrorsPresent();
+          return result;
+        });
+  }
+
+  /**
+   * Like {@link #compileTemplates}, but compiles only the files of this file set, against the
+   * headers in its compilation units, and reuses the classes of {@code previous} for the other
+   * files.
+   *
+   * @param parseResult The result of {@link #parseForRecompilation}.
+   * @param previous The templates to compile again, or null to compile all the files.
+   * @param removedFiles Files of {@code previous} that no longer exist.
+   */
+  RecompilableTemplates recompileTemplates(
+      ParseResult parseResult,
+      @Nullable RecompilableTemplates previous,
+      Set<SourceFilePath> removedFiles) {
+    return entryPoint(
+        () -> {
+          Optional<RecompilableTemplates> templates =
+              previous == null
+                  ? BytecodeCompiler.compileForRecompilation(
+                      parseResult.registry(),
+                      parseResult.fileSet(),
+                      errorReporter,
+                      soyFileSuppliers,
+                      typeRegistry)
+                  : previous.recompile(
+                      parseResult.registry(),
+                      parseResult.fileSet(),
+                      removedFiles,
+                      errorReporter,
+                      soyFileSuppliers,
+                      typeRegistry);
+          throwIfErrorsPresent();
+          return templates.get();
+        });
+  }
+
+  /** Returns a {@link SoySauce} for templates compiled from this file set. */
+  SoySauce newSoySauce(CompiledTemplates templates, PluginInstances pluginInstances) {
+    return new SoySauceImpl(
+        templates, scopedData.enterable(), soyFunctions, printDirectives, pluginInstances);
+  }
+
+  /**
+   * Returns a file set with the same options as this one, which compiles {@code files} with {@code
+   * dependencies} in addition to the compilation units of this file set.
+   *
+   * <p>The new file set has its own type registry, since the types of templates are interned in it
+   * and would otherwise keep their signatures from the first compilation.
+   */
+  SoyFileSet withFiles(
+      ImmutableMap<SourceFilePath, SoyFileSupplier> files,
+      Iterable<CompilationUnitAndKind> dependencies,
+      SoyAstCache cache) {
+    return new SoyFileSet(
+        scopedData,
+        typeRegistries,
+        soyFunctions,
+        printDirectives,
+        soySourceFunctions,
+        soyMethods,
+        files,
+        ImmutableList.<CompilationUnitAndKind>builder()
+            .addAll(compilationUnits)
+            .addAll(dependencies)
+            .build(),
+        generalOptions,
+        cache,
+        conformanceConfig,
+        warningSink,
+        pluginRuntimeJars,
+        skipPluginValidation,
+        optimize,
+        generatedPathsToCheck,
+        cssRegistry,
+        javaMethodChecker,
+        filePassPool,
+        compileTofuTemplates);
+  }
+
+  @Nullable
+  SoyAstCache getSoyAstCache() {
+    return cache;
+  }
+
+  ImmutableMap<SourceFilePath, SoyFileSupplier> getSoyFileSuppliers() {
+    return soyFileSuppliers;
+  }
+
   public CssRegistry getCssRegistry() {
     return cssRegistry.get();
   }
@@ -967,7 +1139,12 @@ public final class SoyFileSet {
           ServerCompilationPrimitives primitives = compileForServerRendering();
           try {
             BytecodeCompiler.compileToJar(
-                primitives.soyTree, errorReporter, typeRegistry, jarTarget, primitives.registry);
+                primitives.soyTree,
+                errorReporter,
+                typeRegistry,
+                jarTarget,
+                primitives.registry,
+                Optional.ofNullable(filePassPool));
             if (srcJarTarget.isPresent()) {
               BytecodeCompiler.writeSrcJar(
                   primitives.soyTree, soyFileSuppliers, srcJarTarget.get());
@@ -987,8 +1164,7 @@ public final class SoyFileSet {
 
     throwIfErrorsPresent();
 
-    return new SoySauceImpl(
-        templates.get(), scopedData.enterable(), soyFunctions, printDirectives, pluginInstances);
+    return newSoySauce(templates.get(), pluginInstances);
   }
 
   /**
@@ -1257,16 +1433,21 @@ public final class SoyFileSet {
   }
 
   private PassManager.Builder passManagerBuilder() {
-    return new PassManager.Builder()
-        .setGeneralOptions(generalOptions)
-        .optimize(optimize)
-        .setGeneratedPathsToCheck(generatedPathsToCheck)
-        .setSoyPrintDirectives(printDirectives)
-        .setCssRegistry(cssRegistry)
-        .setErrorReporter(errorReporter)
-        .setJavaPluginValidator(javaMethodChecker)
-        .setConformanceConfig(conformanceConfig)
-        .setPluginResolver(buildPluginResolver());
+    PassManager.Builder builder =
+        new PassManager.Builder()
+            .setGeneralOptions(generalOptions)
+            .optimize(optimize)
+            .setGeneratedPathsToCheck(generatedPathsToCheck)
+            .setSoyPrintDirectives(printDirectives)
+            .setCssRegistry(cssRegistry)
+            .setErrorReporter(errorReporter)
+            .setJavaPluginValidator(javaMethodChecker)
+            .setConformanceConfig(conformanceConfig)
+            .setPluginResolver(buildPluginResolver());
+    if (filePassPool != null) {
+      builder.runFilePassesInParallel(filePassPool);
+    }
+    return builder;
   }
 
   private PluginResolver buildPluginResolver() {
@@ -27,6 +27,7 @@ import com.google.template.soy.base.internal.IncrementingIdGenerator;
 import com.google.template.soy.base.internal.SoyFileSupplier;
 import com.google.template.soy.css.CssRegistry;
 import com.google.template.soy.error.ErrorReporter;
+import com.google.template.soy.error.ErrorReporter.DeferredReports;
 import com.google.template.soy.passes.PassManager;
 import com.google.template.soy.shared.SoyAstCache;
 import com.google.template.soy.soyparse.SoyFileParser;
@@ -39,7 +40,13 @@ import com.google.template.soy.soytree.SoyTreeUtils;
 import com.google.template.soy.types.SoyTypeRegistry;
 import java.io.IOException;
 import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import javax.annotation.Nullable;
 
 /**
@@ -168,24 +175,13 @@ public abstract class SoyFileSetParser {
     // help with assigning unique names in the js and python backends.  We should just move this
     // into those backends
     FixedIdGenerator fixedIdGenerator = new FixedIdGenerator(-1);
-    for (SoyFileSupplier fileSupplier : soyFileSuppliers().values()) {
-      SoyFileSupplier.Version version = fileSupplier.getVersion();
-      SoyFileNode node = cache() != null ? cache().get(fileSupplier.getFilePath(), version) : null;
+    for (SoyFileNode node : parseFiles(fixedIdGenerator)) {
+      // TODO(b/19269289): implement error recovery and keep on trucking in order to display
+      // as many errors as possible. Currently, the later passes just spew NPEs if run on
+      // a malformed parse tree.
       if (node == null) {
-        node = parseSoyFileHelper(fileSupplier, fixedIdGenerator);
-        // TODO(b/19269289): implement error recovery and keep on trucking in order to display
-        // as many errors as possible. Currently, the later passes just spew NPEs if run on
-        // a malformed parse tree.
-        if (node == null) {
-          filesWereSkipped = true;
-          continue;
-        }
-        // Run passes that are considered part of initial parsing.
-        passManager().runParsePasses(node, fixedIdGenerator);
-        // Run passes that check the tree.
-        if (cache() != null) {
-          cache().put(fileSupplier.getFilePath(), version, node);
-        }
+        filesWereSkipped = true;
+        continue;
       }
       // Make a copy here and assign ids.
       // We need to make a copy because we may have stored a version in the cache or taken a version
@@ -212,6 +208,82 @@ public abstract class SoyFileSetParser {
     return ParseResult.create(soyTree, Optional.ofNullable(finalFileSetMetadata), cssRegistry());
   }
 
+  /**
+   * Parses all the files, or gets them from the cache, in the order of {@link #soyFileSuppliers}.
+   * Files that failed to parse are {@code null}.
+   */
+  private List<SoyFileNode> parseFiles(FixedIdGenerator nodeIdGen) throws IOException {
+    ImmutableList<SoyFileSupplier> fileSuppliers = soyFileSuppliers().values().asList();
+    ForkJoinPool pool = passManager().getFilePassPool().orElse(null);
+    if (pool == null || fileSuppliers.size() < 2) {
+      List<SoyFileNode> files = new ArrayList<>(fileSuppliers.size());
+      for (SoyFileSupplier fileSupplier : fileSuppliers) {
+        files.add(parseOrGetCached(fileSupplier, nodeIdGen));
+      }
+      return files;
+    }
+    // Parse concurrently, but commit the errors in file order so they are reported exactly as if
+    // the files had been parsed one after the other. Ids are assigned afterwards, so they don't
+    // depend on the order either.
+    SoyFileNode[] files = new SoyFileNode[fileSuppliers.size()];
+    List<ForkJoinTask<DeferredReports>> tasks = new ArrayList<>(fileSuppliers.size());
+    for (int i = 0; i < fileSuppliers.size(); i++) {
+      int index = i;
+      tasks.add(
+          pool.submit(
+              () ->
+                  errorReporter()
+                      .deferReports(
+                          () -> {
+                            try {
+                              files[index] = parseOrGetCached(fileSuppliers.get(index), nodeIdGen);
+                            } catch (IOException e) {
+                              throw new UncheckedIOException(e);
+                            }
+                          })));
+    }
+    try {
+      for (ForkJoinTask<DeferredReports> task : tasks) {
+        task.join().commit();
+      }
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+    return Arrays.asList(files);
+  }
+
+  /**
+   * Parses one Soy file and runs the parse passes on it, unless an up to date version is cached.
+   * Returns {@code null} if the file couldn't be parsed.
+   */
+  @Nullable
+  private SoyFileNode parseOrGetCached(SoyFileSupplier fileSupplier, IdGenerator nodeIdGen)
+      throws IOException {
+    SoyFileSupplier.Version version = null;
+    SoyFileNode node = null;
+    // Only ask for the version if there is a cache, since computing it can require reading the file.
+    if (cache() != null) {
+      // Parse from a snapshot so that the AST is cached under the version of the content it was
+      // parsed from, even if the file changes concurrently.
+      fileSupplier = fileSupplier.snapshot();
+      version = fileSupplier.getVersion();
+      node = cache().get(fileSupplier.getFilePath(), version);
+    }
+    if (node == null) {
+      node = parseSoyFileHelper(fileSupplier, nodeIdGen);
+      if (node == null) {
+        return null;
+      }
+      // Run passes that are considered part of initial parsing.
+      passManager().runParsePasses(node, nodeIdGen);
+      // Run passes that check the tree.
+      if (cache() != null) {
+        cache().put(fileSupplier.getFilePath(), version, node);
+      }
+    }
+    return node;
+  }
+
   /**
    * Private helper for {@code parseWithVersions()} to parse one Soy file.
    *
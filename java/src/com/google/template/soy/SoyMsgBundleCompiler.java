@@ -0,0 +1,81 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy;
+
+import com.google.common.io.Files;
+import com.google.template.soy.msgs.SoyMsgBundle;
+import com.google.template.soy.msgs.SoyMsgBundleHandler;
+import com.google.template.soy.msgs.SoyMsgPlugin;
+import com.google.template.soy.xliffmsgplugin.XliffMsgPlugin;
+import java.io.File;
+import java.io.IOException;
+import org.kohsuke.args4j.Option;
+
+/**
+ * Executable for converting a translated messages file into the compiled message bundle format,
+ * which can be memory-mapped at runtime with {@link SoyMsgBundleHandler#createFromCompiledFile}.
+ */
+public final class SoyMsgBundleCompiler extends AbstractSoyCompiler {
+
+  @Option(
+      name = "--translationFile",
+      required = true,
+      usage = "The path to the translated messages file to convert, for example an XLIFF file.")
+  private File translationFile;
+
+  @Option(
+      name = "--outputFile",
+      required = true,
+      usage =
+          "The path to the compiled messages file to write. If a file already exists at this"
+              + " location, it will be overwritten.")
+  private File outputFile;
+
+  @Option(
+      name = "--messagePlugin",
+      usage =
+          "Specifies the full class name of a SoyMsgPlugin that parses --translationFile. If not"
+              + " specified, the default is com.google.template.soy.xliffmsgplugin.XliffMsgPlugin.")
+  private SoyMsgPlugin messagePlugin = new XliffMsgPlugin();
+
+  /**
+   * Converts a translated messages file into a compiled message bundle.
+   *
+   * @param args Should contain command-line flags.
+   */
+  public static void main(String... args) {
+    new SoyMsgBundleCompiler().runMain(args);
+  }
+
+  SoyMsgBundleCompiler(PluginLoader loader, SoyInputCache cache) {
+    super(loader, cache);
+  }
+
+  SoyMsgBundleCompiler() {}
+
+  @Override
+  boolean requireSources() {
+    return false;
+  }
+
+  @Override
+  protected void compile(SoyFileSet.Builder sfsBuilder) throws IOException {
+    SoyMsgBundleHandler handler = new SoyMsgBundleHandler(messagePlugin);
+    SoyMsgBundle bundle = handler.createFromFile(translationFile);
+    handler.writeCompiledMsgs(bundle, Files.asByteSink(outputFile));
+  }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.base.internal;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteSource;
+import com.google.template.soy.base.SourceFilePath;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+
+/**
+ * Record for one input Soy file whose {@link Version} is a hash of the file content.
+ *
+ * <p>Unlike {@link StableSoyFileSupplier}, this notices when the content changes, and unlike a
+ * timestamp it stays the same when a file is rewritten with identical content, which build tools
+ * tend to do. This makes it a good fit for use with a {@code SoyAstCache}.
+ *
+ * <p>Important: Do not use outside of Soy code (treat as superpackage-private).
+ */
+public final class ContentHashSoyFileSupplier extends AbstractSoyFileSupplier {
+
+  /** Source for the Soy file content, encoded as UTF-8. */
+  private final ByteSource contentSource;
+
+  /**
+   * @param contentSource Source for the UTF-8 encoded Soy file content.
+   * @param filePath The path to the Soy file, used for as a unique map/set key and for messages.
+   */
+  public ContentHashSoyFileSupplier(ByteSource contentSource, SourceFilePath filePath) {
+    super(filePath);
+    this.contentSource = contentSource;
+  }
+
+  @Override
+  public Reader open() throws IOException {
+    return contentSource.asCharSource(UTF_8).openStream();
+  }
+
+  /**
+   * Returns a version based on the current content of the file.
+   *
+   * @throws UncheckedIOException if the content can't be read
+   */
+  @Override
+  public Version getVersion() {
+    try {
+      return new ContentHashVersion(contentSource.hash(Hashing.sha256()));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /** Reads the content once, and returns a supplier of that content whose version is its hash. */
+  @Override
+  public SoyFileSupplier snapshot() throws IOException {
+    return new Snapshot(contentSource.read(), getFilePath());
+  }
+
+  /** The content of a file at one point in time. */
+  private static final class Snapshot extends AbstractSoyFileSupplier {
+    private final byte[] content;
+    private final ContentHashVersion version;
+
+    Snapshot(byte[] content, SourceFilePath filePath) {
+      super(filePath);
+      this.content = content;
+      this.version = new ContentHashVersion(Hashing.sha256().hashBytes(content));
+    }
+
+    @Override
+    public Reader open() throws IOException {
+      return ByteSource.wrap(content).asCharSource(UTF_8).openStream();
+    }
+
+    @Override
+    public Version getVersion() {
+      return version;
+    }
+
+    @Override
+    public SoyFileSupplier snapshot() {
+      return this;
+    }
+  }
+
+  private static final class ContentHashVersion implements Version {
+    final HashCode hash;
+
+    ContentHashVersion(HashCode hash) {
+      this.hash = hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof ContentHashVersion && ((ContentHashVersion) o).hash.equals(hash);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash.hashCode();
+    }
+
+    @Override
+    public String toString() {
+      return "ContentHashVersion{" + hash + "}";
+    }
+  }
+}
@@ -16,6 +16,10 @@
 
 package com.google.template.soy.base.internal;
 
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.collect.ImmutableList;
+
 /**
  * A generator of incrementing unique integer ids, starting from 0.
  *
@@ -26,17 +30,53 @@ public final class IncrementingIdGenerator implements IdGenerator {
   /** The current next id value to generate. */
   private int currId;
 
+  /** The amount to increment by after generating an id, greater than 1 for forked generators. */
+  private final int stride;
+
   public IncrementingIdGenerator() {
-    currId = 0;
+    this(0, 1);
+  }
+
+  private IncrementingIdGenerator(int currId, int stride) {
+    this.currId = currId;
+    this.stride = stride;
   }
 
   private IncrementingIdGenerator(IncrementingIdGenerator orig) {
-    this.currId = orig.currId;
+    this(orig.currId, orig.stride);
   }
 
   @Override
   public int genId() {
-    return currId++;
+    int id = currId;
+    currId += stride;
+    return id;
+  }
+
+  /**
+   * Returns {@code count} generators whose ids are distinct from each other and from every id this
+   * generator has or will generate, once {@link #join} is called.
+   *
+   * <p>The forks interleave their ids, so the ids generated by one fork don't depend on how many
+   * ids the others generate. This makes them suitable for handing out to concurrent tasks while
+   * keeping the assigned ids deterministic.
+   */
+  public ImmutableList<IncrementingIdGenerator> fork(int count) {
+    checkArgument(count > 0, "count must be positive: %s", count);
+    ImmutableList.Builder<IncrementingIdGenerator> forks = ImmutableList.builder();
+    for (int i = 0; i < count; i++) {
+      forks.add(new IncrementingIdGenerator(currId + i * stride, stride * count));
+    }
+    return forks.build();
+  }
+
+  /** Advances this generator past all the ids generated by {@code forks}. */
+  public void join(Iterable<IncrementingIdGenerator> forks) {
+    for (IncrementingIdGenerator fork : forks) {
+      // Every fork's next id is congruent to currId modulo stride, so the largest one is a valid
+      // next id for this generator.
+      currId = Math.max(currId, fork.currId);
+    }
   }
 
   @Override
@@ -80,6 +80,21 @@ public interface SoyFileSupplier {
   /** Returns the version of the Soy file read. */
   Version getVersion();
 
+  /**
+   * Returns a supplier of the current content of this file, whose content can't change between a
+   * call to {@link #getVersion} and a call to {@link #open}. Callers that cache what they read by
+   * version, like a {@code SoyAstCache}, should read from a snapshot, so that the version they
+   * cache under is the version of the content they read.
+   *
+   * <p>The default implementation returns this supplier, which is correct for suppliers whose
+   * version doesn't depend on their content.
+   *
+   * @throws IOException If the content is read and there is an error reading it.
+   */
+  default SoyFileSupplier snapshot() throws IOException {
+    return this;
+  }
+
   /**
    * Container for factory methods for {@link SoyFileSupplier}s.
    *
@@ -102,12 +117,14 @@ public interface SoyFileSupplier {
     /**
      * Creates a new {@code SoyFileSupplier} given a {@code File}.
      *
+     * <p>The version of the returned supplier is a hash of the file content, so that cached ASTs
+     * are invalidated when the file changes.
+     *
      * @param inputFile The Soy file.
-     * @param soyFileKind The kind of this input Soy file.
      */
     public static SoyFileSupplier create(File inputFile) {
-      return create(
-          Files.asCharSource(inputFile, UTF_8), SourceFilePath.create(inputFile.getPath()));
+      return new ContentHashSoyFileSupplier(
+          Files.asByteSource(inputFile), SourceFilePath.create(inputFile.getPath()));
     }
 
     /**
@@ -39,6 +39,8 @@ import com.google.template.soy.data.SoyValue;
 import com.google.template.soy.data.SoyValueProvider;
 import com.google.template.soy.data.UnsafeSanitizedContentOrdainer;
 import com.google.template.soy.data.internal.DictImpl;
+import com.google.template.soy.data.internal.DoubleListImpl;
+import com.google.template.soy.data.internal.LongListImpl;
 import com.google.template.soy.data.internal.RuntimeMapTypeTracker;
 import com.google.template.soy.data.internal.SoyMapImpl;
 import com.google.template.soy.data.internal.SoyRecordImpl;
@@ -196,8 +198,15 @@ public final class BasicFunctionsRuntime {
    *
    * <p>This should only be called for a list of numbers.
    */
-  public static ImmutableList<SoyValueProvider> numberListSort(
+  public static List<? extends SoyValueProvider> numberListSort(
       List<? extends SoyValueProvider> list) {
+    // Lists backed by primitive arrays are sorted without wrapping each element.
+    if (list instanceof LongListImpl.JavaList) {
+      return ((LongListImpl.JavaList) list).sorted();
+    }
+    if (list instanceof DoubleListImpl.JavaList) {
+      return ((DoubleListImpl.JavaList) list).sorted();
+    }
     return ImmutableList.sortedCopyOf(
         comparingDouble((SoyValueProvider arg) -> arg.resolve().numberValue()), list);
   }
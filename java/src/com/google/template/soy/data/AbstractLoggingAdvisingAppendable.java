@@ -20,6 +20,7 @@ import com.google.errorprone.annotations.CanIgnoreReturnValue;
 import com.google.errorprone.annotations.ForOverride;
 import java.io.IOException;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * A {@link LoggingAdvisingAppendable} that implements {@code logonly} behavior in response to log
@@ -72,6 +73,16 @@ public abstract class AbstractLoggingAdvisingAppendable extends LoggingAdvisingA
     return this;
   }
 
+  @CanIgnoreReturnValue
+  @Override
+  public final AbstractLoggingAdvisingAppendable appendUtf8Constant(
+      String text, Supplier<byte[]> utf8) throws IOException {
+    if (!isLogOnly()) {
+      doAppendUtf8Constant(text, utf8);
+    }
+    return this;
+  }
+
   /** Called whenever a logging function is being rendered. */
   @CanIgnoreReturnValue
   @Override
@@ -122,6 +133,12 @@ public abstract class AbstractLoggingAdvisingAppendable extends LoggingAdvisingA
   @ForOverride
   protected abstract void doAppend(char c) throws IOException;
 
+  /** Appends constant text, subclasses that write bytes can override to use {@code utf8}. */
+  @ForOverride
+  protected void doAppendUtf8Constant(String text, Supplier<byte[]> utf8) throws IOException {
+    doAppend(text);
+  }
+
   @ForOverride
   protected abstract void doEnterLoggableElement(LogStatement statement);
 
@@ -29,6 +29,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import javax.annotation.Nullable;
 
 /**
@@ -104,6 +105,20 @@ public abstract class LoggingAdvisingAppendable implements AdvisingAppendable {
   @Override
   public abstract LoggingAdvisingAppendable append(char c) throws IOException;
 
+  /**
+   * Appends constant text along with a supplier of its UTF-8 encoding, so that appendables writing
+   * bytes can copy the encoded form instead of encoding the text again. The supplier encodes the
+   * text the first time it is called and returns the same array from then on, which must not be
+   * modified.
+   *
+   * <p>The default implementation appends {@code text} and ignores the bytes.
+   */
+  @CanIgnoreReturnValue
+  public LoggingAdvisingAppendable appendUtf8Constant(String text, Supplier<byte[]> utf8)
+      throws IOException {
+    return append(text);
+  }
+
   /** Called whenever a loggable element is entered. */
   public abstract LoggingAdvisingAppendable enterLoggableElement(LogStatement statement);
 
@@ -241,23 +256,70 @@ public abstract class LoggingAdvisingAppendable implements AdvisingAppendable {
     }
   }
 
-  /** A {@link LoggingAdvisingAppendable} that renders to a string builder. */
-  public static final class BufferingAppendable extends DelegatingToAppendable<StringBuilder> {
+  /**
+   * A {@link LoggingAdvisingAppendable} that renders to a buffer.
+   *
+   * <p>The buffer is a rope: long strings are kept by reference rather than copied, and only
+   * shorter content is copied into a builder. The content is only copied into a single string if
+   * {@link #toString} is called, and not at all if the buffer is {@linkplain #replayOn replayed} or
+   * holds a single string.
+   */
+  public static final class BufferingAppendable extends AbstractLoggingAdvisingAppendable {
+    /**
+     * Strings at least this long are referenced rather than copied. Shorter ones are cheaper to
+     * copy than to keep as separate parts of the buffer.
+     */
+    private static final int MIN_REFERENCED_LENGTH = 32;
 
     private static final Object EXIT_LOG_STATEMENT_MARKER = new Object();
     // lazily allocated list that contains one of 7 types of objects, each which corresponds to one
     // of the callback methods.
-    // - String literal string content -> corresponds to a contiguous sequence of append calls
+    // - String literal string content -> corresponds to a long string or a contiguous sequence of
+    //   other append calls
     // - LogStatement -> corresponds to enterLoggableElement
     // - EXIT_LOG_STATEMENT_MARKER -> corresponds to exitLoggableElement
     // - LoggingFunctionInvocation -> corresponds to appendLoggingFunctionInvocation
     // - Dir -> corresponds to setSanitizedContentDirectionality
     // - SET_SANITIZED_CONTENT_DIRECTIONALITY_NULL_MARKER -> corresponds to
     //   setSanitizedContentDirectionality with a null parameter
-    private List<Object> commands;
+    @Nullable private List<Object> commands;
+    /** The number of characters in the strings of {@link #commands}. */
+    private int commandsLength;
+    /** Lazily allocated content appended after the last command. */
+    @Nullable private StringBuilder pending;
 
-    BufferingAppendable() {
-      super(new StringBuilder());
+    BufferingAppendable() {}
+
+    @Override
+    protected void doAppend(CharSequence s) {
+      // Only strings are referenced, since other char sequences may be mutated later.
+      if (s instanceof String && s.length() >= MIN_REFERENCED_LENGTH) {
+        getCommandsAndAddPendingStringData().add(s);
+        commandsLength += s.length();
+      } else {
+        pending().append(s);
+      }
+    }
+
+    @Override
+    protected void doAppend(CharSequence s, int start, int end) {
+      pending().append(s, start, end);
+    }
+
+    @Override
+    protected void doAppend(char c) {
+      pending().append(c);
+    }
+
+    private StringBuilder pending() {
+      if (pending == null) {
+        pending = new StringBuilder();
+      }
+      return pending;
+    }
+
+    private int pendingLength() {
+      return pending == null ? 0 : pending.length();
     }
 
     /**
@@ -267,9 +329,10 @@ public abstract class LoggingAdvisingAppendable implements AdvisingAppendable {
       if (commands == null) {
         commands = new ArrayList<>();
       }
-      if (delegate.length() != 0) {
-        commands.add(delegate.toString());
-        delegate.setLength(0);
+      if (pendingLength() != 0) {
+        commands.add(pending.toString());
+        commandsLength += pending.length();
+        pending.setLength(0);
       }
       return commands;
     }
@@ -292,13 +355,23 @@ public abstract class LoggingAdvisingAppendable implements AdvisingAppendable {
       getCommandsAndAddPendingStringData().add(LoggingFunctionCommand.create(funCall, escapers));
     }
 
+    @Override
+    public boolean softLimitReached() {
+      return false;
+    }
+
+    @Override
+    public void flushBuffers(int depth) {
+      throw new AssertionError("should not be called");
+    }
+
     public void replayOn(LoggingAdvisingAppendable appendable) throws IOException {
       if (getSanitizedContentKind() != null) {
         appendable.setKindAndDirectionality(
             getSanitizedContentKind(), getSanitizedContentDirectionality());
       }
       if (commands != null) {
-        for (Object o : getCommandsAndAddPendingStringData()) {
+        for (Object o : commands) {
           if (o instanceof String) {
             appendable.append((String) o);
           } else if (o instanceof LoggingFunctionCommand) {
@@ -311,21 +384,20 @@ public abstract class LoggingAdvisingAppendable implements AdvisingAppendable {
             throw new AssertionError("unexpected command object: " + o);
           }
         }
-      } else {
-        appendable.append(delegate);
+      }
+      if (pendingLength() != 0) {
+        appendable.append(pending);
       }
     }
 
     @VisibleForTesting
     public String getAndClearBuffer() {
-      if (commands != null) {
-        // NOTE: this ignores all the logging statements which is as it should be since they don't
-        // affect output
-        appendCommandsToBuilder(getCommandsAndAddPendingStringData(), delegate);
-        commands = null;
+      String value = toString();
+      commands = null;
+      commandsLength = 0;
+      if (pending != null) {
+        pending.setLength(0);
       }
-      String value = delegate.toString();
-      delegate.setLength(0);
       return value;
     }
 
@@ -339,16 +411,20 @@ public abstract class LoggingAdvisingAppendable implements AdvisingAppendable {
 
     @Override
     public String toString() {
-      if (commands != null) {
-        // NOTE: this ignores all the logging statements which is as it should be since they don't
-        // affect output
-        StringBuilder builder = new StringBuilder();
-        appendCommandsToBuilder(commands, builder);
-        builder.append(delegate);
-        return builder.toString();
-      } else {
-        return delegate.toString();
+      if (commands == null) {
+        return pending == null ? "" : pending.toString();
+      }
+      if (pendingLength() == 0 && commands.size() == 1 && commands.get(0) instanceof String) {
+        return (String) commands.get(0);
+      }
+      // NOTE: this ignores all the logging statements which is as it should be since they don't
+      // affect output
+      StringBuilder builder = new StringBuilder(commandsLength + pendingLength());
+      appendCommandsToBuilder(commands, builder);
+      if (pending != null) {
+        builder.append(pending);
       }
+      return builder.toString();
     }
 
     private static void appendCommandsToBuilder(List<Object> commands, StringBuilder builder) {
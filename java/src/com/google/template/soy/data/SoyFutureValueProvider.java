@@ -32,17 +32,13 @@ import javax.annotation.Nonnull;
 public final class SoyFutureValueProvider extends SoyAbstractCachingValueProvider {
 
   /**
-   * Allows threads to register a {@link FutureBlockCallback}.
+   * The {@link FutureBlockCallback} of the render running on each thread, if it has one.
    *
-   * <p>When calling {@link #resolve()} on this {@link SoyFutureValueProvider}, if the thread needs
-   * to block on the future (because {@link Future#isDone()} is {@code false}), then it will call
-   * the currently registered block callback immediately prior blocking. See {@code
-   * RenderVisitor.exec} for the motivating usecase for this hook.
-   *
-   * <p>Important: Do not use outside of Soy code (treat as superpackage-private).
+   * <p>This is only set for the duration of a {@link #enterFutureBlockCallback scope}, and has no
+   * initial value, so that threads that never register a callback (like the many short lived
+   * threads of a server that renders on virtual threads) never allocate an entry for it.
    */
-  public static final ThreadLocal<FutureBlockCallback> futureBlockCallback =
-      ThreadLocal.withInitial(() -> () -> {});
+  private static final ThreadLocal<FutureBlockCallback> futureBlockCallback = new ThreadLocal<>();
 
   /** The wrapped Future object that will provide the value, if needed. */
   private final Future<?> future;
@@ -54,6 +50,36 @@ public final class SoyFutureValueProvider extends SoyAbstractCachingValueProvide
     void beforeBlock();
   }
 
+  /** The scope of a {@link FutureBlockCallback}, which is exited by closing it. */
+  public interface FutureBlockCallbackScope extends AutoCloseable {
+    @Override
+    void close();
+  }
+
+  /**
+   * Registers a {@link FutureBlockCallback} for the current thread until the returned scope is
+   * closed, at which point the previous callback (if any) is restored.
+   *
+   * <p>When calling {@link #resolve()} on a {@link SoyFutureValueProvider}, if the thread needs to
+   * block on the future (because {@link Future#isDone()} is {@code false}), then it will call the
+   * currently registered block callback immediately prior blocking. See {@code RenderVisitor.exec}
+   * for the motivating usecase for this hook.
+   *
+   * <p>Important: Do not use outside of Soy code (treat as superpackage-private).
+   */
+  public static FutureBlockCallbackScope enterFutureBlockCallback(FutureBlockCallback callback) {
+    checkNotNull(callback);
+    FutureBlockCallback previous = futureBlockCallback.get();
+    futureBlockCallback.set(callback);
+    return () -> {
+      if (previous == null) {
+        futureBlockCallback.remove();
+      } else {
+        futureBlockCallback.set(previous);
+      }
+    };
+  }
+
   /** @param future The underlying Future object. */
   public SoyFutureValueProvider(Future<?> future, Function<Object, SoyValueProvider> converter) {
     this.future = checkNotNull(future);
@@ -74,7 +100,10 @@ public final class SoyFutureValueProvider extends SoyAbstractCachingValueProvide
   protected SoyValue compute() {
     try {
       if (!future.isDone()) {
-        futureBlockCallback.get().beforeBlock();
+        FutureBlockCallback callback = futureBlockCallback.get();
+        if (callback != null) {
+          callback.beforeBlock();
+        }
       }
       return converter.apply(future.get()).resolve();
     } catch (ExecutionException e) {
@@ -41,8 +41,12 @@ import com.google.protobuf.Descriptors.EnumValueDescriptor;
 import com.google.protobuf.Message;
 import com.google.protobuf.ProtocolMessageEnum;
 import com.google.template.soy.data.internal.DictImpl;
+import com.google.template.soy.data.internal.DoubleListImpl;
 import com.google.template.soy.data.internal.EasyListImpl;
+import com.google.template.soy.data.internal.LazyJavaToSoyValueList;
+import com.google.template.soy.data.internal.LazyJavaToSoyValueMap;
 import com.google.template.soy.data.internal.ListImpl;
+import com.google.template.soy.data.internal.LongListImpl;
 import com.google.template.soy.data.internal.RuntimeMapTypeTracker;
 import com.google.template.soy.data.internal.SoyMapImpl;
 import com.google.template.soy.data.restricted.BooleanData;
@@ -52,7 +56,9 @@ import com.google.template.soy.data.restricted.NullData;
 import com.google.template.soy.data.restricted.StringData;
 import com.google.template.soy.jbcsrc.api.RenderResult;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Future;
 import java.util.function.Function;
@@ -119,10 +125,16 @@ public final class SoyValueConverter {
         input -> StringData.forValue(BaseEncoding.base64().encode(input.toByteArray())));
     expensiveConverterMap.put(Map.class, this::newDictFromMap);
     expensiveConverterMap.put(MarkAsSoyMap.class, input -> newSoyMapFromJavaMap(input.delegate()));
+    expensiveConverterMap.put(MarkAsLazyView.class, input -> convertLazyView(input.delegate()));
     expensiveConverterMap.put(Collection.class, this::newListFromIterable);
     // NOTE: We don't convert plain Iterables, because many types extend from Iterable but are not
     // meant to be enumerated. (e.g. ByteString implements Iterable<Byte>)
     expensiveConverterMap.put(FluentIterable.class, this::newListFromIterable);
+    expensiveConverterMap.put(long[].class, input -> LongListImpl.forValues(input.clone()));
+    expensiveConverterMap.put(
+        int[].class,
+        input -> LongListImpl.forValues(Arrays.stream(input).asLongStream().toArray()));
+    expensiveConverterMap.put(double[].class, input -> DoubleListImpl.forValues(input.clone()));
   }
 
   // -----------------------------------------------------------------------------------------------
@@ -177,6 +189,32 @@ public final class SoyValueConverter {
     return new MarkAsSoyMap(delegate);
   }
 
+  /**
+   * Signals to the Java rendering API that the wrapped {@code java.util.List} should be converted
+   * lazily, as a view. See {@link #markAsLazyView(Map)}.
+   */
+  public static Object markAsLazyView(List<?> delegate) {
+    return new MarkAsLazyView(checkNotNull(delegate));
+  }
+
+  /**
+   * Signals to the Java rendering API that the wrapped {@code java.util.Map} should be converted
+   * lazily, as a view.
+   *
+   * <p>By default, maps and collections are copied when they are converted, which is linear in
+   * their size even though the values themselves are converted on first access. A lazy view
+   * instead wraps the Java collection and converts each value on first access, so data that a
+   * template never reads costs nothing. Lists and maps nested inside a lazy view are themselves
+   * converted as lazy views.
+   *
+   * <p>The collection (and any collections nested inside it) must not be modified while it is
+   * being rendered. Like an unwrapped {@code java.util.Map}, the map may be used as a Soy {@code
+   * legacy_object_map}, {@code map} or record, and so must only have string keys.
+   */
+  public static Object markAsLazyView(Map<String, ?> delegate) {
+    return new MarkAsLazyView(checkNotNull(delegate));
+  }
+
   /**
    * IMPORTANT: Do not use this method. Consider it internal to Soy.
    *
@@ -203,6 +241,10 @@ public final class SoyValueConverter {
    * @return A new SoyList initialized from the given Java Collection.
    */
   private SoyList newListFromIterable(Iterable<?> items) {
+    SoyList primitiveList = newPrimitiveListOrNull(items);
+    if (primitiveList != null) {
+      return primitiveList;
+    }
     // Create a list backed by a Java list which has eagerly converted each value into a lazy
     // value provider. Specifically, the list iteration is done eagerly so that the lazy value
     // provider can cache its value.
@@ -213,6 +255,64 @@ public final class SoyValueConverter {
     return ListImpl.forProviderList(builder.build());
   }
 
+  /**
+   * Returns a SoyList backed by a primitive array if the items are all integers ({@code Long} or
+   * {@code Integer}) or all floats ({@code Double} or {@code Float}), and null otherwise. This
+   * avoids allocating a SoyValue per item for large numeric lists.
+   */
+  @Nullable
+  private static SoyList newPrimitiveListOrNull(Iterable<?> items) {
+    if (items instanceof LongListImpl.JavaList) {
+      return ((LongListImpl.JavaList) items).asSoyList();
+    }
+    if (items instanceof DoubleListImpl.JavaList) {
+      return ((DoubleListImpl.JavaList) items).asSoyList();
+    }
+    if (!(items instanceof Collection) || ((Collection<?>) items).isEmpty()) {
+      return null;
+    }
+    Collection<?> collection = (Collection<?>) items;
+    Object first = collection.iterator().next();
+    if (first instanceof Long || first instanceof Integer) {
+      long[] values = new long[collection.size()];
+      int i = 0;
+      for (Object item : collection) {
+        if (!(item instanceof Long || item instanceof Integer)) {
+          return null;
+        }
+        values[i++] = ((Number) item).longValue();
+      }
+      return LongListImpl.forValues(values);
+    }
+    if (first instanceof Double || first instanceof Float) {
+      double[] values = new double[collection.size()];
+      int i = 0;
+      for (Object item : collection) {
+        if (!(item instanceof Double || item instanceof Float)) {
+          return null;
+        }
+        values[i++] = ((Number) item).doubleValue();
+      }
+      return DoubleListImpl.forValues(values);
+    }
+    return null;
+  }
+
+  /**
+   * Converts lists and maps to lazy views of the Java collections, and everything else as {@link
+   * #convert} does.
+   */
+  @SuppressWarnings("unchecked") // Map keys are checked as they're accessed, like newDictFromMap.
+  private SoyValueProvider convertLazyView(@Nullable Object obj) {
+    if (obj instanceof List) {
+      return LazyJavaToSoyValueList.forList((List<?>) obj, this::convertLazyView);
+    }
+    if (obj instanceof Map) {
+      return LazyJavaToSoyValueMap.forMap((Map<String, ?>) obj, this::convertLazyView);
+    }
+    return convert(obj);
+  }
+
   // -----------------------------------------------------------------------------------------------
   // Converting from existing data.
   /**
@@ -405,6 +505,20 @@ public final class SoyValueConverter {
     }
   }
 
+  /** See discussion at {@link #markAsLazyView(Map)}. */
+  private static final class MarkAsLazyView {
+
+    final Object delegate;
+
+    MarkAsLazyView(Object delegate) {
+      this.delegate = delegate;
+    }
+
+    Object delegate() {
+      return delegate;
+    }
+  }
+
   /** See discussion at {@link #markAsSoyMap}. */
   private static final class MarkAsSoyMap {
 
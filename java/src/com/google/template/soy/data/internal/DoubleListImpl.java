@@ -0,0 +1,135 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.data.internal;
+
+import com.google.template.soy.data.LoggingAdvisingAppendable;
+import com.google.template.soy.data.SoyValueConverter;
+import com.google.template.soy.data.restricted.FloatData;
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+/**
+ * Internal implementation of SoyList backed by a {@code double[]}, so that large lists of floats
+ * don't need a {@link FloatData} per element. Elements are wrapped in {@link FloatData} only
+ * when they are accessed as Soy values. Do not use directly; instead, use {@link
+ * SoyValueConverter#convert}.
+ *
+ * <p>Important: Do not use outside of Soy code (treat as superpackage-private).
+ */
+@ParametersAreNonnullByDefault
+public final class DoubleListImpl extends AbstractSoyList {
+
+  /**
+   * Creates a Soy list backed by the given values. The array is not copied and must not be modified
+   * afterwards.
+   */
+  public static DoubleListImpl forValues(double[] values) {
+    return new DoubleListImpl(values);
+  }
+
+  private final double[] values;
+  private final JavaList javaList = new JavaList();
+
+  private DoubleListImpl(double[] values) {
+    this.values = values;
+  }
+
+  /** Returns the value at the given index, which must be within bounds. */
+  public double getDouble(int index) {
+    return values[index];
+  }
+
+  @Override
+  public int length() {
+    return values.length;
+  }
+
+  @Override
+  @Nonnull
+  public List<FloatData> asJavaList() {
+    return javaList;
+  }
+
+  @Override
+  @Nonnull
+  public List<FloatData> asResolvedJavaList() {
+    return javaList;
+  }
+
+  @Override
+  public FloatData get(int index) {
+    return index >= 0 && index < values.length ? FloatData.forValue(values[index]) : null;
+  }
+
+  @Override
+  public FloatData getProvider(int index) {
+    return get(index);
+  }
+
+  @Override
+  public void render(LoggingAdvisingAppendable appendable) throws IOException {
+    appendable.append('[');
+    for (int i = 0; i < values.length; i++) {
+      if (i > 0) {
+        appendable.append(", ");
+      }
+      appendable.append(FloatData.toString(values[i]));
+    }
+    appendable.append(']');
+  }
+
+  /**
+   * The {@link #asJavaList()} view of a {@link DoubleListImpl}. The compiled template runtime
+   * only sees this view, so it gives access to the backing list for code that can use the values
+   * directly.
+   */
+  public final class JavaList extends AbstractList<FloatData> implements RandomAccess {
+    private JavaList() {}
+
+    /** Returns the Soy list this is a view of. */
+    public DoubleListImpl asSoyList() {
+      return DoubleListImpl.this;
+    }
+
+    @Override
+    public FloatData get(int index) {
+      return FloatData.forValue(values[index]);
+    }
+
+    /** Returns the value at {@code index} without boxing it. */
+    public double getDouble(int index) {
+      return values[index];
+    }
+
+    @Override
+    public int size() {
+      return values.length;
+    }
+
+    /** Returns a new list of the same values in ascending order. */
+    public JavaList sorted() {
+      double[] sorted = values.clone();
+      Arrays.sort(sorted);
+      return new DoubleListImpl(sorted).javaList;
+    }
+  }
+}
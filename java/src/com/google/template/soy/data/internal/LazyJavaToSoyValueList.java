@@ -0,0 +1,92 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.data.internal;
+
+import com.google.template.soy.data.SoyValue;
+import com.google.template.soy.data.SoyValueConverter;
+import com.google.template.soy.data.SoyValueProvider;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+/**
+ * A SoyList view of a native Java List that lazily converts elements to {@link SoyValue}s as
+ * they're accessed. Unlike {@link ListImpl}, the Java list is not copied, so elements that are
+ * never accessed are never converted. Do not use directly; instead, use {@link
+ * SoyValueConverter#markAsLazyView}.
+ *
+ * <p>Important: Do not use outside of Soy code (treat as superpackage-private).
+ */
+@ParametersAreNonnullByDefault
+public final class LazyJavaToSoyValueList extends ListBackedList {
+
+  /**
+   * Uses {@code converter} to lazily convert the elements of {@code list}. The list must not be
+   * modified while the returned view is in use.
+   */
+  public static LazyJavaToSoyValueList forList(
+      List<?> list, Function<Object, ? extends SoyValueProvider> converter) {
+    return new LazyJavaToSoyValueList(new ConvertingList(list, converter));
+  }
+
+  private LazyJavaToSoyValueList(ConvertingList providerList) {
+    super(providerList);
+  }
+
+  private static final class ConvertingList extends AbstractList<SoyValueProvider>
+      implements RandomAccess {
+    private final List<?> rawValues;
+    private final Function<Object, ? extends SoyValueProvider> converter;
+    /**
+     * A cache of the values after they're converted. The values are in the same indices as in
+     * rawValues. If a given value in this array is null that means it hasn't been converted yet.
+     *
+     * <p>This is atomic since the same Java list may be shared by many renders. Concurrent
+     * accesses may convert an element more than once, but they all return the first value stored.
+     */
+    private final AtomicReferenceArray<SoyValueProvider> convertedValues;
+
+    ConvertingList(List<?> list, Function<Object, ? extends SoyValueProvider> converter) {
+      // Indexing into a linked list is linear, so take a shallow snapshot of those. This is still
+      // far cheaper than converting the elements.
+      this.rawValues = list instanceof RandomAccess ? list : Arrays.asList(list.toArray());
+      this.converter = converter;
+      this.convertedValues = new AtomicReferenceArray<>(rawValues.size());
+    }
+
+    @Override
+    public SoyValueProvider get(int index) {
+      SoyValueProvider converted = convertedValues.get(index);
+      if (converted == null) {
+        converted = converter.apply(rawValues.get(index));
+        if (!convertedValues.compareAndSet(index, null, converted)) {
+          converted = convertedValues.get(index);
+        }
+      }
+      return converted;
+    }
+
+    @Override
+    public int size() {
+      return convertedValues.length();
+    }
+  }
+}
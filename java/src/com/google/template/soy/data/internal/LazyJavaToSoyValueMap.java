@@ -0,0 +1,138 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.data.internal;
+
+import com.google.common.collect.Iterators;
+import com.google.template.soy.data.SoyValue;
+import com.google.template.soy.data.SoyValueConverter;
+import com.google.template.soy.data.SoyValueProvider;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+/**
+ * A view of a native Java Map with string keys as a map of {@link SoyValueProvider}s, that lazily
+ * converts values to {@link SoyValue}s as they're accessed. This is used as the provider map of a
+ * {@link DictImpl}, so that unlike {@link SoyValueConverter#convert}, the Java map is not copied
+ * and values that are never accessed are never converted. Do not use directly; instead, use {@link
+ * SoyValueConverter#markAsLazyView}.
+ *
+ * <p>Important: Do not use outside of Soy code (treat as superpackage-private).
+ */
+@ParametersAreNonnullByDefault
+public final class LazyJavaToSoyValueMap extends AbstractMap<String, SoyValueProvider> {
+
+  /**
+   * Uses {@code converter} to lazily convert the values of {@code map}. The map must not be
+   * modified while the returned view is in use.
+   */
+  public static DictImpl forMap(
+      Map<String, ?> map, Function<Object, ? extends SoyValueProvider> converter) {
+    return DictImpl.forProviderMap(
+        new LazyJavaToSoyValueMap(map, converter), RuntimeMapTypeTracker.Type.UNKNOWN);
+  }
+
+  private final Map<String, ?> rawMap;
+  private final Function<Object, ? extends SoyValueProvider> converter;
+  /**
+   * A cache of keys to converted values. If a key is missing from this map it means its value
+   * hasn't been accessed yet. This is concurrent since the same Java map may be shared by many
+   * renders.
+   */
+  private final Map<String, SoyValueProvider> convertedValues = new ConcurrentHashMap<>();
+
+  private LazyJavaToSoyValueMap(
+      Map<String, ?> rawMap, Function<Object, ? extends SoyValueProvider> converter) {
+    this.rawMap = rawMap;
+    this.converter = converter;
+  }
+
+  @Override
+  public int size() {
+    return rawMap.size();
+  }
+
+  @Override
+  public boolean containsKey(@Nullable Object key) {
+    return key instanceof String && rawMap.containsKey(key);
+  }
+
+  @Override
+  @Nullable
+  public SoyValueProvider get(@Nullable Object key) {
+    if (!(key instanceof String)) {
+      return null;
+    }
+    SoyValueProvider converted = convertedValues.get(key);
+    if (converted != null) {
+      return converted;
+    }
+    Object value = rawMap.get(key);
+    if (value == null && !rawMap.containsKey(key)) {
+      return null;
+    }
+    return convert((String) key, value);
+  }
+
+  private SoyValueProvider convert(String key, @Nullable Object value) {
+    SoyValueProvider converted = converter.apply(value);
+    SoyValueProvider previous = convertedValues.putIfAbsent(key, converted);
+    return previous != null ? previous : converted;
+  }
+
+  @Override
+  public Set<String> keySet() {
+    return Collections.unmodifiableSet(rawMap.keySet());
+  }
+
+  @Override
+  public void forEach(BiConsumer<? super String, ? super SoyValueProvider> action) {
+    rawMap.forEach((key, value) -> action.accept(key, getOrConvert(key, value)));
+  }
+
+  private SoyValueProvider getOrConvert(String key, @Nullable Object value) {
+    SoyValueProvider converted = convertedValues.get(key);
+    return converted != null ? converted : convert(key, value);
+  }
+
+  @Override
+  public Set<Map.Entry<String, SoyValueProvider>> entrySet() {
+    return new AbstractSet<Map.Entry<String, SoyValueProvider>>() {
+      @Override
+      public Iterator<Map.Entry<String, SoyValueProvider>> iterator() {
+        return Iterators.transform(
+            rawMap.entrySet().iterator(),
+            entry ->
+                new SimpleImmutableEntry<>(
+                    entry.getKey(), getOrConvert(entry.getKey(), entry.getValue())));
+      }
+
+      @Override
+      public int size() {
+        return rawMap.size();
+      }
+    };
+  }
+}
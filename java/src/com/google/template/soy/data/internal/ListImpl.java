@@ -17,6 +17,7 @@
 package com.google.template.soy.data.internal;
 
 import com.google.common.collect.ImmutableList;
+import com.google.template.soy.data.SoyList;
 import com.google.template.soy.data.SoyValueConverter;
 import com.google.template.soy.data.SoyValueProvider;
 import java.util.List;
@@ -41,6 +42,21 @@ public final class ListImpl extends ListBackedList {
     return new ListImpl(providerList);
   }
 
+  /**
+   * Creates a Soy list backed by the given list. Unlike {@link #forProviderList}, a list that is
+   * the {@link SoyList#asJavaList()} view of a primitive-backed Soy list is unwrapped rather than
+   * copied into providers.
+   */
+  public static SoyList forJavaList(List<? extends SoyValueProvider> providerList) {
+    if (providerList instanceof LongListImpl.JavaList) {
+      return ((LongListImpl.JavaList) providerList).asSoyList();
+    }
+    if (providerList instanceof DoubleListImpl.JavaList) {
+      return ((DoubleListImpl.JavaList) providerList).asSoyList();
+    }
+    return forProviderList(providerList);
+  }
+
   private ListImpl(ImmutableList<? extends SoyValueProvider> providerList) {
     super(providerList);
   }
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.data.internal;
+
+import com.google.template.soy.data.LoggingAdvisingAppendable;
+import com.google.template.soy.data.SoyValueConverter;
+import com.google.template.soy.data.restricted.IntegerData;
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+/**
+ * Internal implementation of SoyList backed by a {@code long[]}, so that large lists of integers
+ * don't need an {@link IntegerData} per element. Elements are wrapped in {@link IntegerData} only
+ * when they are accessed as Soy values. Do not use directly; instead, use {@link
+ * SoyValueConverter#convert}.
+ *
+ * <p>Important: Do not use outside of Soy code (treat as superpackage-private).
+ */
+@ParametersAreNonnullByDefault
+public final class LongListImpl extends AbstractSoyList {
+
+  /**
+   * Creates a Soy list backed by the given values. The array is not copied and must not be modified
+   * afterwards.
+   */
+  public static LongListImpl forValues(long[] values) {
+    return new LongListImpl(values);
+  }
+
+  private final long[] values;
+  private final JavaList javaList = new JavaList();
+
+  private LongListImpl(long[] values) {
+    this.values = values;
+  }
+
+  /** Returns the value at the given index, which must be within bounds. */
+  public long getLong(int index) {
+    return values[index];
+  }
+
+  @Override
+  public int length() {
+    return values.length;
+  }
+
+  @Override
+  @Nonnull
+  public List<IntegerData> asJavaList() {
+    return javaList;
+  }
+
+  @Override
+  @Nonnull
+  public List<IntegerData> asResolvedJavaList() {
+    return javaList;
+  }
+
+  @Override
+  public IntegerData get(int index) {
+    return index >= 0 && index < values.length ? IntegerData.forValue(values[index]) : null;
+  }
+
+  @Override
+  public IntegerData getProvider(int index) {
+    return get(index);
+  }
+
+  @Override
+  public void render(LoggingAdvisingAppendable appendable) throws IOException {
+    appendable.append('[');
+    for (int i = 0; i < values.length; i++) {
+      if (i > 0) {
+        appendable.append(", ");
+      }
+      appendable.append(Long.toString(values[i]));
+    }
+    appendable.append(']');
+  }
+
+  /**
+   * The {@link #asJavaList()} view of a {@link LongListImpl}. The compiled template runtime
+   * only sees this view, so it gives access to the backing list for code that can use the values
+   * directly.
+   */
+  public final class JavaList extends AbstractList<IntegerData> implements RandomAccess {
+    private JavaList() {}
+
+    /** Returns the Soy list this is a view of. */
+    public LongListImpl asSoyList() {
+      return LongListImpl.this;
+    }
+
+    @Override
+    public IntegerData get(int index) {
+      return IntegerData.forValue(values[index]);
+    }
+
+    /** Returns the value at {@code index} without boxing it. */
+    public long getLong(int index) {
+      return values[index];
+    }
+
+    @Override
+    public int size() {
+      return values.length;
+    }
+
+    /** Returns a new list of the same values in ascending order. */
+    public JavaList sorted() {
+      long[] sorted = values.clone();
+      Arrays.sort(sorted);
+      return new LongListImpl(sorted).javaList;
+    }
+  }
+}
@@ -40,6 +40,12 @@ public abstract class ErrorReporter {
     void warn(SoyErrorKind error, Object... args);
   }
 
+  /** Reports collected by {@link #deferReports} that haven't been added to the reporter yet. */
+  public interface DeferredReports {
+    /** Adds the collected reports to the reporter that collected them. */
+    void commit();
+  }
+
   /** Creates a new ErrorReporter which can create source snippets from the given files. */
   public static ErrorReporter create(Map<SourceFilePath, SoyFileSupplier> filePathsToSuppliers) {
     return new ErrorReporterImpl(ImmutableMap.copyOf(filePathsToSuppliers));
@@ -113,6 +119,22 @@ public abstract class ErrorReporter {
   /** Copies the errors from one error reprorter to another one. */
   public abstract void copyTo(ErrorReporter other);
 
+  /**
+   * Runs {@code work}, holding back the errors and warnings that it reports on the current thread
+   * until {@link DeferredReports#commit} is called.
+   *
+   * <p>This allows work running concurrently on several threads to share a reporter while still
+   * reporting in a deterministic order, by committing the deferred reports in a fixed order
+   * afterwards. While {@code work} runs, the current thread only observes its own reports, so
+   * {@link #checkpoint} and {@link #errorsSince} behave as they would without other threads.
+   *
+   * <p>Reporters that don't record reports, such as {@link #exploding}, handle them immediately.
+   */
+  public DeferredReports deferReports(Runnable work) {
+    work.run();
+    return NO_DEFERRED_REPORTS;
+  }
+
   /** Returns a new error report bound to {@code sourceLocation}. */
   public LocationBound bind(SourceLocation sourceLocation) {
     return new LocationBoundImp(sourceLocation);
@@ -238,6 +260,8 @@ public abstract class ErrorReporter {
     }
   }
 
+  private static final DeferredReports NO_DEFERRED_REPORTS = () -> {};
+
   private static final LocationBound NO_OP =
       new LocationBound() {
         @Override
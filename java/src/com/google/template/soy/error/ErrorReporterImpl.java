@@ -28,48 +28,77 @@ import com.google.template.soy.base.internal.SoyFileSupplier;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import javax.annotation.concurrent.GuardedBy;
 
-/** Simple {@link com.google.template.soy.error.ErrorReporter} implementation. */
+/**
+ * Simple {@link com.google.template.soy.error.ErrorReporter} implementation.
+ *
+ * <p>This class is thread-safe. Reports made from concurrent threads are recorded in the order in
+ * which they arrive, unless they are made from within {@link #deferReports}.
+ */
 final class ErrorReporterImpl extends ErrorReporter {
 
   private static final SourceSnippetPrinter snippetPrinter = new SourceSnippetPrinter();
 
+  @GuardedBy("this")
   private final List<RecordedError> reports = new ArrayList<>();
+
+  @GuardedBy("this")
   private int errorCount;
+
   private final ImmutableMap<SourceFilePath, SoyFileSupplier> filePathsToSuppliers;
 
+  /** The reporter collecting the reports of the current thread, if it is running deferred work. */
+  private final ThreadLocal<ErrorReporterImpl> deferred = new ThreadLocal<>();
+
   ErrorReporterImpl(ImmutableMap<SourceFilePath, SoyFileSupplier> filePathsToSuppliers) {
     this.filePathsToSuppliers = filePathsToSuppliers;
   }
 
   @Override
   public void report(SourceLocation location, SoyErrorKind kind, Object... args) {
-    errorCount++;
-    reports.add(new RecordedError(location, kind, args, /* isWarning= */ false));
+    target().record(new RecordedError(location, kind, args, /* isWarning= */ false));
   }
 
   @Override
   public void warn(SourceLocation location, SoyErrorKind kind, Object... args) {
-    reports.add(new RecordedError(location, kind, args, /* isWarning= */ true));
+    target().record(new RecordedError(location, kind, args, /* isWarning= */ true));
+  }
+
+  @Override
+  public DeferredReports deferReports(Runnable work) {
+    ErrorReporterImpl buffer = new ErrorReporterImpl(filePathsToSuppliers);
+    ErrorReporterImpl previous = deferred.get();
+    deferred.set(buffer);
+    try {
+      work.run();
+    } finally {
+      if (previous == null) {
+        deferred.remove();
+      } else {
+        deferred.set(previous);
+      }
+    }
+    return () -> buffer.copyTo(this);
   }
 
   @Override
   public ImmutableList<SoyError> getReports() {
-    return reports.stream().map(r -> r.asSoyError(filePathsToSuppliers)).collect(toImmutableList());
+    return target().recorded().stream()
+        .map(r -> r.asSoyError(filePathsToSuppliers))
+        .collect(toImmutableList());
   }
 
   @Override
   protected ImmutableList<SoyError> getReports(int from, int to) {
-    return reports.stream()
-        .skip(from)
-        .limit(to - from)
+    return target().recorded().subList(from, to).stream()
         .map(r -> r.asSoyError(filePathsToSuppliers))
         .collect(toImmutableList());
   }
 
   @Override
   public ImmutableList<SoyError> getErrors() {
-    return reports.stream()
+    return target().recorded().stream()
         .filter(r -> !r.isWarning)
         .map(r -> r.asSoyError(filePathsToSuppliers))
         .collect(toImmutableList());
@@ -77,7 +106,7 @@ final class ErrorReporterImpl extends ErrorReporter {
 
   @Override
   public ImmutableList<SoyError> getWarnings() {
-    return reports.stream()
+    return target().recorded().stream()
         .filter(r -> r.isWarning)
         .map(r -> r.asSoyError(filePathsToSuppliers))
         .collect(toImmutableList());
@@ -85,29 +114,52 @@ final class ErrorReporterImpl extends ErrorReporter {
 
   @Override
   public void copyTo(ErrorReporter other) {
-    for (RecordedError report : reports) {
+    for (RecordedError report : target().recorded()) {
       report.copyTo(other);
     }
   }
 
   @Override
   int getCurrentNumberOfErrors() {
-    return errorCount;
+    ErrorReporterImpl target = target();
+    synchronized (target) {
+      return target.errorCount;
+    }
   }
 
   @Override
   int getCurrentNumberOfReports() {
-    return reports.size();
+    ErrorReporterImpl target = target();
+    synchronized (target) {
+      return target.reports.size();
+    }
   }
 
   @Override
-  public String toString() {
+  public synchronized String toString() {
     return MoreObjects.toStringHelper(getClass())
         .add("errors", errorCount)
         .add("warnings", reports.size() - errorCount)
         .toString();
   }
 
+  /** Returns the reporter that the current thread should record to and query. */
+  private ErrorReporterImpl target() {
+    ErrorReporterImpl target = deferred.get();
+    return target == null ? this : target;
+  }
+
+  private synchronized void record(RecordedError report) {
+    if (!report.isWarning) {
+      errorCount++;
+    }
+    reports.add(report);
+  }
+
+  private synchronized ImmutableList<RecordedError> recorded() {
+    return ImmutableList.copyOf(reports);
+  }
+
   private static final class RecordedError {
     final SourceLocation location;
     final SoyErrorKind kind;
@@ -25,10 +25,7 @@ import com.google.template.soy.data.SoyValue;
 import com.google.template.soy.data.SoyValueProvider;
 import com.google.template.soy.data.restricted.NumberData;
 import com.ibm.icu.text.Collator;
-import com.ibm.icu.text.CompactDecimalFormat;
-import com.ibm.icu.text.CompactDecimalFormat.CompactStyle;
 import com.ibm.icu.text.NumberFormat;
-import com.ibm.icu.text.RuleBasedCollator;
 import com.ibm.icu.util.ULocale;
 import javax.annotation.Nullable;
 
@@ -119,87 +116,48 @@ public final class I18NDirectivesRuntime {
       String numbersKeyword,
       @Nullable Integer minFractionDigits,
       @Nullable Integer maxFractionDigits) {
-    uLocale = uLocale.setKeywordValue("numbers", numbersKeyword);
-    NumberFormat numberFormat;
-    switch (formatType) {
-      case "decimal":
-        numberFormat = NumberFormat.getInstance(uLocale);
-        break;
-      case "percent":
-        numberFormat = NumberFormat.getPercentInstance(uLocale);
-        break;
-      case "currency":
-        numberFormat = NumberFormat.getCurrencyInstance(uLocale);
-        break;
-      case "scientific":
-        numberFormat = NumberFormat.getScientificInstance(uLocale);
-        break;
-      case "compact_short":
-        numberFormat = CompactDecimalFormat.getInstance(uLocale, CompactStyle.SHORT);
-        break;
-      case "compact_long":
-        numberFormat = CompactDecimalFormat.getInstance(uLocale, CompactStyle.LONG);
-        break;
-      default:
-        throw new IllegalArgumentException(
-            "First argument to formatNum must be "
-                + "constant, and one of: 'decimal', 'currency', 'percent', 'scientific', "
-                + "'compact_short', or 'compact_long'.");
-    }
-
-    if (minFractionDigits != null || maxFractionDigits != null) {
-      if (maxFractionDigits == null) {
-        maxFractionDigits = minFractionDigits;
-      }
-      if (minFractionDigits != null) {
-        numberFormat.setMinimumFractionDigits(minFractionDigits);
-      }
-      numberFormat.setMaximumFractionDigits(maxFractionDigits);
-    } else if (numberFormat instanceof CompactDecimalFormat) {
-      ((CompactDecimalFormat) numberFormat).setMaximumSignificantDigits(3);
-    }
-
+    NumberFormat numberFormat =
+        I18nFormatCache.numberFormat(
+            uLocale, formatType, numbersKeyword, minFractionDigits, maxFractionDigits);
     return numberFormat.format(number);
   }
 
   public static ImmutableList<SoyValueProvider> localeSort(
       ULocale uLocale, SoyList list, @Nullable SoyRecord options) {
-    RuleBasedCollator collator = (RuleBasedCollator) Collator.getInstance(uLocale);
+    Boolean numeric = null;
+    String caseFirst = null;
+    Integer strength = null;
     if (options != null) {
       if (options.hasField("numeric")) {
-        collator.setNumericCollation(options.getField("numeric").booleanValue());
+        numeric = options.getField("numeric").booleanValue();
       }
       if (options.hasField("caseFirst")) {
-        String caseFirst = options.getField("caseFirst").stringValue();
-        if ("upper".equals(caseFirst)) {
-          collator.setUpperCaseFirst(true);
-        } else if ("lower".equals(caseFirst)) {
-          collator.setLowerCaseFirst(true);
-        }
+        caseFirst = options.getField("caseFirst").stringValue();
       }
       if (options.hasField("sensitivity")) {
         String sensitivity = options.getField("sensitivity").stringValue();
         switch (sensitivity) {
           case "base":
-            collator.setStrength(Collator.PRIMARY);
+            strength = Collator.PRIMARY;
             break;
           case "accent":
-            collator.setStrength(Collator.SECONDARY);
+            strength = Collator.SECONDARY;
             break;
           case "case":
-            collator.setStrength(Collator.TERTIARY);
+            strength = Collator.TERTIARY;
             break;
           case "variant":
-            collator.setStrength(Collator.IDENTICAL);
+            strength = Collator.IDENTICAL;
             break;
           default:
             throw new IllegalArgumentException("Bad value for sensitivity: " + sensitivity);
         }
       } else {
         // Match Intl.Collator default sensitivity (variant).
-        collator.setStrength(Collator.IDENTICAL);
+        strength = Collator.IDENTICAL;
       }
     }
+    Collator collator = I18nFormatCache.collator(uLocale, numeric, caseFirst, strength);
     return ImmutableList.sortedCopyOf(
         comparing((SoyValueProvider arg) -> arg.resolve().stringValue(), collator),
         list.asJavaList());
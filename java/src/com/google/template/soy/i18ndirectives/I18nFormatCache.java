@@ -0,0 +1,181 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.i18ndirectives;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.cache.CacheBuilder;
+import com.ibm.icu.text.Collator;
+import com.ibm.icu.text.CompactDecimalFormat;
+import com.ibm.icu.text.CompactDecimalFormat.CompactStyle;
+import com.ibm.icu.text.NumberFormat;
+import com.ibm.icu.text.RuleBasedCollator;
+import com.ibm.icu.util.ULocale;
+import java.util.concurrent.ConcurrentMap;
+import javax.annotation.Nullable;
+
+/**
+ * Caches the ICU formatters and collators used by {@link I18NDirectivesRuntime}.
+ *
+ * <p>Creating them means looking up locale data and, for collators, building the collation rules,
+ * which is far more expensive than using them. {@link NumberFormat} isn't thread safe, so the cache
+ * holds configured prototypes and hands out clones. Collators are frozen, which makes them safe to
+ * share.
+ */
+final class I18nFormatCache {
+  /**
+   * The number of formatters or collators to keep. The keys are mostly constants in templates, so
+   * this is only reached if templates use many locales.
+   */
+  private static final int MAX_SIZE = 1000;
+
+  private static final ConcurrentMap<NumberFormatKey, NumberFormat> numberFormats = newCache();
+  private static final ConcurrentMap<CollatorKey, Collator> collators = newCache();
+
+  private static <K, V> ConcurrentMap<K, V> newCache() {
+    return CacheBuilder.newBuilder().maximumSize(MAX_SIZE).<K, V>build().asMap();
+  }
+
+  @AutoValue
+  abstract static class NumberFormatKey {
+    abstract ULocale locale();
+
+    abstract String formatType();
+
+    @Nullable
+    abstract Integer minFractionDigits();
+
+    @Nullable
+    abstract Integer maxFractionDigits();
+  }
+
+  @AutoValue
+  abstract static class CollatorKey {
+    abstract ULocale locale();
+
+    /** Whether to sort digits by their numeric value, or null to keep the default of the locale. */
+    @Nullable
+    abstract Boolean numeric();
+
+    @Nullable
+    abstract String caseFirst();
+
+    /** The {@link Collator} strength, or null to keep the default of the locale. */
+    @Nullable
+    abstract Integer strength();
+  }
+
+  /**
+   * Returns a number format for the given options, which the caller may use until it is done with
+   * it. Note: If min or max fraction digits is null, the param will be ignored.
+   */
+  static NumberFormat numberFormat(
+      ULocale uLocale,
+      String formatType,
+      String numbersKeyword,
+      @Nullable Integer minFractionDigits,
+      @Nullable Integer maxFractionDigits) {
+    NumberFormatKey key =
+        new AutoValue_I18nFormatCache_NumberFormatKey(
+            uLocale.setKeywordValue("numbers", numbersKeyword),
+            formatType,
+            minFractionDigits,
+            maxFractionDigits);
+    NumberFormat prototype = numberFormats.computeIfAbsent(key, I18nFormatCache::newNumberFormat);
+    return (NumberFormat) prototype.clone();
+  }
+
+  private static NumberFormat newNumberFormat(NumberFormatKey key) {
+    ULocale uLocale = key.locale();
+    NumberFormat numberFormat;
+    switch (key.formatType()) {
+      case "decimal":
+        numberFormat = NumberFormat.getInstance(uLocale);
+        break;
+      case "percent":
+        numberFormat = NumberFormat.getPercentInstance(uLocale);
+        break;
+      case "currency":
+        numberFormat = NumberFormat.getCurrencyInstance(uLocale);
+        break;
+      case "scientific":
+        numberFormat = NumberFormat.getScientificInstance(uLocale);
+        break;
+      case "compact_short":
+        numberFormat = CompactDecimalFormat.getInstance(uLocale, CompactStyle.SHORT);
+        break;
+      case "compact_long":
+        numberFormat = CompactDecimalFormat.getInstance(uLocale, CompactStyle.LONG);
+        break;
+      default:
+        throw new IllegalArgumentException(
+            "First argument to formatNum must be "
+                + "constant, and one of: 'decimal', 'currency', 'percent', 'scientific', "
+                + "'compact_short', or 'compact_long'.");
+    }
+
+    Integer minFractionDigits = key.minFractionDigits();
+    Integer maxFractionDigits = key.maxFractionDigits();
+    if (minFractionDigits != null || maxFractionDigits != null) {
+      if (maxFractionDigits == null) {
+        maxFractionDigits = minFractionDigits;
+      }
+      if (minFractionDigits != null) {
+        numberFormat.setMinimumFractionDigits(minFractionDigits);
+      }
+      numberFormat.setMaximumFractionDigits(maxFractionDigits);
+    } else if (numberFormat instanceof CompactDecimalFormat) {
+      ((CompactDecimalFormat) numberFormat).setMaximumSignificantDigits(3);
+    }
+    return numberFormat;
+  }
+
+  /**
+   * Returns a frozen collator for the given options.
+   *
+   * @param numeric Whether to sort digits by their numeric value, or null to keep the default.
+   * @param caseFirst {@code "upper"} or {@code "lower"} to sort that case first, anything else to
+   *     keep the default.
+   * @param strength The {@link Collator} strength, or null to keep the default of the locale.
+   */
+  static Collator collator(
+      ULocale uLocale,
+      @Nullable Boolean numeric,
+      @Nullable String caseFirst,
+      @Nullable Integer strength) {
+    return collators.computeIfAbsent(
+        new AutoValue_I18nFormatCache_CollatorKey(uLocale, numeric, caseFirst, strength),
+        I18nFormatCache::newCollator);
+  }
+
+  private static Collator newCollator(CollatorKey key) {
+    RuleBasedCollator collator = (RuleBasedCollator) Collator.getInstance(key.locale());
+    if (key.numeric() != null) {
+      collator.setNumericCollation(key.numeric());
+    }
+    if ("upper".equals(key.caseFirst())) {
+      collator.setUpperCaseFirst(true);
+    } else if ("lower".equals(key.caseFirst())) {
+      collator.setLowerCaseFirst(true);
+    }
+    if (key.strength() != null) {
+      collator.setStrength(key.strength());
+    }
+    return collator.freeze();
+  }
+
+  private I18nFormatCache() {}
+}
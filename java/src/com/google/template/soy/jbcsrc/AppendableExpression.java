@@ -34,6 +34,7 @@ import com.google.template.soy.jbcsrc.restricted.MethodRef;
 import com.google.template.soy.jbcsrc.restricted.SoyExpression;
 import com.google.template.soy.jbcsrc.restricted.Statement;
 import java.util.List;
+import java.util.function.Supplier;
 import org.objectweb.asm.Label;
 import org.objectweb.asm.Type;
 
@@ -49,6 +50,20 @@ final class AppendableExpression extends Expression {
   private static final MethodRef APPEND_CHAR =
       MethodRef.create(LoggingAdvisingAppendable.class, "append", char.class).asNonNullable();
 
+  private static final MethodRef APPEND_UTF8_CONSTANT =
+      MethodRef.create(
+              LoggingAdvisingAppendable.class,
+              "appendUtf8Constant",
+              String.class,
+              Supplier.class)
+          .asNonNullable();
+
+  /**
+   * The shortest constant that is appended with its UTF-8 encoding, shorter ones are cheaper to
+   * encode than to dispatch.
+   */
+  private static final int MIN_UTF8_CONSTANT_LENGTH = 32;
+
   private static final MethodRef SOFT_LIMITED =
       MethodRef.create(LoggingAdvisingAppendable.class, "softLimitReached").asCheap();
 
@@ -147,6 +162,25 @@ final class AppendableExpression extends Expression {
     return withNewDelegate(delegate.invoke(APPEND_CHAR, exp), true);
   }
 
+  /**
+   * Returns a similar {@link AppendableExpression} but with the given constant text appended to it.
+   *
+   * <p>Long text written to the render output is appended along with its UTF-8 encoding, so that
+   * outputs that write bytes don't need to encode it on every render.
+   */
+  AppendableExpression appendConstant(String text) {
+    if (text.length() == 1) {
+      return appendChar(constant(text.charAt(0)));
+    }
+    if (supportsSoftLimiting && text.length() >= MIN_UTF8_CONSTANT_LENGTH) {
+      return withNewDelegate(
+          delegate.invoke(
+              APPEND_UTF8_CONSTANT, constant(text), BytecodeUtils.constantUtf8(text)),
+          true);
+    }
+    return appendString(constant(text));
+  }
+
   /** Returns an expression with the result of {@link AppendableExpression#softLimitReached}. */
   Expression softLimitReached() {
     checkArgument(supportsSoftLimiting);
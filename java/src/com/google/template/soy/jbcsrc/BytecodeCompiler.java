@@ -20,7 +20,9 @@ import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static java.nio.charset.StandardCharsets.UTF_8;
 
 import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.io.ByteSink;
 import com.google.common.io.ByteSource;
@@ -28,6 +30,7 @@ import com.google.template.soy.base.SourceFilePath;
 import com.google.template.soy.base.internal.SoyFileSupplier;
 import com.google.template.soy.base.internal.SoyJarFileWriter;
 import com.google.template.soy.error.ErrorReporter;
+import com.google.template.soy.error.ErrorReporter.DeferredReports;
 import com.google.template.soy.exprtree.FunctionNode;
 import com.google.template.soy.internal.exemptions.NamespaceExemptions;
 import com.google.template.soy.jbcsrc.api.PluginRuntimeInstanceInfo;
@@ -35,6 +38,8 @@ import com.google.template.soy.jbcsrc.internal.ClassData;
 import com.google.template.soy.jbcsrc.restricted.Flags;
 import com.google.template.soy.jbcsrc.shared.CompiledTemplates;
 import com.google.template.soy.jbcsrc.shared.Names;
+import com.google.template.soy.jbcsrc.shared.TemplateIndex;
+import com.google.template.soy.jbcsrc.shared.TemplateMetadata.DelTemplateMetadata;
 import com.google.template.soy.plugin.java.internal.PluginAnalyzer;
 import com.google.template.soy.plugin.java.restricted.SoyJavaSourceFunction;
 import com.google.template.soy.soytree.FileSetMetadata;
@@ -47,11 +52,15 @@ import com.google.template.soy.soytree.TemplateNode;
 import com.google.template.soy.types.SoyTypeRegistry;
 import com.google.template.soy.types.TemplateType;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 /** The entry point to the {@code jbcsrc} compiler. */
 public final class BytecodeCompiler {
@@ -71,19 +80,56 @@ public final class BytecodeCompiler {
       ImmutableMap<SourceFilePath, SoyFileSupplier> filePathsToSuppliers,
       SoyTypeRegistry typeRegistry) {
     ErrorReporter.Checkpoint checkpoint = reporter.checkpoint();
+    CompilingClassLoader loader =
+        new CompilingClassLoader(fileSet, filePathsToSuppliers, typeRegistry, registry);
     CompiledTemplates templates =
-        new CompiledTemplates(
-            /* delTemplateNames=*/ registry.getAllTemplates().stream()
-                .filter(BytecodeCompiler::isModTemplate)
-                .map(BytecodeCompiler::modImplName)
-                .collect(toImmutableSet()),
-            new CompilingClassLoader(fileSet, filePathsToSuppliers, typeRegistry, registry));
+        new CompiledTemplates(delTemplateNames(registry), loader.templateNames(), loader);
     if (reporter.errorsSince(checkpoint)) {
       return Optional.empty();
     }
     return Optional.of(templates);
   }
 
+  /**
+   * Compiles all the templates in the given registry, like {@link #compile}, but keeps the
+   * generated classes so that the templates can be compiled again when some of the files change.
+   *
+   * @param registry All the templates to compile
+   * @param reporter The error reporter
+   * @return RecompilableTemplates or {@code absent()} if compilation fails, in which case errors
+   *     will have been reported to the error reporter.
+   */
+  public static Optional<RecompilableTemplates> compileForRecompilation(
+      FileSetMetadata registry,
+      SoyFileSetNode fileSet,
+      ErrorReporter reporter,
+      ImmutableMap<SourceFilePath, SoyFileSupplier> filePathsToSuppliers,
+      SoyTypeRegistry typeRegistry) {
+    return compile(
+        registry,
+        reporter,
+        CompilingClassLoader.retainingClasses(
+            fileSet, filePathsToSuppliers, typeRegistry, registry));
+  }
+
+  static Optional<RecompilableTemplates> compile(
+      FileSetMetadata registry, ErrorReporter reporter, CompilingClassLoader loader) {
+    ErrorReporter.Checkpoint checkpoint = reporter.checkpoint();
+    CompiledTemplates templates =
+        new CompiledTemplates(delTemplateNames(registry), loader.templateNames(), loader);
+    if (reporter.errorsSince(checkpoint)) {
+      return Optional.empty();
+    }
+    return Optional.of(new RecompilableTemplates(templates, loader));
+  }
+
+  private static ImmutableSet<String> delTemplateNames(FileSetMetadata registry) {
+    return registry.getAllDelTemplates().stream()
+        .filter(BytecodeCompiler::isModTemplate)
+        .map(BytecodeCompiler::modImplName)
+        .collect(toImmutableSet());
+  }
+
   static boolean isModTemplate(TemplateMetadata template) {
     if (template.getTemplateType().getTemplateKind() == TemplateType.TemplateKind.DELTEMPLATE) {
       return true;
@@ -113,18 +159,25 @@ public final class BytecodeCompiler {
    * <p>If errors are encountered, the error reporter will be updated and we will return. The
    * contents of any data written to the sink at that point are undefined.
    *
+   * <p>If a {@code pool} is given, the classes for different files are generated concurrently on
+   * it. They are still written in file order, so the jar is identical to the one written without a
+   * pool.
+   *
    * @param reporter The error reporter
    * @param sink The output sink to write the JAR to.
+   * @param pool The pool to generate classes on, or empty to generate them on the calling thread.
    */
   public static void compileToJar(
       SoyFileSetNode fileSet,
       ErrorReporter reporter,
       SoyTypeRegistry typeRegistry,
       ByteSink sink,
-      PartialFileSetMetadata fileSetMetadata)
+      PartialFileSetMetadata fileSetMetadata,
+      Optional<ForkJoinPool> pool)
       throws IOException {
     try (final SoyJarFileWriter writer = new SoyJarFileWriter(sink.openStream())) {
       final Set<String> modTemplates = new TreeSet<>();
+      final StringBuilder classList = new StringBuilder();
 
       // A map of plugin names -> info about the required instance class (only for plugins that
       // require a runtime class).
@@ -139,6 +192,7 @@ public final class BytecodeCompiler {
             void onCompile(ClassData clazz) throws IOException {
               writer.writeEntry(
                   clazz.type().internalName() + ".class", ByteSource.wrap(clazz.data()));
+              classList.append(clazz.type().internalName()).append('\n');
             }
 
             @Override
@@ -170,13 +224,23 @@ public final class BytecodeCompiler {
               }
             }
           },
-          fileSetMetadata);
+          fileSetMetadata,
+          pool);
       if (!modTemplates.isEmpty()) {
         String delData = Joiner.on('\n').join(modTemplates);
         writer.writeEntry(
             Names.META_INF_DELTEMPLATE_PATH, ByteSource.wrap(delData.getBytes(UTF_8)));
       }
 
+      if (classList.length() > 0) {
+        writer.writeEntry(
+            Names.META_INF_TEMPLATE_INDEX_PATH,
+            ByteSource.wrap(templateIndex(fileSet).serialize().getBytes(UTF_8)));
+        writer.writeEntry(
+            Names.META_INF_CLASS_LIST_PATH,
+            ByteSource.wrap(classList.toString().getBytes(UTF_8)));
+      }
+
       // Collect all instances from all declared externs.
       fileSet.getChildren().stream()
           .flatMap(f -> f.getExterns().stream())
@@ -204,6 +268,32 @@ public final class BytecodeCompiler {
     }
   }
 
+  /** Returns the index of the templates compiled from the given files. */
+  private static TemplateIndex templateIndex(SoyFileSetNode fileSet) {
+    TemplateIndex.Builder index = new TemplateIndex.Builder();
+    for (SoyFileNode file : fileSet.getChildren()) {
+      for (TemplateNode template : file.getTemplates()) {
+        TemplateMetadata metadata = TemplateMetadata.fromTemplate(template);
+        if (!isModTemplate(metadata)) {
+          index.addTemplate(template.getTemplateName());
+          continue;
+        }
+        String implName = modImplName(metadata);
+        if (!implName.equals(template.getTemplateName())) {
+          // The modifiable template itself, which selects the implementation to render.
+          index.addTemplate(template.getTemplateName());
+        }
+        DelTemplateMetadata delTemplateMetadata = TemplateCompiler.delTemplateMetadata(template);
+        index.addDelTemplate(
+            implName,
+            delTemplateMetadata.name(),
+            delTemplateMetadata.modName(),
+            delTemplateMetadata.variant());
+      }
+    }
+    return index.build();
+  }
+
   /**
    * Writes the source files out to a {@code -src.jar}. This places the soy files at the same
    * classpath relative location as their generated classes. Ultimately this can be used by
@@ -267,33 +357,88 @@ public final class BytecodeCompiler {
       ErrorReporter errorReporter,
       SoyTypeRegistry typeRegistry,
       CompilerListener<T, E> listener,
-      PartialFileSetMetadata fileSetMetadata)
+      PartialFileSetMetadata fileSetMetadata,
+      Optional<ForkJoinPool> pool)
       throws E {
     JavaSourceFunctionCompiler javaSourceFunctionCompiler =
         new JavaSourceFunctionCompiler(typeRegistry, errorReporter);
-    for (SoyFileNode file : fileSet.getChildren()) {
-      for (ClassData clazz :
-          new SoyFileCompiler(file, javaSourceFunctionCompiler, fileSetMetadata).compile()) {
-        if (Flags.DEBUG) {
-          clazz.checkClass();
-        }
-        listener.onCompile(clazz);
+    List<SoyFileNode> files = fileSet.getChildren();
+    if (!pool.isPresent()) {
+      for (SoyFileNode file : files) {
+        notifyListener(
+            file, compileFile(file, javaSourceFunctionCompiler, fileSetMetadata), listener);
       }
-      for (TemplateNode template : file.getTemplates()) {
-        TemplateMetadata metadata = TemplateMetadata.fromTemplate(template);
-        if (isModTemplate(metadata)) {
-          listener.onCompileModifiableTemplate(modImplName(metadata));
-        } else {
-          listener.onCompileTemplate(template.getTemplateName());
-        }
+      return listener.getResult();
+    }
+    // Generate the classes for all the files concurrently, but hand them to the listener in file
+    // order so that the output doesn't depend on how the work was scheduled.
+    List<ForkJoinTask<CompiledFile>> tasks = new ArrayList<>(files.size());
+    for (SoyFileNode file : files) {
+      tasks.add(
+          pool.get()
+              .submit(
+                  () -> {
+                    List<ClassData> classes = new ArrayList<>();
+                    DeferredReports reports =
+                        errorReporter.deferReports(
+                            () ->
+                                classes.addAll(
+                                    compileFile(
+                                        file, javaSourceFunctionCompiler, fileSetMetadata)));
+                    return new CompiledFile(classes, reports);
+                  }));
+    }
+    for (int i = 0; i < files.size(); i++) {
+      CompiledFile compiled = tasks.get(i).join();
+      compiled.reports.commit();
+      notifyListener(files.get(i), compiled.classes, listener);
+    }
+    return listener.getResult();
+  }
 
-        /** For each function call in the template, trigger the function call listener. */
-        for (FunctionNode fnNode : SoyTreeUtils.getAllNodesOfType(template, FunctionNode.class)) {
-          listener.onFunctionCallFound(fnNode);
-        }
+  private static ImmutableList<ClassData> compileFile(
+      SoyFileNode file,
+      JavaSourceFunctionCompiler javaSourceFunctionCompiler,
+      PartialFileSetMetadata fileSetMetadata) {
+    ImmutableList<ClassData> classes =
+        new SoyFileCompiler(file, javaSourceFunctionCompiler, fileSetMetadata).compile();
+    if (Flags.DEBUG) {
+      for (ClassData clazz : classes) {
+        clazz.checkClass();
       }
     }
-    return listener.getResult();
+    return classes;
+  }
+
+  private static <E extends Throwable> void notifyListener(
+      SoyFileNode file, List<ClassData> classes, CompilerListener<?, E> listener) throws E {
+    for (ClassData clazz : classes) {
+      listener.onCompile(clazz);
+    }
+    for (TemplateNode template : file.getTemplates()) {
+      TemplateMetadata metadata = TemplateMetadata.fromTemplate(template);
+      if (isModTemplate(metadata)) {
+        listener.onCompileModifiableTemplate(modImplName(metadata));
+      } else {
+        listener.onCompileTemplate(template.getTemplateName());
+      }
+
+      /** For each function call in the template, trigger the function call listener. */
+      for (FunctionNode fnNode : SoyTreeUtils.getAllNodesOfType(template, FunctionNode.class)) {
+        listener.onFunctionCallFound(fnNode);
+      }
+    }
+  }
+
+  /** The classes generated for a file and the errors reported while generating them. */
+  private static final class CompiledFile {
+    final List<ClassData> classes;
+    final DeferredReports reports;
+
+    CompiledFile(List<ClassData> classes, DeferredReports reports) {
+      this.classes = classes;
+      this.reports = reports;
+    }
   }
 
   private BytecodeCompiler() {}
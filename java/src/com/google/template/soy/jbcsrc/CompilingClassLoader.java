@@ -16,8 +16,13 @@
 
 package com.google.template.soy.jbcsrc;
 
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Maps;
 import com.google.template.soy.base.SourceFilePath;
 import com.google.template.soy.base.internal.SoyFileSupplier;
 import com.google.template.soy.error.ErrorReporter;
@@ -34,42 +39,127 @@ import com.google.template.soy.soytree.TemplateNode;
 import com.google.template.soy.types.SoyTypeRegistry;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
 
-/** A classloader that can compile templates on demand. */
+/**
+ * A classloader that can compile templates on demand.
+ *
+ * <p>A classloader created for a {@link RecompilableTemplates} keeps the classes generated for
+ * each file, so that a later classloader for the same templates can define them again without
+ * compiling the file.
+ */
 final class CompilingClassLoader extends AbstractMemoryClassLoader {
+  static {
+    // Files are compiled under a per class lock, so that templates can be loaded concurrently. See
+    // CompiledTemplates.loadTemplates.
+    ClassLoader.registerAsParallelCapable();
+  }
+
   // Synchronized hashmap is sufficient for our usecase since we are only calling remove(), CHM
   // would just use more memory.
   private final Map<String, ClassData> classesByName = Collections.synchronizedMap(new HashMap<>());
 
-  private final ImmutableMap<SourceFilePath, SoyFileSupplier> filePathsToSuppliers;
-  private final ImmutableMap<String, SoyFileNode> javaClassNameToFile;
-  private final SoyTypeRegistry typeRegistry;
-  private final PartialFileSetMetadata fileSetMetadata;
+  private final ImmutableMap<String, CompilableFile> javaClassNameToFile;
 
   CompilingClassLoader(
       SoyFileSetNode fileSet,
       ImmutableMap<SourceFilePath, SoyFileSupplier> filePathsToSuppliers,
       SoyTypeRegistry typeRegistry,
       PartialFileSetMetadata fileSetMetadata) {
-    Map<String, SoyFileNode> javaClassNameToFile = new LinkedHashMap<>();
+    this(
+        ImmutableMap.of(),
+        fileSet,
+        filePathsToSuppliers,
+        typeRegistry,
+        fileSetMetadata,
+        /* retainClasses= */ false);
+  }
+
+  /**
+   * Creates a classloader for the files of {@code previous}, with the files in {@code fileSet}
+   * compiled again and the files in {@code removedFiles} removed. The classes of all the other
+   * files are taken from {@code previous}, or compiled from its files if it hasn't generated them.
+   */
+  CompilingClassLoader(
+      CompilingClassLoader previous,
+      SoyFileSetNode fileSet,
+      Set<SourceFilePath> removedFiles,
+      ImmutableMap<SourceFilePath, SoyFileSupplier> filePathsToSuppliers,
+      SoyTypeRegistry typeRegistry,
+      PartialFileSetMetadata fileSetMetadata) {
+    this(
+        unchangedFiles(previous, fileSet, removedFiles),
+        fileSet,
+        filePathsToSuppliers,
+        typeRegistry,
+        fileSetMetadata,
+        /* retainClasses= */ true);
+  }
+
+  private static Map<String, CompilableFile> unchangedFiles(
+      CompilingClassLoader previous, SoyFileSetNode fileSet, Set<SourceFilePath> removedFiles) {
+    Set<SourceFilePath> changedFiles = new HashSet<>(removedFiles);
+    for (SoyFileNode file : fileSet.getChildren()) {
+      changedFiles.add(file.getFilePath());
+    }
+    return Maps.filterValues(
+        previous.javaClassNameToFile, file -> !changedFiles.contains(file.path));
+  }
+
+  /** Creates a classloader that keeps the classes it generates for a later recompilation. */
+  static CompilingClassLoader retainingClasses(
+      SoyFileSetNode fileSet,
+      ImmutableMap<SourceFilePath, SoyFileSupplier> filePathsToSuppliers,
+      SoyTypeRegistry typeRegistry,
+      PartialFileSetMetadata fileSetMetadata) {
+    return new CompilingClassLoader(
+        ImmutableMap.of(),
+        fileSet,
+        filePathsToSuppliers,
+        typeRegistry,
+        fileSetMetadata,
+        /* retainClasses= */ true);
+  }
+
+  private CompilingClassLoader(
+      Map<String, CompilableFile> reusedFiles,
+      SoyFileSetNode fileSet,
+      ImmutableMap<SourceFilePath, SoyFileSupplier> filePathsToSuppliers,
+      SoyTypeRegistry typeRegistry,
+      PartialFileSetMetadata fileSetMetadata,
+      boolean retainClasses) {
+    Map<String, CompilableFile> javaClassNameToFile = new LinkedHashMap<>(reusedFiles);
     for (SoyFileNode file : fileSet.getChildren()) {
+      CompilableFile compilableFile =
+          new CompilableFile(
+              file, filePathsToSuppliers, typeRegistry, fileSetMetadata, retainClasses);
       if (NamespaceExemptions.isKnownDuplicateNamespace(file.getNamespace())) {
         // TODO(b/180904763):For the vast majority of files all templates share the same class, but
         // there are some exceptions due to this bug.  Remove this loop when that is cleaned up.
         for (TemplateNode template : file.getTemplates()) {
           javaClassNameToFile.put(
-              Names.javaClassNameFromSoyTemplateName(template.getTemplateName()), file);
+              Names.javaClassNameFromSoyTemplateName(template.getTemplateName()), compilableFile);
         }
       } else {
-        javaClassNameToFile.put(Names.javaClassNameFromSoyNamespace(file.getNamespace()), file);
+        javaClassNameToFile.put(
+            Names.javaClassNameFromSoyNamespace(file.getNamespace()), compilableFile);
       }
     }
     this.javaClassNameToFile = ImmutableMap.copyOf(javaClassNameToFile);
-    this.typeRegistry = typeRegistry;
-    this.filePathsToSuppliers = filePathsToSuppliers;
-    this.fileSetMetadata = fileSetMetadata;
+  }
+
+  /** Returns the names of all the templates that this classloader can compile. */
+  ImmutableSet<String> templateNames() {
+    ImmutableSet.Builder<String> names = ImmutableSet.builder();
+    for (CompilableFile file : javaClassNameToFile.values()) {
+      names.addAll(file.templateNames);
+    }
+    return names.build();
   }
 
   @Override
@@ -88,17 +178,13 @@ final class CompilingClassLoader extends AbstractMemoryClassLoader {
 
     // For each template we compile there is only one 'public' class that could be loaded prior
     // to compiling the template, CompiledTemplate itself.
-    SoyFileNode node = javaClassNameToFile.get(name);
-    if (node == null) {
+    CompilableFile file = javaClassNameToFile.get(name);
+    if (file == null) {
       // typo in template name?
       return null;
     }
     ClassData clazzToLoad = null;
-    ErrorReporter reporter = ErrorReporter.create(filePathsToSuppliers);
-    for (ClassData clazz :
-        new SoyFileCompiler(
-                node, new JavaSourceFunctionCompiler(typeRegistry, reporter), fileSetMetadata)
-            .compile()) {
+    for (ClassData clazz : file.compile()) {
       String className = clazz.type().className();
       if (className.equals(name)) {
         clazzToLoad = clazz;
@@ -106,11 +192,64 @@ final class CompilingClassLoader extends AbstractMemoryClassLoader {
         classesByName.put(className, clazz);
       }
     }
-    if (reporter.hasErrors()) {
-      // if we are reporting errors we should report warnings at the same time.
-      Iterable<SoyError> errors = Iterables.concat(reporter.getErrors(), reporter.getWarnings());
-      throw new SoyCompilationException(errors);
-    }
     return clazzToLoad;
   }
+
+  /** A file to compile, and if they are retained, the classes generated for it. */
+  private static final class CompilableFile {
+    final SourceFilePath path;
+    final ImmutableList<String> templateNames;
+    private final ImmutableMap<SourceFilePath, SoyFileSupplier> filePathsToSuppliers;
+    private final SoyTypeRegistry typeRegistry;
+    private final PartialFileSetMetadata fileSetMetadata;
+    private final boolean retainClasses;
+
+    @GuardedBy("this")
+    @Nullable
+    private SoyFileNode node;
+
+    @GuardedBy("this")
+    @Nullable
+    private ImmutableList<ClassData> classes;
+
+    CompilableFile(
+        SoyFileNode node,
+        ImmutableMap<SourceFilePath, SoyFileSupplier> filePathsToSuppliers,
+        SoyTypeRegistry typeRegistry,
+        PartialFileSetMetadata fileSetMetadata,
+        boolean retainClasses) {
+      this.path = node.getFilePath();
+      this.templateNames =
+          node.getTemplates().stream()
+              .map(TemplateNode::getTemplateName)
+              .collect(toImmutableList());
+      this.node = node;
+      this.filePathsToSuppliers = filePathsToSuppliers;
+      this.typeRegistry = typeRegistry;
+      this.fileSetMetadata = fileSetMetadata;
+      this.retainClasses = retainClasses;
+    }
+
+    synchronized ImmutableList<ClassData> compile() {
+      if (classes != null) {
+        return classes;
+      }
+      ErrorReporter reporter = ErrorReporter.create(filePathsToSuppliers);
+      ImmutableList<ClassData> compiled =
+          new SoyFileCompiler(
+                  node, new JavaSourceFunctionCompiler(typeRegistry, reporter), fileSetMetadata)
+              .compile();
+      if (reporter.hasErrors()) {
+        // if we are reporting errors we should report warnings at the same time.
+        Iterable<SoyError> errors = Iterables.concat(reporter.getErrors(), reporter.getWarnings());
+        throw new SoyCompilationException(errors);
+      }
+      if (retainClasses) {
+        // The AST isn't needed once the classes are kept.
+        classes = compiled;
+        node = null;
+      }
+      return compiled;
+    }
+  }
 }
@@ -1036,8 +1036,11 @@ final class ExpressionCompiler {
     SoyExpression visitForLoopVar(VarRefNode varRef, LocalVar local) {
       Expression expression = parameters.getLocal(local);
       if (expression.resultType().equals(Type.LONG_TYPE)) {
-        // it can be an unboxed long when executing a foreach over a range
+        // it can be an unboxed long when executing a foreach over a range or a list of ints
         return SoyExpression.forInt(expression);
+      } else if (expression.resultType().equals(Type.DOUBLE_TYPE)) {
+        // or an unboxed double when executing a foreach over a list of floats
+        return SoyExpression.forFloat(expression);
       } else if (!analysis.isResolved(varRef)) {
         // otherwise it must be a SoyValueProvider, resolve and cast
         expression = detacher.resolveSoyValueProvider(expression);
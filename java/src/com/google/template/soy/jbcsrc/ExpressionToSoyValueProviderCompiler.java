@@ -254,11 +254,17 @@ final class ExpressionToSoyValueProviderCompiler {
     Optional<Expression> visitForLoopVar(VarRefNode varRef, LocalVar local) {
       Expression loopVar = variables.getLocal(local);
       if (loopVar.resultType().equals(Type.LONG_TYPE)) {
-        // this happens in foreach loops over ranges
+        // this happens in foreach loops over ranges and lists of ints
         if (allowsBoxing()) {
           return Optional.of(SoyExpression.forInt(loopVar).box());
         }
         return Optional.empty();
+      } else if (loopVar.resultType().equals(Type.DOUBLE_TYPE)) {
+        // this happens in foreach loops over lists of floats
+        if (allowsBoxing()) {
+          return Optional.of(SoyExpression.forFloat(loopVar).box());
+        }
+        return Optional.empty();
       } else {
         return Optional.of(loopVar);
       }
@@ -35,6 +35,7 @@ import com.google.template.soy.jbcsrc.restricted.MethodRef;
 import com.google.template.soy.jbcsrc.restricted.SoyExpression;
 import com.google.template.soy.jbcsrc.restricted.Statement;
 import com.google.template.soy.jbcsrc.shared.MsgDefaultConstantFactory;
+import com.google.template.soy.jbcsrc.shared.MsgPlan;
 import com.google.template.soy.msgs.internal.MsgUtils.MsgPartsAndIds;
 import com.google.template.soy.shared.restricted.SoyPrintDirective;
 import com.google.template.soy.soytree.EscapingMode;
@@ -50,6 +51,7 @@ import com.google.template.soy.soytree.VeLogNode;
 import com.google.template.soy.types.StringType;
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.MethodType;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -64,26 +66,26 @@ import org.objectweb.asm.Type;
  * actual message formatting so this class is responsible for:
  *
  * <ul>
- *   <li>Stashing a default {@code ImmutableList<SoyMsgPart>} in a static field to handle missing
- *       translations
- *   <li>performing lookup from the RenderContext to get the translation
+ *   <li>Stashing the plan of the default message in an {@code invokedynamic} constant to handle
+ *       missing translations
+ *   <li>performing lookup from the RenderContext to get the compiled translation
  *   <li>generating code calculate placeholder values
  * </ul>
  */
 final class MsgCompiler {
-  public static final Type IMMUTABLE_LIST_TYPE = Type.getType(ImmutableList.class);
+  private static final Type MSG_PLAN_TYPE = Type.getType(MsgPlan.class);
   private static final Handle MESSAGE_FACTORY_HANDLE =
       MethodRef.create(
               MsgDefaultConstantFactory.class,
-              "bootstrapMsgConstant",
+              "bootstrapMsgPlan",
               MethodHandles.Lookup.class,
               String.class,
               MethodType.class,
+              int.class,
               Object[].class)
           .asHandle();
 
-  private static final String MSG_DEFAULT_DESCRIPTOR =
-      Type.getMethodDescriptor(IMMUTABLE_LIST_TYPE);
+  private static final String MSG_DEFAULT_DESCRIPTOR = Type.getMethodDescriptor(MSG_PLAN_TYPE);
 
   /**
    * A helper interface that allows the MsgCompiler to interact with the SoyNodeCompiler in a
@@ -149,25 +151,27 @@ final class MsgCompiler {
    */
   Statement compileMessage(
       MsgPartsAndIds partsAndId, MsgNode msg, ImmutableList<SoyPrintDirective> escapingDirectives) {
-    Expression soyMsgDefaultParts = compileDefaultMessagePartsConstant(partsAndId);
-    Expression soyMsgParts =
+    Expression defaultMsgPlan =
+        compileDefaultMessagePlanConstant(
+            partsAndId, msg.getEscapingMode() == EscapingMode.ESCAPE_HTML);
+    Expression msgPlan =
         msg.getAlternateId().isPresent()
             ? parameterLookup
                 .getRenderContext()
-                .getSoyMsgPartsWithAlternateId(
-                    partsAndId.id, soyMsgDefaultParts, msg.getAlternateId().getAsLong())
-            : parameterLookup.getRenderContext().getSoyMsgParts(partsAndId.id, soyMsgDefaultParts);
+                .getMsgPlanWithAlternateId(
+                    partsAndId.id, defaultMsgPlan, msg.getAlternateId().getAsLong())
+            : parameterLookup.getRenderContext().getMsgPlan(partsAndId.id, defaultMsgPlan);
     Statement printMsg;
     if (msg.isRawTextMsg()) {
       // Simplest case, just a static string translation
-      printMsg = handleBasicTranslation(msg, escapingDirectives, soyMsgParts);
+      printMsg = handleBasicTranslation(escapingDirectives, msgPlan);
     } else {
       // String translation + placeholders
       printMsg =
           handleTranslationWithPlaceholders(
               msg,
               escapingDirectives,
-              soyMsgParts,
+              msgPlan,
               parameterLookup.getPluginContext().getULocale(),
               partsAndId);
     }
@@ -175,18 +179,20 @@ final class MsgCompiler {
   }
 
   /**
-   * Returns an expression that evaluates to a constant {@code ImmutableList<SoyMsgPart>} used as
-   * the default message for when translations don't exist.
+   * Returns an expression that evaluates to a constant {@link MsgPlan} of the default message, used
+   * when translations don't exist.
    *
-   * <p>For each msg we generate a static final field that holds an {@code
-   * ImmutableList<SoyMsgPart>} which means we have to go through the somewhat awkward process of
-   * generating code to construct objects we have at compile time. We could do something like use
-   * java serialization, but just invoking the SoyMsgPart constructors isn't too hard.
+   * <p>The parts are encoded as bootstrap arguments of an {@code invokedynamic} instruction, which
+   * compiles them into a plan the first time it runs and then returns that same plan, so resolving
+   * the default message doesn't need a cache lookup.
    */
-  private Expression compileDefaultMessagePartsConstant(MsgPartsAndIds partsAndId) {
-    List<Object> constantParts = MsgDefaultConstantFactory.msgToPartsList(partsAndId.parts);
+  private Expression compileDefaultMessagePlanConstant(
+      MsgPartsAndIds partsAndId, boolean htmlEscape) {
+    List<Object> constantParts = new ArrayList<>();
+    constantParts.add(htmlEscape ? 1 : 0);
+    constantParts.addAll(MsgDefaultConstantFactory.msgToPartsList(partsAndId.parts));
     return new Expression(
-        IMMUTABLE_LIST_TYPE, Expression.Feature.NON_NULLABLE, Expression.Feature.CHEAP) {
+        MSG_PLAN_TYPE, Expression.Feature.NON_NULLABLE, Expression.Feature.CHEAP) {
       @Override
       protected void doGen(CodeBuilder cb) {
         cb.visitInvokeDynamicInsn(
@@ -197,15 +203,11 @@ final class MsgCompiler {
 
   /** Handles a translation consisting of a single raw text node. */
   private Statement handleBasicTranslation(
-      MsgNode msg, List<SoyPrintDirective> escapingDirectives, Expression soyMsgParts) {
+      List<SoyPrintDirective> escapingDirectives, Expression msgPlan) {
     // optimize for simple constant translations (very common)
-    // this becomes: renderContext.getSoyMessge(<id>).getParts().get(0).getRawText()
+    // this becomes: renderContext.getMsgPlan(<id>, <default plan>).text()
     SoyExpression text =
-        SoyExpression.forString(
-            (msg.getEscapingMode() == EscapingMode.ESCAPE_HTML
-                    ? MethodRef.HANDLE_BASIC_TRANSLATION_AND_ESCAPE_HTML
-                    : MethodRef.HANDLE_BASIC_TRANSLATION)
-                .invoke(soyMsgParts));
+        SoyExpression.forString(MethodRef.HANDLE_BASIC_TRANSLATION.invoke(msgPlan));
     // Note: there is no point in trying to stream here, since we are starting with a constant
     // string.
     for (SoyPrintDirective directive : escapingDirectives) {
@@ -220,19 +222,14 @@ final class MsgCompiler {
   private Statement handleTranslationWithPlaceholders(
       MsgNode msg,
       ImmutableList<SoyPrintDirective> escapingDirectives,
-      Expression soyMsgParts,
+      Expression msgPlan,
       Expression locale,
       MsgPartsAndIds partsAndId) {
     Label reattachPoint = new Label();
     ConstructorRef cstruct =
         msg.isPlrselMsg() ? ConstructorRef.PLRSEL_MSG_RENDERER : ConstructorRef.MSG_RENDERER;
     Expression renderer =
-        cstruct.construct(
-            constant(partsAndId.id),
-            soyMsgParts,
-            locale,
-            constant(msg.getVarNameToRepNodeMap().size()),
-            constant(msg.getEscapingMode() == EscapingMode.ESCAPE_HTML));
+        cstruct.construct(constant(partsAndId.id), msgPlan, locale);
     boolean requiresDetachLogic = false;
     for (Map.Entry<String, MsgSubstUnitNode> entry : msg.getVarNameToRepNodeMap().entrySet()) {
       String phName = entry.getKey();
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.jbcsrc;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.template.soy.base.SourceFilePath;
+import com.google.template.soy.base.internal.SoyFileSupplier;
+import com.google.template.soy.error.ErrorReporter;
+import com.google.template.soy.jbcsrc.shared.CompiledTemplates;
+import com.google.template.soy.soytree.FileSetMetadata;
+import com.google.template.soy.soytree.SoyFileSetNode;
+import com.google.template.soy.types.SoyTypeRegistry;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * {@link CompiledTemplates} that can be compiled again after some of their files have changed,
+ * without generating the classes of the other files again.
+ *
+ * <p>The classes of every file are kept once they have been generated, and are defined again by
+ * the classloader of the next compilation. Since calls between files are linked by the classloader
+ * of the caller, unchanged callers are linked to the new classes of changed callees. Callers that
+ * depend on the header of a changed file, like the parameters of its templates, must be compiled
+ * again along with it.
+ */
+public final class RecompilableTemplates {
+  private final CompiledTemplates templates;
+  private final CompilingClassLoader loader;
+
+  RecompilableTemplates(CompiledTemplates templates, CompilingClassLoader loader) {
+    this.templates = templates;
+    this.loader = loader;
+  }
+
+  /** Returns the compiled templates. */
+  public CompiledTemplates templates() {
+    return templates;
+  }
+
+  /**
+   * Compiles the templates again with the files in {@code changedFiles} replaced, or added, and
+   * the files in {@code removedFiles} removed.
+   *
+   * @param registry The metadata for all the templates, where the unchanged files are usually
+   *     dependencies of {@code changedFiles}.
+   * @param changedFiles The files to compile again.
+   * @param removedFiles The files that no longer exist.
+   * @param reporter The error reporter
+   * @return The new templates, or {@code absent()} if compilation fails, in which case errors will
+   *     have been reported to the error reporter.
+   */
+  public Optional<RecompilableTemplates> recompile(
+      FileSetMetadata registry,
+      SoyFileSetNode changedFiles,
+      Set<SourceFilePath> removedFiles,
+      ErrorReporter reporter,
+      ImmutableMap<SourceFilePath, SoyFileSupplier> filePathsToSuppliers,
+      SoyTypeRegistry typeRegistry) {
+    return BytecodeCompiler.compile(
+        registry,
+        reporter,
+        new CompilingClassLoader(
+            loader, changedFiles, removedFiles, filePathsToSuppliers, typeRegistry, registry));
+  }
+}
@@ -27,6 +27,7 @@ import com.google.template.soy.jbcsrc.restricted.MethodRef;
 import com.google.template.soy.jbcsrc.restricted.SoyExpression;
 import com.google.template.soy.jbcsrc.restricted.SoyJbcSrcPrintDirective;
 import com.google.template.soy.jbcsrc.restricted.Statement;
+import com.google.template.soy.jbcsrc.shared.MsgPlan;
 import com.google.template.soy.jbcsrc.shared.RenderContext;
 import com.google.template.soy.shared.restricted.SoyPrintDirective;
 import com.google.template.soy.types.UnknownType;
@@ -55,16 +56,18 @@ final class RenderContextExpression extends Expression implements JbcSrcPluginCo
   private static final MethodRef GET_PRINT_DIRECTIVE =
       MethodRef.create(RenderContext.class, "getPrintDirective", String.class);
 
-  private static final MethodRef GET_SOY_MSG_PARTS =
-      MethodRef.create(RenderContext.class, "getSoyMsgParts", long.class, ImmutableList.class);
+  private static final MethodRef GET_MSG_PLAN =
+      MethodRef.create(RenderContext.class, "getMsgPlan", long.class, MsgPlan.class)
+          .asNonNullable();
 
-  private static final MethodRef GET_SOY_MSG_PARTS_WITH_ALTERNATE_ID =
+  private static final MethodRef GET_MSG_PLAN_WITH_ALTERNATE_ID =
       MethodRef.create(
-          RenderContext.class,
-          "getSoyMsgPartsWithAlternateId",
-          long.class,
-          ImmutableList.class,
-          long.class);
+              RenderContext.class,
+              "getMsgPlanWithAlternateId",
+              long.class,
+              MsgPlan.class,
+              long.class)
+          .asNonNullable();
 
   private static final MethodRef RENAME_CSS_SELECTOR =
       MethodRef.create(RenderContext.class, "renameCssSelector", String.class).asNonNullable();
@@ -198,13 +201,13 @@ final class RenderContextExpression extends Expression implements JbcSrcPluginCo
     return delegate.invoke(GET_LOCALE);
   }
 
-  Expression getSoyMsgParts(long id, Expression defaultParts) {
-    return delegate.invoke(GET_SOY_MSG_PARTS, constant(id), defaultParts);
+  Expression getMsgPlan(long id, Expression defaultPlan) {
+    return delegate.invoke(GET_MSG_PLAN, constant(id), defaultPlan);
   }
 
-  Expression getSoyMsgPartsWithAlternateId(long id, Expression defaultParts, long alternateId) {
+  Expression getMsgPlanWithAlternateId(long id, Expression defaultPlan, long alternateId) {
     return delegate.invoke(
-        GET_SOY_MSG_PARTS_WITH_ALTERNATE_ID, constant(id), defaultParts, constant(alternateId));
+        GET_MSG_PLAN_WITH_ALTERNATE_ID, constant(id), defaultPlan, constant(alternateId));
   }
 
   Expression getPrintDirective(String name) {
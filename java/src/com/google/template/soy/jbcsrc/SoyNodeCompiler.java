@@ -840,13 +840,7 @@ final class SoyNodeCompiler extends AbstractReturningSoyNodeVisitor<Statement> {
 
   @Override
   protected Statement visitRawTextNode(RawTextNode node) {
-    AppendableExpression render;
-    if (node.getRawText().length() == 1) {
-      render = appendableExpression.appendChar(constant(node.getRawText().charAt(0)));
-    } else {
-      render = appendableExpression.appendString(constant(node.getRawText()));
-    }
-    return render.toStatement();
+    return appendableExpression.appendConstant(node.getRawText()).toStatement();
   }
 
   @Override
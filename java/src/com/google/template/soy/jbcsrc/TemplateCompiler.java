@@ -266,19 +266,7 @@ final class TemplateCompiler {
                     .collect(toImmutableSet()))
             .build();
 
-    TemplateMetadata.DelTemplateMetadata deltemplateMetadata;
-    if (templateNode.getKind() == SoyNode.Kind.TEMPLATE_DELEGATE_NODE) {
-      TemplateDelegateNode delegateNode = (TemplateDelegateNode) templateNode;
-      deltemplateMetadata =
-          createDelTemplateMetadata(
-              nullToEmpty(delegateNode.getModName()),
-              delegateNode.getDelTemplateName(),
-              delegateNode.getDelTemplateVariant());
-    } else if (templateNode instanceof TemplateBasicNode) {
-      deltemplateMetadata = metadataForBasicNode((TemplateBasicNode) templateNode);
-    } else {
-      deltemplateMetadata = createDefaultDelTemplateMetadata();
-    }
+    TemplateMetadata.DelTemplateMetadata deltemplateMetadata = delTemplateMetadata(templateNode);
     Set<String> namespaces = Sets.newLinkedHashSet();
     // This ordering is critical to preserve css hierarchy.
     namespaces.addAll(templateNode.getParent().getRequiredCssNamespaces());
@@ -309,7 +297,22 @@ final class TemplateCompiler {
         : node.getResolvedName();
   }
 
-  TemplateMetadata.DelTemplateMetadata metadataForBasicNode(TemplateBasicNode templateBasicNode) {
+  /** Returns the deltemplate metadata written to the {@link TemplateMetadata} annotation. */
+  static TemplateMetadata.DelTemplateMetadata delTemplateMetadata(TemplateNode templateNode) {
+    if (templateNode.getKind() == SoyNode.Kind.TEMPLATE_DELEGATE_NODE) {
+      TemplateDelegateNode delegateNode = (TemplateDelegateNode) templateNode;
+      return createDelTemplateMetadata(
+          nullToEmpty(delegateNode.getModName()),
+          delegateNode.getDelTemplateName(),
+          delegateNode.getDelTemplateVariant());
+    } else if (templateNode instanceof TemplateBasicNode) {
+      return metadataForBasicNode((TemplateBasicNode) templateNode);
+    }
+    return createDefaultDelTemplateMetadata();
+  }
+
+  private static TemplateMetadata.DelTemplateMetadata metadataForBasicNode(
+      TemplateBasicNode templateBasicNode) {
     if (templateBasicNode.isModifiable()) {
       return createDelTemplateMetadata(
           nullToEmpty(templateBasicNode.getModName()),
@@ -16,7 +16,9 @@
 
 package com.google.template.soy.jbcsrc.api;
 
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
 import java.io.IOException;
+import java.util.function.Supplier;
 
 /**
  * An {@link Appendable} that can inform the writer that a buffer limit has been reached or
@@ -41,6 +43,19 @@ public interface AdvisingAppendable extends Appendable {
   @Override
   AdvisingAppendable append(char c) throws IOException;
 
+  /**
+   * Appends constant text along with a supplier of its UTF-8 encoding, so that appendables writing
+   * bytes can copy the encoded form instead of encoding the text again. The supplier returns the
+   * same array every time it is called, which must not be modified.
+   *
+   * <p>The default implementation appends {@code text} and ignores the bytes.
+   */
+  @CanIgnoreReturnValue
+  default AdvisingAppendable appendUtf8Constant(String text, Supplier<byte[]> utf8)
+      throws IOException {
+    return append(text);
+  }
+
   /**
    * Indicates that an internal limit has been reached or exceeded and that write operations should
    * be suspended <i>soon</i>.
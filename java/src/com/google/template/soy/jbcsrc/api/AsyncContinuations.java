@@ -0,0 +1,203 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.jbcsrc.api;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.JdkFutureAdapters;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.template.soy.jbcsrc.api.SoySauce.Continuation;
+import com.google.template.soy.jbcsrc.api.SoySauce.WriteContinuation;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Drives {@link Continuation}s and {@link WriteContinuation}s to completion without blocking.
+ *
+ * <p>The methods of this class return a future for the whole render. Whenever the render detaches
+ * on a future that isn't done, rendering resumes on the supplied executor once the future
+ * completes, so no thread is blocked waiting for it. For example:
+ *
+ * <pre>{@code
+ * ListenableFuture<Void> done =
+ *     AsyncContinuations.toFuture(renderer.renderHtml(output), output, executor);
+ * }</pre>
+ *
+ * <p>Futures that are {@link ListenableFuture}s or {@link CompletableFuture}s are listened to
+ * directly. Waiting for any other kind of {@link Future} takes up a thread of the executor, so data
+ * that is loaded asynchronously should be supplied as one of the former.
+ *
+ * <p>Cancelling the returned future stops the render at the next point where it detaches. It
+ * doesn't cancel the futures the render is waiting for, since they may be shared with other work.
+ */
+public final class AsyncContinuations {
+  private AsyncContinuations() {}
+
+  /**
+   * An output that can tell when it stops reporting {@link #softLimitReached}, so that a render
+   * limited by it can be resumed without polling.
+   */
+  public interface FlowControlledAppendable extends AdvisingAppendable {
+    /**
+     * Returns a future that completes once {@link #softLimitReached} returns {@code false}, for
+     * example once buffered output has been flushed to the network.
+     */
+    ListenableFuture<?> whenWritable();
+  }
+
+  /**
+   * Returns a future that completes when the render of {@code continuation} completes.
+   *
+   * <p>The output of the render is assumed to never {@linkplain AdvisingAppendable#softLimitReached
+   * reach a soft limit}, or to tolerate more output when it does: a render that is paused by a
+   * soft limit is immediately resumed.
+   */
+  public static ListenableFuture<Void> toFuture(
+      WriteContinuation continuation, Executor executor) {
+    checkNotNull(continuation);
+    return drive(continuation, Futures::immediateVoidFuture, executor);
+  }
+
+  /**
+   * Returns a future that completes when the render of {@code continuation} to {@code output}
+   * completes. A render that is paused by the soft limit of {@code output} is resumed once {@link
+   * FlowControlledAppendable#whenWritable} completes.
+   */
+  public static ListenableFuture<Void> toFuture(
+      WriteContinuation continuation, FlowControlledAppendable output, Executor executor) {
+    checkNotNull(continuation);
+    checkNotNull(output);
+    return drive(continuation, output::whenWritable, executor);
+  }
+
+  private static ListenableFuture<Void> drive(
+      WriteContinuation continuation,
+      Supplier<ListenableFuture<?>> whenWritable,
+      Executor executor) {
+    Driver<Void> driver =
+        new Driver<Void>(whenWritable, executor) {
+          WriteContinuation current = continuation;
+
+          @Override
+          RenderResult renderResult() {
+            return current.result();
+          }
+
+          @Override
+          void continueRender() throws IOException {
+            current = current.continueRender();
+          }
+
+          @Override
+          Void value() {
+            return null;
+          }
+        };
+    driver.run();
+    return driver.result;
+  }
+
+  /** Returns a future for the value of the render of {@code continuation}. */
+  public static <T> ListenableFuture<T> toFuture(Continuation<T> continuation, Executor executor) {
+    checkNotNull(continuation);
+    Driver<T> driver =
+        new Driver<T>(Futures::immediateVoidFuture, executor) {
+          Continuation<T> current = continuation;
+
+          @Override
+          RenderResult renderResult() {
+            return current.result();
+          }
+
+          @Override
+          void continueRender() {
+            current = current.continueRender();
+          }
+
+          @Override
+          T value() {
+            return current.get();
+          }
+        };
+    driver.run();
+    return driver.result;
+  }
+
+  /** Continues a render until it is done or has to wait, and then schedules itself to resume. */
+  private abstract static class Driver<T> implements Runnable {
+    final SettableFuture<T> result = SettableFuture.create();
+    final Supplier<ListenableFuture<?>> whenWritable;
+    final Executor executor;
+
+    Driver(Supplier<ListenableFuture<?>> whenWritable, Executor executor) {
+      this.whenWritable = whenWritable;
+      this.executor = checkNotNull(executor);
+    }
+
+    abstract RenderResult renderResult();
+
+    abstract void continueRender() throws IOException;
+
+    abstract T value();
+
+    @Override
+    public void run() {
+      try {
+        while (!result.isCancelled()) {
+          RenderResult renderResult = renderResult();
+          switch (renderResult.type()) {
+            case DONE:
+              result.set(value());
+              return;
+            case DETACH:
+              Future<?> future = renderResult.future();
+              if (!future.isDone()) {
+                resumeWhenDone(future);
+                return;
+              }
+              break;
+            case LIMITED:
+              ListenableFuture<?> writable = whenWritable.get();
+              if (!writable.isDone()) {
+                writable.addListener(this, executor);
+                return;
+              }
+              break;
+          }
+          continueRender();
+        }
+      } catch (Throwable t) {
+        result.setException(t);
+      }
+    }
+
+    private void resumeWhenDone(Future<?> future) {
+      if (future instanceof ListenableFuture) {
+        ((ListenableFuture<?>) future).addListener(this, executor);
+      } else if (future instanceof CompletableFuture) {
+        ((CompletableFuture<?>) future).whenCompleteAsync((value, t) -> run(), executor);
+      } else {
+        JdkFutureAdapters.listenInPoolThread(future, executor).addListener(this, executor);
+      }
+    }
+  }
+}
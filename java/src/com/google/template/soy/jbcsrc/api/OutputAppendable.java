@@ -28,6 +28,7 @@ import com.google.template.soy.logging.SoyLogger;
 import java.io.IOException;
 import java.util.Optional;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * The outermost logger used in rendering.
@@ -74,6 +75,11 @@ public final class OutputAppendable extends AbstractLoggingAdvisingAppendable {
     outputAppendable.append(c);
   }
 
+  @Override
+  protected void doAppendUtf8Constant(String text, Supplier<byte[]> utf8) throws IOException {
+    outputAppendable.appendUtf8Constant(text, utf8);
+  }
+
   @Override
   protected void doAppendLoggingFunctionInvocation(
       LoggingFunctionInvocation funCall, ImmutableList<Function<String, String>> escapers)
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.jbcsrc.api;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import com.google.template.soy.jbcsrc.shared.RenderContext;
+import com.google.template.soy.logging.SoyLogger;
+import com.google.template.soy.msgs.SoyMsgBundle;
+import com.google.template.soy.plugin.java.PluginInstances;
+import com.google.template.soy.shared.SoyCssRenamingMap;
+import com.google.template.soy.shared.SoyIdRenamingMap;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * An immutable set of rendering options that can be shared by many renders, and across threads.
+ *
+ * <p>Deployments typically render with a small number of combinations of message bundle, renaming
+ * maps, plugin instances and active mods (e.g. one per locale and experiment arm). Building a
+ * configuration once per combination and passing it to {@link
+ * SoySauce.Renderer#setRenderConfiguration} avoids resolving those options on every render.
+ *
+ * <p>Create instances with {@link SoySauce#newRenderConfiguration}. A configuration can only be
+ * used with the {@link SoySauce} that created it.
+ */
+public final class RenderConfiguration {
+  private final SoySauce owner;
+  private final RenderContext.Configuration contextConfiguration;
+
+  private RenderConfiguration(SoySauce owner, RenderContext.Configuration contextConfiguration) {
+    this.owner = owner;
+    this.contextConfiguration = contextConfiguration;
+  }
+
+  SoySauce owner() {
+    return owner;
+  }
+
+  RenderContext.Configuration contextConfiguration() {
+    return contextConfiguration;
+  }
+
+  /**
+   * A builder for {@link RenderConfiguration}. The options have the same meaning as the
+   * corresponding {@link SoySauce.Renderer} methods.
+   */
+  public static final class Builder {
+    private final SoySauce owner;
+    private final PluginInstances basePluginInstances;
+    private final RenderContext.Builder contextBuilder;
+
+    Builder(SoySauce owner, PluginInstances basePluginInstances, RenderContext.Builder builder) {
+      this.owner = owner;
+      this.basePluginInstances = basePluginInstances;
+      this.contextBuilder = builder;
+    }
+
+    /** See {@link SoySauce.Renderer#setPluginInstances}. */
+    @CanIgnoreReturnValue
+    public Builder setPluginInstances(Map<String, ? extends Supplier<Object>> pluginInstances) {
+      contextBuilder.withPluginInstances(basePluginInstances.combine(pluginInstances));
+      return this;
+    }
+
+    /** See {@link SoySauce.Renderer#setCssRenamingMap}. */
+    @CanIgnoreReturnValue
+    public Builder setCssRenamingMap(SoyCssRenamingMap cssRenamingMap) {
+      contextBuilder.withCssRenamingMap(cssRenamingMap);
+      return this;
+    }
+
+    /** See {@link SoySauce.Renderer#setXidRenamingMap}. */
+    @CanIgnoreReturnValue
+    public Builder setXidRenamingMap(SoyIdRenamingMap xidRenamingMap) {
+      contextBuilder.withXidRenamingMap(xidRenamingMap);
+      return this;
+    }
+
+    /** See {@link SoySauce.Renderer#setActiveModSelector}. */
+    @CanIgnoreReturnValue
+    public Builder setActiveModSelector(Predicate<String> active) {
+      contextBuilder.withActiveModSelector(checkNotNull(active));
+      return this;
+    }
+
+    /** See {@link SoySauce.Renderer#setMsgBundle}. */
+    @CanIgnoreReturnValue
+    public Builder setMsgBundle(SoyMsgBundle msgs) {
+      contextBuilder.withMessageBundle(msgs);
+      return this;
+    }
+
+    /** See {@link SoySauce.Renderer#setDebugSoyTemplateInfo}. */
+    @CanIgnoreReturnValue
+    public Builder setDebugSoyTemplateInfo(boolean debugSoyTemplateInfo) {
+      contextBuilder.withDebugSoyTemplateInfo(debugSoyTemplateInfo);
+      return this;
+    }
+
+    /** See {@link SoySauce.Renderer#setSoyLogger}. */
+    @CanIgnoreReturnValue
+    public Builder setSoyLogger(SoyLogger logger) {
+      contextBuilder.withLogger(logger);
+      return this;
+    }
+
+    /** See {@link SoySauce.Renderer#setTemplateRenderListener}. */
+    @CanIgnoreReturnValue
+    public Builder setTemplateRenderListener(TemplateRenderListener listener) {
+      contextBuilder.withTemplateRenderListener(checkNotNull(listener));
+      return this;
+    }
+
+    public RenderConfiguration build() {
+      return new RenderConfiguration(owner, contextBuilder.buildConfiguration());
+    }
+  }
+}
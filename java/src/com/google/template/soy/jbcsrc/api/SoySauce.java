@@ -115,6 +115,27 @@ public interface SoySauce {
    */
   boolean hasTemplate(String template);
 
+  /**
+   * Returns a builder for a {@link RenderConfiguration}, a reusable set of rendering options for
+   * templates of this SoySauce.
+   *
+   * @throws UnsupportedOperationException if this SoySauce doesn't support render configurations,
+   *     in which case options have to be set on each {@link Renderer}.
+   */
+  default RenderConfiguration.Builder newRenderConfiguration() {
+    throw new UnsupportedOperationException(
+        getClass().getName() + " does not support render configurations");
+  }
+
+  /**
+   * Returns a {@link WarmUp}, which loads templates of this SoySauce ahead of their first render.
+   *
+   * @throws UnsupportedOperationException if this SoySauce doesn't support warming up.
+   */
+  default WarmUp newWarmUp() {
+    throw new UnsupportedOperationException(getClass().getName() + " does not support warm-ups");
+  }
+
   /** A Renderer can configure rendering parameters and render the template. */
   interface Renderer {
     /** Configures the data to pass to template. */
@@ -148,7 +169,13 @@ public interface SoySauce {
     @CanIgnoreReturnValue
     Renderer setXidRenamingMap(SoyIdRenamingMap xidRenamingMap);
 
-    /** Sets the predicate to use for testing whether or not a given {@code modname} is active. */
+    /**
+     * Sets the predicate to use for testing whether or not a given {@code modname} is active.
+     *
+     * <p>The predicate is only tested against the mods that have deltemplates or modifiable
+     * templates, and the resulting selections are cached per set of active mods, so renders with
+     * the same active mods share them whether or not they reuse the predicate instance.
+     */
     @CanIgnoreReturnValue
     Renderer setActiveModSelector(Predicate<String> active);
 
@@ -167,6 +194,33 @@ public interface SoySauce {
     @CanIgnoreReturnValue
     Renderer setSoyLogger(SoyLogger logger);
 
+    /**
+     * Configures a listener to report every template call of the render to, for measuring which
+     * templates are expensive. See {@link TemplateRenderListener} for the cost of this.
+     *
+     * @throws UnsupportedOperationException if this renderer doesn't support listeners.
+     */
+    @CanIgnoreReturnValue
+    default Renderer setTemplateRenderListener(TemplateRenderListener listener) {
+      throw new UnsupportedOperationException(
+          getClass().getName() + " does not support template render listeners");
+    }
+
+    /**
+     * Configures all the options of a {@link RenderConfiguration} at once, replacing any plugin
+     * instances, renaming maps, active mod selector, message bundle, debug setting, logger and
+     * template render listener previously set on this renderer. Options set after this call
+     * override the corresponding option of the configuration for this renderer only.
+     *
+     * @throws IllegalArgumentException if the configuration was created by a different SoySauce.
+     */
+    @CanIgnoreReturnValue
+    default Renderer setRenderConfiguration(RenderConfiguration configuration) {
+      // Only a SoySauce that overrides newRenderConfiguration can have created the configuration.
+      throw new IllegalArgumentException(
+          "The RenderConfiguration was created by a different SoySauce");
+    }
+
     /**
      * Renders the configured html template to the given appendable, returning a continuation (more
      * details below). Verifies that the content type is {@link ContentKind.HTML} (corresponding to
@@ -194,6 +248,9 @@ public interface SoySauce {
      *       this case rendering may not be continued and behavior is undefined if it is.
      * </ul>
      *
+     * <p>{@link AsyncContinuations} can continue rendering on an executor whenever the render is
+     * ready to make progress, instead of a thread blocking on futures or polling the output.
+     *
      * <p>It is safe to call this method multiple times, but each call will initiate a new render of
      * the configured template. To continue rendering a template you must use the returned
      * continuation.
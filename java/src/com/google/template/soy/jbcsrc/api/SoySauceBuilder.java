@@ -23,6 +23,7 @@ import com.google.common.collect.ImmutableSet;
 import com.google.errorprone.annotations.CanIgnoreReturnValue;
 import com.google.template.soy.jbcsrc.shared.CompiledTemplates;
 import com.google.template.soy.jbcsrc.shared.Names;
+import com.google.template.soy.jbcsrc.shared.TemplateIndex;
 import com.google.template.soy.plugin.java.PluginInstances;
 import com.google.template.soy.shared.internal.InternalPlugins;
 import com.google.template.soy.shared.internal.SoyScopedData;
@@ -43,7 +44,9 @@ public final class SoySauceBuilder {
   private ImmutableList<SoyFunction> userFunctions = ImmutableList.of();
   private ImmutableList<SoyPrintDirective> userDirectives = ImmutableList.of();
   private PluginInstances userPluginInstances = PluginInstances.empty();
-  private CompiledTemplates.Factory compiledTemplatesFactory = CompiledTemplates::new;
+  private CompiledTemplates.Factory compiledTemplatesFactory =
+      (delTemplateNames, loader) ->
+          new CompiledTemplates(delTemplateNames, readTemplateIndexFromMetaInf(loader), loader);
   private ClassLoader loader;
 
   public SoySauceBuilder() {}
@@ -131,10 +134,22 @@ public final class SoySauceBuilder {
 
   /** Walks all resources with the META_INF_DELTEMPLATE_PATH and collects the deltemplates. */
   private static ImmutableSet<String> readDelTemplatesFromMetaInf(ClassLoader loader) {
+    return ImmutableSet.copyOf(readLinesFromMetaInf(loader, Names.META_INF_DELTEMPLATE_PATH));
+  }
+
+  /**
+   * Walks all resources with the META_INF_TEMPLATE_INDEX_PATH and collects the template indexes.
+   * Jars compiled before the index was added have none, their templates are found by name instead.
+   */
+  private static TemplateIndex readTemplateIndexFromMetaInf(ClassLoader loader) {
+    return TemplateIndex.parse(readLinesFromMetaInf(loader, Names.META_INF_TEMPLATE_INDEX_PATH));
+  }
+
+  private static ImmutableList<String> readLinesFromMetaInf(ClassLoader loader, String path) {
     URL url = null;
     try {
-      ImmutableSet.Builder<String> builder = ImmutableSet.builder();
-      Enumeration<URL> resources = loader.getResources(Names.META_INF_DELTEMPLATE_PATH);
+      ImmutableList.Builder<String> builder = ImmutableList.builder();
+      Enumeration<URL> resources = loader.getResources(path);
       while (resources.hasMoreElements()) {
         url = resources.nextElement();
         try (InputStream in = url.openStream()) {
@@ -146,7 +161,7 @@ public final class SoySauceBuilder {
       }
       return builder.build();
     } catch (IOException iox) {
-      throw new RuntimeException("Unable to read deltemplate listing in " + url, iox);
+      throw new RuntimeException("Unable to read " + path + " in " + url, iox);
     }
   }
 }
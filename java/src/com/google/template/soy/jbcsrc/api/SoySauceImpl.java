@@ -29,7 +29,6 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSortedSet;
 import com.google.errorprone.annotations.CanIgnoreReturnValue;
-import com.google.errorprone.annotations.concurrent.GuardedBy;
 import com.google.template.soy.data.SanitizedContent;
 import com.google.template.soy.data.SanitizedContent.ContentKind;
 import com.google.template.soy.data.SoyRecord;
@@ -44,6 +43,7 @@ import com.google.template.soy.jbcsrc.shared.CompiledTemplate;
 import com.google.template.soy.jbcsrc.shared.CompiledTemplates;
 import com.google.template.soy.jbcsrc.shared.LegacyFunctionAdapter;
 import com.google.template.soy.jbcsrc.shared.RenderContext;
+import com.google.template.soy.jbcsrc.shared.TemplateInstrumentation;
 import com.google.template.soy.logging.SoyLogger;
 import com.google.template.soy.msgs.SoyMsgBundle;
 import com.google.template.soy.plugin.java.PluginInstances;
@@ -56,6 +56,7 @@ import com.google.template.soy.shared.restricted.SoyJavaPrintDirective;
 import com.google.template.soy.shared.restricted.SoyPrintDirective;
 import java.io.IOException;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
@@ -67,6 +68,8 @@ public final class SoySauceImpl implements SoySauce {
   private final SoyScopedData.Enterable apiCallScope;
   private final PluginInstances pluginInstances;
   private final ImmutableMap<String, SoyJavaPrintDirective> printDirectives;
+  /** The configuration of renderers that don't set any options. */
+  private final RenderContext.Configuration defaultConfiguration;
 
   public SoySauceImpl(
       CompiledTemplates templates,
@@ -97,6 +100,11 @@ public final class SoySauceImpl implements SoySauce {
     }
     this.printDirectives = soyJavaPrintDirectives.build();
     this.pluginInstances = pluginInstances.combine(pluginInstanceBuilder.build());
+    this.defaultConfiguration = newContextBuilder().buildConfiguration();
+  }
+
+  private RenderContext.Builder newContextBuilder() {
+    return new RenderContext.Builder(templates, printDirectives, pluginInstances);
   }
 
   @Override
@@ -127,6 +135,16 @@ public final class SoySauceImpl implements SoySauce {
     }
   }
 
+  @Override
+  public RenderConfiguration.Builder newRenderConfiguration() {
+    return new RenderConfiguration.Builder(this, pluginInstances, newContextBuilder());
+  }
+
+  @Override
+  public WarmUp newWarmUp() {
+    return new WarmUp(this, templates);
+  }
+
   @Override
   public RendererImpl renderTemplate(String template) {
     CompiledTemplates.TemplateData data = templates.getTemplateData(template);
@@ -144,8 +162,10 @@ public final class SoySauceImpl implements SoySauce {
     private final String templateName;
     private final CompiledTemplate template;
     private final ContentKind contentKind;
-    private final RenderContext.Builder contextBuilder =
-        new RenderContext.Builder(templates, printDirectives, SoySauceImpl.this.pluginInstances);
+    /** The configuration to render with, unless an option has been set on this renderer. */
+    private RenderContext.Configuration configuration = defaultConfiguration;
+    /** Holds the options of this renderer once any has been set, overriding the configuration. */
+    @Nullable private RenderContext.Builder contextBuilder;
 
     private SoyRecord data;
     private SoyRecord ij;
@@ -166,6 +186,13 @@ public final class SoySauceImpl implements SoySauce {
       }
     }
 
+    private RenderContext.Builder contextBuilder() {
+      if (contextBuilder == null) {
+        contextBuilder = configuration.toBuilder();
+      }
+      return contextBuilder;
+    }
+
     private ParamStore soyValueProviderMapAsParamStore(Map<String, ?> source) {
       ParamStore dest = new ParamStore(source.size());
       for (Map.Entry<String, ?> entry : source.entrySet()) {
@@ -208,7 +235,7 @@ public final class SoySauceImpl implements SoySauce {
     @Override
     public RendererImpl setPluginInstances(
         Map<String, ? extends Supplier<Object>> pluginInstances) {
-      contextBuilder.withPluginInstances(
+      contextBuilder().withPluginInstances(
           SoySauceImpl.this.pluginInstances.combine(pluginInstances));
       return this;
     }
@@ -227,42 +254,60 @@ public final class SoySauceImpl implements SoySauce {
     @CanIgnoreReturnValue
     @Override
     public RendererImpl setActiveModSelector(Predicate<String> active) {
-      contextBuilder.withActiveModSelector(checkNotNull(active));
+      contextBuilder().withActiveModSelector(checkNotNull(active));
       return this;
     }
 
     @CanIgnoreReturnValue
     @Override
     public RendererImpl setCssRenamingMap(SoyCssRenamingMap cssRenamingMap) {
-      contextBuilder.withCssRenamingMap(cssRenamingMap);
+      contextBuilder().withCssRenamingMap(cssRenamingMap);
       return this;
     }
 
     @CanIgnoreReturnValue
     @Override
     public RendererImpl setXidRenamingMap(SoyIdRenamingMap xidRenamingMap) {
-      contextBuilder.withXidRenamingMap(xidRenamingMap);
+      contextBuilder().withXidRenamingMap(xidRenamingMap);
       return this;
     }
 
     @CanIgnoreReturnValue
     @Override
     public RendererImpl setMsgBundle(SoyMsgBundle msgs) {
-      contextBuilder.withMessageBundle(msgs);
+      contextBuilder().withMessageBundle(msgs);
       return this;
     }
 
     @CanIgnoreReturnValue
     @Override
     public RendererImpl setDebugSoyTemplateInfo(boolean debugSoyTemplateInfo) {
-      contextBuilder.withDebugSoyTemplateInfo(debugSoyTemplateInfo);
+      contextBuilder().withDebugSoyTemplateInfo(debugSoyTemplateInfo);
       return this;
     }
 
     @CanIgnoreReturnValue
     @Override
     public RendererImpl setSoyLogger(SoyLogger logger) {
-      contextBuilder.withLogger(logger);
+      contextBuilder().withLogger(logger);
+      return this;
+    }
+
+    @CanIgnoreReturnValue
+    @Override
+    public RendererImpl setTemplateRenderListener(TemplateRenderListener listener) {
+      contextBuilder().withTemplateRenderListener(checkNotNull(listener));
+      return this;
+    }
+
+    @CanIgnoreReturnValue
+    @Override
+    public RendererImpl setRenderConfiguration(RenderConfiguration configuration) {
+      checkArgument(
+          configuration.owner() == SoySauceImpl.this,
+          "The RenderConfiguration was created by a different SoySauce");
+      this.configuration = configuration.contextConfiguration();
+      this.contextBuilder = null;
       return this;
     }
 
@@ -358,9 +403,18 @@ public final class SoySauceImpl implements SoySauce {
 
       SoyRecord params = data == null ? ParamStore.EMPTY_INSTANCE : data;
       SoyRecord injectedParams = ij == null ? ParamStore.EMPTY_INSTANCE : ij;
-      RenderContext context = contextBuilder.build();
+      RenderContext context =
+          contextBuilder != null ? contextBuilder.build() : configuration.newContext();
+      CompiledTemplate template = this.template;
+      if (context.hasTemplateRenderListener()) {
+        CountingAdvisingAppendable counter = new CountingAdvisingAppendable(out);
+        context.setOutputByteCounter(counter::getCount);
+        out = counter;
+        template = TemplateInstrumentation.instrument(template, templateName);
+      }
       OutputAppendable output = OutputAppendable.create(out, context.getLogger());
-      RendererClosure renderer = () -> template.render(params, injectedParams, output, context);
+      CompiledTemplate toRender = template;
+      RendererClosure renderer = () -> toRender.render(params, injectedParams, output, context);
 
       return doRender(renderer, new Scoper(apiCallScope, context.getBidiGlobalDir()));
     }
@@ -383,6 +437,95 @@ public final class SoySauceImpl implements SoySauce {
     }
   }
 
+  /**
+   * Counts the bytes written to the output of a render, as encoded in UTF-8. Unpaired surrogates
+   * count as one byte, like the {@code '?'} that replaces them in {@code String.getBytes(UTF_8)}.
+   */
+  static final class CountingAdvisingAppendable implements AdvisingAppendable {
+    private final AdvisingAppendable delegate;
+    private long count;
+    /** Whether the last char appended was a high surrogate, which hasn't been counted yet. */
+    private boolean pendingHighSurrogate;
+
+    CountingAdvisingAppendable(AdvisingAppendable delegate) {
+      this.delegate = delegate;
+    }
+
+    long getCount() {
+      return pendingHighSurrogate ? count + 1 : count;
+    }
+
+    @CanIgnoreReturnValue
+    @Override
+    public AdvisingAppendable appendUtf8Constant(String text, Supplier<byte[]> utf8)
+        throws IOException {
+      delegate.appendUtf8Constant(text, utf8);
+      if (pendingHighSurrogate) {
+        pendingHighSurrogate = false;
+        count++;
+      }
+      count += utf8.get().length;
+      return this;
+    }
+
+    @CanIgnoreReturnValue
+    @Override
+    public AdvisingAppendable append(CharSequence csq) throws IOException {
+      delegate.append(csq);
+      count(csq, 0, csq.length());
+      return this;
+    }
+
+    @CanIgnoreReturnValue
+    @Override
+    public AdvisingAppendable append(CharSequence csq, int start, int end) throws IOException {
+      delegate.append(csq, start, end);
+      count(csq, start, end);
+      return this;
+    }
+
+    @CanIgnoreReturnValue
+    @Override
+    public AdvisingAppendable append(char c) throws IOException {
+      delegate.append(c);
+      count(c);
+      return this;
+    }
+
+    private void count(CharSequence csq, int start, int end) {
+      for (int i = start; i < end; i++) {
+        count(csq.charAt(i));
+      }
+    }
+
+    private void count(char c) {
+      if (pendingHighSurrogate) {
+        pendingHighSurrogate = false;
+        if (Character.isLowSurrogate(c)) {
+          count += 4;
+          return;
+        }
+        count++;
+      }
+      if (c < 0x80) {
+        count++;
+      } else if (c < 0x800) {
+        count += 2;
+      } else if (Character.isHighSurrogate(c)) {
+        pendingHighSurrogate = true;
+      } else if (Character.isLowSurrogate(c)) {
+        count++;
+      } else {
+        count += 3;
+      }
+    }
+
+    @Override
+    public boolean softLimitReached() {
+      return delegate.softLimitReached();
+    }
+  }
+
   @FunctionalInterface
   private interface RendererClosure {
     RenderResult render() throws IOException;
@@ -406,16 +549,11 @@ public final class SoySauceImpl implements SoySauce {
 
   private static final class WriteContinuationImpl implements WriteContinuation {
     final RenderResult result;
-    final Object lock = new Object();
-
-    @GuardedBy("lock")
     final Scoper scoper;
-
-    @GuardedBy("lock")
     final RendererClosure renderer;
-
-    @GuardedBy("lock")
-    boolean hasContinueBeenCalled;
+    // An atomic flag rather than a lock, so that no monitor is held while rendering. Blocking on
+    // output or on a future while holding one would pin the carrier of a virtual thread.
+    final AtomicBoolean hasContinueBeenCalled = new AtomicBoolean();
 
     WriteContinuationImpl(RenderResult result, RendererClosure renderer, Scoper scoper) {
       checkArgument(!result.isDone());
@@ -431,13 +569,10 @@ public final class SoySauceImpl implements SoySauce {
 
     @Override
     public WriteContinuation continueRender() throws IOException {
-      synchronized (lock) {
-        if (hasContinueBeenCalled) {
-          throw new IllegalStateException("continueRender() has already been called.");
-        }
-        hasContinueBeenCalled = true;
-        return doRender(renderer, scoper);
+      if (!hasContinueBeenCalled.compareAndSet(false, true)) {
+        throw new IllegalStateException("continueRender() has already been called.");
       }
+      return doRender(renderer, scoper);
     }
   }
 
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.jbcsrc.api;
+
+/**
+ * Receives timing and output measurements for the templates rendered by {@link SoySauce}.
+ *
+ * <p>A listener is installed with {@link SoySauce.Renderer#setTemplateRenderListener} or {@link
+ * RenderConfiguration.Builder#setTemplateRenderListener}. Until the first listener is installed,
+ * compiled templates call each other directly and rendering pays nothing for this feature. After
+ * that, renders without a listener pay a single check per template call.
+ *
+ * <p>Every call to a template is measured, whether it is rendered by a {@code {call}}, a {@code
+ * {delcall}}, a modifiable template or directly by a {@link SoySauce.Renderer}. A call that
+ * detaches (because the output is limited, or a future isn't done) is reported when it detaches,
+ * and again each time it is resumed, so elapsed times never include time spent waiting.
+ *
+ * <p>Listeners are called on the rendering thread and must be thread safe if they are shared by
+ * concurrent renders. See {@link TemplateRenderStats} for an implementation that aggregates the
+ * measurements by template.
+ */
+public interface TemplateRenderListener {
+
+  /**
+   * Called when a template call starts or resumes rendering.
+   *
+   * @param templateName The fully qualified name of the template.
+   */
+  default void templateEntered(String templateName) {}
+
+  /**
+   * Called when a template call finishes or detaches.
+   *
+   * @param templateName The fully qualified name of the template.
+   * @param elapsedNanos The time spent rendering the template since it was entered, including the
+   *     time spent rendering the templates it called.
+   * @param selfNanos The part of {@code elapsedNanos} that wasn't spent rendering other templates.
+   * @param outputBytes The number of bytes written to the output of the render since the template
+   *     was entered, including output from the templates it called, as encoded in UTF-8. Content that is
+   *     rendered into a buffer is counted when the buffer is written to the output.
+   * @param detached True if the template returned before it finished rendering, in which case it
+   *     will be entered again when the render is resumed.
+   * @param buffered True if the template rendered into a buffer rather than to the output of the
+   *     render, for example because it was called in a {@code {let}} or a {@code {param}} with
+   *     content.
+   */
+  void templateExited(
+      String templateName,
+      long elapsedNanos,
+      long selfNanos,
+      long outputBytes,
+      boolean detached,
+      boolean buffered);
+}
@@ -0,0 +1,284 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.jbcsrc.api;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.util.Comparator.comparingLong;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.ImmutableLongArray;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link TemplateRenderListener} that aggregates measurements by template, for finding the
+ * templates that are the most expensive to render.
+ *
+ * <p>Instances are thread safe, and are meant to be shared by all the renders of an application
+ * (or a sample of them) for some period of time, and then inspected with {@link #snapshot} or
+ * {@link #hottest}.
+ */
+public final class TemplateRenderStats implements TemplateRenderListener {
+
+  /** The number of histogram buckets, enough for every non-negative {@code long}. */
+  private static final int NUM_BUCKETS = 64;
+
+  private final Map<String, Accumulator> accumulators = new ConcurrentHashMap<>();
+
+  @Override
+  public void templateExited(
+      String templateName,
+      long elapsedNanos,
+      long selfNanos,
+      long outputBytes,
+      boolean detached,
+      boolean buffered) {
+    Accumulator accumulator = accumulators.get(templateName);
+    if (accumulator == null) {
+      accumulator = accumulators.computeIfAbsent(templateName, name -> new Accumulator());
+    }
+    accumulator.record(elapsedNanos, selfNanos, outputBytes, detached, buffered);
+  }
+
+  /** Discards all measurements recorded so far. */
+  public void reset() {
+    accumulators.clear();
+  }
+
+  /**
+   * Returns the measurements recorded so far for every template, the template with the largest
+   * {@linkplain TemplateStats#getSelfNanos self time} first.
+   */
+  public ImmutableList<TemplateStats> snapshot() {
+    return accumulators.entrySet().stream()
+        .map(e -> e.getValue().snapshot(e.getKey()))
+        .sorted(comparingLong(TemplateStats::getSelfNanos).reversed())
+        .collect(toImmutableList());
+  }
+
+  /**
+   * Returns the fewest templates that together account for at least {@code fraction} of the self
+   * time of all templates, the most expensive first. For example {@code hottest(0.5)} returns the
+   * templates that use half of the rendering time.
+   */
+  public ImmutableList<TemplateStats> hottest(double fraction) {
+    checkArgument(fraction >= 0 && fraction <= 1, "fraction must be in [0, 1]: %s", fraction);
+    ImmutableList<TemplateStats> all = snapshot();
+    long total = all.stream().mapToLong(TemplateStats::getSelfNanos).sum();
+    ImmutableList.Builder<TemplateStats> hottest = ImmutableList.builder();
+    long sum = 0;
+    for (TemplateStats stats : all) {
+      if (sum >= fraction * total) {
+        break;
+      }
+      hottest.add(stats);
+      sum += stats.getSelfNanos();
+    }
+    return hottest.build();
+  }
+
+  /** The measurements of one template. */
+  public static final class TemplateStats {
+    private final String templateName;
+    private final long calls;
+    private final long detaches;
+    private final long bufferedCalls;
+    private final long elapsedNanos;
+    private final long selfNanos;
+    private final long outputBytes;
+    private final Histogram elapsedNanosHistogram;
+
+    private TemplateStats(
+        String templateName,
+        long calls,
+        long detaches,
+        long bufferedCalls,
+        long elapsedNanos,
+        long selfNanos,
+        long outputBytes,
+        Histogram elapsedNanosHistogram) {
+      this.templateName = templateName;
+      this.calls = calls;
+      this.detaches = detaches;
+      this.bufferedCalls = bufferedCalls;
+      this.elapsedNanos = elapsedNanos;
+      this.selfNanos = selfNanos;
+      this.outputBytes = outputBytes;
+      this.elapsedNanosHistogram = elapsedNanosHistogram;
+    }
+
+    /** The fully qualified name of the template. */
+    public String getTemplateName() {
+      return templateName;
+    }
+
+    /**
+     * The number of times the template was exited. A call that detaches is exited once more for
+     * every detach.
+     */
+    public long getCalls() {
+      return calls;
+    }
+
+    /** The number of times the template detached. */
+    public long getDetaches() {
+      return detaches;
+    }
+
+    /** The number of times the template was rendered into a buffer instead of the output. */
+    public long getBufferedCalls() {
+      return bufferedCalls;
+    }
+
+    /** The total time spent rendering the template, including the templates it called. */
+    public long getElapsedNanos() {
+      return elapsedNanos;
+    }
+
+    /** The total time spent rendering the template, excluding the templates it called. */
+    public long getSelfNanos() {
+      return selfNanos;
+    }
+
+    /** The total number of UTF-8 bytes written to the output while rendering the template. */
+    public long getOutputBytes() {
+      return outputBytes;
+    }
+
+    /** The distribution of the time spent in each call, including the templates it called. */
+    public Histogram getElapsedNanosHistogram() {
+      return elapsedNanosHistogram;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          "%s: calls=%d detaches=%d buffered=%d elapsed=%dns self=%dns output=%d chars"
+              + " p50=%dns p99=%dns",
+          templateName,
+          calls,
+          detaches,
+          bufferedCalls,
+          elapsedNanos,
+          selfNanos,
+          outputBytes,
+          elapsedNanosHistogram.percentile(50),
+          elapsedNanosHistogram.percentile(99));
+    }
+  }
+
+  /**
+   * A histogram with power of two buckets. Bucket {@code 0} counts the value {@code 0} and bucket
+   * {@code i > 0} counts the values in {@code [2^(i-1), 2^i)}.
+   */
+  public static final class Histogram {
+    private final ImmutableLongArray bucketCounts;
+    private final long count;
+
+    private Histogram(ImmutableLongArray bucketCounts) {
+      this.bucketCounts = bucketCounts;
+      long count = 0;
+      for (int i = 0; i < bucketCounts.length(); i++) {
+        count += bucketCounts.get(i);
+      }
+      this.count = count;
+    }
+
+    /** The number of values in each bucket. */
+    public ImmutableLongArray getBucketCounts() {
+      return bucketCounts;
+    }
+
+    /** The number of values in the histogram. */
+    public long getCount() {
+      return count;
+    }
+
+    /**
+     * Returns an upper bound for the given percentile of the values: the exclusive upper bound of
+     * the bucket that contains it, or {@code 0} if the histogram is empty.
+     *
+     * @param percentile A number between 0 and 100.
+     */
+    public long percentile(double percentile) {
+      checkArgument(
+          percentile >= 0 && percentile <= 100, "percentile must be in [0, 100]: %s", percentile);
+      long rank = (long) Math.ceil(count * percentile / 100);
+      long seen = 0;
+      for (int i = 0; i < bucketCounts.length(); i++) {
+        seen += bucketCounts.get(i);
+        if (seen >= rank && seen > 0) {
+          return upperBound(i);
+        }
+      }
+      return 0;
+    }
+
+    private static long upperBound(int bucket) {
+      return bucket == NUM_BUCKETS - 1 ? Long.MAX_VALUE : 1L << bucket;
+    }
+  }
+
+  private static int bucket(long value) {
+    return value <= 0 ? 0 : NUM_BUCKETS - Long.numberOfLeadingZeros(value);
+  }
+
+  /** Accumulates the measurements of one template. */
+  private static final class Accumulator {
+    final LongAdder calls = new LongAdder();
+    final LongAdder detaches = new LongAdder();
+    final LongAdder bufferedCalls = new LongAdder();
+    final LongAdder elapsedNanos = new LongAdder();
+    final LongAdder selfNanos = new LongAdder();
+    final LongAdder outputBytes = new LongAdder();
+    final AtomicLongArray elapsedNanosHistogram = new AtomicLongArray(NUM_BUCKETS);
+
+    void record(
+        long elapsed, long self, long outputBytes, boolean detached, boolean buffered) {
+      calls.increment();
+      if (detached) {
+        detaches.increment();
+      }
+      if (buffered) {
+        bufferedCalls.increment();
+      }
+      elapsedNanos.add(elapsed);
+      selfNanos.add(self);
+      this.outputBytes.add(outputBytes);
+      elapsedNanosHistogram.incrementAndGet(Math.min(bucket(elapsed), NUM_BUCKETS - 1));
+    }
+
+    TemplateStats snapshot(String templateName) {
+      ImmutableLongArray.Builder buckets = ImmutableLongArray.builder(NUM_BUCKETS);
+      for (int i = 0; i < NUM_BUCKETS; i++) {
+        buckets.add(elapsedNanosHistogram.get(i));
+      }
+      return new TemplateStats(
+          templateName,
+          calls.sum(),
+          detaches.sum(),
+          bufferedCalls.sum(),
+          elapsedNanos.sum(),
+          selfNanos.sum(),
+          outputBytes.sum(),
+          new Histogram(buckets.build()));
+    }
+  }
+}
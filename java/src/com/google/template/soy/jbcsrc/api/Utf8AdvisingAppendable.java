@@ -0,0 +1,282 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.jbcsrc.api;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkPositionIndexes;
+
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayDeque;
+import java.util.function.Supplier;
+
+/**
+ * An {@link AdvisingAppendable} that encodes its content as UTF-8 into a chain of {@link
+ * ByteBuffer}s, so that a render can be written to a stream or channel without first building a
+ * string and then encoding it.
+ *
+ * <p>The encoded bytes accumulate until they are written with {@link #writeTo(OutputStream)} or
+ * {@link #writeTo(WritableByteChannel)}. {@link #softLimitReached} returns {@code true} once the
+ * buffered bytes reach the soft limit, so that a render to this appendable pauses until they have
+ * been written. Buffers that have been written are reused for later content.
+ *
+ * <p>Content that is already encoded, like static markup, can be appended with {@link
+ * #appendUtf8}, and constants appended with {@link #appendUtf8Constant} are copied from their
+ * encoded form.
+ *
+ * <p>A high surrogate is held back until the next char shows whether it starts a pair, so call
+ * {@link #finish} once the render is done, before the final write.
+ *
+ * <p>Instances are not thread safe.
+ */
+public final class Utf8AdvisingAppendable implements AdvisingAppendable {
+  private static final int DEFAULT_CHUNK_SIZE = 8 * 1024;
+  private static final int DEFAULT_SOFT_LIMIT = 64 * 1024;
+  /** The most bytes a single char (or surrogate pair) can encode to. */
+  private static final int MAX_BYTES_PER_CHAR = 4;
+
+  /** Creates an appendable with 8KiB buffers and a soft limit of 64KiB. */
+  public static Utf8AdvisingAppendable create() {
+    return create(DEFAULT_CHUNK_SIZE, DEFAULT_SOFT_LIMIT);
+  }
+
+  /**
+   * Creates an appendable.
+   *
+   * @param chunkSize The size of each buffer in the chain.
+   * @param softLimit The number of buffered bytes at which {@link #softLimitReached} starts
+   *     returning {@code true}.
+   */
+  public static Utf8AdvisingAppendable create(int chunkSize, int softLimit) {
+    checkArgument(chunkSize >= MAX_BYTES_PER_CHAR, "chunkSize is too small: %s", chunkSize);
+    checkArgument(softLimit > 0, "softLimit must be positive: %s", softLimit);
+    return new Utf8AdvisingAppendable(chunkSize, softLimit);
+  }
+
+  private final int chunkSize;
+  private final int softLimit;
+  /** Buffers with content to write, in order. All but the last are flipped for reading. */
+  private final ArrayDeque<ByteBuffer> filled = new ArrayDeque<>();
+  /** Buffers that have been written and can be reused. */
+  private final ArrayDeque<ByteBuffer> free = new ArrayDeque<>();
+  /** The buffer being filled, in write mode. */
+  private ByteBuffer current;
+  /** The bytes in {@link #filled} and {@link #current} that haven't been written yet. */
+  private long size;
+  /** A high surrogate appended without its low surrogate yet. */
+  private char highSurrogate;
+
+  private Utf8AdvisingAppendable(int chunkSize, int softLimit) {
+    this.chunkSize = chunkSize;
+    this.softLimit = softLimit;
+  }
+
+  @CanIgnoreReturnValue
+  @Override
+  public Utf8AdvisingAppendable append(CharSequence csq) {
+    return append(csq, 0, csq.length());
+  }
+
+  @CanIgnoreReturnValue
+  @Override
+  public Utf8AdvisingAppendable append(CharSequence csq, int start, int end) {
+    checkPositionIndexes(start, end, csq.length());
+    for (int i = start; i < end; i++) {
+      encode(csq.charAt(i));
+    }
+    return this;
+  }
+
+  @CanIgnoreReturnValue
+  @Override
+  public Utf8AdvisingAppendable append(char c) {
+    encode(c);
+    return this;
+  }
+
+  /** Appends content that is already encoded as UTF-8. */
+  @CanIgnoreReturnValue
+  public Utf8AdvisingAppendable appendUtf8(byte[] utf8) {
+    return appendUtf8(utf8, 0, utf8.length);
+  }
+
+  @CanIgnoreReturnValue
+  @Override
+  public Utf8AdvisingAppendable appendUtf8Constant(String text, Supplier<byte[]> utf8) {
+    return appendUtf8(utf8.get());
+  }
+
+  /** Appends part of an array of content that is already encoded as UTF-8. */
+  @CanIgnoreReturnValue
+  public Utf8AdvisingAppendable appendUtf8(byte[] utf8, int offset, int length) {
+    checkPositionIndexes(offset, offset + length, utf8.length);
+    flushHighSurrogate();
+    while (length > 0) {
+      ByteBuffer buffer = writable(1);
+      int n = Math.min(length, buffer.remaining());
+      buffer.put(utf8, offset, n);
+      offset += n;
+      length -= n;
+      size += n;
+    }
+    return this;
+  }
+
+  @Override
+  public boolean softLimitReached() {
+    return size >= softLimit;
+  }
+
+  /** Returns the number of bytes that have been appended but not written yet. */
+  public long size() {
+    return size;
+  }
+
+  /**
+   * Marks the end of the content, encoding a trailing unpaired high surrogate as {@code '?'} like
+   * {@link String#getBytes(java.nio.charset.Charset)} does.
+   */
+  @CanIgnoreReturnValue
+  public Utf8AdvisingAppendable finish() {
+    flushHighSurrogate();
+    return this;
+  }
+
+  /** Writes all the buffered bytes to {@code out}. */
+  public void writeTo(OutputStream out) throws IOException {
+    sealCurrent();
+    ByteBuffer buffer;
+    while ((buffer = filled.peekFirst()) != null) {
+      if (buffer.hasArray()) {
+        out.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+      } else {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        out.write(bytes);
+      }
+      size -= buffer.remaining();
+      recycle(filled.removeFirst());
+    }
+  }
+
+  /**
+   * Writes as many of the buffered bytes to {@code channel} as it accepts, with a single gathering
+   * write if the channel is a {@link GatheringByteChannel}. Bytes that aren't accepted by a
+   * non-blocking channel stay buffered.
+   *
+   * @return The number of bytes written.
+   */
+  public long writeTo(WritableByteChannel channel) throws IOException {
+    sealCurrent();
+    long written;
+    if (channel instanceof GatheringByteChannel) {
+      written = ((GatheringByteChannel) channel).write(filled.toArray(new ByteBuffer[0]));
+    } else {
+      written = 0;
+      for (ByteBuffer buffer : filled) {
+        written += channel.write(buffer);
+        if (buffer.hasRemaining()) {
+          break;
+        }
+      }
+    }
+    size -= written;
+    while (!filled.isEmpty() && !filled.peekFirst().hasRemaining()) {
+      recycle(filled.removeFirst());
+    }
+    return written;
+  }
+
+  private void encode(char c) {
+    if (highSurrogate != 0) {
+      char high = highSurrogate;
+      highSurrogate = 0;
+      if (Character.isLowSurrogate(c)) {
+        encodeCodePoint(Character.toCodePoint(high, c));
+        return;
+      }
+      encodeCodePoint('?');
+    }
+    if (c < 0x80) {
+      ByteBuffer buffer = writable(1);
+      buffer.put((byte) c);
+      size++;
+    } else if (Character.isHighSurrogate(c)) {
+      highSurrogate = c;
+    } else if (Character.isLowSurrogate(c)) {
+      // Like String.getBytes(UTF_8), replace unpaired surrogates.
+      encodeCodePoint('?');
+    } else {
+      encodeCodePoint(c);
+    }
+  }
+
+  private void encodeCodePoint(int codePoint) {
+    ByteBuffer buffer = writable(MAX_BYTES_PER_CHAR);
+    int start = buffer.position();
+    if (codePoint < 0x80) {
+      buffer.put((byte) codePoint);
+    } else if (codePoint < 0x800) {
+      buffer.put((byte) (0xC0 | (codePoint >> 6)));
+      buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+    } else if (codePoint < 0x10000) {
+      buffer.put((byte) (0xE0 | (codePoint >> 12)));
+      buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+      buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+    } else {
+      buffer.put((byte) (0xF0 | (codePoint >> 18)));
+      buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+      buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+      buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+    }
+    size += buffer.position() - start;
+  }
+
+  private void flushHighSurrogate() {
+    if (highSurrogate != 0) {
+      highSurrogate = 0;
+      encodeCodePoint('?');
+    }
+  }
+
+  /** Returns a buffer in write mode with at least {@code bytes} remaining. */
+  private ByteBuffer writable(int bytes) {
+    if (current == null || current.remaining() < bytes) {
+      sealCurrent();
+      current = free.isEmpty() ? ByteBuffer.allocate(chunkSize) : free.removeFirst();
+    }
+    return current;
+  }
+
+  /** Moves the current buffer, if it has content, to the end of the filled buffers. */
+  private void sealCurrent() {
+    if (current != null && current.position() > 0) {
+      current.flip();
+      filled.addLast(current);
+      current = null;
+    }
+  }
+
+  private void recycle(ByteBuffer buffer) {
+    buffer.clear();
+    free.addLast(buffer);
+  }
+}
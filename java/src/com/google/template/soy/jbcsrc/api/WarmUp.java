@@ -0,0 +1,193 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.jbcsrc.api;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import com.google.template.soy.data.SoyTemplate;
+import com.google.template.soy.jbcsrc.shared.CompiledTemplates;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nullable;
+
+/**
+ * Prepares the templates of a {@link SoySauce} for rendering before the first requests arrive.
+ *
+ * <p>Templates are loaded lazily by default, so the first render of each template pays for loading
+ * its class, and for compiling it if the {@link SoySauce} was compiled from a {@code SoyFileSet}.
+ * A warm-up loads templates ahead of time on an executor, and can then render some templates
+ * repeatedly so that the JIT compiles the code they run. A server can wait for {@link #start} to
+ * complete before reporting itself as ready.
+ *
+ * <pre>{@code
+ * ListenableFuture<Void> ready =
+ *     soySauce.newWarmUp()
+ *         .addRender(HomePage.builder().setUser(SAMPLE_USER).build())
+ *         .setRenderRepetitions(1000)
+ *         .start(executor);
+ * }</pre>
+ *
+ * <p>Create instances with {@link SoySauce#newWarmUp}.
+ */
+public final class WarmUp {
+
+  /** Receives progress updates from a warm-up, on the threads of its executor. */
+  public interface ProgressListener {
+    /**
+     * Called after each template has been loaded.
+     *
+     * @param loaded The number of templates loaded so far, including this one
+     * @param total The number of templates being loaded
+     */
+    default void templateLoaded(String templateName, int loaded, int total) {}
+
+    /**
+     * Called after each render.
+     *
+     * @param completed The number of renders completed so far, including this one
+     * @param total The number of renders, including repetitions
+     */
+    default void renderCompleted(int completed, int total) {}
+  }
+
+  private static final ProgressListener NO_PROGRESS_LISTENER = new ProgressListener() {};
+
+  private final SoySauce owner;
+  private final CompiledTemplates templates;
+  private Iterable<String> templateNames;
+  private final List<SoyTemplate> renders = new ArrayList<>();
+  private int renderRepetitions = 1;
+  @Nullable private RenderConfiguration renderConfiguration;
+  private ProgressListener listener = NO_PROGRESS_LISTENER;
+
+  WarmUp(SoySauce owner, CompiledTemplates templates) {
+    this.owner = owner;
+    this.templates = templates;
+    this.templateNames = templates.getTemplateNames();
+  }
+
+  /**
+   * Sets the templates to load, for example the templates that serve the most traffic.
+   *
+   * <p>By default all templates are loaded if they are known, which is the case if the {@link
+   * SoySauce} was compiled from a {@code SoyFileSet}, or if its precompiled jars have a template
+   * index. Otherwise only the templates given here and the templates rendered by {@link #addRender}
+   * are loaded.
+   */
+  @CanIgnoreReturnValue
+  public WarmUp setTemplates(Iterable<String> templateNames) {
+    this.templateNames = ImmutableList.copyOf(templateNames);
+    return this;
+  }
+
+  /**
+   * Adds a render of the given template with the given parameters, which runs after all templates
+   * have been loaded. The template is rendered as text and the output is discarded.
+   *
+   * <p>The parameters should exercise the code that real requests run, since that is the code that
+   * the JIT compiles.
+   */
+  @CanIgnoreReturnValue
+  public WarmUp addRender(SoyTemplate params) {
+    renders.add(checkNotNull(params));
+    return this;
+  }
+
+  /** Sets the number of times each render is repeated, 1 by default. */
+  @CanIgnoreReturnValue
+  public WarmUp setRenderRepetitions(int renderRepetitions) {
+    checkArgument(renderRepetitions > 0, "renderRepetitions must be positive");
+    this.renderRepetitions = renderRepetitions;
+    return this;
+  }
+
+  /** Sets the configuration for the renders, for example to render with a message bundle. */
+  @CanIgnoreReturnValue
+  public WarmUp setRenderConfiguration(RenderConfiguration renderConfiguration) {
+    checkArgument(
+        renderConfiguration.owner() == owner,
+        "The RenderConfiguration was created by a different SoySauce");
+    this.renderConfiguration = renderConfiguration;
+    return this;
+  }
+
+  @CanIgnoreReturnValue
+  public WarmUp setProgressListener(ProgressListener listener) {
+    this.listener = checkNotNull(listener);
+    return this;
+  }
+
+  /**
+   * Starts the warm-up on the given executor.
+   *
+   * <p>Templates are loaded concurrently, as are the renders of different templates. The
+   * repetitions of each render run one after the other.
+   *
+   * @return A future that completes once all templates have been loaded and all renders are done,
+   *     or fails with the first failure.
+   */
+  public ListenableFuture<Void> start(Executor executor) {
+    ImmutableSet.Builder<String> toLoad = ImmutableSet.<String>builder().addAll(templateNames);
+    for (SoyTemplate render : renders) {
+      toLoad.add(render.getTemplateName());
+    }
+    ImmutableList<SoyTemplate> toRender = ImmutableList.copyOf(renders);
+    int renderRepetitions = this.renderRepetitions;
+    RenderConfiguration renderConfiguration = this.renderConfiguration;
+    ProgressListener listener = this.listener;
+    ListenableFuture<Void> loaded =
+        templates.loadTemplates(toLoad.build(), executor, listener::templateLoaded);
+    return Futures.transformAsync(
+        loaded,
+        unused -> {
+          int total = toRender.size() * renderRepetitions;
+          AtomicInteger completed = new AtomicInteger();
+          List<ListenableFuture<?>> futures = new ArrayList<>(toRender.size());
+          for (SoyTemplate params : toRender) {
+            futures.add(
+                Futures.submit(
+                    () -> {
+                      for (int i = 0; i < renderRepetitions; i++) {
+                        render(params, renderConfiguration);
+                        listener.renderCompleted(completed.incrementAndGet(), total);
+                      }
+                    },
+                    executor));
+          }
+          return Futures.whenAllSucceed(futures).call(() -> null, directExecutor());
+        },
+        directExecutor());
+  }
+
+  private void render(SoyTemplate params, @Nullable RenderConfiguration renderConfiguration) {
+    SoySauce.Renderer renderer = owner.newRenderer(params);
+    if (renderConfiguration != null) {
+      renderer.setRenderConfiguration(renderConfiguration);
+    }
+    // Waits for any futures in the parameters, which is fine on a warm-up thread.
+    Futures.getUnchecked(AsyncContinuations.toFuture(renderer.renderText(), directExecutor()));
+  }
+}
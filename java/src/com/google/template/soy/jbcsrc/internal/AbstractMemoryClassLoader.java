@@ -30,6 +30,9 @@ public abstract class AbstractMemoryClassLoader extends ClassLoader {
   private static final ProtectionDomain DEFAULT_PROTECTION_DOMAIN;
 
   static {
+    // Subclasses can only be parallel capable if this class is. See
+    // ClassLoader.registerAsParallelCapable.
+    ClassLoader.registerAsParallelCapable();
     DEFAULT_PROTECTION_DOMAIN =
         AccessController.doPrivileged(
             (PrivilegedAction<ProtectionDomain>) MemoryClassLoader.class::getProtectionDomain);
@@ -75,6 +75,7 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
 import javax.annotation.Nullable;
 import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.Handle;
@@ -99,6 +100,7 @@ public final class BytecodeUtils {
 
   public static final TypeInfo OBJECT = TypeInfo.create(Object.class);
   private static final Type OBJECT_ARRAY_TYPE = Type.getType(Object[].class);
+  private static final Type SUPPLIER_TYPE = Type.getType(Supplier.class);
 
   public static final Type LOGGING_ADVISING_APPENDABLE_TYPE =
       Type.getType(LoggingAdvisingAppendable.class);
@@ -351,6 +353,44 @@ public final class BytecodeUtils {
     // In soy we often have large constants that can exceed these limits, which is annoying since
     // it is difficult to predict whether a given string constant will exceed these limits (since it
     // needs to be encoded first).
+    List<String> stringConstants = splitStringConstant(value);
+    return new Expression(STRING_TYPE, Feature.CHEAP, Feature.NON_NULLABLE) {
+      @Override
+      protected void doGen(CodeBuilder cb) {
+        if (stringConstants.size() == 1) {
+          cb.pushString(stringConstants.get(0));
+        } else {
+          cb.visitInvokeDynamicInsn(
+              "constantString",
+              Type.getMethodDescriptor(STRING_TYPE),
+              LARGE_STRING_CONSTANT_HANDLE,
+              stringConstants.toArray());
+        }
+      }
+    };
+  }
+
+  /**
+   * Returns an {@link Expression} that evaluates to a {@code Supplier<byte[]>} of the UTF-8
+   * encoding of the given String constant. The string is encoded the first time the supplier is
+   * called, and the same array is returned from then on so it must not be modified.
+   */
+  public static Expression constantUtf8(String value) {
+    List<String> stringConstants = splitStringConstant(value);
+    return new Expression(SUPPLIER_TYPE, Feature.CHEAP, Feature.NON_NULLABLE) {
+      @Override
+      protected void doGen(CodeBuilder cb) {
+        cb.visitInvokeDynamicInsn(
+            "constantUtf8",
+            Type.getMethodDescriptor(SUPPLIER_TYPE),
+            UTF8_CONSTANT_HANDLE,
+            stringConstants.toArray());
+      }
+    };
+  }
+
+  /** Splits a string into parts that each fit in a class file constant. */
+  private static List<String> splitStringConstant(String value) {
     int previousStart = 0;
     List<String> stringConstants = new ArrayList<>();
     int byteCount = 0;
@@ -377,20 +417,7 @@ public final class BytecodeUtils {
       index++;
     }
     stringConstants.add(value.substring(previousStart));
-    return new Expression(STRING_TYPE, Feature.CHEAP, Feature.NON_NULLABLE) {
-      @Override
-      protected void doGen(CodeBuilder cb) {
-        if (stringConstants.size() == 1) {
-          cb.pushString(stringConstants.get(0));
-        } else {
-          cb.visitInvokeDynamicInsn(
-              "constantString",
-              Type.getMethodDescriptor(STRING_TYPE),
-              LARGE_STRING_CONSTANT_HANDLE,
-              stringConstants.toArray());
-        }
-      }
-    };
+    return stringConstants;
   }
 
   /** Returns an {@link Expression} that evaluates to the given ContentKind, or null. */
@@ -426,6 +453,16 @@ public final class BytecodeUtils {
               String[].class)
           .asHandle();
 
+  private static final Handle UTF8_CONSTANT_HANDLE =
+      MethodRef.create(
+              LargeStringConstantFactory.class,
+              "bootstrapUtf8Constant",
+              MethodHandles.Lookup.class,
+              String.class,
+              MethodType.class,
+              String[].class)
+          .asHandle();
+
   /**
    * Returns an {@link Expression} that evaluates to the {@link ContentKind} value that is
    * equivalent to the given {@link SanitizedContentKind}, or null.
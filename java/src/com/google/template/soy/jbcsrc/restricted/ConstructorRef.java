@@ -25,6 +25,7 @@ import com.google.template.soy.data.SoyRecord;
 import com.google.template.soy.data.internal.ParamStore;
 import com.google.template.soy.jbcsrc.restricted.Expression.Feature;
 import com.google.template.soy.jbcsrc.runtime.JbcSrcRuntime;
+import com.google.template.soy.jbcsrc.shared.MsgPlan;
 import com.ibm.icu.util.ULocale;
 import java.lang.reflect.Constructor;
 import java.util.ArrayList;
@@ -85,20 +86,10 @@ public abstract class ConstructorRef {
 
   public static final ConstructorRef MSG_RENDERER =
       create(
-          JbcSrcRuntime.MsgRenderer.class,
-          long.class,
-          ImmutableList.class,
-          ULocale.class,
-          int.class,
-          boolean.class);
+          JbcSrcRuntime.MsgRenderer.class, long.class, MsgPlan.class, ULocale.class);
   public static final ConstructorRef PLRSEL_MSG_RENDERER =
       create(
-          JbcSrcRuntime.PlrSelMsgRenderer.class,
-          long.class,
-          ImmutableList.class,
-          ULocale.class,
-          int.class,
-          boolean.class);
+          JbcSrcRuntime.PlrSelMsgRenderer.class, long.class, MsgPlan.class, ULocale.class);
 
   public abstract TypeInfo instanceClass();
 
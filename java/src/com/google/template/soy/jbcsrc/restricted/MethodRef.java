@@ -73,6 +73,7 @@ import com.google.template.soy.jbcsrc.runtime.BufferedSoyValueProvider;
 import com.google.template.soy.jbcsrc.runtime.JbcSrcRuntime;
 import com.google.template.soy.jbcsrc.shared.CompiledTemplate;
 import com.google.template.soy.jbcsrc.shared.LegacyFunctionAdapter;
+import com.google.template.soy.jbcsrc.shared.MsgPlan;
 import com.google.template.soy.jbcsrc.shared.RenderContext;
 import com.google.template.soy.jbcsrc.shared.StackFrame;
 import com.google.template.soy.logging.LoggableElementMetadata;
@@ -206,8 +207,8 @@ public abstract class MethodRef {
 
   public static final MethodRef MAP_GET_VALUE = create(Map.Entry.class, "getValue");
 
-  public static final MethodRef LIST_IMPL_FOR_PROVIDER_LIST =
-      create(ListImpl.class, "forProviderList", List.class);
+  public static final MethodRef LIST_IMPL_FOR_JAVA_LIST =
+      create(ListImpl.class, "forJavaList", List.class);
 
   public static final MethodRef LONG_PARSE_LONG =
       create(Long.class, "parseLong", String.class).asCheap().asNonNullable();
@@ -451,10 +452,7 @@ public abstract class MethodRef {
           JbcSrcRuntime.MsgRenderer.class, "setPlaceholder", String.class, SoyValueProvider.class);
 
   public static final MethodRef HANDLE_BASIC_TRANSLATION =
-      create(JbcSrcRuntime.class, "handleBasicTranslation", List.class).asNonNullable();
-  public static final MethodRef HANDLE_BASIC_TRANSLATION_AND_ESCAPE_HTML =
-      create(JbcSrcRuntime.class, "handleBasicTranslationAndEscapeHtml", List.class)
-          .asNonNullable();
+      create(JbcSrcRuntime.class, "handleBasicTranslation", MsgPlan.class).asNonNullable();
 
   public static final MethodRef MSG_RENDERER_SET_PLACEHOLDER_AND_ORDERING =
       create(
@@ -310,7 +310,7 @@ public final class SoyExpression extends Expression {
     } else if (type.isKnownString()) {
       MethodRef.STRING_DATA_FOR_VALUE.invokeUnchecked(adapter);
     } else if (type.isKnownListOrUnionOfLists()) {
-      MethodRef.LIST_IMPL_FOR_PROVIDER_LIST.invokeUnchecked(adapter);
+      MethodRef.LIST_IMPL_FOR_JAVA_LIST.invokeUnchecked(adapter);
     } else if (type.isKnownLegacyObjectMapOrUnionOfMaps()) {
       FieldRef.enumReference(RuntimeMapTypeTracker.Type.LEGACY_OBJECT_MAP_OR_RECORD)
           .putUnchecked(adapter);
@@ -65,7 +65,9 @@ import com.google.template.soy.data.SoyValueProvider;
 import com.google.template.soy.data.SoyValueUnconverter;
 import com.google.template.soy.data.SoyVisualElementData;
 import com.google.template.soy.data.UnsafeSanitizedContentOrdainer;
+import com.google.template.soy.data.internal.DoubleListImpl;
 import com.google.template.soy.data.internal.LazyProtoToSoyValueList;
+import com.google.template.soy.data.internal.LongListImpl;
 import com.google.template.soy.data.internal.ParamStore;
 import com.google.template.soy.data.internal.SoyLegacyObjectMapImpl;
 import com.google.template.soy.data.internal.SoyMapImpl;
@@ -78,16 +80,11 @@ import com.google.template.soy.jbcsrc.api.OutputAppendable;
 import com.google.template.soy.jbcsrc.api.RenderResult;
 import com.google.template.soy.jbcsrc.shared.CompiledTemplate;
 import com.google.template.soy.jbcsrc.shared.LegacyFunctionAdapter;
+import com.google.template.soy.jbcsrc.shared.MsgPlan;
 import com.google.template.soy.jbcsrc.shared.RenderContext;
 import com.google.template.soy.jbcsrc.shared.SaveStateMetaFactory;
 import com.google.template.soy.jbcsrc.shared.StackFrame;
 import com.google.template.soy.logging.SoyLogger;
-import com.google.template.soy.msgs.restricted.SoyMsgPart;
-import com.google.template.soy.msgs.restricted.SoyMsgPlaceholderPart;
-import com.google.template.soy.msgs.restricted.SoyMsgPluralPart;
-import com.google.template.soy.msgs.restricted.SoyMsgPluralRemainderPart;
-import com.google.template.soy.msgs.restricted.SoyMsgRawTextPart;
-import com.google.template.soy.msgs.restricted.SoyMsgSelectPart;
 import com.google.template.soy.shared.restricted.SoyJavaPrintDirective;
 import com.ibm.icu.util.ULocale;
 import java.io.IOException;
@@ -95,7 +92,9 @@ import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -571,6 +570,11 @@ public final class JbcSrcRuntime {
   }
 
   public static RenderResult getListStatus(List<? extends SoyValueProvider> soyValueProviders) {
+    if (soyValueProviders instanceof LongListImpl.JavaList
+        || soyValueProviders instanceof DoubleListImpl.JavaList) {
+      // primitive lists are always resolved, don't box every element to find out
+      return RenderResult.done();
+    }
     // avoid allocating an iterator
     for (SoyValueProvider soyValueProvider : soyValueProviders) {
       RenderResult result = soyValueProvider.status();
@@ -621,25 +625,25 @@ public final class JbcSrcRuntime {
     return soyValueProvider == null ? NULL_PROVIDER : soyValueProvider;
   }
 
-  public static String handleBasicTranslation(List<SoyMsgPart> parts) {
-    return ((SoyMsgRawTextPart) parts.get(0)).getRawText();
-  }
-
-  public static String handleBasicTranslationAndEscapeHtml(List<SoyMsgPart> parts) {
-    return MsgRenderer.escapeHtml(handleBasicTranslation(parts));
+  public static String handleBasicTranslation(MsgPlan plan) {
+    return plan.text();
   }
 
   /**
    * A Message renderer represents a message to be rendered. It encapsulates the placeholders and
-   * message parts and can dynamically render them. This manages a small state machine that allows
+   * message plan and can dynamically render them. This manages a small state machine that allows
    * for rendering to proceed.
    */
   public static class MsgRenderer extends DetachableContentProvider {
-    ImmutableList<SoyMsgPart> msgParts;
+    MsgPlan plan;
     final ULocale locale;
     private int partIndex;
     private SoyValueProvider pendingRender;
-    final Map<String, SoyValueProvider> placeholders;
+    /** The placeholder values, indexed by their slot in the plan. */
+    final SoyValueProvider[] placeholders;
+    // The placeholders that the plan doesn't use, since a translation needn't use all of them.
+    // These are only kept to check for duplicates and to report the placeholders that were set.
+    @Nullable private Map<String, SoyValueProvider> unusedPlaceholders;
 
     // Some placeholders have ordering constraints.  This is necessary for the velog to function
     // correctly in the face of translators reordering things.
@@ -649,19 +653,12 @@ public final class JbcSrcRuntime {
     // an optional map from a placeholder to another placeholder that must precede it.
     @Nullable SetMultimap<String, String> endPlaceholderToStartPlaceholder;
     private final long msgId;
-    private final boolean htmlEscape;
-
-    public MsgRenderer(
-        long msgId,
-        ImmutableList<SoyMsgPart> msgParts,
-        @Nullable ULocale locale,
-        int numPlaceholders,
-        boolean htmlEscape) {
+
+    public MsgRenderer(long msgId, MsgPlan plan, @Nullable ULocale locale) {
       this.msgId = msgId;
-      this.msgParts = msgParts;
+      this.plan = plan;
       this.locale = locale;
-      this.placeholders = Maps.newLinkedHashMapWithExpectedSize(numPlaceholders);
-      this.htmlEscape = htmlEscape;
+      this.placeholders = new SoyValueProvider[plan.slotCount()];
     }
 
     /**
@@ -672,7 +669,17 @@ public final class JbcSrcRuntime {
      */
     @CanIgnoreReturnValue
     public MsgRenderer setPlaceholder(String placeholderName, SoyValueProvider placeholderValue) {
-      Object prev = placeholders.put(placeholderName, placeholderValue);
+      int slot = plan.slotOf(placeholderName);
+      SoyValueProvider prev;
+      if (slot < 0) {
+        if (unusedPlaceholders == null) {
+          unusedPlaceholders = new LinkedHashMap<>();
+        }
+        prev = unusedPlaceholders.put(placeholderName, placeholderValue);
+      } else {
+        prev = placeholders[slot];
+        placeholders[slot] = placeholderValue;
+      }
       if (prev != null) {
         throw new IllegalArgumentException(
             "found multiple placeholders: "
@@ -685,11 +692,6 @@ public final class JbcSrcRuntime {
       return this;
     }
 
-    static String escapeHtml(String s) {
-      // Note that "&" is not replaced because the translation can contain HTML entities.
-      return s.replace("<", "&lt;");
-    }
-
     /**
      * Sets a placeholder and declares that it must come before {@code endPlaceholder}.
      *
@@ -760,16 +762,16 @@ public final class JbcSrcRuntime {
         }
         pendingRender = null;
       }
-      for (int i = partIndex; i < msgParts.size(); i++) {
-        SoyMsgPart msgPart = msgParts.get(i);
-        if (msgPart instanceof SoyMsgRawTextPart) {
-          String s = ((SoyMsgRawTextPart) msgPart).getRawText();
-          if (htmlEscape) {
-            s = escapeHtml(s);
-          }
-          out.append(s);
-        } else if (msgPart instanceof SoyMsgPlaceholderPart) {
-          String placeholderName = ((SoyMsgPlaceholderPart) msgPart).getPlaceholderName();
+      MsgPlan plan = this.plan;
+      for (int i = partIndex; i < plan.size(); i++) {
+        int slot = plan.slot(i);
+        if (slot == MsgPlan.TEXT) {
+          out.append(plan.text(i));
+        } else if (slot == MsgPlan.PLURAL_REMAINDER) {
+          // this is weird... shouldn't this be using a number format?
+          out.append(String.valueOf(getPluralRemainder()));
+        } else {
+          String placeholderName = plan.slotName(slot);
           if (endPlaceholderToStartPlaceholder != null) {
             if (startPlaceholders.contains(placeholderName)) {
               startPlaceholderRenderCount.add(placeholderName);
@@ -795,13 +797,13 @@ public final class JbcSrcRuntime {
               }
             }
           }
-          SoyValueProvider placeholderValue = placeholders.get(placeholderName);
+          SoyValueProvider placeholderValue = placeholders[slot];
           if (placeholderValue == null) {
             throw new IllegalStateException(
                 "No value provided for placeholder: '"
                     + placeholderName
                     + "', expected one of "
-                    + placeholders.keySet());
+                    + providedPlaceholderNames());
           }
           try {
             // TODO(lukes): we could set the isLast flag by scanning forward in msgParts for more
@@ -817,11 +819,6 @@ public final class JbcSrcRuntime {
           } catch (IllegalStateException e) {
             throw new IllegalStateException(placeholderName, e);
           }
-        } else if (msgPart instanceof SoyMsgPluralRemainderPart) {
-          // this is weird... shouldn't this be using a number format?
-          out.append(String.valueOf(getPluralRemainder()));
-        } else {
-          throw new AssertionError("unexpected part: " + msgPart);
         }
       }
       if (startPlaceholderRenderCount != null && !startPlaceholderRenderCount.isEmpty()) {
@@ -834,6 +831,19 @@ public final class JbcSrcRuntime {
       return RenderResult.done();
     }
 
+    private List<String> providedPlaceholderNames() {
+      List<String> names = new ArrayList<>();
+      for (int slot = 0; slot < placeholders.length; slot++) {
+        if (placeholders[slot] != null) {
+          names.add(plan.slotName(slot));
+        }
+      }
+      if (unusedPlaceholders != null) {
+        names.addAll(unusedPlaceholders.keySet());
+      }
+      return names;
+    }
+
     double getPluralRemainder() {
       throw new UnsupportedOperationException(
           "this is not a plural message so remainder don't make sense");
@@ -846,13 +856,8 @@ public final class JbcSrcRuntime {
     // only one plural is allowed per message so we only need to track one remainder.
     private double remainder = -1;
 
-    public PlrSelMsgRenderer(
-        long msgId,
-        ImmutableList<SoyMsgPart> msgParts,
-        @Nullable ULocale locale,
-        int numPlaceholders,
-        boolean htmlEscape) {
-      super(msgId, msgParts, locale, numPlaceholders, htmlEscape);
+    public PlrSelMsgRenderer(long msgId, MsgPlan plan, @Nullable ULocale locale) {
+      super(msgId, plan, locale);
     }
 
     @Override
@@ -864,29 +869,26 @@ public final class JbcSrcRuntime {
         // NOTE: that in the most common case, this loop only executes once and at maximum it will
         // loop 3 times.  We do know statically what the first iteration will be, but it is not
         // possible to know anything beyond that.
-        ImmutableList<SoyMsgPart> parts = this.msgParts;
+        MsgPlan plan = this.plan;
         RenderResult caseSelectionResult = RenderResult.done();
-        while (!parts.isEmpty()) {
-          SoyMsgPart first = parts.get(0);
-          if (first instanceof SoyMsgSelectPart) {
-            SoyMsgSelectPart selectPart = (SoyMsgSelectPart) first;
-            SoyValueProvider selectPlaceholder = placeholders.get(selectPart.getSelectVarName());
+        while (true) {
+          if (plan.isSelect()) {
+            SoyValueProvider selectPlaceholder = placeholders[plan.choiceSlot()];
             caseSelectionResult = selectPlaceholder.status();
             if (caseSelectionResult.isDone()) {
               // Handle null results by coercing to 'null' for compatibility with javascript
-              parts = selectPart.lookupCase(coerceToString(selectPlaceholder.resolve()));
+              plan = plan.selectCase(coerceToString(selectPlaceholder.resolve()));
             } else {
               break;
             }
-          } else if (first instanceof SoyMsgPluralPart) {
-            SoyMsgPluralPart pluralPart = (SoyMsgPluralPart) first;
-            SoyValueProvider pluralPlaceholder = placeholders.get(pluralPart.getPluralVarName());
+          } else if (plan.isPlural()) {
+            SoyValueProvider pluralPlaceholder = placeholders[plan.choiceSlot()];
             caseSelectionResult = pluralPlaceholder.status();
             if (caseSelectionResult.isDone()) {
               double pluralValue = pluralPlaceholder.resolve().numberValue();
-              parts = pluralPart.lookupCase(pluralValue, locale);
               // precalculate and store the remainder.
-              remainder = pluralValue - pluralPart.getOffset();
+              remainder = pluralValue - plan.pluralOffset();
+              plan = plan.pluralCase(pluralValue, locale);
             } else {
               break;
             }
@@ -895,7 +897,7 @@ public final class JbcSrcRuntime {
           }
         }
         // Store any progress we have made in calculating sub-parts.
-        this.msgParts = parts;
+        this.plan = plan;
         if (!caseSelectionResult.isDone()) {
           return caseSelectionResult;
         }
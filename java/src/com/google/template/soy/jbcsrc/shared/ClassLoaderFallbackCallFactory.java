@@ -18,6 +18,7 @@ package com.google.template.soy.jbcsrc.shared;
 import static java.lang.invoke.MethodHandles.collectArguments;
 import static java.lang.invoke.MethodHandles.constant;
 import static java.lang.invoke.MethodHandles.dropArguments;
+import static java.lang.invoke.MethodHandles.filterReturnValue;
 import static java.lang.invoke.MethodHandles.insertArguments;
 import static java.lang.invoke.MethodType.methodType;
 
@@ -114,6 +115,22 @@ public final class ClassLoaderFallbackCallFactory {
 
   private static final MethodType TEMPLATE_ACCESSOR_TYPE = methodType(CompiledTemplate.class);
 
+  private static final MethodHandle CREATE_TEMPLATE_VALUE;
+
+  static {
+    try {
+      CREATE_TEMPLATE_VALUE =
+          MethodHandles.lookup()
+              .findStatic(
+                  CompiledTemplate.TemplateValue.class,
+                  "create",
+                  methodType(
+                      CompiledTemplate.TemplateValue.class, String.class, CompiledTemplate.class));
+    } catch (ReflectiveOperationException e) {
+      throw new LinkageError(e.getMessage(), e);
+    }
+  }
+
   private ClassLoaderFallbackCallFactory() {}
 
   /**
@@ -144,13 +161,17 @@ public final class ClassLoaderFallbackCallFactory {
       // the initial renderContext is ignored in this case
       MethodHandle getter = constant(CompiledTemplate.class, template);
       getter = dropArguments(getter, 0, RenderContext.class);
-      return new ConstantCallSite(getter);
+      return new ConstantCallSite(
+          TemplateInstrumentation.instrumentLookup(
+              lookup.lookupClass().getClassLoader(), getter, templateName));
     }
     MethodHandle handle =
         lookup.findStatic(
-            ClassLoaderFallbackCallFactory.class, "slowpathTemplate", SLOWPATH_TEMPLATE_TYPE);
+            ClassLoaderFallbackCallFactory.class, "slowPathTemplate", SLOWPATH_TEMPLATE_TYPE);
     handle = insertArguments(handle, 0, templateName);
-    return new ConstantCallSite(handle);
+    return new ConstantCallSite(
+        TemplateInstrumentation.instrumentLookup(
+            lookup.lookupClass().getClassLoader(), handle, templateName));
   }
 
   /**
@@ -182,7 +203,10 @@ public final class ClassLoaderFallbackCallFactory {
       // the initial renderContext is ignored in this case
       MethodHandle getter = constant(CompiledTemplate.TemplateValue.class, value);
       getter = dropArguments(getter, 0, RenderContext.class);
-      return new ConstantCallSite(getter);
+      MethodHandle templateGetter =
+          dropArguments(constant(CompiledTemplate.class, template), 0, RenderContext.class);
+      return new ConstantCallSite(
+          instrumentTemplateValueLookup(lookup, getter, templateGetter, templateName));
     }
     MethodHandle handle =
         lookup.findStatic(
@@ -190,7 +214,30 @@ public final class ClassLoaderFallbackCallFactory {
             "slowPathTemplateValue",
             SLOWPATH_TEMPLATE_VALUE_TYPE);
     handle = insertArguments(handle, 0, templateName);
-    return new ConstantCallSite(handle);
+    MethodHandle templateLookup =
+        lookup.findStatic(
+            ClassLoaderFallbackCallFactory.class, "slowPathTemplate", SLOWPATH_TEMPLATE_TYPE);
+    templateLookup = insertArguments(templateLookup, 0, templateName);
+    return new ConstantCallSite(
+        instrumentTemplateValueLookup(lookup, handle, templateLookup, templateName));
+  }
+
+  /**
+   * Returns a handle that returns the result of {@code lookup}, unless the context has a {@link
+   * com.google.template.soy.jbcsrc.api.TemplateRenderListener}, in which case it returns a value
+   * wrapping the instrumented result of {@code templateLookup}.
+   */
+  private static MethodHandle instrumentTemplateValueLookup(
+      MethodHandles.Lookup callerLookup,
+      MethodHandle lookup,
+      MethodHandle templateLookup,
+      String templateName) {
+    MethodHandle instrumented =
+        filterReturnValue(templateLookup, TemplateInstrumentation.instrumenter(templateName));
+    instrumented =
+        filterReturnValue(instrumented, insertArguments(CREATE_TEMPLATE_VALUE, 0, templateName));
+    return TemplateInstrumentation.whenInstrumented(
+        callerLookup.lookupClass().getClassLoader(), lookup, instrumented);
   }
 
   private static CompiledTemplate getTemplate(
@@ -238,7 +285,10 @@ public final class ClassLoaderFallbackCallFactory {
     Optional<Class<?>> templateClass = findTemplateClass(lookup, templateName);
     String methodName = Names.renderMethodNameFromSoyTemplateName(templateName);
     if (templateClass.isPresent()) {
-      return new ConstantCallSite(lookup.findStatic(templateClass.get(), methodName, type));
+      MethodHandle handle = lookup.findStatic(templateClass.get(), methodName, type);
+      return new ConstantCallSite(
+          TemplateInstrumentation.instrumentCall(
+              lookup.lookupClass().getClassLoader(), handle, templateName));
     }
     MethodHandle slowPathRenderHandle =
         lookup.findStatic(
@@ -270,7 +320,9 @@ public final class ClassLoaderFallbackCallFactory {
       slowPathRenderHandle =
           MethodHandles.collectArguments(slowPathRenderHandle, 0, positionalToRecordHandle);
     }
-    return new ConstantCallSite(slowPathRenderHandle);
+    return new ConstantCallSite(
+        TemplateInstrumentation.instrumentCall(
+            lookup.lookupClass().getClassLoader(), slowPathRenderHandle, templateName));
   }
   /**
    * A JVM bootstrap method for resolving references to constants..
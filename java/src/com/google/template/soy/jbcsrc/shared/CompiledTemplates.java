@@ -18,37 +18,70 @@ package com.google.template.soy.jbcsrc.shared;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Splitter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.MultimapBuilder;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 import com.google.errorprone.annotations.Immutable;
 import com.google.errorprone.annotations.concurrent.LazyInit;
 import com.google.template.soy.data.SanitizedContent.ContentKind;
 import com.google.template.soy.jbcsrc.shared.TemplateMetadata.DelTemplateMetadata;
 import com.google.template.soy.shared.internal.DelTemplateSelector;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
 import javax.annotation.Nullable;
 
 /** The result of template compilation. */
 public class CompiledTemplates {
   private final ClassLoader loader;
+  private final TemplateIndex index;
+  private final ImmutableSet<String> templateNames;
   private final ConcurrentHashMap<String, TemplateData> templateNameToFactory =
       new ConcurrentHashMap<>();
   private final ConcurrentHashMap<String, CompiledConstant> constantNameToMethod =
       new ConcurrentHashMap<>();
   final DelTemplateSelector<TemplateData> selector;
 
+  /**
+   * The upper bound on the number of distinct sets of active mods whose deltemplate selections are
+   * memoized. Applications typically only have a handful of distinct sets of active mods.
+   */
+  private static final int MAX_CACHED_MOD_SELECTIONS = 256;
+
+  /** Memoized deltemplate selections, keyed on the set of active mods. */
+  private final Cache<ImmutableSet<String>, DelTemplateSelector.Selection<TemplateData>>
+      modSelections = CacheBuilder.newBuilder().maximumSize(MAX_CACHED_MOD_SELECTIONS).build();
+
+  /**
+   * The selections of recently used active mod selectors, keyed on their identity, so that callers
+   * reusing a selector don't test it against every mod again. Selections don't reference the
+   * selector, so the weak keys can be collected.
+   */
+  private final Cache<Predicate<String>, DelTemplateSelector.Selection<TemplateData>>
+      selectorSelections =
+          CacheBuilder.newBuilder().weakKeys().maximumSize(MAX_CACHED_MOD_SELECTIONS).build();
+
   /** Interface for constructor. */
   public interface Factory {
     CompiledTemplates create(ImmutableSet<String> delTemplateNames, ClassLoader loader);
@@ -60,11 +93,55 @@ public class CompiledTemplates {
    * @param loader The classloader that contains the classes
    */
   public CompiledTemplates(ImmutableSet<String> delTemplateNames, ClassLoader loader) {
+    this(delTemplateNames, TemplateIndex.EMPTY, /* templateNames= */ ImmutableSet.of(), loader);
+  }
+
+  /**
+   * @param delTemplateNames The names of all the compiled deltemplates (the mangled names). This is
+   *     needed to construct a valid deltemplate selector.
+   * @param index The index of the precompiled templates in the classloader. The deltemplates in the
+   *     index are added to the selector without loading their classes, and all the templates in
+   *     the index are loaded by default by {@link #loadTemplates}.
+   * @param loader The classloader that contains the classes
+   */
+  public CompiledTemplates(
+      ImmutableSet<String> delTemplateNames, TemplateIndex index, ClassLoader loader) {
+    this(delTemplateNames, index, index.templateNames(), loader);
+  }
+
+  /**
+   * @param delTemplateNames The names of all the compiled deltemplates (the mangled names). This is
+   *     needed to construct a valid deltemplate selector.
+   * @param templateNames The names of all the compiled templates, or an empty set if they aren't
+   *     known. These are the templates loaded by default by {@link #loadTemplates}.
+   * @param loader The classloader that contains the classes
+   */
+  public CompiledTemplates(
+      ImmutableSet<String> delTemplateNames,
+      ImmutableSet<String> templateNames,
+      ClassLoader loader) {
+    this(delTemplateNames, TemplateIndex.EMPTY, templateNames, loader);
+  }
+
+  private CompiledTemplates(
+      ImmutableSet<String> delTemplateNames,
+      TemplateIndex index,
+      ImmutableSet<String> templateNames,
+      ClassLoader loader) {
     this.loader = checkNotNull(loader);
+    this.index = checkNotNull(index);
+    this.templateNames = checkNotNull(templateNames);
     // We need to build the deltemplate selector eagerly.
     DelTemplateSelector.Builder<TemplateData> builder = new DelTemplateSelector.Builder<>();
     for (String delTemplateImplName : delTemplateNames) {
-      TemplateData data = getTemplateData(delTemplateImplName);
+      TemplateIndex.Entry entry = index.get(delTemplateImplName);
+      TemplateData data;
+      if (entry != null && entry.hasDelTemplateMetadata()) {
+        data = new TemplateData(entry, loader);
+        templateNameToFactory.put(delTemplateImplName, data);
+      } else {
+        data = getTemplateData(delTemplateImplName);
+      }
       if (!data.delTemplateName.isPresent()) {
         throw new IllegalArgumentException(
             "Expected " + delTemplateImplName + " to be a deltemplate");
@@ -96,6 +173,65 @@ public class CompiledTemplates {
     return loader;
   }
 
+  /**
+   * Returns the names of all the compiled templates, or an empty set if they weren't given when
+   * these templates were created.
+   */
+  public ImmutableSet<String> getTemplateNames() {
+    return templateNames;
+  }
+
+  /** Receives progress updates from {@link #loadTemplates}. */
+  public interface LoadListener {
+    /**
+     * Called after each template has been loaded, on the thread that loaded it.
+     *
+     * @param loaded The number of templates loaded so far, including this one
+     * @param total The number of templates being loaded
+     */
+    void templateLoaded(String templateName, int loaded, int total);
+  }
+
+  /**
+   * Loads the given templates on the executor, so that they don't have to be loaded by the first
+   * renders that use them. If templates are compiled on demand, this also compiles them.
+   *
+   * <p>The templates of each class are loaded by a single task, and tasks for different classes run
+   * concurrently.
+   *
+   * @return A future that completes once all the templates have been loaded, or fails with the
+   *     first failure to load one of them.
+   */
+  public ListenableFuture<Void> loadTemplates(
+      Iterable<String> templateNames, Executor executor, LoadListener listener) {
+    checkNotNull(listener);
+    ListMultimap<String, String> templatesByClass =
+        MultimapBuilder.linkedHashKeys().arrayListValues().build();
+    for (String templateName : templateNames) {
+      templatesByClass.put(Names.javaClassNameFromSoyTemplateName(templateName), templateName);
+    }
+    int totalTemplates = templatesByClass.size();
+    AtomicInteger loaded = new AtomicInteger();
+    List<ListenableFuture<?>> futures = new ArrayList<>();
+    for (Collection<String> classTemplates : templatesByClass.asMap().values()) {
+      futures.add(
+          Futures.submit(
+              () -> {
+                for (String templateName : classTemplates) {
+                  TemplateData data = getTemplateData(templateName);
+                  if (Modifier.isPublic(data.templateMethod().getModifiers())) {
+                    // Private templates can't be called directly, their class is all there is to
+                    // load.
+                    data.template();
+                  }
+                  listener.templateLoaded(templateName, loaded.incrementAndGet(), totalTemplates);
+                }
+              },
+              executor));
+    }
+    return Futures.whenAllSucceed(futures).call(() -> null, directExecutor());
+  }
+
   /** Returns a factory for the given fully qualified template name. */
   public CompiledTemplate getTemplate(String name) {
     return getTemplateData(name).template();
@@ -117,7 +253,7 @@ public class CompiledTemplates {
     collectTransitiveCallees(templateData, all);
     ImmutableSortedSet.Builder<String> ijs = ImmutableSortedSet.naturalOrder();
     for (TemplateData callee : all) {
-      ijs.addAll(callee.injectedParams);
+      ijs.addAll(callee.methodMetadata().injectedParams);
     }
     transitiveIjParams = ijs.build();
     // save the results
@@ -127,12 +263,12 @@ public class CompiledTemplates {
 
   /** Returns the immediate css namespaces that might be used by this template. */
   public ImmutableList<String> getRequiredCssNamespaces(String templateName) {
-    return getTemplateData(templateName).requiredCssNamespaces.asList();
+    return getTemplateData(templateName).methodMetadata().requiredCssNamespaces.asList();
   }
 
   /** Returns the immediate css namespaces that might be used by this template. */
   public ImmutableList<String> getRequiredCssPaths(String templateName) {
-    return getTemplateData(templateName).requiredCssPaths.asList();
+    return getTemplateData(templateName).methodMetadata().requiredCssPaths.asList();
   }
 
   /**
@@ -147,7 +283,7 @@ public class CompiledTemplates {
         templateData, orderedTemplateCalls, visited, enabledMods, collectCssFromDelvariants);
     LinkedHashSet<String> requiredNamespaces = Sets.newLinkedHashSet();
     for (TemplateData callee : orderedTemplateCalls) {
-      requiredNamespaces.addAll(callee.requiredCssNamespaces);
+      requiredNamespaces.addAll(callee.methodMetadata().requiredCssNamespaces);
     }
     return ImmutableList.copyOf(requiredNamespaces);
   }
@@ -164,21 +300,28 @@ public class CompiledTemplates {
         templateData, orderedTemplateCalls, visited, enabledMods, collectCssFromDelvariants);
     LinkedHashSet<String> requiredPaths = Sets.newLinkedHashSet();
     for (TemplateData callee : orderedTemplateCalls) {
-      requiredPaths.addAll(callee.requiredCssPaths);
+      requiredPaths.addAll(callee.methodMetadata().requiredCssPaths);
     }
     return ImmutableList.copyOf(requiredPaths);
   }
 
-  /** Returns an active delegate for the given name, variant and active package selector. */
-  @Nullable
-  CompiledTemplate selectDelTemplate(
-      String delTemplateName, String variant, Predicate<String> activeModSelector) {
-    TemplateData selectedTemplate =
-        selector.selectTemplate(delTemplateName, variant, activeModSelector);
-    if (selectedTemplate == null) {
-      return null;
+  /**
+   * Returns the deltemplate selections for the given active mod selector. A selector that wasn't
+   * used recently is tested once against each mod that has deltemplates, and selections are shared
+   * by every caller whose selector accepts the same mods.
+   */
+  DelTemplateSelector.Selection<TemplateData> getDelTemplateSelection(
+      Predicate<String> activeModSelector) {
+    DelTemplateSelector.Selection<TemplateData> selection =
+        selectorSelections.getIfPresent(activeModSelector);
+    if (selection == null) {
+      selection =
+          modSelections
+              .asMap()
+              .computeIfAbsent(selector.activeMods(activeModSelector), selector::forActiveMods);
+      selectorSelections.put(activeModSelector, selection);
     }
-    return selectedTemplate.template();
+    return selection;
   }
 
   public CompiledConstant getConstMethod(String constantFqn) {
@@ -202,7 +345,10 @@ public class CompiledTemplates {
     checkNotNull(name);
     TemplateData template = templateNameToFactory.get(name);
     if (template == null) {
-      template = loadTemplate(name, loader);
+      TemplateIndex.Entry entry = index.get(name);
+      template =
+          new TemplateData(
+              loadClass(name, entry != null ? entry.className : null, loader), name);
       TemplateData old = templateNameToFactory.putIfAbsent(name, template);
       if (old != null) {
         return old;
@@ -211,16 +357,21 @@ public class CompiledTemplates {
     return template;
   }
 
-  private static TemplateData loadTemplate(String name, ClassLoader loader) {
-    Class<?> templateClass;
+  /**
+   * Loads the class of the given template, which is derived from the template name unless it is
+   * given by the {@link TemplateIndex}.
+   */
+  private static Class<?> loadClass(
+      String templateName, @Nullable String className, ClassLoader loader) {
     try {
-      String templateName = Names.javaClassNameFromSoyTemplateName(name);
-      templateClass = Class.forName(templateName, /* initialize= */ true, loader);
+      return Class.forName(
+          className != null ? className : Names.javaClassNameFromSoyTemplateName(templateName),
+          /* initialize= */ true,
+          loader);
     } catch (ClassNotFoundException e) {
       String format = "No class was compiled for template: %s.";
-      throw new IllegalArgumentException(String.format(format, name), e);
+      throw new IllegalArgumentException(String.format(format, templateName), e);
     }
-    return new TemplateData(templateClass, name);
   }
 
   /**
@@ -233,10 +384,10 @@ public class CompiledTemplates {
       return; // avoids chasing recursive cycles
     }
     visited.add(templateData);
-    for (String callee : templateData.callees) {
+    for (String callee : templateData.methodMetadata().callees) {
       collectTransitiveCallees(getTemplateData(callee), visited);
     }
-    for (String delCallee : templateData.delCallees) {
+    for (String delCallee : templateData.methodMetadata().delCallees) {
       // for {delcalls} and calls to modifiable templates we consider all possible targets
       for (TemplateData potentialCallee : selector.delTemplateNameToValues().get(delCallee)) {
         collectTransitiveCallees(potentialCallee, visited);
@@ -261,7 +412,7 @@ public class CompiledTemplates {
     visited.add(templateData);
     // TODO(tomnguyen) It may be important to collect css in lexical order instead of
     // separating templates and deltemplates.
-    for (String callee : templateData.callees) {
+    for (String callee : templateData.methodMetadata().callees) {
       collectTransitiveCallees(
           getTemplateData(callee),
           orderedTemplateCalls,
@@ -269,7 +420,7 @@ public class CompiledTemplates {
           enabledMods,
           collectCssFromDelvariants);
     }
-    for (String delCallee : templateData.delCallees) {
+    for (String delCallee : templateData.methodMetadata().delCallees) {
       selector.delTemplateNameToValues().get(delCallee).stream()
           .map(tmpl -> tmpl.variant)
           .filter(variant -> collectCssFromDelvariants || variant.isEmpty())
@@ -289,26 +440,24 @@ public class CompiledTemplates {
   /** This is mostly a copy of the {@link TemplateMetadata} annotation. */
   @Immutable
   public static final class TemplateData {
-    @SuppressWarnings("Immutable")
-    final Method templateMethod;
-
     final String soyTemplateName;
     // lazily initialized since it is not always needed
     @LazyInit CompiledTemplate template;
 
-    // many of these fields should probably be only lazily calculated
-    final ContentKind kind;
-    final ImmutableSet<String> callees;
-    final ImmutableSet<String> delCallees;
-    final ImmutableSet<String> injectedParams;
-    final ImmutableSet<String> requiredCssNamespaces;
-    final ImmutableSet<String> requiredCssPaths;
-
     // If this is a deltemplate then delTemplateName will be present
     final Optional<String> delTemplateName;
     final Optional<String> modName;
     final String variant;
 
+    // The class of a template from a TemplateIndex is only loaded once the rest of its metadata is
+    // needed, since most deltemplates are never rendered.
+    @SuppressWarnings("Immutable")
+    @Nullable
+    private final ClassLoader loader;
+
+    @Nullable private final String className;
+    @LazyInit private MethodMetadata methodMetadata;
+
     // Lazily initialized by getTransitiveIjParamsForTemplate.  We initialize lazily because in
     // general this is only needed for relatively few templates.
     @LazyInit ImmutableSortedSet<String> transitiveIjParams;
@@ -319,19 +468,12 @@ public class CompiledTemplates {
 
     @VisibleForTesting
     public TemplateData(Method templateMethod, String soyTemplateName) {
-      this.templateMethod = templateMethod;
       this.soyTemplateName = soyTemplateName;
-
-      // We pull the content kind off the templatemetadata eagerly since the parsing+reflection each
-      // time is expensive.
-      TemplateMetadata annotation = templateMethod.getAnnotation(TemplateMetadata.class);
-      this.kind = annotation.contentKind();
-      this.callees = ImmutableSet.copyOf(annotation.callees());
-      this.delCallees = ImmutableSet.copyOf(annotation.delCallees());
-      this.injectedParams = ImmutableSet.copyOf(annotation.injectedParams());
-      this.requiredCssNamespaces = ImmutableSet.copyOf(annotation.requiredCssNames());
-      this.requiredCssPaths = ImmutableSet.copyOf(annotation.requiredCssPaths());
-      DelTemplateMetadata deltemplateMetadata = annotation.deltemplateMetadata();
+      this.loader = null;
+      this.className = null;
+      this.methodMetadata = new MethodMetadata(templateMethod);
+      DelTemplateMetadata deltemplateMetadata =
+          methodMetadata.annotation.deltemplateMetadata();
       variant = deltemplateMetadata.variant();
       if (!deltemplateMetadata.name().isEmpty()) {
         delTemplateName = Optional.of(deltemplateMetadata.name());
@@ -345,6 +487,17 @@ public class CompiledTemplates {
       }
     }
 
+    /** Creates the data for a deltemplate from the index, without loading its class. */
+    TemplateData(TemplateIndex.Entry entry, ClassLoader loader) {
+      checkArgument(entry.hasDelTemplateMetadata());
+      this.soyTemplateName = entry.templateName;
+      this.loader = loader;
+      this.className = entry.className;
+      this.delTemplateName = Optional.of(entry.delTemplateName);
+      this.modName = entry.modName.isEmpty() ? Optional.empty() : Optional.of(entry.modName);
+      this.variant = entry.variant;
+    }
+
     private static Method getTemplateMethod(Class<?> fileClass, String soyTemplateName) {
       String templateMethodName = Names.renderMethodNameFromSoyTemplateName(soyTemplateName);
       try {
@@ -360,18 +513,31 @@ public class CompiledTemplates {
       }
     }
 
+    /** Returns the metadata of the template method, loading its class if necessary. */
+    MethodMetadata methodMetadata() {
+      MethodMetadata local = methodMetadata;
+      if (local == null) {
+        // racy-lazy init pattern, loading the class twice just finds the same class.
+        local =
+            new MethodMetadata(
+                getTemplateMethod(loadClass(soyTemplateName, className, loader), soyTemplateName));
+        methodMetadata = local;
+      }
+      return local;
+    }
+
     @VisibleForTesting
     public Class<?> templateClass() {
-      return templateMethod.getDeclaringClass();
+      return methodMetadata().templateMethod.getDeclaringClass();
     }
 
     @VisibleForTesting
     public Method templateMethod() {
-      return templateMethod;
+      return methodMetadata().templateMethod;
     }
 
     public ContentKind kind() {
-      return kind;
+      return methodMetadata().kind;
     }
 
     @VisibleForTesting
@@ -393,7 +559,7 @@ public class CompiledTemplates {
       CompiledTemplate local = template;
       if (local == null) {
         try {
-          local = (CompiledTemplate) templateMethod.invoke(null);
+          local = (CompiledTemplate) methodMetadata().templateMethod.invoke(null);
         } catch (IllegalAccessException iae) {
           throw new IllegalArgumentException(
               "cannot get a factory for the private template: " + soyTemplateName(), iae);
@@ -414,4 +580,34 @@ public class CompiledTemplates {
       return soyTemplateName;
     }
   }
+
+  /** The metadata read from the {@link TemplateMetadata} annotation of a template method. */
+  @Immutable
+  static final class MethodMetadata {
+    @SuppressWarnings("Immutable")
+    final Method templateMethod;
+
+    @SuppressWarnings("Immutable")
+    final TemplateMetadata annotation;
+
+    final ContentKind kind;
+    final ImmutableSet<String> callees;
+    final ImmutableSet<String> delCallees;
+    final ImmutableSet<String> injectedParams;
+    final ImmutableSet<String> requiredCssNamespaces;
+    final ImmutableSet<String> requiredCssPaths;
+
+    MethodMetadata(Method templateMethod) {
+      this.templateMethod = templateMethod;
+      // We pull the content kind off the templatemetadata eagerly since the parsing+reflection each
+      // time is expensive.
+      this.annotation = templateMethod.getAnnotation(TemplateMetadata.class);
+      this.kind = annotation.contentKind();
+      this.callees = ImmutableSet.copyOf(annotation.callees());
+      this.delCallees = ImmutableSet.copyOf(annotation.delCallees());
+      this.injectedParams = ImmutableSet.copyOf(annotation.injectedParams());
+      this.requiredCssNamespaces = ImmutableSet.copyOf(annotation.requiredCssNames());
+      this.requiredCssPaths = ImmutableSet.copyOf(annotation.requiredCssPaths());
+    }
+  }
 }
@@ -15,10 +15,14 @@
  */
 package com.google.template.soy.jbcsrc.shared;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.base.Suppliers;
 import java.lang.invoke.CallSite;
 import java.lang.invoke.ConstantCallSite;
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.MethodType;
+import java.util.function.Supplier;
 
 /**
  * An {@code invokedynamic} bootstrap for handling large string constants.
@@ -40,6 +44,28 @@ public final class LargeStringConstantFactory {
 
   public static CallSite bootstrapLargeStringConstant(
       MethodHandles.Lookup lookup, String name, MethodType type, String... parts) {
+    // Return a constant method handle.  All future invocations will just return the string value.
+    return new ConstantCallSite(MethodHandles.constant(String.class, concat(parts)));
+  }
+
+  /**
+   * Returns a supplier of the UTF-8 encoding of the concatenated parts, for raw text that may be
+   * written to appendables that output bytes. Most outputs never ask for the bytes, so the text is
+   * only encoded the first time the supplier is called.
+   *
+   * <p>The array is shared by all invocations, so callers must never modify it.
+   */
+  public static CallSite bootstrapUtf8Constant(
+      MethodHandles.Lookup lookup, String name, MethodType type, String... parts) {
+    String text = concat(parts);
+    Supplier<byte[]> utf8 = Suppliers.memoize(() -> text.getBytes(UTF_8));
+    return new ConstantCallSite(MethodHandles.constant(Supplier.class, utf8));
+  }
+
+  private static String concat(String... parts) {
+    if (parts.length == 1) {
+      return parts[0];
+    }
     int size = 0;
     for (String part : parts) {
       size += part.length();
@@ -48,9 +74,7 @@ public final class LargeStringConstantFactory {
     for (String part : parts) {
       sb.append(part);
     }
-
-    // Return a constant method handle.  All future invocations will just return the string value.
-    return new ConstantCallSite(MethodHandles.constant(String.class, sb.toString()));
+    return sb.toString();
   }
 
   private LargeStringConstantFactory() {}
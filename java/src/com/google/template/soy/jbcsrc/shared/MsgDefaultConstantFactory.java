@@ -90,7 +90,7 @@ public final class MsgDefaultConstantFactory {
 
   /**
    * Transforms a list of message parts into a list of objects that can be encoded as bootstrap
-   * methods argumetns for {@link #bootstrapMsgConstant}.
+   * methods argumetns for {@link #bootstrapMsgPlan}.
    */
   public static ImmutableList<Object> msgToPartsList(ImmutableList<SoyMsgPart> parts) {
     ImmutableList<Object> constantParts = partsToConstantPartsList(parts);
@@ -170,17 +170,23 @@ public final class MsgDefaultConstantFactory {
    *     callsite. Provided automatically by invokeDynamic JVM infrastructure
    * @param name The name of the invokeDynamic method being called. This is provided by
    *     invokeDynamic JVM infrastructure and currently unused.
-   * @param type The type of the method being called. This is always {@code
-   *     ()->ImmutableList<SoyMsgPart>}
+   * @param type The type of the method being called. This is always {@code ()->MsgPlan}
+   * @param htmlEscape 1 if the raw text of the message should be escaped for HTML, 0 otherwise
    * @param rawParts The pieces of the message
    */
-  public static CallSite bootstrapMsgConstant(
-      MethodHandles.Lookup lookup, String name, MethodType type, Object... rawParts) {
+  public static CallSite bootstrapMsgPlan(
+      MethodHandles.Lookup lookup,
+      String name,
+      MethodType type,
+      int htmlEscape,
+      Object... rawParts) {
     PeekingIterator<Object> itr = peekingIterator(forArray(rawParts));
     ImmutableList<SoyMsgPart> parts = parseParts(itr);
     checkState(!itr.hasNext()); // sanity
-    // Return a constant method handle.  All future invocations will just return the list.
-    return new ConstantCallSite(MethodHandles.constant(ImmutableList.class, parts));
+    // Return a constant method handle.  All future invocations will just return the plan, so it is
+    // compiled once per call site rather than looked up on every render.
+    return new ConstantCallSite(
+        MethodHandles.constant(MsgPlan.class, MsgPlan.create(parts, htmlEscape != 0)));
   }
 
   private static ImmutableList<SoyMsgPart> parseParts(PeekingIterator<Object> rawParts) {
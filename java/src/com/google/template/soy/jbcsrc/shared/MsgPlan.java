@@ -0,0 +1,403 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.jbcsrc.shared;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.template.soy.msgs.SoyMsgBundle;
+import com.google.template.soy.msgs.restricted.SoyMsgPart;
+import com.google.template.soy.msgs.restricted.SoyMsgPart.Case;
+import com.google.template.soy.msgs.restricted.SoyMsgPlaceholderPart;
+import com.google.template.soy.msgs.restricted.SoyMsgPluralPart;
+import com.google.template.soy.msgs.restricted.SoyMsgPluralRemainderPart;
+import com.google.template.soy.msgs.restricted.SoyMsgRawTextPart;
+import com.google.template.soy.msgs.restricted.SoyMsgSelectPart;
+import com.ibm.icu.util.ULocale;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+
+/**
+ * A message compiled for rendering: its parts with the raw text already escaped and the
+ * placeholders resolved to slots.
+ *
+ * <p>Rendering a message this way is a sequence of appends. The slots are numbered per message, so
+ * a renderer can store placeholder values in an array indexed by {@link #slotOf}, and the parts of
+ * every case of a plural or select share them.
+ *
+ * <p>Plans are immutable. The plans of translations are cached per {@link SoyMsgBundle} and message
+ * id (see {@link Translations}), and the plans of the default messages compiled into templates are
+ * constants of the generated code (see {@link MsgDefaultConstantFactory}).
+ *
+ * <p>This class is public so it can be be used by generated template code and the jbcsrc runtime.
+ * Please do not use it from client code.
+ */
+public final class MsgPlan {
+  /** The {@link #slot} of a raw text part. */
+  public static final int TEXT = -1;
+
+  /** The {@link #slot} of a plural remainder part. */
+  public static final int PLURAL_REMAINDER = -2;
+
+  /**
+   * Compiles the given parts.
+   *
+   * @param htmlEscape Whether to escape the raw text for HTML.
+   */
+  public static MsgPlan create(ImmutableList<SoyMsgPart> parts, boolean htmlEscape) {
+    List<String> slotNames = new ArrayList<>();
+    addSlotNames(parts, slotNames);
+    ImmutableMap.Builder<String, Integer> slotsByName = ImmutableMap.builder();
+    for (int i = 0; i < slotNames.size(); i++) {
+      slotsByName.put(slotNames.get(i), i);
+    }
+    return new MsgPlan(
+        parts, htmlEscape, slotNames.toArray(new String[0]), slotsByName.buildOrThrow());
+  }
+
+  /** Adds the placeholder names used by the parts, in order of first use. */
+  private static void addSlotNames(List<SoyMsgPart> parts, List<String> slotNames) {
+    for (SoyMsgPart part : parts) {
+      if (part instanceof SoyMsgPlaceholderPart) {
+        addSlotName(((SoyMsgPlaceholderPart) part).getPlaceholderName(), slotNames);
+      } else if (part instanceof SoyMsgSelectPart) {
+        SoyMsgSelectPart select = (SoyMsgSelectPart) part;
+        addSlotName(select.getSelectVarName(), slotNames);
+        for (Case<String> selectCase : select.getCases()) {
+          addSlotNames(selectCase.parts(), slotNames);
+        }
+      } else if (part instanceof SoyMsgPluralPart) {
+        SoyMsgPluralPart plural = (SoyMsgPluralPart) part;
+        addSlotName(plural.getPluralVarName(), slotNames);
+        for (Case<?> pluralCase : plural.getCases()) {
+          addSlotNames(pluralCase.parts(), slotNames);
+        }
+      }
+    }
+  }
+
+  private static void addSlotName(String name, List<String> slotNames) {
+    if (!slotNames.contains(name)) {
+      slotNames.add(name);
+    }
+  }
+
+  static String escapeHtml(String s) {
+    // Note that "&" is not replaced because the translation can contain HTML entities.
+    return s.replace("<", "&lt;");
+  }
+
+  private final boolean htmlEscape;
+
+  /** The placeholder names of the whole message, indexed by slot. */
+  private final String[] slotNames;
+
+  /** The inverse of {@link #slotNames}. */
+  private final ImmutableMap<String, Integer> slotsByName;
+
+  /** The part kinds, either a slot, {@link #TEXT} or {@link #PLURAL_REMAINDER}. */
+  private final int[] slots;
+
+  /** The text of the raw text parts, escaped if necessary. */
+  private final String[] texts;
+
+  /** The text of the message if it is only raw text, otherwise null. */
+  @Nullable private final String text;
+
+  /** The plural or select part if this is a plural or select message, otherwise null. */
+  @Nullable private final SoyMsgPart choice;
+
+  private final int choiceSlot;
+
+  /** The parts of each case of {@link #choice}, to find the plan of the case that is selected. */
+  private final ImmutableList<SoyMsgPart>[] caseParts;
+
+  private final MsgPlan[] cases;
+
+  @SuppressWarnings("unchecked")
+  private MsgPlan(
+      ImmutableList<SoyMsgPart> parts,
+      boolean htmlEscape,
+      String[] slotNames,
+      ImmutableMap<String, Integer> slotsByName) {
+    this.htmlEscape = htmlEscape;
+    this.slotNames = slotNames;
+    this.slotsByName = slotsByName;
+    SoyMsgPart first = parts.isEmpty() ? null : parts.get(0);
+    if (first instanceof SoyMsgSelectPart || first instanceof SoyMsgPluralPart) {
+      // The select or plural is the whole message, any parts after it are never rendered.
+      this.slots = new int[0];
+      this.texts = new String[0];
+      this.text = null;
+      this.choice = first;
+      List<? extends Case<?>> choiceCases;
+      if (first instanceof SoyMsgSelectPart) {
+        choiceSlot = slotOf(((SoyMsgSelectPart) first).getSelectVarName());
+        choiceCases = ((SoyMsgSelectPart) first).getCases();
+      } else {
+        choiceSlot = slotOf(((SoyMsgPluralPart) first).getPluralVarName());
+        choiceCases = ((SoyMsgPluralPart) first).getCases();
+      }
+      this.caseParts = new ImmutableList[choiceCases.size()];
+      this.cases = new MsgPlan[choiceCases.size()];
+      for (int i = 0; i < cases.length; i++) {
+        caseParts[i] = choiceCases.get(i).parts();
+        cases[i] = new MsgPlan(caseParts[i], htmlEscape, slotNames, slotsByName);
+      }
+      return;
+    }
+    this.choice = null;
+    this.choiceSlot = -1;
+    this.caseParts = new ImmutableList[0];
+    this.cases = new MsgPlan[0];
+    this.slots = new int[parts.size()];
+    this.texts = new String[parts.size()];
+    StringBuilder allText = new StringBuilder();
+    boolean onlyText = true;
+    for (int i = 0; i < parts.size(); i++) {
+      SoyMsgPart part = parts.get(i);
+      if (part instanceof SoyMsgRawTextPart) {
+        String s = ((SoyMsgRawTextPart) part).getRawText();
+        texts[i] = htmlEscape ? escapeHtml(s) : s;
+        slots[i] = TEXT;
+        allText.append(texts[i]);
+      } else if (part instanceof SoyMsgPlaceholderPart) {
+        slots[i] = slotOf(((SoyMsgPlaceholderPart) part).getPlaceholderName());
+        onlyText = false;
+      } else if (part instanceof SoyMsgPluralRemainderPart) {
+        slots[i] = PLURAL_REMAINDER;
+        onlyText = false;
+      } else {
+        throw new IllegalArgumentException("unexpected part: " + part);
+      }
+    }
+    this.text = onlyText ? allText.toString() : null;
+  }
+
+  /** Returns whether the raw text of the message is escaped for HTML. */
+  public boolean htmlEscape() {
+    return htmlEscape;
+  }
+
+  /** Returns the number of placeholders in the whole message. */
+  public int slotCount() {
+    return slotNames.length;
+  }
+
+  /** Returns the slot of the given placeholder, or -1 if the message doesn't use it. */
+  public int slotOf(String placeholderName) {
+    Integer slot = slotsByName.get(placeholderName);
+    return slot == null ? -1 : slot;
+  }
+
+  /** Returns the name of the placeholder in the given slot. */
+  public String slotName(int slot) {
+    return slotNames[slot];
+  }
+
+  /** Returns the number of parts to render, which is zero for plural and select messages. */
+  public int size() {
+    return slots.length;
+  }
+
+  /** Returns the slot of the given part, or {@link #TEXT} or {@link #PLURAL_REMAINDER}. */
+  public int slot(int part) {
+    return slots[part];
+  }
+
+  /** Returns the text of the given raw text part. */
+  public String text(int part) {
+    return texts[part];
+  }
+
+  /** Returns the text of a message that is only raw text. */
+  public String text() {
+    return checkNotNull(text, "not a raw text message");
+  }
+
+  /** Returns true if this is a select message, whose case is chosen by {@link #selectCase}. */
+  public boolean isSelect() {
+    return choice instanceof SoyMsgSelectPart;
+  }
+
+  /** Returns true if this is a plural message, whose case is chosen by {@link #pluralCase}. */
+  public boolean isPlural() {
+    return choice instanceof SoyMsgPluralPart;
+  }
+
+  /** Returns the slot of the select or plural variable. */
+  public int choiceSlot() {
+    return choiceSlot;
+  }
+
+  /** Returns the plural offset of a plural message. */
+  public int pluralOffset() {
+    return ((SoyMsgPluralPart) choice).getOffset();
+  }
+
+  /** Returns the plan of the case of a select message for the given value. */
+  public MsgPlan selectCase(String selectValue) {
+    return caseFor(((SoyMsgSelectPart) choice).lookupCase(selectValue));
+  }
+
+  /** Returns the plan of the case of a plural message for the given value. */
+  public MsgPlan pluralCase(double pluralValue, @Nullable ULocale locale) {
+    return caseFor(((SoyMsgPluralPart) choice).lookupCase(pluralValue, locale));
+  }
+
+  private MsgPlan caseFor(ImmutableList<SoyMsgPart> parts) {
+    for (int i = 0; i < caseParts.length; i++) {
+      if (caseParts[i] == parts) {
+        return cases[i];
+      }
+    }
+    throw new IllegalStateException("no case for " + choice);
+  }
+
+  /**
+   * The plans of the translations in a {@link SoyMsgBundle}, compiled when first rendered.
+   *
+   * <p>This doesn't reference the bundle, which is passed to {@link #get} instead, so that the
+   * bundle can be collected along with its plans.
+   */
+  public static final class Translations {
+    private static final Translations NONE = new Translations();
+
+    private static final Cache<SoyMsgBundle, Translations> forBundle =
+        CacheBuilder.newBuilder().weakKeys().build();
+
+    /** Marks messages that aren't in the bundle. */
+    private static final MsgPlan ABSENT = create(ImmutableList.of(), false);
+
+    /**
+     * Returns the plans for the given bundle. They are shared by every render that uses the same
+     * bundle instance.
+     */
+    public static Translations forBundle(SoyMsgBundle bundle) {
+      if (bundle == SoyMsgBundle.EMPTY) {
+        return NONE;
+      }
+      return forBundle.asMap().computeIfAbsent(bundle, b -> new Translations());
+    }
+
+    private final PlanTable plans = new PlanTable();
+    private final PlanTable escapedPlans = new PlanTable();
+
+    private Translations() {}
+
+    /**
+     * Returns the plan of the translation of the given message, or null if there is none.
+     *
+     * @param bundle The bundle these are the translations of.
+     */
+    @Nullable
+    public MsgPlan get(SoyMsgBundle bundle, long msgId, boolean htmlEscape) {
+      if (this == NONE) {
+        return null;
+      }
+      PlanTable table = htmlEscape ? escapedPlans : plans;
+      MsgPlan plan = table.get(msgId);
+      if (plan == null) {
+        ImmutableList<SoyMsgPart> parts = bundle.getMsgParts(msgId);
+        plan = table.putIfAbsent(msgId, parts.isEmpty() ? ABSENT : create(parts, htmlEscape));
+      }
+      return plan == ABSENT ? null : plan;
+    }
+  }
+
+  /**
+   * A map from message id to plan, with open addressing over a {@code long[]} so that lookups
+   * neither box the id nor lock. Writes hold the lock, and replace the table with a larger copy
+   * when it gets too full, so readers always see a table that is only ever added to.
+   */
+  private static final class PlanTable {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private static final class Table {
+      final long[] ids;
+      // A plan is set after its id, so a reader that sees a plan also sees its id.
+      final AtomicReferenceArray<MsgPlan> plans;
+      final int mask;
+
+      Table(int capacity) {
+        this.ids = new long[capacity];
+        this.plans = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+      }
+
+      @Nullable
+      MsgPlan get(long msgId) {
+        for (int i = Long.hashCode(msgId) & mask; ; i = (i + 1) & mask) {
+          MsgPlan plan = plans.get(i);
+          if (plan == null || ids[i] == msgId) {
+            return plan;
+          }
+        }
+      }
+
+      void put(long msgId, MsgPlan plan) {
+        int i = Long.hashCode(msgId) & mask;
+        while (plans.get(i) != null) {
+          i = (i + 1) & mask;
+        }
+        ids[i] = msgId;
+        plans.set(i, plan);
+      }
+    }
+
+    private volatile Table table = new Table(INITIAL_CAPACITY);
+
+    @GuardedBy("this")
+    private int size;
+
+    @Nullable
+    MsgPlan get(long msgId) {
+      return table.get(msgId);
+    }
+
+    /** Adds the plan unless there already is one, and returns the plan in the table. */
+    synchronized MsgPlan putIfAbsent(long msgId, MsgPlan plan) {
+      Table current = table;
+      MsgPlan previous = current.get(msgId);
+      if (previous != null) {
+        return previous;
+      }
+      // Keep the load factor at most 1/2 so that probe sequences stay short.
+      if (2 * (size + 1) > current.ids.length) {
+        Table larger = new Table(current.ids.length * 2);
+        for (int i = 0; i < current.ids.length; i++) {
+          MsgPlan existing = current.plans.get(i);
+          if (existing != null) {
+            larger.put(current.ids[i], existing);
+          }
+        }
+        larger.put(msgId, plan);
+        table = larger;
+      } else {
+        current.put(msgId, plan);
+      }
+      size++;
+      return plan;
+    }
+  }
+}
@@ -26,7 +26,7 @@ import com.google.template.soy.internal.exemptions.NamespaceExemptions;
  * files. These utilities are shared between the compiler and the runtime system.
  */
 public final class Names {
-  // Note: This and the plugin path below write into META-INF/services even though they aren't
+  // Note: This and the other paths below write into META-INF/services even though they aren't
   // services, because the surrounding tools already merge data in META-INF/services files.
   // (The tools do *not* merge other files in META-INF, which is why we hijack the services dir.)
   public static final String META_INF_DELTEMPLATE_PATH =
@@ -35,6 +35,17 @@ public final class Names {
   public static final String META_INF_PLUGIN_PATH =
       "META-INF/services/com.google.template.soy.plugins";
 
+  /** The {@code TemplateIndex} of the templates in a jar. */
+  public static final String META_INF_TEMPLATE_INDEX_PATH =
+      "META-INF/services/com.google.template.soy.templates";
+
+  /**
+   * The internal names of all the classes in a jar, one per line, which is the format of a class
+   * list for {@code -XX:SharedClassListFile} when creating a class data sharing archive.
+   */
+  public static final String META_INF_CLASS_LIST_PATH =
+      "META-INF/services/com.google.template.soy.classlist";
+
   public static final String CLASS_PREFIX = "com.google.template.soy.jbcsrc.gen.";
   public static final String INTERNAL_CLASS_PREFIX = CLASS_PREFIX.replace('.', '/');
 
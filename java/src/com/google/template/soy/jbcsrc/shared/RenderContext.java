@@ -31,22 +31,23 @@ import com.google.template.soy.data.SoyValueProvider;
 import com.google.template.soy.data.restricted.StringData;
 import com.google.template.soy.internal.i18n.BidiGlobalDir;
 import com.google.template.soy.jbcsrc.api.RenderResult;
+import com.google.template.soy.jbcsrc.api.TemplateRenderListener;
 import com.google.template.soy.jbcsrc.shared.CompiledTemplates.TemplateData;
 import com.google.template.soy.logging.LoggableElementMetadata;
 import com.google.template.soy.logging.SoyLogger;
 import com.google.template.soy.msgs.SoyMsgBundle;
-import com.google.template.soy.msgs.restricted.SoyMsg;
-import com.google.template.soy.msgs.restricted.SoyMsgPart;
 import com.google.template.soy.plugin.java.PluginInstances;
 import com.google.template.soy.plugin.java.RenderCssHelper;
 import com.google.template.soy.shared.SoyCssRenamingMap;
 import com.google.template.soy.shared.SoyIdRenamingMap;
+import com.google.template.soy.shared.internal.DelTemplateSelector;
 import com.google.template.soy.shared.restricted.SoyJavaPrintDirective;
 import com.ibm.icu.util.ULocale;
 import java.io.IOException;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
+import java.util.function.LongSupplier;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 import javax.annotation.Nullable;
@@ -56,13 +57,13 @@ import javax.annotation.Nullable;
  * single instance of this object and it will be propagated throughout the render tree.
  */
 public final class RenderContext {
-  // TODO(lukes):  within this object most of these fields are constant across all renders while
-  // some are expected to change frequently (the renaming maps, msgBundle and activeModSelector).
-  // Consider splitting this into two objects to represent the changing lifetimes.  We are kind of
-  // doing this now by having SoySauceImpl reuse the Builder, but this is a little strange and could
-  // be theoretically made more efficient to construct.
+  // The fields that are constant for a given Configuration are copied out of it rather than read
+  // through it, since they are accessed on hot paths during rendering.
+
+  private static final Predicate<String> NO_ACTIVE_MODS = mod -> false;
 
   private final Predicate<String> activeModSelector;
+  private final DelTemplateSelector.Selection<TemplateData> delTemplateSelection;
   private final CompiledTemplates templates;
   private final SoyCssRenamingMap cssRenamingMap;
   private final SoyIdRenamingMap xidRenamingMap;
@@ -71,6 +72,8 @@ public final class RenderContext {
   /** The bundle of translated messages */
   private final SoyMsgBundle msgBundle;
 
+  private final MsgPlan.Translations msgPlans;
+
   /**
    * Stores memoized {const} values, which in SSR are actually request-scoped values, not Java
    * static values.
@@ -79,6 +82,16 @@ public final class RenderContext {
 
   private final boolean debugSoyTemplateInfo;
   private final SoyLogger logger;
+  @Nullable private final TemplateRenderListener templateRenderListener;
+
+  /** Counts the UTF-8 bytes written to the output of the render, if anything does. */
+  @Nullable private LongSupplier outputByteCounter;
+
+  /**
+   * The time spent in the templates called by the template currently being measured by {@link
+   * TemplateInstrumentation}.
+   */
+  long calleeNanos;
 
   // This stores the stack frame for restoring state after a detach operation.  It is initialised to
   // a special state 0 that represents the first call to any detachable method.
@@ -88,25 +101,19 @@ public final class RenderContext {
   // storing a mutable field on RenderContext is simpler.
   private StackFrame topFrame = StackFrame.INIT;
 
-  private RenderContext(
-      CompiledTemplates templates,
-      ImmutableMap<String, SoyJavaPrintDirective> soyJavaDirectivesMap,
-      PluginInstances pluginInstances,
-      @Nullable Predicate<String> activeModSelector,
-      @Nullable SoyCssRenamingMap cssRenamingMap,
-      @Nullable SoyIdRenamingMap xidRenamingMap,
-      @Nullable SoyMsgBundle msgBundle,
-      boolean debugSoyTemplateInfo,
-      @Nullable SoyLogger logger) {
-    this.templates = templates;
-    this.soyJavaDirectivesMap = soyJavaDirectivesMap;
-    this.pluginInstances = pluginInstances;
-    this.activeModSelector = activeModSelector != null ? activeModSelector : mod -> false;
-    this.cssRenamingMap = cssRenamingMap == null ? SoyCssRenamingMap.EMPTY : cssRenamingMap;
-    this.xidRenamingMap = xidRenamingMap == null ? SoyCssRenamingMap.EMPTY : xidRenamingMap;
-    this.msgBundle = msgBundle == null ? SoyMsgBundle.EMPTY : msgBundle;
-    this.debugSoyTemplateInfo = debugSoyTemplateInfo;
-    this.logger = logger == null ? SoyLogger.NO_OP : logger;
+  private RenderContext(Configuration configuration) {
+    this.templates = configuration.templates;
+    this.soyJavaDirectivesMap = configuration.soyJavaDirectivesMap;
+    this.pluginInstances = configuration.pluginInstances;
+    this.activeModSelector = configuration.activeModSelector;
+    this.delTemplateSelection = configuration.delTemplateSelection;
+    this.cssRenamingMap = configuration.cssRenamingMap;
+    this.xidRenamingMap = configuration.xidRenamingMap;
+    this.msgBundle = configuration.msgBundle;
+    this.msgPlans = configuration.msgPlans;
+    this.debugSoyTemplateInfo = configuration.debugSoyTemplateInfo;
+    this.logger = configuration.logger;
+    this.templateRenderListener = configuration.templateRenderListener;
   }
 
   @Nullable
@@ -116,8 +123,7 @@ public final class RenderContext {
 
   public RenderCssHelper getRenderCssHelper() {
     return (delTemplate, variant) -> {
-      TemplateData data =
-          templates.selector.selectTemplate(delTemplate, variant, activeModSelector);
+      TemplateData data = delTemplateSelection.selectTemplate(delTemplate, variant);
       return data != null ? data.soyTemplateName : null;
     };
   }
@@ -201,20 +207,44 @@ public final class RenderContext {
     return logger;
   }
 
+  /** Returns true if template calls should be reported to a {@link TemplateRenderListener}. */
+  public boolean hasTemplateRenderListener() {
+    return templateRenderListener != null;
+  }
+
+  @Nullable
+  public TemplateRenderListener getTemplateRenderListener() {
+    return templateRenderListener;
+  }
+
+  /**
+   * Sets the counter of the UTF-8 bytes written to the output of the render, for reporting to the
+   * {@link TemplateRenderListener}.
+   */
+  public void setOutputByteCounter(LongSupplier outputByteCounter) {
+    this.outputByteCounter = checkNotNull(outputByteCounter);
+  }
+
+  long getOutputBytes() {
+    return outputByteCounter == null ? 0 : outputByteCounter.getAsLong();
+  }
+
   public CompiledTemplate getTemplate(String calleeName) {
     return templates.getTemplate(calleeName);
   }
 
   public CompiledTemplate getDelTemplate(String calleeName, String variant) {
-    CompiledTemplate callee = templates.selectDelTemplate(calleeName, variant, activeModSelector);
-    if (callee == null) {
+    TemplateData data = delTemplateSelection.selectTemplate(calleeName, variant);
+    if (data == null) {
       throw new IllegalArgumentException(
           "Found no active impl for delegate call to \""
               + calleeName
               + (variant.isEmpty() ? "" : ":" + variant)
               + "\".");
     }
-    return callee;
+    return templateRenderListener == null
+        ? data.template()
+        : TemplateInstrumentation.instrument(data.template(), data.soyTemplateName);
   }
 
   public RenderResult renderModifiable(
@@ -289,33 +319,31 @@ public final class RenderContext {
   }
 
   /**
-   * Returns the {@link SoyMsg} associated with the {@code msgId} or the fallback (aka english)
-   * translation if there is no such message.
+   * Returns the plan of the message associated with the {@code msgId} or the fallback (aka
+   * english) translation if there is no such message.
    */
-  public ImmutableList<SoyMsgPart> getSoyMsgParts(
-      long msgId, ImmutableList<SoyMsgPart> defaultMsgParts) {
-    ImmutableList<SoyMsgPart> msgParts = msgBundle.getMsgParts(msgId);
-    if (msgParts.isEmpty()) {
-      return defaultMsgParts;
+  public MsgPlan getMsgPlan(long msgId, MsgPlan defaultPlan) {
+    MsgPlan plan = msgPlans.get(msgBundle, msgId, defaultPlan.htmlEscape());
+    if (plan == null) {
+      return defaultPlan;
     }
-    return msgParts;
+    return plan;
   }
 
   /**
-   * Returns the {@link SoyMsg} associated with the {@code msgId}, the {@code alternateId} or the
-   * fallback (aka english) translation if there is no such message.
+   * Returns the plan of the message associated with the {@code msgId}, the {@code alternateId} or
+   * the fallback (aka english) translation if there is no such message.
    */
-  public ImmutableList<SoyMsgPart> getSoyMsgPartsWithAlternateId(
-      long msgId, ImmutableList<SoyMsgPart> defaultMsgParts, long alternateId) {
-    ImmutableList<SoyMsgPart> msgParts = msgBundle.getMsgParts(msgId);
-    if (msgParts.isEmpty()) {
-      ImmutableList<SoyMsgPart> msgPartsByAlternateId = msgBundle.getMsgParts(alternateId);
-      if (msgPartsByAlternateId.isEmpty()) {
-        return defaultMsgParts;
+  public MsgPlan getMsgPlanWithAlternateId(long msgId, MsgPlan defaultPlan, long alternateId) {
+    boolean htmlEscape = defaultPlan.htmlEscape();
+    MsgPlan plan = msgPlans.get(msgBundle, msgId, htmlEscape);
+    if (plan == null) {
+      plan = msgPlans.get(msgBundle, alternateId, htmlEscape);
+      if (plan == null) {
+        return defaultPlan;
       }
-      return msgPartsByAlternateId;
     }
-    return msgParts;
+    return plan;
   }
 
   /**
@@ -380,7 +408,8 @@ public final class RenderContext {
         .withPluginInstances(pluginInstances)
         .withCssRenamingMap(cssRenamingMap)
         .withXidRenamingMap(xidRenamingMap)
-        .withMessageBundle(msgBundle);
+        .withMessageBundle(msgBundle)
+        .withTemplateRenderListener(templateRenderListener);
   }
 
   /** A builder for configuring the context. */
@@ -394,6 +423,7 @@ public final class RenderContext {
     private SoyMsgBundle msgBundle;
     private boolean debugSoyTemplateInfo;
     private SoyLogger logger;
+    private TemplateRenderListener templateRenderListener;
 
     public Builder(
         CompiledTemplates templates,
@@ -446,17 +476,82 @@ public final class RenderContext {
       return this;
     }
 
+    /** Sets the listener to report template calls to, or {@code null} to not report them. */
+    @CanIgnoreReturnValue
+    public Builder withTemplateRenderListener(
+        @Nullable TemplateRenderListener templateRenderListener) {
+      this.templateRenderListener = templateRenderListener;
+      return this;
+    }
+
+    /** Resolves the current settings into a {@link Configuration} that can be shared. */
+    public Configuration buildConfiguration() {
+      return new Configuration(this);
+    }
+
     public RenderContext build() {
-      return new RenderContext(
-          templates,
-          soyJavaDirectivesMap,
-          pluginInstances,
-          activeModSelector,
-          cssRenamingMap,
-          xidRenamingMap,
-          msgBundle,
-          debugSoyTemplateInfo,
-          logger);
+      return buildConfiguration().newContext();
+    }
+  }
+
+  /**
+   * The parts of a {@link RenderContext} that don't change from one render to the next, resolved
+   * and validated once.
+   *
+   * <p>Applications that render with the same messages, renaming maps, plugins and active mods many
+   * times can build one of these per combination and share it across threads, so that each render
+   * only allocates the per-render state in {@link #newContext}.
+   */
+  public static final class Configuration {
+    private final CompiledTemplates templates;
+    private final ImmutableMap<String, SoyJavaPrintDirective> soyJavaDirectivesMap;
+    private final PluginInstances pluginInstances;
+    private final Predicate<String> activeModSelector;
+    private final DelTemplateSelector.Selection<TemplateData> delTemplateSelection;
+    private final SoyCssRenamingMap cssRenamingMap;
+    private final SoyIdRenamingMap xidRenamingMap;
+    private final SoyMsgBundle msgBundle;
+    private final MsgPlan.Translations msgPlans;
+    private final boolean debugSoyTemplateInfo;
+    private final SoyLogger logger;
+    @Nullable private final TemplateRenderListener templateRenderListener;
+
+    private Configuration(Builder builder) {
+      this.templates = builder.templates;
+      this.soyJavaDirectivesMap = builder.soyJavaDirectivesMap;
+      this.pluginInstances = builder.pluginInstances;
+      this.activeModSelector =
+          builder.activeModSelector != null ? builder.activeModSelector : NO_ACTIVE_MODS;
+      this.delTemplateSelection = templates.getDelTemplateSelection(this.activeModSelector);
+      this.cssRenamingMap =
+          builder.cssRenamingMap == null ? SoyCssRenamingMap.EMPTY : builder.cssRenamingMap;
+      this.xidRenamingMap =
+          builder.xidRenamingMap == null ? SoyCssRenamingMap.EMPTY : builder.xidRenamingMap;
+      this.msgBundle = builder.msgBundle == null ? SoyMsgBundle.EMPTY : builder.msgBundle;
+      this.msgPlans = MsgPlan.Translations.forBundle(msgBundle);
+      this.debugSoyTemplateInfo = builder.debugSoyTemplateInfo;
+      this.logger = builder.logger == null ? SoyLogger.NO_OP : builder.logger;
+      this.templateRenderListener = builder.templateRenderListener;
+      if (templateRenderListener != null) {
+        TemplateInstrumentation.enable(templates.getClassLoader());
+      }
+    }
+
+    /** Returns a new context for a single render. */
+    public RenderContext newContext() {
+      return new RenderContext(this);
+    }
+
+    /** Returns a builder initialized with all the settings of this configuration. */
+    public Builder toBuilder() {
+      return new Builder(templates, soyJavaDirectivesMap, pluginInstances)
+          .withActiveModSelector(activeModSelector)
+          .withCssRenamingMap(cssRenamingMap)
+          .withXidRenamingMap(xidRenamingMap)
+          .withMessageBundle(msgBundle)
+          .withDebugSoyTemplateInfo(debugSoyTemplateInfo)
+          .withLogger(logger)
+          .withTemplateRenderListener(templateRenderListener);
     }
   }
 }
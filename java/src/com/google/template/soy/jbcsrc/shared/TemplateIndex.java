@@ -0,0 +1,179 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.jbcsrc.shared;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.base.CharMatcher;
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import com.google.errorprone.annotations.Immutable;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * An index of the templates in a jar of precompiled templates, which the compiler writes to {@link
+ * Names#META_INF_TEMPLATE_INDEX_PATH}.
+ *
+ * <p>Each line of the index describes one template: its name and the class that defines it, and
+ * for the implementations of deltemplates and modifiable templates the deltemplate metadata that is
+ * also in their {@link TemplateMetadata} annotation. With the index {@link CompiledTemplates} can
+ * build its deltemplate selector without loading the class of every deltemplate, and knows all the
+ * templates for {@link CompiledTemplates#loadTemplates}.
+ */
+@Immutable
+public final class TemplateIndex {
+  public static final TemplateIndex EMPTY = new TemplateIndex(ImmutableMap.of());
+
+  private static final char SEPARATOR = '\t';
+  private static final Joiner FIELD_JOINER = Joiner.on(SEPARATOR);
+  private static final Splitter FIELD_SPLITTER = Splitter.on(SEPARATOR);
+  private static final CharMatcher RESERVED = CharMatcher.anyOf("\t\r\n");
+
+  /** A template in the index. */
+  @Immutable
+  static final class Entry {
+    final String templateName;
+    final String className;
+    // Only present for the implementations of deltemplates and modifiable templates.
+    @Nullable final String delTemplateName;
+    final String modName;
+    final String variant;
+
+    private Entry(
+        String templateName,
+        String className,
+        @Nullable String delTemplateName,
+        String modName,
+        String variant) {
+      this.templateName = templateName;
+      this.className = className;
+      this.delTemplateName = delTemplateName;
+      this.modName = modName;
+      this.variant = variant;
+    }
+
+    boolean hasDelTemplateMetadata() {
+      return delTemplateName != null;
+    }
+
+    private String serialize() {
+      return delTemplateName == null
+          ? FIELD_JOINER.join(templateName, className)
+          : FIELD_JOINER.join(templateName, className, delTemplateName, modName, variant);
+    }
+  }
+
+  /**
+   * Parses the lines of one or more indexes. If several lines describe the same template the first
+   * one is used, just like the classloader uses the first class with a given name.
+   *
+   * @throws IllegalArgumentException If a line is malformed.
+   */
+  public static TemplateIndex parse(Iterable<String> lines) {
+    Map<String, Entry> entries = new LinkedHashMap<>();
+    for (String line : lines) {
+      if (line.isEmpty()) {
+        continue;
+      }
+      List<String> fields = FIELD_SPLITTER.splitToList(line);
+      Entry entry;
+      if (fields.size() == 2) {
+        entry = new Entry(fields.get(0), fields.get(1), null, "", "");
+      } else if (fields.size() == 5) {
+        entry =
+            new Entry(fields.get(0), fields.get(1), fields.get(2), fields.get(3), fields.get(4));
+      } else {
+        throw new IllegalArgumentException("Malformed template index line: " + line);
+      }
+      entries.putIfAbsent(entry.templateName, entry);
+    }
+    return new TemplateIndex(ImmutableMap.copyOf(entries));
+  }
+
+  /** Builds the index of the templates written to a jar. */
+  public static final class Builder {
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+
+    /** Adds a template that isn't the implementation of a deltemplate or modifiable template. */
+    @CanIgnoreReturnValue
+    public Builder addTemplate(String templateName) {
+      return add(
+          new Entry(
+              templateName, Names.javaClassNameFromSoyTemplateName(templateName), null, "", ""));
+    }
+
+    /**
+     * Adds the implementation of a deltemplate or modifiable template, with the deltemplate
+     * metadata from its {@link TemplateMetadata} annotation.
+     */
+    @CanIgnoreReturnValue
+    public Builder addDelTemplate(
+        String templateName, String delTemplateName, String modName, String variant) {
+      String className = Names.javaClassNameFromSoyTemplateName(templateName);
+      if (RESERVED.matchesAnyOf(delTemplateName)
+          || RESERVED.matchesAnyOf(modName)
+          || RESERVED.matchesAnyOf(variant)) {
+        // Can't be written on a line, the class is loaded to read the annotation instead.
+        return add(new Entry(templateName, className, null, "", ""));
+      }
+      return add(new Entry(templateName, className, delTemplateName, modName, variant));
+    }
+
+    @CanIgnoreReturnValue
+    private Builder add(Entry entry) {
+      Entry previous = entries.put(entry.templateName, entry);
+      checkArgument(previous == null, "Found multiple templates named %s", entry.templateName);
+      return this;
+    }
+
+    public TemplateIndex build() {
+      return new TemplateIndex(ImmutableMap.copyOf(entries));
+    }
+  }
+
+  private final ImmutableMap<String, Entry> entries;
+
+  private TemplateIndex(ImmutableMap<String, Entry> entries) {
+    this.entries = entries;
+  }
+
+  /** Returns the names of all the templates in the index. */
+  public ImmutableSet<String> templateNames() {
+    return entries.keySet();
+  }
+
+  /** Returns the entry for the given template, or {@code null} if it isn't in the index. */
+  @Nullable
+  Entry get(String templateName) {
+    return entries.get(templateName);
+  }
+
+  /** Returns the index in the format read by {@link #parse}, one template per line. */
+  public String serialize() {
+    StringBuilder sb = new StringBuilder();
+    for (Entry entry : entries.values()) {
+      sb.append(entry.serialize()).append('\n');
+    }
+    return sb.toString();
+  }
+}
@@ -0,0 +1,273 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.jbcsrc.shared;
+
+import static java.lang.invoke.MethodHandles.dropArguments;
+import static java.lang.invoke.MethodHandles.filterReturnValue;
+import static java.lang.invoke.MethodHandles.foldArguments;
+import static java.lang.invoke.MethodHandles.guardWithTest;
+import static java.lang.invoke.MethodHandles.insertArguments;
+import static java.lang.invoke.MethodHandles.tryFinally;
+import static java.lang.invoke.MethodType.methodType;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.MapMaker;
+import com.google.errorprone.annotations.Immutable;
+import com.google.template.soy.data.LoggingAdvisingAppendable;
+import com.google.template.soy.data.SoyRecord;
+import com.google.template.soy.jbcsrc.api.RenderResult;
+import com.google.template.soy.jbcsrc.api.TemplateRenderListener;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.SwitchPoint;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * Reports template calls to the {@link TemplateRenderListener} of the {@link RenderContext}.
+ *
+ * <p>The call sites of compiled templates are linked through a {@link SwitchPoint} per class loader
+ * that remains valid until a context with a listener is first created for templates of that class
+ * loader. Until then the JVM compiles the call sites to direct calls, and afterwards they test the
+ * context for a listener before each call. Templates loaded by other class loaders are unaffected.
+ */
+public final class TemplateInstrumentation {
+  /**
+   * The switch points of the class loaders that templates were linked in. The switch points don't
+   * reference their class loader, so weak keys let unused class loaders be collected.
+   */
+  private static final Map<ClassLoader, SwitchPoint> UNINSTRUMENTED =
+      new MapMaker().weakKeys().makeMap();
+
+  /** The switch point of templates loaded by the bootstrap class loader. */
+  private static final SwitchPoint BOOTSTRAP_UNINSTRUMENTED = new SwitchPoint();
+
+  private static final MethodHandle HAS_LISTENER;
+  private static final MethodHandle BEGIN_MEASUREMENT;
+  private static final MethodHandle END_MEASUREMENT;
+  private static final MethodHandle INSTRUMENT_TEMPLATE;
+
+  static {
+    MethodHandles.Lookup lookup = MethodHandles.lookup();
+    try {
+      HAS_LISTENER =
+          lookup.findVirtual(
+              RenderContext.class, "hasTemplateRenderListener", methodType(boolean.class));
+      BEGIN_MEASUREMENT =
+          lookup.findConstructor(
+              Measurement.class,
+              methodType(
+                  void.class, String.class, LoggingAdvisingAppendable.class, RenderContext.class));
+      END_MEASUREMENT =
+          lookup.findStatic(
+              TemplateInstrumentation.class,
+              "endMeasurement",
+              methodType(
+                  RenderResult.class, Throwable.class, RenderResult.class, Measurement.class));
+      INSTRUMENT_TEMPLATE =
+          lookup.findStatic(
+              TemplateInstrumentation.class,
+              "instrument",
+              methodType(CompiledTemplate.class, CompiledTemplate.class, String.class));
+    } catch (ReflectiveOperationException e) {
+      throw new LinkageError(e.getMessage(), e);
+    }
+  }
+
+  private TemplateInstrumentation() {}
+
+  @VisibleForTesting
+  static SwitchPoint switchPoint(@Nullable ClassLoader loader) {
+    return loader == null
+        ? BOOTSTRAP_UNINSTRUMENTED
+        : UNINSTRUMENTED.computeIfAbsent(loader, l -> new SwitchPoint());
+  }
+
+  /**
+   * Switches the call sites of templates loaded by {@code loader} and its parents to check for a
+   * listener. This cannot be undone.
+   */
+  static void enable(@Nullable ClassLoader loader) {
+    List<SwitchPoint> switchPoints = new ArrayList<>();
+    while (true) {
+      SwitchPoint switchPoint = switchPoint(loader);
+      if (!switchPoint.hasBeenInvalidated()) {
+        switchPoints.add(switchPoint);
+      }
+      if (loader == null) {
+        break;
+      }
+      loader = loader.getParent();
+    }
+    if (!switchPoints.isEmpty()) {
+      SwitchPoint.invalidateAll(switchPoints.toArray(new SwitchPoint[0]));
+    }
+  }
+
+  /**
+   * Instruments a handle that renders a template.
+   *
+   * @param loader The class loader of the call site.
+   * @param target A handle whose last two parameters are the {@link LoggingAdvisingAppendable} and
+   *     the {@link RenderContext} and that returns a {@link RenderResult}.
+   * @param templateName The name of the template that {@code target} renders.
+   */
+  static MethodHandle instrumentCall(
+      @Nullable ClassLoader loader, MethodHandle target, String templateName) {
+    MethodType type = target.type();
+    int arity = type.parameterCount();
+    // (appendable, context) -> Measurement, taking all the arguments of the target.
+    MethodHandle begin =
+        dropArguments(
+            insertArguments(BEGIN_MEASUREMENT, 0, templateName),
+            0,
+            type.parameterList().subList(0, arity - 2));
+    // (Measurement, args...) -> RenderResult, ending the measurement however the call finishes.
+    MethodHandle body = tryFinally(dropArguments(target, 0, Measurement.class), END_MEASUREMENT);
+    return whenInstrumented(loader, target, foldArguments(body, begin));
+  }
+
+  /**
+   * Instruments a handle that looks up a template.
+   *
+   * @param loader The class loader of the call site.
+   * @param lookup A handle that takes a {@link RenderContext} and returns a {@link
+   *     CompiledTemplate}.
+   * @param templateName The name of the template that {@code lookup} returns.
+   */
+  static MethodHandle instrumentLookup(
+      @Nullable ClassLoader loader, MethodHandle lookup, String templateName) {
+    return whenInstrumented(loader, lookup, filterReturnValue(lookup, instrumenter(templateName)));
+  }
+
+  /** Returns a handle that {@linkplain #instrument instruments} a {@link CompiledTemplate}. */
+  static MethodHandle instrumenter(String templateName) {
+    return insertArguments(INSTRUMENT_TEMPLATE, 1, templateName);
+  }
+
+  /**
+   * Returns a handle that invokes {@code instrumented} if the {@link RenderContext} passed as the
+   * last argument has a listener, and {@code target} otherwise.
+   *
+   * @param loader The class loader of the call site.
+   */
+  static MethodHandle whenInstrumented(
+      @Nullable ClassLoader loader, MethodHandle target, MethodHandle instrumented) {
+    MethodType type = target.type();
+    MethodHandle hasListener =
+        dropArguments(HAS_LISTENER, 0, type.parameterList().subList(0, type.parameterCount() - 1));
+    return switchPoint(loader)
+        .guardWithTest(target, guardWithTest(hasListener, instrumented, target));
+  }
+
+  /** Returns a template that reports every call of {@code template} to the context's listener. */
+  public static CompiledTemplate instrument(CompiledTemplate template, String templateName) {
+    if (template instanceof InstrumentedTemplate) {
+      return template;
+    }
+    return new InstrumentedTemplate(template, templateName);
+  }
+
+  @Immutable
+  private static final class InstrumentedTemplate implements CompiledTemplate {
+    private final CompiledTemplate delegate;
+    private final String templateName;
+
+    InstrumentedTemplate(CompiledTemplate delegate, String templateName) {
+      this.delegate = delegate;
+      this.templateName = templateName;
+    }
+
+    @Override
+    public RenderResult render(
+        SoyRecord params,
+        SoyRecord ij,
+        LoggingAdvisingAppendable appendable,
+        RenderContext context)
+        throws IOException {
+      if (!context.hasTemplateRenderListener()) {
+        return delegate.render(params, ij, appendable, context);
+      }
+      Measurement measurement = new Measurement(templateName, appendable, context);
+      RenderResult result = null;
+      try {
+        result = delegate.render(params, ij, appendable, context);
+        return result;
+      } finally {
+        measurement.end(result);
+      }
+    }
+  }
+
+  /**
+   * Ends the measurement of an instrumented call.
+   *
+   * @param t The exception thrown by the call, which is rethrown after this returns, or {@code
+   *     null}.
+   * @param result The result of the call, or {@code null} if it threw an exception.
+   */
+  private static RenderResult endMeasurement(
+      @Nullable Throwable t, @Nullable RenderResult result, Measurement measurement) {
+    measurement.end(t == null ? result : null);
+    return result;
+  }
+
+  /** The state of a template call between the time it is entered and the time it is exited. */
+  private static final class Measurement {
+    final String templateName;
+    final LoggingAdvisingAppendable appendable;
+    final RenderContext context;
+    final TemplateRenderListener listener;
+    final long outerCalleeNanos;
+    final long startBytes;
+    final long startNanos;
+
+    Measurement(String templateName, LoggingAdvisingAppendable appendable, RenderContext context) {
+      this.templateName = templateName;
+      this.appendable = appendable;
+      this.context = context;
+      this.listener = context.getTemplateRenderListener();
+      listener.templateEntered(templateName);
+      this.outerCalleeNanos = context.calleeNanos;
+      context.calleeNanos = 0;
+      this.startBytes = context.getOutputBytes();
+      this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Reports the call to the listener.
+     *
+     * @param result The result of the call, or {@code null} if it threw an exception.
+     */
+    void end(RenderResult result) {
+      long elapsedNanos = System.nanoTime() - startNanos;
+      long selfNanos = elapsedNanos - context.calleeNanos;
+      context.calleeNanos = outerCalleeNanos + elapsedNanos;
+      listener.templateExited(
+          templateName,
+          elapsedNanos,
+          selfNanos,
+          context.getOutputBytes() - startBytes,
+          result != null && !result.isDone(),
+          appendable instanceof LoggingAdvisingAppendable.BufferingAppendable);
+    }
+  }
+}
@@ -23,8 +23,10 @@ import com.google.common.io.Files;
 import com.google.common.io.Resources;
 import com.google.errorprone.annotations.Immutable;
 import com.google.template.soy.error.ErrorReporter;
+import com.google.template.soy.msgs.restricted.MappedSoyMsgBundleImpl;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.net.URL;
 import java.util.regex.Pattern;
 
@@ -150,6 +152,37 @@ public class SoyMsgBundleHandler {
     }
   }
 
+  /**
+   * Memory-maps a compiled messages file written by {@link #writeCompiledMsgs} and creates a
+   * SoyMsgBundle backed by it.
+   *
+   * <p>Unlike {@link #createFromFile}, this does not parse anything up front: messages are decoded
+   * when they are looked up, so the cost of loading a bundle does not grow with its size.
+   *
+   * @param inputFile The compiled messages file to map.
+   * @return The message bundle backed by the file.
+   * @throws IOException If there's an error while accessing the file.
+   * @throws SoyMsgException If the file is not a compiled messages file.
+   */
+  public SoyMsgBundle createFromCompiledFile(File inputFile) throws IOException {
+    return MappedSoyMsgBundleImpl.map(inputFile.toPath());
+  }
+
+  /**
+   * Writes a message bundle, typically one created by {@link #createFromFile}, in the compiled
+   * binary format read by {@link #createFromCompiledFile}. Only the information needed to render
+   * the messages is kept.
+   *
+   * @param msgBundle The message bundle to write.
+   * @param output The output to write to.
+   * @throws IOException If there's an error writing the messages.
+   */
+  public void writeCompiledMsgs(SoyMsgBundle msgBundle, ByteSink output) throws IOException {
+    try (OutputStream out = output.openBufferedStream()) {
+      MappedSoyMsgBundleImpl.write(msgBundle, out);
+    }
+  }
+
   // -----------------------------------------------------------------------------------------------
   // Soy internal methods.
 
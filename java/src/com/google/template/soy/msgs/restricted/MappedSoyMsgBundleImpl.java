@@ -0,0 +1,484 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.msgs.restricted;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableList;
+import com.google.errorprone.annotations.Immutable;
+import com.google.template.soy.internal.i18n.BidiGlobalDir;
+import com.google.template.soy.msgs.SoyMsgBundle;
+import com.google.template.soy.msgs.SoyMsgException;
+import com.ibm.icu.util.ULocale;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import javax.annotation.Nullable;
+
+/**
+ * A render-only message bundle that reads its messages directly out of a precompiled binary file.
+ *
+ * <p>Unlike {@link RenderOnlySoyMsgBundleImpl}, nothing is decoded up front: the sorted message
+ * ids and the offsets of each message's parts stay in the (usually memory-mapped) buffer, and the
+ * {@link SoyMsgPart}s of a message are only decoded the first time it is looked up. Loading a
+ * bundle only allocates one empty reference per message, and only the messages that are actually
+ * rendered take up heap space.
+ *
+ * <p>Bundles are written at build time by {@link #write} and loaded with {@link #map} or {@link
+ * #fromBuffer}. The format is:
+ *
+ * <pre>
+ *   int magic, int version
+ *   string localeString
+ *   int numMsgs
+ *   long[numMsgs] ids (sorted)
+ *   int[numMsgs + 1] offsets of each message's parts, relative to the start of the parts section
+ *   parts section: for each message, int numParts followed by each part
+ * </pre>
+ *
+ * <p>All values are big-endian; strings are an int byte length (-1 for null) followed by UTF-8.
+ */
+@Immutable
+public final class MappedSoyMsgBundleImpl extends SoyMsgBundle {
+
+  private static final int MAGIC = 0x534f594d; // "SOYM"
+  private static final int VERSION = 1;
+
+  // Tags identifying each kind of part in the parts section.
+  private static final byte RAW_TEXT = 0;
+  private static final byte PLACEHOLDER = 1;
+  private static final byte PLURAL = 2;
+  private static final byte SELECT = 3;
+  private static final byte PLURAL_REMAINDER = 4;
+
+  private static final SoyMsgPluralCaseSpec.Type[] CASE_TYPES =
+      SoyMsgPluralCaseSpec.Type.values();
+
+  /**
+   * Writes the messages of the given bundle in the compiled format.
+   *
+   * @param bundle The bundle to write. Message descriptions and other metadata that is not needed
+   *     for rendering are dropped.
+   * @param output The stream to write to. It is not closed.
+   */
+  public static void write(SoyMsgBundle bundle, OutputStream output) throws IOException {
+    ImmutableList<SoyMsg> msgs =
+        ImmutableList.sortedCopyOf(Comparator.comparingLong(SoyMsg::getId), bundle);
+
+    ByteArrayOutputStream partsBytes = new ByteArrayOutputStream();
+    DataOutputStream parts = new DataOutputStream(partsBytes);
+    int[] offsets = new int[msgs.size() + 1];
+    for (int i = 0; i < msgs.size(); i++) {
+      SoyMsg msg = msgs.get(i);
+      checkArgument(
+          i == 0 || msgs.get(i - 1).getId() != msg.getId(),
+          "Duplicate message id %s",
+          msg.getId());
+      offsets[i] = parts.size();
+      writeParts(parts, msg.getParts());
+    }
+    offsets[msgs.size()] = parts.size();
+    parts.flush();
+
+    DataOutputStream out = new DataOutputStream(output);
+    out.writeInt(MAGIC);
+    out.writeInt(VERSION);
+    writeString(out, bundle.getLocaleString());
+    out.writeInt(msgs.size());
+    for (SoyMsg msg : msgs) {
+      out.writeLong(msg.getId());
+    }
+    for (int offset : offsets) {
+      out.writeInt(offset);
+    }
+    partsBytes.writeTo(out);
+    out.flush();
+  }
+
+  private static void writeParts(DataOutputStream out, ImmutableList<SoyMsgPart> parts)
+      throws IOException {
+    out.writeInt(parts.size());
+    for (SoyMsgPart part : parts) {
+      if (part instanceof SoyMsgRawTextPart) {
+        out.writeByte(RAW_TEXT);
+        writeString(out, ((SoyMsgRawTextPart) part).getRawText());
+      } else if (part instanceof SoyMsgPlaceholderPart) {
+        SoyMsgPlaceholderPart placeholder = (SoyMsgPlaceholderPart) part;
+        out.writeByte(PLACEHOLDER);
+        writeString(out, placeholder.getPlaceholderName());
+        writeString(out, placeholder.getPlaceholderExample().orElse(null));
+      } else if (part instanceof SoyMsgPluralPart) {
+        SoyMsgPluralPart plural = (SoyMsgPluralPart) part;
+        out.writeByte(PLURAL);
+        writeString(out, plural.getPluralVarName());
+        out.writeInt(plural.getOffset());
+        out.writeInt(plural.getCases().size());
+        for (SoyMsgPart.Case<SoyMsgPluralCaseSpec> pluralCase : plural.getCases()) {
+          SoyMsgPluralCaseSpec spec = pluralCase.spec();
+          out.writeByte(spec.getType().ordinal());
+          if (spec.getType() == SoyMsgPluralCaseSpec.Type.EXPLICIT) {
+            out.writeLong(spec.getExplicitValue());
+          }
+          writeParts(out, pluralCase.parts());
+        }
+      } else if (part instanceof SoyMsgSelectPart) {
+        SoyMsgSelectPart select = (SoyMsgSelectPart) part;
+        out.writeByte(SELECT);
+        writeString(out, select.getSelectVarName());
+        out.writeInt(select.getCases().size());
+        for (SoyMsgPart.Case<String> selectCase : select.getCases()) {
+          writeString(out, selectCase.spec());
+          writeParts(out, selectCase.parts());
+        }
+      } else if (part instanceof SoyMsgPluralRemainderPart) {
+        out.writeByte(PLURAL_REMAINDER);
+        writeString(out, ((SoyMsgPluralRemainderPart) part).getPluralVarName());
+      } else {
+        throw new IllegalArgumentException("Unexpected message part: " + part.getClass());
+      }
+    }
+  }
+
+  private static void writeString(DataOutputStream out, @Nullable String value)
+      throws IOException {
+    if (value == null) {
+      out.writeInt(-1);
+      return;
+    }
+    byte[] bytes = value.getBytes(UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  /**
+   * Memory-maps a compiled bundle file. The mapping stays valid after the file channel is closed,
+   * and is released when the bundle is garbage collected.
+   *
+   * @throws SoyMsgException If the file is not a compiled message bundle.
+   */
+  public static MappedSoyMsgBundleImpl map(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      return fromBuffer(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    } catch (SoyMsgException sme) {
+      sme.setFileOrResourceName(file.toString());
+      throw sme;
+    }
+  }
+
+  /**
+   * Creates a bundle backed by the given buffer, which must hold a compiled bundle starting at its
+   * current position. The buffer must not be modified afterwards.
+   *
+   * @throws SoyMsgException If the buffer does not hold a compiled message bundle.
+   */
+  public static MappedSoyMsgBundleImpl fromBuffer(ByteBuffer buffer) {
+    ByteBuffer data = buffer.slice();
+    try {
+      if (data.getInt() != MAGIC) {
+        throw new SoyMsgException("Not a compiled Soy message bundle.");
+      }
+      int version = data.getInt();
+      if (version != VERSION) {
+        throw new SoyMsgException("Unsupported compiled message bundle version " + version + ".");
+      }
+      String localeString = readString(data);
+      int numMsgs = data.getInt();
+      // Each message takes at least 12 bytes (its id and offset), so this also rules out overflow.
+      if (numMsgs < 0 || numMsgs > data.remaining() / (Long.BYTES + Integer.BYTES)) {
+        throw new SoyMsgException("Truncated compiled message bundle.");
+      }
+      int idsStart = data.position();
+      int offsetsStart = idsStart + numMsgs * Long.BYTES;
+      int partsStart = offsetsStart + (numMsgs + 1) * Integer.BYTES;
+      if (partsStart > data.limit()
+          || (long) partsStart + data.getInt(offsetsStart + numMsgs * Integer.BYTES)
+              > data.limit()) {
+        throw new SoyMsgException("Truncated compiled message bundle.");
+      }
+      return new MappedSoyMsgBundleImpl(
+          localeString, data, numMsgs, idsStart, offsetsStart, partsStart);
+    } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+      throw new SoyMsgException("Truncated compiled message bundle.", e);
+    }
+  }
+
+  /** The language/locale string of this bundle's messages. */
+  private final String localeString;
+
+  private final ULocale locale;
+  private final boolean isRtl;
+
+  /**
+   * The compiled bundle. Only absolute reads are performed on it, so it can be shared between
+   * threads; decoding works on duplicates.
+   */
+  @SuppressWarnings("Immutable")
+  private final ByteBuffer data;
+
+  private final int numMsgs;
+
+  /** Byte offset of the sorted message ids in {@link #data}. */
+  private final int idsStart;
+
+  /** Byte offset of the part offsets in {@link #data}. */
+  private final int offsetsStart;
+
+  /** Byte offset of the parts section in {@link #data}. */
+  private final int partsStart;
+
+  /**
+   * The decoded parts of each message, by index, or null if the message hasn't been looked up yet.
+   * Parts are immutable, so racing lookups can each decode and store them.
+   */
+  @SuppressWarnings("Immutable") // only caches values decoded from data
+  private final AtomicReferenceArray<ImmutableList<SoyMsgPart>> decodedParts;
+
+  private MappedSoyMsgBundleImpl(
+      @Nullable String localeString,
+      ByteBuffer data,
+      int numMsgs,
+      int idsStart,
+      int offsetsStart,
+      int partsStart) {
+    this.localeString = localeString;
+    this.locale = localeString == null ? null : new ULocale(localeString);
+    this.isRtl = BidiGlobalDir.forStaticLocale(localeString) == BidiGlobalDir.RTL;
+    this.data = data;
+    this.numMsgs = numMsgs;
+    this.idsStart = idsStart;
+    this.offsetsStart = offsetsStart;
+    this.partsStart = partsStart;
+    this.decodedParts = new AtomicReferenceArray<>(numMsgs);
+  }
+
+  @Override
+  public String getLocaleString() {
+    return localeString;
+  }
+
+  @Override
+  @Nullable
+  public ULocale getLocale() {
+    return locale;
+  }
+
+  @Override
+  public boolean isRtl() {
+    return isRtl;
+  }
+
+  @Override
+  public SoyMsg getMsg(long msgId) {
+    int index = binarySearch(msgId);
+    return index >= 0 ? resurrectMsg(msgId, partsForIndex(index)) : null;
+  }
+
+  @Override
+  public ImmutableList<SoyMsgPart> getMsgParts(long msgId) {
+    int index = binarySearch(msgId);
+    return index >= 0 ? partsForIndex(index) : ImmutableList.of();
+  }
+
+  @Override
+  public int getNumMsgs() {
+    return numMsgs;
+  }
+
+  @Override
+  public Iterator<SoyMsg> iterator() {
+    return new Iterator<>() {
+      int index = 0;
+
+      @Override
+      public boolean hasNext() {
+        return index < numMsgs;
+      }
+
+      @Override
+      public SoyMsg next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        SoyMsg result = resurrectMsg(idAt(index), partsForIndex(index));
+        index++;
+        return result;
+      }
+    };
+  }
+
+  /** Brings a message back to life from only its ID and parts. */
+  private SoyMsg resurrectMsg(long id, ImmutableList<SoyMsgPart> parts) {
+    return SoyMsg.builder()
+        .setId(id)
+        .setLocaleString(localeString)
+        .setIsPlrselMsg(MsgPartUtils.hasPlrselPart(parts))
+        .setParts(parts)
+        .build();
+  }
+
+  private long idAt(int index) {
+    return data.getLong(idsStart + index * Long.BYTES);
+  }
+
+  /** Same contract as {@link java.util.Arrays#binarySearch(long[], long)}, over the mapped ids. */
+  private int binarySearch(long key) {
+    int low = 0;
+    int high = numMsgs - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      long midVal = idAt(mid);
+      if (midVal < key) {
+        low = mid + 1;
+      } else if (midVal > key) {
+        high = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -(low + 1);
+  }
+
+  private ImmutableList<SoyMsgPart> partsForIndex(int index) {
+    ImmutableList<SoyMsgPart> parts = decodedParts.get(index);
+    if (parts == null) {
+      parts = decodeParts(index);
+      decodedParts.set(index, parts);
+    }
+    return parts;
+  }
+
+  private ImmutableList<SoyMsgPart> decodeParts(int index) {
+    try {
+      ByteBuffer in = data.duplicate();
+      in.position(partsStart + data.getInt(offsetsStart + index * Integer.BYTES));
+      return readParts(in);
+    } catch (BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException e) {
+      throw new SoyMsgException("Corrupt compiled message bundle: message " + idAt(index), e);
+    }
+  }
+
+  private static ImmutableList<SoyMsgPart> readParts(ByteBuffer in) {
+    int numParts = readCount(in);
+    ImmutableList.Builder<SoyMsgPart> parts = ImmutableList.builderWithExpectedSize(numParts);
+    for (int i = 0; i < numParts; i++) {
+      parts.add(readPart(in));
+    }
+    return parts.build();
+  }
+
+  private static SoyMsgPart readPart(ByteBuffer in) {
+    byte tag = in.get();
+    switch (tag) {
+      case RAW_TEXT:
+        return SoyMsgRawTextPart.of(readRequiredString(in));
+      case PLACEHOLDER:
+        {
+          String name = readRequiredString(in);
+          return new SoyMsgPlaceholderPart(name, Optional.ofNullable(readString(in)));
+        }
+      case PLURAL:
+        {
+          String varName = readRequiredString(in);
+          int offset = in.getInt();
+          int numCases = readCount(in);
+          ImmutableList.Builder<SoyMsgPart.Case<SoyMsgPluralCaseSpec>> cases =
+              ImmutableList.builderWithExpectedSize(numCases);
+          for (int i = 0; i < numCases; i++) {
+            byte ordinal = in.get();
+            if (ordinal < 0 || ordinal >= CASE_TYPES.length) {
+              throw new SoyMsgException(
+                  "Corrupt compiled message bundle: unknown plural case " + ordinal);
+            }
+            SoyMsgPluralCaseSpec.Type type = CASE_TYPES[ordinal];
+            SoyMsgPluralCaseSpec spec =
+                type == SoyMsgPluralCaseSpec.Type.EXPLICIT
+                    ? new SoyMsgPluralCaseSpec(in.getLong())
+                    : SoyMsgPluralCaseSpec.forType(type);
+            cases.add(SoyMsgPart.Case.create(spec, readParts(in)));
+          }
+          return new SoyMsgPluralPart(varName, offset, cases.build());
+        }
+      case SELECT:
+        {
+          String varName = readRequiredString(in);
+          int numCases = readCount(in);
+          ImmutableList.Builder<SoyMsgPart.Case<String>> cases =
+              ImmutableList.builderWithExpectedSize(numCases);
+          for (int i = 0; i < numCases; i++) {
+            String value = readString(in);
+            cases.add(SoyMsgPart.Case.create(value, readParts(in)));
+          }
+          return new SoyMsgSelectPart(varName, cases.build());
+        }
+      case PLURAL_REMAINDER:
+        return new SoyMsgPluralRemainderPart(readRequiredString(in));
+      default:
+        throw new SoyMsgException("Corrupt compiled message bundle: unknown part tag " + tag);
+    }
+  }
+
+  /** Reads the number of elements of a list, each of which takes at least one byte. */
+  private static int readCount(ByteBuffer in) {
+    int count = in.getInt();
+    if (count < 0 || count > in.remaining()) {
+      throw new SoyMsgException("Corrupt compiled message bundle: bad count " + count);
+    }
+    return count;
+  }
+
+  /** Reads a string that was written as non-null, failing if the bundle says otherwise. */
+  private static String readRequiredString(ByteBuffer in) {
+    String value = readString(in);
+    if (value == null) {
+      throw new SoyMsgException("Corrupt compiled message bundle: missing string");
+    }
+    return value;
+  }
+
+  @Nullable
+  private static String readString(ByteBuffer in) {
+    int length = in.getInt();
+    if (length == -1) {
+      return null;
+    }
+    if (length < 0 || length > in.remaining()) {
+      throw new SoyMsgException("Corrupt compiled message bundle: bad string length " + length);
+    }
+    String value;
+    if (in.hasArray()) {
+      value = new String(in.array(), in.arrayOffset() + in.position(), length, UTF_8);
+      in.position(in.position() + length);
+    } else {
+      byte[] bytes = new byte[length];
+      in.get(bytes);
+      value = new String(bytes, UTF_8);
+    }
+    return value;
+  }
+}
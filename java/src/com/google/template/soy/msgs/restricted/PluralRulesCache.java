@@ -0,0 +1,78 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.msgs.restricted;
+
+import com.ibm.icu.text.PluralRules;
+import com.ibm.icu.util.ULocale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The plural rules of a locale, with the plural category of small non-negative integers computed
+ * ahead of time.
+ *
+ * <p>{@link PluralRules#select(double)} has to work out the visible fraction digits of its
+ * argument, which is much slower than an array lookup. Plural values are almost always small
+ * counts, so those are looked up in a table and only other values go to ICU.
+ */
+final class PluralRulesCache {
+  /** The integers below this have their category computed ahead of time. */
+  private static final int SMALL_INTEGER_LIMIT = 1000;
+
+  /**
+   * The rules of each locale that has been used. This isn't bounded since applications render in a
+   * fixed set of locales, and ICU keeps the rules of every locale itself.
+   */
+  private static final ConcurrentMap<ULocale, PluralRulesCache> forLocale =
+      new ConcurrentHashMap<>();
+
+  /** Returns the rules for the given locale. */
+  static PluralRulesCache forLocale(ULocale locale) {
+    // Plain get first, since this is called for every plural and computeIfAbsent may lock.
+    PluralRulesCache rules = forLocale.get(locale);
+    if (rules == null) {
+      rules = forLocale.computeIfAbsent(locale, PluralRulesCache::new);
+    }
+    return rules;
+  }
+
+  private final PluralRules rules;
+  private final SoyMsgPluralCaseSpec.Type[] smallIntegers;
+
+  private PluralRulesCache(ULocale locale) {
+    this.rules = PluralRules.forLocale(locale);
+    this.smallIntegers = new SoyMsgPluralCaseSpec.Type[SMALL_INTEGER_LIMIT];
+    for (int i = 0; i < SMALL_INTEGER_LIMIT; i++) {
+      smallIntegers[i] = toType(rules.select(i));
+    }
+  }
+
+  /** Returns the plural category of the given number. */
+  SoyMsgPluralCaseSpec.Type select(double number) {
+    if (number >= 0 && number < SMALL_INTEGER_LIMIT) {
+      int integer = (int) number;
+      if (integer == number) {
+        return smallIntegers[integer];
+      }
+    }
+    return toType(rules.select(number));
+  }
+
+  private static SoyMsgPluralCaseSpec.Type toType(String keyword) {
+    return SoyMsgPluralCaseSpec.forType(keyword).getType();
+  }
+}
@@ -20,8 +20,11 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 import com.google.common.base.MoreObjects;
 import com.google.common.collect.ImmutableList;
-import com.ibm.icu.text.PluralRules;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
 import com.ibm.icu.util.ULocale;
+import java.util.EnumMap;
+import java.util.Map;
 import java.util.Objects;
 import javax.annotation.Nullable;
 
@@ -39,6 +42,18 @@ public final class SoyMsgPluralPart extends SoyMsgPart {
   /** The various cases for this plural statement. The default statement has a null key. */
   private final ImmutableList<Case<SoyMsgPluralCaseSpec>> cases;
 
+  /** The cases with an explicit value, in order. */
+  private final ImmutableList<Case<SoyMsgPluralCaseSpec>> explicitCases;
+
+  /** The parts of the first case of each plural category. */
+  private final ImmutableMap<SoyMsgPluralCaseSpec.Type, ImmutableList<SoyMsgPart>> categoryCases;
+
+  /** Whether any case is for a plural category other than 'other'. */
+  private final boolean hasNonExplicitCases;
+
+  /** The parts of the last 'other' case, if any. */
+  @Nullable private final ImmutableList<SoyMsgPart> otherCaseParts;
+
   /**
    * @param pluralVarName The plural variable name.
    * @param offset The offset for this plural statement.
@@ -50,6 +65,29 @@ public final class SoyMsgPluralPart extends SoyMsgPart {
     this.pluralVarName = pluralVarName;
     this.offset = offset;
     this.cases = ImmutableList.copyOf(cases);
+
+    ImmutableList.Builder<Case<SoyMsgPluralCaseSpec>> explicitCases = ImmutableList.builder();
+    Map<SoyMsgPluralCaseSpec.Type, ImmutableList<SoyMsgPart>> categoryCases =
+        new EnumMap<>(SoyMsgPluralCaseSpec.Type.class);
+    boolean hasNonExplicitCases = false;
+    ImmutableList<SoyMsgPart> otherCaseParts = null;
+    for (Case<SoyMsgPluralCaseSpec> case0 : this.cases) {
+      SoyMsgPluralCaseSpec.Type caseType = case0.spec().getType();
+      if (caseType == SoyMsgPluralCaseSpec.Type.EXPLICIT) {
+        explicitCases.add(case0);
+      } else {
+        categoryCases.putIfAbsent(caseType, case0.parts());
+        if (caseType == SoyMsgPluralCaseSpec.Type.OTHER) {
+          otherCaseParts = case0.parts();
+        } else {
+          hasNonExplicitCases = true;
+        }
+      }
+    }
+    this.explicitCases = explicitCases.build();
+    this.categoryCases = Maps.immutableEnumMap(categoryCases);
+    this.hasNonExplicitCases = hasNonExplicitCases;
+    this.otherCaseParts = otherCaseParts;
   }
 
   /** Returns the plural variable name. */
@@ -76,47 +114,19 @@ public final class SoyMsgPluralPart extends SoyMsgPart {
    *     messages, since soy only allows direct specification of explicit or 'other').
    */
   public ImmutableList<SoyMsgPart> lookupCase(double pluralValue, @Nullable ULocale locale) {
-    // TODO(lukes): clean up this method, the control flow is overly complex.  It could be cleaned
-    // up by separating cases into 3 different lists.
-
-    // Handle cases.
-    ImmutableList<SoyMsgPart> caseParts = null;
-
     // Check whether the plural value matches any explicit numeric value.
-    boolean hasNonExplicitCases = false;
-    ImmutableList<SoyMsgPart> otherCaseParts = null;
-    for (Case<SoyMsgPluralCaseSpec> case0 : getCases()) {
-
-      SoyMsgPluralCaseSpec pluralCaseSpec = case0.spec();
-      SoyMsgPluralCaseSpec.Type caseType = pluralCaseSpec.getType();
-      if (caseType == SoyMsgPluralCaseSpec.Type.EXPLICIT) {
-        if (pluralCaseSpec.getExplicitValue() == pluralValue) {
-          caseParts = case0.parts();
-          break;
-        }
-
-      } else if (caseType == SoyMsgPluralCaseSpec.Type.OTHER) {
-        otherCaseParts = case0.parts();
-
-      } else {
-        hasNonExplicitCases = true;
+    for (Case<SoyMsgPluralCaseSpec> case0 : explicitCases) {
+      if (case0.spec().getExplicitValue() == pluralValue) {
+        return case0.parts();
       }
     }
 
-    if (caseParts == null && hasNonExplicitCases) {
+    ImmutableList<SoyMsgPart> caseParts = null;
+    if (hasNonExplicitCases) {
       // Didn't match any numeric value.  Check which plural rule it matches.
-      String pluralKeyword = PluralRules.forLocale(locale).select(pluralValue - offset);
-      SoyMsgPluralCaseSpec.Type correctCaseType =
-          SoyMsgPluralCaseSpec.forType(pluralKeyword).getType();
-
-      // Iterate the cases once again for non-numeric keywords.
-      for (Case<SoyMsgPluralCaseSpec> case0 : getCases()) {
-
-        if (case0.spec().getType() == correctCaseType) {
-          caseParts = case0.parts();
-          break;
-        }
-      }
+      SoyMsgPluralCaseSpec.Type category =
+          PluralRulesCache.forLocale(locale).select(pluralValue - offset);
+      caseParts = categoryCases.get(category);
     }
 
     if (caseParts == null) {
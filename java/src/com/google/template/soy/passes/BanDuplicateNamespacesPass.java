@@ -16,7 +16,6 @@
 package com.google.template.soy.passes;
 
 import static com.google.common.collect.ImmutableSetMultimap.toImmutableSetMultimap;
-import static java.util.Comparator.comparing;
 import static java.util.stream.Collectors.joining;
 
 import com.google.common.collect.ImmutableList;
@@ -27,10 +26,12 @@ import com.google.template.soy.error.ErrorReporter;
 import com.google.template.soy.error.SoyErrorKind;
 import com.google.template.soy.internal.exemptions.NamespaceExemptions;
 import com.google.template.soy.passes.CompilerFileSetPass.Result;
+import com.google.template.soy.soytree.FileMetadata;
 import com.google.template.soy.soytree.FileSetMetadata;
 import com.google.template.soy.soytree.SoyFileNode;
-import com.google.template.soy.soytree.TemplateMetadata;
-import java.util.TreeSet;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.function.Supplier;
 
 /**
@@ -61,12 +62,13 @@ final class BanDuplicateNamespacesPass implements CompilerFileSetPass {
 
   @Override
   public Result run(ImmutableList<SoyFileNode> sourceFiles, IdGenerator nodeIdGen) {
+    // Only template names are needed here, so avoid building the metadata of every template in the
+    // file set.
+    Collection<? extends FileMetadata> allFiles = fileSetTemplateRegistry.get().getAllFiles();
     ImmutableSetMultimap<String, String> namespaceToFiles =
-        fileSetTemplateRegistry.get().getAllTemplates().stream()
-            .collect(
-                toImmutableSetMultimap(
-                    BanDuplicateNamespacesPass::namespace,
-                    t -> t.getSourceLocation().getFilePath().path()));
+        allFiles.stream()
+            .filter(f -> !f.getTemplateFullNames().isEmpty())
+            .collect(toImmutableSetMultimap(FileMetadata::getNamespace, f -> f.getPath().path()));
     for (SoyFileNode sourceFile : sourceFiles) {
       ImmutableSet<String> filePaths = namespaceToFiles.get(sourceFile.getNamespace());
       if (filePaths.size() > 1) {
@@ -88,26 +90,29 @@ final class BanDuplicateNamespacesPass implements CompilerFileSetPass {
     }
 
     // Check for template/namespace collisions by sorting all template names. If a template matches
-    // all or some of a namespace, they will be adjacent in the sorted set.
-    TreeSet<TemplateMetadata> allTemplatesSortedByName =
-        new TreeSet<>(comparing(TemplateMetadata::getTemplateName));
-    allTemplatesSortedByName.addAll(fileSetTemplateRegistry.get().getAllTemplates());
-    TemplateMetadata last = null;
-    for (TemplateMetadata next : allTemplatesSortedByName) {
-      if (last != null && next.getTemplateName().startsWith(last.getTemplateName() + ".")) {
+    // all or some of a namespace, they will be adjacent in the sorted map.
+    TreeMap<String, FileMetadata> allTemplatesSortedByName = new TreeMap<>();
+    for (FileMetadata file : allFiles) {
+      for (String templateName : file.getTemplateFullNames()) {
+        allTemplatesSortedByName.putIfAbsent(templateName, file);
+      }
+    }
+    Map.Entry<String, FileMetadata> last = null;
+    for (Map.Entry<String, FileMetadata> next : allTemplatesSortedByName.entrySet()) {
+      if (last != null && next.getKey().startsWith(last.getKey() + ".")) {
         errorReporter.report(
-            last.getSourceLocation(),
+            last.getValue().getTemplateByFullName(last.getKey()).getSourceLocation(),
             NAMESPACE_COLLISION,
-            last.getTemplateName(),
-            namespace(next),
-            next.getSourceLocation().getFilePath().toString());
+            last.getKey(),
+            namespace(next.getKey()),
+            next.getValue().getPath().toString());
       }
       last = next;
     }
     return Result.CONTINUE;
   }
 
-  private static String namespace(TemplateMetadata meta) {
-    return meta.getTemplateName().substring(0, meta.getTemplateName().lastIndexOf('.'));
+  private static String namespace(String templateName) {
+    return templateName.substring(0, templateName.lastIndexOf('.'));
   }
 }
@@ -29,9 +29,11 @@ import com.google.common.collect.Sets;
 import com.google.errorprone.annotations.CanIgnoreReturnValue;
 import com.google.template.soy.base.SourceFilePath;
 import com.google.template.soy.base.internal.IdGenerator;
+import com.google.template.soy.base.internal.IncrementingIdGenerator;
 import com.google.template.soy.conformance.ValidatedConformanceConfig;
 import com.google.template.soy.css.CssRegistry;
 import com.google.template.soy.error.ErrorReporter;
+import com.google.template.soy.error.ErrorReporter.DeferredReports;
 import com.google.template.soy.passes.CompilerFileSetPass.Result;
 import com.google.template.soy.passes.CompilerFileSetPass.TopologicallyOrdered;
 import com.google.template.soy.plugin.java.MethodChecker;
@@ -41,11 +43,19 @@ import com.google.template.soy.soytree.FileSetMetadata;
 import com.google.template.soy.soytree.SoyFileNode;
 import com.google.template.soy.soytree.SoyFileSetNode;
 import com.google.template.soy.types.SoyTypeRegistry;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Supplier;
 import javax.annotation.Nullable;
 
 /**
@@ -68,8 +78,9 @@ import javax.annotation.Nullable;
  *
  * <p>The reason things have been divided in this way is partially to create consistency and also to
  * enable other compiler features. For example, for in process (server side) compilation we can
- * cache the results of the single file passes to speed up edit-refresh flows. Also, theoretically,
- * we could run the single file passes for each file in parallel.
+ * cache the results of the single file passes to speed up edit-refresh flows. It also allows
+ * running the single file passes for each file in parallel, see {@link
+ * Builder#runFilePassesInParallel}.
  *
  * <p>A note on ordering. There is no real structure to the ordering of the passes beyond what is
  * documented in comments. Many passes do rely on running before/after a different pass (e.g. {@link
@@ -106,17 +117,45 @@ public final class PassManager {
   @VisibleForTesting final ImmutableList<CompilerFilePass> parsePasses;
   @VisibleForTesting final ImmutableList<CompilerFileSetPass> passes;
   private final AccumulatedState accumulatedState;
+  private final ErrorReporter errorReporter;
+
+  /** The pool to run file passes on, or {@code null} if they run serially. */
+  @Nullable private final ForkJoinPool filePassPool;
+
+  /**
+   * Creates new instances of {@link #passes}. Passes aren't thread-safe, so each thread running
+   * file passes in parallel checks out its own instances from {@link #idlePasses}.
+   */
+  private final Supplier<ImmutableList<CompilerFileSetPass>> passFactory;
+
+  private final Queue<ImmutableList<CompilerFileSetPass>> idlePasses =
+      new ConcurrentLinkedQueue<>();
 
   private PassManager(
       ImmutableList<CompilerFilePass> parsePasses,
       ImmutableList<CompilerFileSetPass> passes,
-      AccumulatedState accumulatedState) {
+      AccumulatedState accumulatedState,
+      ErrorReporter errorReporter,
+      @Nullable ForkJoinPool filePassPool,
+      Supplier<ImmutableList<CompilerFileSetPass>> passFactory) {
     this.parsePasses = parsePasses;
     this.passes = passes;
     this.accumulatedState = accumulatedState;
+    this.errorReporter = errorReporter;
+    this.filePassPool = filePassPool;
+    this.passFactory = passFactory;
+    idlePasses.add(passes);
     checkOrdering();
   }
 
+  /**
+   * Returns the pool that file passes run on, if {@link Builder#runFilePassesInParallel} was
+   * configured.
+   */
+  public Optional<ForkJoinPool> getFilePassPool() {
+    return Optional.ofNullable(filePassPool);
+  }
+
   public void runParsePasses(SoyFileNode file, IdGenerator nodeIdGen) {
     for (CompilerFilePass pass : parsePasses) {
       pass.run(file, nodeIdGen);
@@ -135,7 +174,21 @@ public final class PassManager {
 
     ImmutableList<SoyFileNode> sourceFiles = ImmutableList.copyOf(soyTree.getChildren());
     IdGenerator idGenerator = soyTree.getNodeIdGenerator();
-    for (CompilerFileSetPass pass : passes) {
+    boolean parallel =
+        filePassPool != null
+            && sourceFiles.size() > 1
+            && idGenerator instanceof IncrementingIdGenerator;
+    for (int i = 0; i < passes.size(); ) {
+      CompilerFileSetPass pass = passes.get(i);
+      if (parallel && canRunPerFile(pass)) {
+        int end = i + 1;
+        while (end < passes.size() && canRunPerFile(passes.get(end))) {
+          end++;
+        }
+        runFilePassesInParallel(i, end, sourceFiles, (IncrementingIdGenerator) idGenerator);
+        i = end;
+        continue;
+      }
       ImmutableList<SoyFileNode> sourceFilesThisPass = sourceFiles;
       if (pass instanceof TopologicallyOrdered) {
         sourceFilesThisPass = accumulatedState.topologicallyOrderedFiles;
@@ -143,10 +196,63 @@ public final class PassManager {
       if (pass.run(sourceFilesThisPass, idGenerator) == Result.STOP) {
         return Result.STOP;
       }
+      i++;
     }
     return Result.CONTINUE;
   }
 
+  /**
+   * Whether the pass only looks at one file at a time, so that the files can be processed
+   * concurrently. File passes never stop compilation.
+   */
+  private static boolean canRunPerFile(CompilerFileSetPass pass) {
+    return pass instanceof CompilerFilePass && !(pass instanceof TopologicallyOrdered);
+  }
+
+  /**
+   * Runs {@code passes[from, to)} on every file, processing the files concurrently on the {@link
+   * #filePassPool}.
+   *
+   * <p>Each file runs through all the passes before the next pass starts on it, which is equivalent
+   * to running each pass on every file since none of them look at other files. To keep the results
+   * deterministic every file gets its own id generator, and reports are committed in file order.
+   */
+  private void runFilePassesInParallel(
+      int from,
+      int to,
+      ImmutableList<SoyFileNode> sourceFiles,
+      IncrementingIdGenerator idGenerator) {
+    ImmutableList<IncrementingIdGenerator> fileIdGenerators = idGenerator.fork(sourceFiles.size());
+    List<ForkJoinTask<DeferredReports>> tasks = new ArrayList<>(sourceFiles.size());
+    for (int i = 0; i < sourceFiles.size(); i++) {
+      SoyFileNode file = sourceFiles.get(i);
+      IdGenerator fileIdGenerator = fileIdGenerators.get(i);
+      tasks.add(
+          filePassPool.submit(
+              () ->
+                  errorReporter.deferReports(
+                      () -> runFilePasses(from, to, file, fileIdGenerator))));
+    }
+    for (ForkJoinTask<DeferredReports> task : tasks) {
+      task.join().commit();
+    }
+    idGenerator.join(fileIdGenerators);
+  }
+
+  private void runFilePasses(int from, int to, SoyFileNode file, IdGenerator idGenerator) {
+    ImmutableList<CompilerFileSetPass> instances = idlePasses.poll();
+    if (instances == null) {
+      instances = passFactory.get();
+    }
+    try {
+      for (CompilerFileSetPass pass : instances.subList(from, to)) {
+        ((CompilerFilePass) pass).run(file, idGenerator);
+      }
+    } finally {
+      idlePasses.add(instances);
+    }
+  }
+
   @Nullable
   public FileSetMetadata getFinalTemplateRegistry() {
     return accumulatedState.fileSetMetadataFull;
@@ -278,8 +384,8 @@ public final class PassManager {
     private AstRewrites astRewrites = AstRewrites.ALL;
     private final Map<Class<? extends CompilerPass>, PassContinuationRule>
         passContinuationRegistry = Maps.newHashMap();
-    private boolean building;
     private boolean validateJavaMethods = true;
+    @Nullable private ForkJoinPool filePassPool;
     private final AccumulatedState accumulatedState = new AccumulatedState();
 
     @CanIgnoreReturnValue
@@ -456,13 +562,40 @@ public final class PassManager {
       return this;
     }
 
+    /**
+     * Runs the single file passes for different files concurrently on the given pool.
+     *
+     * <p>Errors are still reported in a deterministic order, and node ids are still assigned
+     * deterministically, though not necessarily the same as when running serially. By default
+     * passes run serially on the calling thread.
+     */
+    @CanIgnoreReturnValue
+    public Builder runFilePassesInParallel(ForkJoinPool pool) {
+      this.filePassPool = checkNotNull(pool);
+      return this;
+    }
+
     public PassManager build() {
+      ImmutableList<CompilerFileSetPass> passes = createPasses();
+      return new PassManager(
+          createParsePasses(errorReporter),
+          passes,
+          accumulatedState,
+          errorReporter,
+          filePassPool,
+          this::createPasses);
+    }
+
+    /**
+     * Creates the configured passes. Every call returns new instances of the same passes in the
+     * same order.
+     */
+    private ImmutableList<CompilerFileSetPass> createPasses() {
       // Single file passes
       // These passes perform tree rewriting and all compiler checks that don't require information
       // about callees.
       // Note that we try to run all of the single file passes to report as many errors as possible,
       // meaning that errors reported in earlier passes do not prevent running subsequent passes.
-      building = true;
       // Fileset passes run on all sources files and have access to a partial template registry so
       // they can examine information about dependencies.
       // TODO(b/158474755): Try to simplify this pass structure structure once we have template
@@ -688,22 +821,21 @@ public final class PassManager {
         passes.add(new CombineConsecutiveRawTextNodesPass());
       }
       passes.add(new BanDuplicateNamespacesPass(errorReporter, accumulatedState::registryFull));
-      building = false;
-      if (!passContinuationRegistry.isEmpty()) {
-        throw new IllegalStateException(
-            "The following continuation rules don't match any pass: " + passContinuationRegistry);
-      }
-      return new PassManager(createParsePasses(errorReporter), passes.build(), accumulatedState);
+      return passes.build();
     }
 
     /** Adds the pass as a file set pass. */
     private class PassBuilder {
       ImmutableList.Builder<CompilerFileSetPass> builder = ImmutableList.builder();
+      // Copied so that the passes can be created more than once.
+      final Map<Class<? extends CompilerPass>, PassContinuationRule> continuationRules =
+          new HashMap<>(passContinuationRegistry);
+      boolean building = true;
 
       @CanIgnoreReturnValue
       PassBuilder add(CompilerFileSetPass pass) {
         Class<?> passClass = pass.getClass();
-        PassContinuationRule rule = passContinuationRegistry.remove(passClass);
+        PassContinuationRule rule = continuationRules.remove(passClass);
         if (rule == null) {
           if (building) {
             builder.add(pass);
@@ -723,6 +855,10 @@ public final class PassManager {
       }
 
       ImmutableList<CompilerFileSetPass> build() {
+        if (!continuationRules.isEmpty()) {
+          throw new IllegalStateException(
+              "The following continuation rules don't match any pass: " + continuationRules);
+        }
         return builder.build();
       }
     }
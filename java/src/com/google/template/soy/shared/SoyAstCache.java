@@ -16,12 +16,16 @@
 
 package com.google.template.soy.shared;
 
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.primitives.Ints;
 import com.google.template.soy.base.SourceFilePath;
 import com.google.template.soy.base.internal.SoyFileSupplier.Version;
 import com.google.template.soy.soytree.SoyFileNode;
-import java.util.HashMap;
-import java.util.Map;
-import javax.annotation.concurrent.GuardedBy;
+import com.google.template.soy.soytree.SoyTreeUtils;
+import java.util.concurrent.atomic.LongAdder;
 import javax.inject.Inject;
 
 /**
@@ -32,6 +36,10 @@ import javax.inject.Inject;
  * are a large number of files, most of which aren't changing during the edit/reflect loop. This
  * does not help in a production startup-compilation setup; instead, this will just use more memory.
  *
+ * <p>The cache is safe to share between concurrent compiles. Caches created with {@link
+ * #withMaxNodeCount} are bounded by the total number of AST nodes they hold, which keeps the memory
+ * use of long running processes, like compiler workers, flat.
+ *
  * <p>Please treat the internals as Soy superpackage-private.
  */
 public final class SoyAstCache {
@@ -48,11 +56,36 @@ public final class SoyAstCache {
   }
 
   /** Cache mapping file path to the result of the last parse. */
-  @GuardedBy("this")
-  private final Map<SourceFilePath, VersionedFile> cache = new HashMap<>();
+  private final Cache<SourceFilePath, VersionedFile> cache;
+
+  private final LongAdder hitCount = new LongAdder();
+  private final LongAdder missCount = new LongAdder();
 
+  /** Creates an unbounded cache. */
   @Inject
-  public SoyAstCache() {}
+  public SoyAstCache() {
+    this(CacheBuilder.newBuilder().recordStats().build());
+  }
+
+  private SoyAstCache(Cache<SourceFilePath, VersionedFile> cache) {
+    this.cache = cache;
+  }
+
+  /**
+   * Creates a cache that holds at most {@code maxNodeCount} AST nodes, evicting files that haven't
+   * been used recently once it is full.
+   */
+  public static SoyAstCache withMaxNodeCount(long maxNodeCount) {
+    checkArgument(maxNodeCount > 0, "maxNodeCount must be positive: %s", maxNodeCount);
+    return new SoyAstCache(
+        CacheBuilder.newBuilder()
+            .maximumWeight(maxNodeCount)
+            .weigher(
+                (SourceFilePath fileName, VersionedFile entry) ->
+                    Ints.saturatedCast(SoyTreeUtils.allNodes(entry.file).count()))
+            .recordStats()
+            .build());
+  }
 
   /**
    * Stores a cached version of the AST.
@@ -64,7 +97,7 @@ public final class SoyAstCache {
    * @param file The parsed file. Caution this is stored as is, callers should take care to make
    *     defensive copies.
    */
-  public synchronized void put(SourceFilePath fileName, Version version, SoyFileNode file) {
+  public void put(SourceFilePath fileName, Version version, SoyFileNode file) {
     cache.put(fileName, new VersionedFile(file, version));
   }
 
@@ -78,16 +111,18 @@ public final class SoyAstCache {
    * @return The stored version of the tree. Callers should take care to make copies to avoid
    *     corrupting data in the cache.
    */
-  public synchronized SoyFileNode get(SourceFilePath fileName, Version version) {
-    VersionedFile entry = cache.get(fileName);
+  public SoyFileNode get(SourceFilePath fileName, Version version) {
+    VersionedFile entry = cache.getIfPresent(fileName);
     if (entry != null) {
       if (entry.version.equals(version)) {
+        hitCount.increment();
         return entry.file;
       } else {
-        // Aggressively purge to save memory.
-        cache.remove(fileName);
+        // Aggressively purge to save memory, unless another thread already replaced the entry.
+        cache.asMap().remove(fileName, entry);
       }
     }
+    missCount.increment();
     return null;
   }
 
@@ -95,8 +130,30 @@ public final class SoyAstCache {
    * Evicts a file from the cache, normally this is not necessary but it can be used to limit memory
    * consumption.
    */
-  public synchronized boolean evict(SourceFilePath fileName) {
-    VersionedFile entry = cache.remove(fileName);
-    return entry != null;
+  public boolean evict(SourceFilePath fileName) {
+    return cache.asMap().remove(fileName) != null;
+  }
+
+  /** Returns the number of times {@link #get} found an up to date AST. */
+  public long hitCount() {
+    return hitCount.sum();
+  }
+
+  /** Returns the number of times {@link #get} didn't find an up to date AST. */
+  public long missCount() {
+    return missCount.sum();
+  }
+
+  /**
+   * Returns the number of files that were evicted to keep the cache within its bounds. Files that
+   * were removed because they were out of date or by {@link #evict} aren't counted.
+   */
+  public long evictionCount() {
+    return cache.stats().evictionCount();
+  }
+
+  /** Returns the number of files currently in the cache. */
+  public long size() {
+    return cache.size();
   }
 }
@@ -22,6 +22,7 @@ import static com.google.common.base.Preconditions.checkState;
 
 import com.google.common.collect.ImmutableListMultimap;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableTable;
 import com.google.common.collect.Table;
 import com.google.common.collect.Table.Cell;
@@ -29,6 +30,7 @@ import com.google.common.collect.Tables;
 import com.google.errorprone.annotations.Immutable;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.function.Predicate;
 import javax.annotation.Nullable;
 
@@ -49,24 +51,31 @@ import javax.annotation.Nullable;
 public final class DelTemplateSelector<T> {
   private final ImmutableTable<String, String, Group<T>> nameAndVariantToGroup;
   private final ImmutableListMultimap<String, T> delTemplateNameToValues;
+  private final ImmutableSet<String> modNames;
+  private final int groupCount;
 
   private DelTemplateSelector(Builder<T> builder) {
     ImmutableTable.Builder<String, String, Group<T>> nameAndVariantBuilder =
         ImmutableTable.builder();
     ImmutableListMultimap.Builder<String, T> delTemplateNameToValuesBuilder =
         ImmutableListMultimap.builder();
+    ImmutableSet.Builder<String> modNamesBuilder = ImmutableSet.builder();
+    int groupIndex = 0;
     for (Table.Cell<String, String, Group.Builder<T>> entry :
         builder.nameAndVariantToGroup.cellSet()) {
-      Group<T> group = entry.getValue().build();
+      Group<T> group = entry.getValue().build(groupIndex++);
       nameAndVariantBuilder.put(entry.getRowKey(), entry.getColumnKey(), group);
       String delTemplateName = entry.getRowKey();
       if (group.defaultValue != null) {
         delTemplateNameToValuesBuilder.put(delTemplateName, group.defaultValue);
       }
       delTemplateNameToValuesBuilder.putAll(delTemplateName, group.modToValue.values());
+      modNamesBuilder.addAll(group.modToValue.keySet());
     }
     this.nameAndVariantToGroup = nameAndVariantBuilder.buildOrThrow();
     this.delTemplateNameToValues = delTemplateNameToValuesBuilder.build();
+    this.modNames = modNamesBuilder.build();
+    this.groupCount = groupIndex;
   }
 
   /**
@@ -109,6 +118,85 @@ public final class DelTemplateSelector<T> {
     return null;
   }
 
+  /**
+   * Returns the mods of this selector that {@code activeModSelector} accepts. Mods that no
+   * deltemplate belongs to can't affect selection, so they are never tested.
+   */
+  public ImmutableSet<String> activeMods(Predicate<String> activeModSelector) {
+    ImmutableSet.Builder<String> activeMods = ImmutableSet.builder();
+    for (String mod : modNames) {
+      if (activeModSelector.test(mod)) {
+        activeMods.add(mod);
+      }
+    }
+    return activeMods.build();
+  }
+
+  /**
+   * Returns a view of this selector for a fixed set of active mods that memoizes every selection it
+   * makes, so that repeated lookups of the same deltemplate are an array read.
+   *
+   * <p>The returned object is thread safe and is meant to be created once per distinct set of
+   * active mods, as returned by {@link #activeMods}, and shared across renders.
+   */
+  public Selection<T> forActiveMods(ImmutableSet<String> activeMods) {
+    return new Selection<>(this, activeMods);
+  }
+
+  /**
+   * The deltemplate selections for a fixed set of active mods. See {@link
+   * DelTemplateSelector#forActiveMods}.
+   */
+  public static final class Selection<T> {
+    /** Marks a group whose selection has been computed and found to have no active value. */
+    private static final Object NONE = new Object();
+
+    private final DelTemplateSelector<T> selector;
+    private final Predicate<String> isActive;
+    /** Memoized selections, indexed by {@link Group#index}. {@code null} means not computed yet. */
+    private final AtomicReferenceArray<Object> selections;
+
+    private Selection(DelTemplateSelector<T> selector, ImmutableSet<String> activeMods) {
+      this.selector = selector;
+      this.isActive = checkNotNull(activeMods)::contains;
+      this.selections = new AtomicReferenceArray<>(selector.groupCount);
+    }
+
+    /** Same as {@link DelTemplateSelector#selectTemplate}, for this selection's active mods. */
+    @Nullable
+    public T selectTemplate(String delTemplateName, String variant) {
+      Group<T> group = selector.nameAndVariantToGroup.get(delTemplateName, variant);
+      if (group != null) {
+        T selection = select(group);
+        if (selection != null) {
+          return selection;
+        }
+      }
+      if (!variant.isEmpty()) {
+        // Retry with an empty variant
+        group = selector.nameAndVariantToGroup.get(delTemplateName, "");
+        if (group != null) {
+          return select(group);
+        }
+      }
+      return null;
+    }
+
+    @SuppressWarnings("unchecked") // only values of type T or NONE are stored.
+    @Nullable
+    private T select(Group<T> group) {
+      Object selection = selections.get(group.index);
+      if (selection == null) {
+        // Racing threads compute the same value, so there is no need to coordinate. Conflicting
+        // active mods throw here and are never memoized, so every lookup reports them.
+        T value = group.select(isActive);
+        selection = value == null ? NONE : value;
+        selections.set(group.index, selection);
+      }
+      return selection == NONE ? null : (T) selection;
+    }
+  }
+
   public Builder<T> toBuilder() {
     Builder<T> builder = new Builder<>();
     for (Cell<String, String, Group<T>> cell : nameAndVariantToGroup.cellSet()) {
@@ -154,9 +242,12 @@ public final class DelTemplateSelector<T> {
     final String formattedName;
     @Nullable final T defaultValue;
     final ImmutableMap<String, T> modToValue;
+    /** The position of this group within its selector, used to index {@link Selection}s. */
+    final int index;
 
-    private Group(Builder<T> builder) {
+    private Group(Builder<T> builder, int index) {
       this.formattedName = checkNotNull(builder.formattedName);
+      this.index = index;
       this.defaultValue = builder.defaultValue;
       this.modToValue = ImmutableMap.copyOf(builder.modToValue);
     }
@@ -225,8 +316,8 @@ public final class DelTemplateSelector<T> {
         return modToValue.put(mod, checkNotNull(value));
       }
 
-      Group<T> build() {
-        return new Group<>(this);
+      Group<T> build(int index) {
+        return new Group<>(this, index);
       }
     }
   }
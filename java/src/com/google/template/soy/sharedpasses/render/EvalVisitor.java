@@ -463,8 +463,7 @@ public class EvalVisitor extends AbstractReturningExprNodeVisitor<SoyValue> {
     return accumulateDataAccess((DataAccessNode) dataAccessNode, base);
   }
 
-  private SoyValue visitFieldAccessNode(
-      FieldAccessNode fieldAccess, SoyValue base, boolean nullSafe) {
+  SoyValue visitFieldAccessNode(FieldAccessNode fieldAccess, SoyValue base, boolean nullSafe) {
     // All null safe accesses should've already been converted to NullSafeAccessNodes.
     checkArgument(!fieldAccess.isNullSafe());
 
@@ -547,6 +546,20 @@ public class EvalVisitor extends AbstractReturningExprNodeVisitor<SoyValue> {
   }
 
   private SoyValue visitItemAccessNode(ItemAccessNode itemAccess, SoyValue base, boolean nullSafe) {
+    SoyValue invalidAccess = checkItemAccessBase(itemAccess, base, nullSafe);
+    if (invalidAccess != null) {
+      return invalidAccess;
+    }
+    return getItem(itemAccess, base, visit(itemAccess.getKeyExprChild()));
+  }
+
+  /**
+   * Checks that {@code base} supports the given item access, before its key is evaluated.
+   *
+   * @return null if it does, otherwise the result of the access
+   */
+  @Nullable
+  SoyValue checkItemAccessBase(ItemAccessNode itemAccess, SoyValue base, boolean nullSafe) {
     // All null safe accesses should've already been converted to NullSafeAccessNodes.
     checkArgument(!itemAccess.isNullSafe());
     // attempting item access on non-SoyMap
@@ -576,10 +589,13 @@ public class EvalVisitor extends AbstractReturningExprNodeVisitor<SoyValue> {
               itemAccess.toSourceString(), itemAccess.getSourceStringSuffix()));
     }
 
-    // base is a valid SoyMap or SoyLegacyObjectMap: get value
+    // base is a valid SoyMap or SoyLegacyObjectMap
     maybeMarkBadProtoAccess(itemAccess, base);
-    SoyValue key = visit(itemAccess.getKeyExprChild());
+    return null;
+  }
 
+  /** Returns the item at {@code key} of a {@code base} that passed {@link #checkItemAccessBase}. */
+  SoyValue getItem(ItemAccessNode itemAccess, SoyValue base, SoyValue key) {
     SoyType baseType = SoyTypes.removeNull(itemAccess.getBaseExprChild().getType());
 
     // We need to know whether to invoke the SoyMap or SoyLegacyObjectMap method.
@@ -619,7 +635,7 @@ public class EvalVisitor extends AbstractReturningExprNodeVisitor<SoyValue> {
     }
   }
 
-  private SoyValue visitMethodCallNode(MethodCallNode methodNode, SoyValue base) {
+  SoyValue visitMethodCallNode(MethodCallNode methodNode, SoyValue base) {
     // All null safe accesses should've already been converted to NullSafeAccessNodes.
     checkArgument(!methodNode.isNullSafe());
     // TODO(b/147372851): Handle case when the implementation of the method cannot be determined
@@ -667,7 +683,7 @@ public class EvalVisitor extends AbstractReturningExprNodeVisitor<SoyValue> {
   }
 
   // Returns true if the base SoyValue of a data access chain is null or undefined.
-  private static boolean isNullOrUndefinedBase(SoyValue base) {
+  static boolean isNullOrUndefinedBase(SoyValue base) {
     return base == null || base instanceof NullData || base instanceof UndefinedData;
   }
 
@@ -982,7 +998,7 @@ public class EvalVisitor extends AbstractReturningExprNodeVisitor<SoyValue> {
     return assertNotNull(visit(child), child);
   }
 
-  private static SoyValue assertNotNull(SoyValue value, ExprNode node) {
+  static SoyValue assertNotNull(SoyValue value, ExprNode node) {
     if (value instanceof NullData || value instanceof UndefinedData) {
       throw new SoyDataException(node.toSourceString() + " is null");
     }
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.sharedpasses.render;
+
+import com.google.common.collect.ImmutableList;
+import com.google.template.soy.data.SoyDataException;
+import com.google.template.soy.data.SoyValue;
+import com.google.template.soy.msgs.SoyMsgBundle;
+import com.google.template.soy.msgs.restricted.SoyMsgPart;
+import com.google.template.soy.msgs.restricted.SoyMsgPlaceholderPart;
+import com.google.template.soy.msgs.restricted.SoyMsgPluralPart;
+import com.google.template.soy.msgs.restricted.SoyMsgPluralRemainderPart;
+import com.google.template.soy.msgs.restricted.SoyMsgRawTextPart;
+import com.google.template.soy.msgs.restricted.SoyMsgSelectPart;
+import com.google.template.soy.soytree.EscapingMode;
+import com.google.template.soy.soytree.MsgNode;
+import com.google.template.soy.soytree.MsgPluralNode;
+import com.google.template.soy.soytree.MsgSelectNode;
+import com.ibm.icu.util.ULocale;
+import java.util.List;
+import java.util.OptionalLong;
+import javax.annotation.Nullable;
+
+/**
+ * Renders a message from its translation, for both {@link RenderVisitorAssistantForMsgs} and the
+ * messages compiled by {@link RenderClosures}. Subclasses supply how placeholders are rendered and
+ * how plural and select variables are evaluated.
+ */
+abstract class MsgTranslationRenderer {
+
+  /**
+   * Returns the translation of a message, looked up by its id and then by its alternate id, or an
+   * empty list if the bundle has neither.
+   */
+  static ImmutableList<SoyMsgPart> getTranslation(
+      SoyMsgBundle bundle, long id, OptionalLong alternateId) {
+    ImmutableList<SoyMsgPart> translation = bundle.getMsgParts(id);
+    if (translation.isEmpty() && alternateId.isPresent()) {
+      translation = bundle.getMsgParts(alternateId.getAsLong());
+    }
+    return translation;
+  }
+
+  static RenderException pluralFailure(MsgPluralNode node, SoyDataException e) {
+    return RenderException.createWithSource(
+        String.format(
+            "Plural expression \"%s\" doesn't evaluate to number.",
+            node.getExpr().toSourceString()),
+        e,
+        node);
+  }
+
+  static RenderException selectFailure(MsgSelectNode node, SoyDataException e) {
+    return RenderException.createWithSource(
+        String.format(
+            "Select expression \"%s\" doesn't evaluate to string.",
+            node.getExpr().toSourceString()),
+        e,
+        node);
+  }
+
+  private final MsgNode msg;
+  private final boolean escapeHtml;
+
+  MsgTranslationRenderer(MsgNode msg) {
+    this.msg = msg;
+    this.escapeHtml = msg.getEscapingMode() == EscapingMode.ESCAPE_HTML;
+  }
+
+  /** Renders the placeholder with the given name. */
+  abstract void renderPlaceholder(RenderVisitor rv, String placeholderName);
+
+  /** Evaluates the expression of a plural variable of the message. */
+  abstract SoyValue evalPluralVar(RenderVisitor rv, String varName, MsgPluralNode node);
+
+  /** Evaluates the expression of a select variable of the message. */
+  abstract SoyValue evalSelectVar(RenderVisitor rv, String varName, MsgSelectNode node);
+
+  /** Renders the message from the parts of its translation. */
+  final void render(RenderVisitor rv, ImmutableList<SoyMsgPart> parts, @Nullable ULocale locale) {
+    SoyMsgPart firstPart = parts.get(0);
+    if (firstPart instanceof SoyMsgPluralPart) {
+      renderPlural(rv, (SoyMsgPluralPart) firstPart, locale);
+    } else if (firstPart instanceof SoyMsgSelectPart) {
+      renderSelect(rv, (SoyMsgSelectPart) firstPart, locale);
+    } else {
+      for (SoyMsgPart part : parts) {
+        if (part instanceof SoyMsgRawTextPart) {
+          String text = ((SoyMsgRawTextPart) part).getRawText();
+          if (escapeHtml) {
+            // Note that "&" is not replaced because the translation can contain HTML entities.
+            text = text.replace("<", "&lt;");
+          }
+          rv.appendToOutput(text);
+        } else if (part instanceof SoyMsgPlaceholderPart) {
+          renderPlaceholder(rv, ((SoyMsgPlaceholderPart) part).getPlaceholderName());
+        } else {
+          throw new AssertionError();
+        }
+      }
+    }
+  }
+
+  private void renderSelect(
+      RenderVisitor rv, SoyMsgSelectPart selectPart, @Nullable ULocale locale) {
+    String varName = selectPart.getSelectVarName();
+    MsgSelectNode repNode = msg.getRepSelectNode(varName);
+    String selectValue;
+    try {
+      selectValue = evalSelectVar(rv, varName, repNode).stringValue();
+    } catch (SoyDataException e) {
+      throw selectFailure(repNode, e);
+    }
+    List<SoyMsgPart> caseParts = selectPart.lookupCase(selectValue);
+    if (caseParts == null) {
+      return;
+    }
+    for (SoyMsgPart casePart : caseParts) {
+      if (casePart instanceof SoyMsgSelectPart) {
+        renderSelect(rv, (SoyMsgSelectPart) casePart, locale);
+      } else if (casePart instanceof SoyMsgPluralPart) {
+        renderPlural(rv, (SoyMsgPluralPart) casePart, locale);
+      } else if (casePart instanceof SoyMsgPlaceholderPart) {
+        renderPlaceholder(rv, ((SoyMsgPlaceholderPart) casePart).getPlaceholderName());
+      } else if (casePart instanceof SoyMsgRawTextPart) {
+        rv.appendToOutput(((SoyMsgRawTextPart) casePart).getRawText());
+      } else {
+        throw RenderException.create(
+                "Unsupported part of type "
+                    + casePart.getClass().getName()
+                    + " under a select case.")
+            .addStackTraceElement(repNode);
+      }
+    }
+  }
+
+  private void renderPlural(
+      RenderVisitor rv, SoyMsgPluralPart pluralPart, @Nullable ULocale locale) {
+    String varName = pluralPart.getPluralVarName();
+    MsgPluralNode repNode = msg.getRepPluralNode(varName);
+    double pluralValue;
+    try {
+      pluralValue = evalPluralVar(rv, varName, repNode).numberValue();
+    } catch (SoyDataException e) {
+      throw pluralFailure(repNode, e);
+    }
+    for (SoyMsgPart casePart : pluralPart.lookupCase(pluralValue, locale)) {
+      if (casePart instanceof SoyMsgPlaceholderPart) {
+        renderPlaceholder(rv, ((SoyMsgPlaceholderPart) casePart).getPlaceholderName());
+      } else if (casePart instanceof SoyMsgRawTextPart) {
+        rv.appendToOutput(((SoyMsgRawTextPart) casePart).getRawText());
+      } else if (casePart instanceof SoyMsgPluralRemainderPart) {
+        rv.appendToOutput(String.valueOf(pluralValue - pluralPart.getOffset()));
+      } else {
+        // Plural parts will not have nested plural/select parts.  So, this is an error.
+        throw RenderException.create(
+                "Unsupported part of type "
+                    + casePart.getClass().getName()
+                    + " under a plural case.")
+            .addStackTraceElement(repNode);
+      }
+    }
+  }
+}
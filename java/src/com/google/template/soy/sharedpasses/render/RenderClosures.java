@@ -0,0 +1,1027 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.sharedpasses.render;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.template.soy.base.SourceFilePath;
+import com.google.template.soy.data.SoyDataException;
+import com.google.template.soy.data.SoyList;
+import com.google.template.soy.data.SoyRecord;
+import com.google.template.soy.data.SoyValue;
+import com.google.template.soy.data.internal.DictImpl;
+import com.google.template.soy.data.internal.ListImpl;
+import com.google.template.soy.data.internal.ParamStore;
+import com.google.template.soy.data.internal.RuntimeMapTypeTracker;
+import com.google.template.soy.data.restricted.BooleanData;
+import com.google.template.soy.data.restricted.FloatData;
+import com.google.template.soy.data.restricted.IntegerData;
+import com.google.template.soy.data.restricted.NullData;
+import com.google.template.soy.data.restricted.StringData;
+import com.google.template.soy.data.restricted.UndefinedData;
+import com.google.template.soy.exprtree.BooleanNode;
+import com.google.template.soy.exprtree.DataAccessNode;
+import com.google.template.soy.exprtree.ExprNode.ParentExprNode;
+import com.google.template.soy.exprtree.ExprNode;
+import com.google.template.soy.exprtree.ExprRootNode;
+import com.google.template.soy.exprtree.FieldAccessNode;
+import com.google.template.soy.exprtree.FloatNode;
+import com.google.template.soy.exprtree.FunctionNode;
+import com.google.template.soy.exprtree.IntegerNode;
+import com.google.template.soy.exprtree.ItemAccessNode;
+import com.google.template.soy.exprtree.ListLiteralNode;
+import com.google.template.soy.exprtree.MethodCallNode;
+import com.google.template.soy.exprtree.NullSafeAccessNode;
+import com.google.template.soy.exprtree.OperatorNodes.AndOpNode;
+import com.google.template.soy.exprtree.OperatorNodes.AssertNonNullOpNode;
+import com.google.template.soy.exprtree.OperatorNodes.ConditionalOpNode;
+import com.google.template.soy.exprtree.OperatorNodes.NegativeOpNode;
+import com.google.template.soy.exprtree.OperatorNodes.NotOpNode;
+import com.google.template.soy.exprtree.OperatorNodes.NullCoalescingOpNode;
+import com.google.template.soy.exprtree.OperatorNodes.OrOpNode;
+import com.google.template.soy.exprtree.ProtoEnumValueNode;
+import com.google.template.soy.exprtree.RecordLiteralNode;
+import com.google.template.soy.exprtree.StringNode;
+import com.google.template.soy.exprtree.VarDefn;
+import com.google.template.soy.exprtree.VarRefNode;
+import com.google.template.soy.logging.LoggingFunction;
+import com.google.template.soy.msgs.SoyMsgBundle;
+import com.google.template.soy.msgs.internal.MsgUtils;
+import com.google.template.soy.msgs.restricted.SoyMsgPart;
+import com.google.template.soy.plugin.internal.JavaPluginExecContext;
+import com.google.template.soy.plugin.java.restricted.SoyJavaSourceFunction;
+import com.google.template.soy.shared.RangeArgs;
+import com.google.template.soy.shared.internal.BuiltinFunction;
+import com.google.template.soy.shared.internal.SharedRuntime;
+import com.google.template.soy.shared.restricted.SoyJavaFunction;
+import com.google.template.soy.shared.restricted.SoyPrintDirective;
+import com.google.template.soy.shared.restricted.SoySourceFunctionMethod;
+import com.google.template.soy.soytree.CallBasicNode;
+import com.google.template.soy.soytree.CallDelegateNode;
+import com.google.template.soy.soytree.CallNode;
+import com.google.template.soy.soytree.CallParamContentNode;
+import com.google.template.soy.soytree.CallParamNode;
+import com.google.template.soy.soytree.CallParamValueNode;
+import com.google.template.soy.soytree.CaseOrDefaultNode;
+import com.google.template.soy.soytree.ConstNode;
+import com.google.template.soy.soytree.ForNode;
+import com.google.template.soy.soytree.ForNonemptyNode;
+import com.google.template.soy.soytree.IfCondNode;
+import com.google.template.soy.soytree.IfNode;
+import com.google.template.soy.soytree.ImportNode.ImportType;
+import com.google.template.soy.soytree.ImportNode;
+import com.google.template.soy.soytree.LetContentNode;
+import com.google.template.soy.soytree.LetValueNode;
+import com.google.template.soy.soytree.MsgFallbackGroupNode;
+import com.google.template.soy.soytree.MsgNode;
+import com.google.template.soy.soytree.MsgPlaceholderNode;
+import com.google.template.soy.soytree.MsgPluralCaseNode;
+import com.google.template.soy.soytree.MsgPluralDefaultNode;
+import com.google.template.soy.soytree.MsgPluralNode;
+import com.google.template.soy.soytree.MsgSelectCaseNode;
+import com.google.template.soy.soytree.MsgSelectDefaultNode;
+import com.google.template.soy.soytree.MsgSelectNode;
+import com.google.template.soy.soytree.PrintDirectiveNode;
+import com.google.template.soy.soytree.PrintNode;
+import com.google.template.soy.soytree.RawTextNode;
+import com.google.template.soy.soytree.SoyFileNode;
+import com.google.template.soy.soytree.SoyNode.ParentSoyNode;
+import com.google.template.soy.soytree.SoyNode;
+import com.google.template.soy.soytree.SwitchCaseNode;
+import com.google.template.soy.soytree.SwitchDefaultNode;
+import com.google.template.soy.soytree.SwitchNode;
+import com.google.template.soy.soytree.TemplateNode;
+import com.google.template.soy.soytree.VeLogNode;
+import com.google.template.soy.soytree.defn.TemplateParam;
+import com.google.template.soy.types.SoyType.Kind;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BinaryOperator;
+import javax.annotation.Nullable;
+
+/**
+ * Compiles template bodies into trees of closures that {@link RenderVisitor} runs instead of
+ * walking the AST.
+ *
+ * <p>Each block is compiled the first time it is rendered and cached, so the work of inspecting
+ * nodes (finding the branches of an {@code if}, the range of a {@code for}, the directives of a
+ * {@code print}, ...) is done once rather than on every render. Expressions are compiled too:
+ * literals, variable references, operators, data access and calls to plugin functions and methods.
+ * Comprehensions, map literals and most builtin functions are still evaluated by the {@link
+ * EvalVisitor}. Calls compile their params and messages their placeholders, and messages look up
+ * their translations by precomputed ids. Nodes without a closure, like logging, are rendered by the
+ * visitor as usual, which compiles the blocks they contain in turn.
+ *
+ * <p>Messages gain the most, since their ids and placeholders are no longer recomputed on every
+ * render. Other templates render less than twice as fast: most of their time goes to the escaping
+ * directives, to converting and accessing {@link SoyValue} data, and to the records and visitors
+ * allocated for every call, none of which compiling the tree removes.
+ *
+ * <p>Important: Do not use outside of Soy code (treat as superpackage-private).
+ */
+public final class RenderClosures {
+
+  /** Creates an empty cache of compiled templates. */
+  public static RenderClosures create() {
+    return new RenderClosures();
+  }
+
+  /** A compiled node, rendered by the visitor of the template that contains it. */
+  interface Statement {
+    void render(RenderVisitor rv);
+  }
+
+  /**
+   * A compiled expression. Errors are reported by {@link RenderVisitor#eval(Expression, ExprNode,
+   * SoyNode)}.
+   */
+  interface Expression {
+    SoyValue eval(RenderVisitor rv);
+  }
+
+  private static final Statement EMPTY = rv -> {};
+
+  private final Map<ParentSoyNode<?>, Statement> blocks = new ConcurrentHashMap<>();
+  private final Map<SoyFileNode, Statement> fileScopes = new ConcurrentHashMap<>();
+
+  private RenderClosures() {}
+
+  /** Returns the compiled children of the given node. */
+  Statement compileChildren(ParentSoyNode<?> node) {
+    Statement compiled = blocks.get(node);
+    if (compiled == null) {
+      // Compiling doesn't look up other blocks, so concurrent renders at worst compile a block
+      // twice.
+      compiled = sequence(node.getChildren());
+      blocks.putIfAbsent(node, compiled);
+    }
+    return compiled;
+  }
+
+  /** Returns a statement that binds the imports and constants of the given file. */
+  Statement compileFileScope(SoyFileNode file) {
+    Statement compiled = fileScopes.get(file);
+    if (compiled == null) {
+      compiled = fileScope(file);
+      fileScopes.putIfAbsent(file, compiled);
+    }
+    return compiled;
+  }
+
+  private static Statement fileScope(SoyFileNode file) {
+    List<Statement> statements = new ArrayList<>();
+    for (ImportNode node : file.getImports()) {
+      if (node.getImportType() != ImportType.TEMPLATE) {
+        continue;
+      }
+      SourceFilePath path = SourceFilePath.create(node.getPath());
+      node.visitVars(
+          (var, parentType) -> {
+            if (parentType != null
+                && parentType.getKind() == Kind.TEMPLATE_MODULE
+                && var.type().getKind() != Kind.TEMPLATE_TYPE) {
+              statements.add(rv -> rv.bindImportedConstant(var, path));
+            }
+          });
+    }
+    for (ConstNode node : file.getConstants()) {
+      Expression value = compile(node.getExpr());
+      statements.add(rv -> rv.env.bind(node.getVar(), rv.eval(value, node.getExpr(), node)));
+    }
+    return sequence(ImmutableList.copyOf(statements));
+  }
+
+  private static Statement sequence(List<? extends SoyNode> nodes) {
+    List<Statement> statements = new ArrayList<>(nodes.size());
+    for (SoyNode node : nodes) {
+      Statement statement = compile(node);
+      if (statement != EMPTY) {
+        statements.add(statement);
+      }
+    }
+    return sequence(ImmutableList.copyOf(statements));
+  }
+
+  private static Statement sequence(ImmutableList<Statement> statements) {
+    switch (statements.size()) {
+      case 0:
+        return EMPTY;
+      case 1:
+        return statements.get(0);
+      case 2:
+        Statement first = statements.get(0);
+        Statement second = statements.get(1);
+        return rv -> {
+          first.render(rv);
+          second.render(rv);
+        };
+      default:
+        Statement[] array = statements.toArray(new Statement[0]);
+        return rv -> {
+          for (Statement statement : array) {
+            statement.render(rv);
+          }
+        };
+    }
+  }
+
+  private static Statement compile(SoyNode node) {
+    switch (node.getKind()) {
+      case RAW_TEXT_NODE:
+        String text = ((RawTextNode) node).getRawText();
+        return rv -> rv.appendToOutput(text);
+      case PRINT_NODE:
+        return compilePrint((PrintNode) node);
+      case IF_NODE:
+        return compileIf((IfNode) node);
+      case SWITCH_NODE:
+        return compileSwitch((SwitchNode) node);
+      case FOR_NODE:
+        return compileFor((ForNode) node);
+      case LET_VALUE_NODE:
+        LetValueNode letValue = (LetValueNode) node;
+        Expression value = compile(letValue.getExpr());
+        return rv ->
+            rv.env.bind(letValue.getVar(), rv.lazyEval(value, letValue.getExpr(), letValue));
+      case LET_CONTENT_NODE:
+        LetContentNode letContent = (LetContentNode) node;
+        return rv -> rv.env.bind(letContent.getVar(), rv.renderRenderUnitNode(letContent));
+      case VE_LOG_NODE:
+        return compileVeLog((VeLogNode) node);
+      case DEBUGGER_NODE:
+        return EMPTY;
+      case CALL_BASIC_NODE:
+        return compileBasicCall((CallBasicNode) node);
+      case CALL_DELEGATE_NODE:
+        return compileDelegateCall((CallDelegateNode) node);
+      case MSG_FALLBACK_GROUP_NODE:
+        return compileMsgFallbackGroup((MsgFallbackGroupNode) node);
+      case MSG_PLACEHOLDER_NODE:
+      case MSG_HTML_TAG_NODE:
+        // Only found in messages, which render these by rendering their children.
+        return sequence(((ParentSoyNode<?>) node).getChildren());
+      case MSG_PLURAL_NODE:
+        return compileMsgPlural((MsgPluralNode) node);
+      case MSG_SELECT_NODE:
+        return compileMsgSelect((MsgSelectNode) node);
+      default:
+        // Logging and the rest are rare enough that interpreting them is fine.
+        return rv -> rv.visitForUseByAssistants(node);
+    }
+  }
+
+  private static Statement compilePrint(PrintNode node) {
+    ExprRootNode expr = node.getExpr();
+    Expression value = compile(expr);
+    if (node.numChildren() == 0) {
+      return rv -> {
+        SoyValue result = rv.eval(value, expr, node);
+        RenderVisitor.checkPrintResult(result, node);
+        rv.appendToOutput(result, node);
+      };
+    }
+    int numDirectives = node.numChildren();
+    SoyPrintDirective[] directives = new SoyPrintDirective[numDirectives];
+    PrintDirectiveNode[] directiveNodes = new PrintDirectiveNode[numDirectives];
+    Expression[][] args = new Expression[numDirectives][];
+    for (int i = 0; i < numDirectives; i++) {
+      PrintDirectiveNode directiveNode = node.getChild(i);
+      directiveNodes[i] = directiveNode;
+      directives[i] = directiveNode.getPrintDirective();
+      args[i] = compile(directiveNode.getArgs());
+    }
+    return rv -> {
+      SoyValue result = rv.eval(value, expr, node);
+      RenderVisitor.checkPrintResult(result, node);
+      for (int i = 0; i < numDirectives; i++) {
+        PrintDirectiveNode directiveNode = directiveNodes[i];
+        List<SoyValue> argValues = evalArgs(rv, args[i], directiveNode.getArgs(), directiveNode);
+        result = rv.applyDirective(directives[i], result, argValues, node);
+      }
+      rv.appendToOutput(result, node);
+    };
+  }
+
+  private static List<SoyValue> evalArgs(
+      RenderVisitor rv, Expression[] args, List<ExprRootNode> exprs, SoyNode node) {
+    if (args.length == 0) {
+      return ImmutableList.of();
+    }
+    List<SoyValue> values = new ArrayList<>(args.length);
+    for (int i = 0; i < args.length; i++) {
+      values.add(rv.eval(args[i], exprs.get(i), node));
+    }
+    return values;
+  }
+
+  private static Statement compileIf(IfNode node) {
+    List<ExprRootNode> conditionExprs = new ArrayList<>();
+    List<Statement> branches = new ArrayList<>();
+    Statement elseBranch = EMPTY;
+    for (SoyNode child : node.getChildren()) {
+      if (child instanceof IfCondNode) {
+        IfCondNode icn = (IfCondNode) child;
+        conditionExprs.add(icn.getExpr());
+        branches.add(sequence(icn.getChildren()));
+      } else {
+        elseBranch = sequence(((ParentSoyNode<?>) child).getChildren());
+      }
+    }
+    ExprRootNode[] exprs = conditionExprs.toArray(new ExprRootNode[0]);
+    Expression[] conditions = compile(conditionExprs);
+    Statement[] bodies = branches.toArray(new Statement[0]);
+    Statement otherwise = elseBranch;
+    return rv -> {
+      for (int i = 0; i < conditions.length; i++) {
+        if (rv.eval(conditions[i], exprs[i], node).coerceToBoolean()) {
+          bodies[i].render(rv);
+          return;
+        }
+      }
+      otherwise.render(rv);
+    };
+  }
+
+  private static Statement compileSwitch(SwitchNode node) {
+    ExprRootNode expr = node.getExpr();
+    Expression value = compile(expr);
+    List<SwitchCaseNode> caseNodes = new ArrayList<>();
+    Statement defaultBranch = EMPTY;
+    for (SoyNode child : node.getChildren()) {
+      if (child instanceof SwitchCaseNode) {
+        caseNodes.add((SwitchCaseNode) child);
+      } else {
+        defaultBranch = sequence(((SwitchDefaultNode) child).getChildren());
+      }
+    }
+    SwitchCaseNode[] cases = caseNodes.toArray(new SwitchCaseNode[0]);
+    Expression[][] caseValues = new Expression[cases.length][];
+    Statement[] bodies = new Statement[cases.length];
+    for (int i = 0; i < cases.length; i++) {
+      caseValues[i] = compile(cases[i].getExprList());
+      bodies[i] = sequence(cases[i].getChildren());
+    }
+    Statement otherwise = defaultBranch;
+    return rv -> {
+      SoyValue switchValue = rv.eval(value, expr, node);
+      for (int i = 0; i < cases.length; i++) {
+        List<ExprRootNode> caseExprs = cases[i].getExprList();
+        for (int j = 0; j < caseValues[i].length; j++) {
+          if (SharedRuntime.equal(
+              switchValue, rv.eval(caseValues[i][j], caseExprs.get(j), cases[i]))) {
+            bodies[i].render(rv);
+            return;
+          }
+        }
+      }
+      otherwise.render(rv);
+    };
+  }
+
+  private static Statement compileFor(ForNode node) {
+    ForNonemptyNode child = (ForNonemptyNode) node.getChild(0);
+    Statement body = sequence(child.getChildren());
+    Optional<RangeArgs> rangeArgs = RangeArgs.createFromNode(node);
+    if (rangeArgs.isPresent()) {
+      ExprNode increment = rangeArgs.get().increment().orElse(null);
+      ExprNode start = rangeArgs.get().start().orElse(null);
+      ExprNode limit = rangeArgs.get().limit();
+      return rv -> {
+        int step = increment != null ? rv.evalRangeArg(node, increment) : 1;
+        int from = start != null ? rv.evalRangeArg(node, start) : 0;
+        int end = rv.evalRangeArg(node, limit);
+        int length = end - from;
+        if ((length ^ step) < 0) {
+          // sign mismatch, step will never cause start to reach end.
+          return;
+        }
+        int size = length / step + (length % step == 0 ? 0 : 1);
+        for (int i = 0; i < size; ++i) {
+          rv.bindLoopVariables(child, i, IntegerData.forValue(from + step * i));
+          body.render(rv);
+        }
+      };
+    }
+    ExprRootNode expr = node.getExpr();
+    Expression list = compile(expr);
+    return rv -> {
+      SoyList foreachList = RenderVisitor.asForeachList(rv.eval(list, expr, node), node);
+      int listLength = foreachList.length();
+      for (int i = 0; i < listLength; ++i) {
+        rv.bindLoopVariables(child, i, foreachList.getProvider(i));
+        body.render(rv);
+      }
+    };
+  }
+
+  private static Statement compileVeLog(VeLogNode node) {
+    Statement body = sequence(node.getChildren());
+    ExprRootNode logonlyExpr = node.getLogonlyExpression();
+    if (logonlyExpr == null) {
+      return body;
+    }
+    Expression logonly = compile(logonlyExpr);
+    return rv -> {
+      RenderVisitor.checkLogonly(rv.eval(logonly, logonlyExpr, node), node);
+      body.render(rv);
+    };
+  }
+
+  private static Statement compileBasicCall(CallBasicNode node) {
+    ExprRootNode calleeExpr = node.getCalleeExpr();
+    Expression callee = compile(calleeExpr);
+    CallParams params = compileCallParams(node);
+    return rv ->
+        rv.renderBasicCall(node, rv.eval(callee, calleeExpr, node), () -> params.create(rv));
+  }
+
+  private static Statement compileDelegateCall(CallDelegateNode node) {
+    CallParams params = compileCallParams(node);
+    ExprRootNode variantExpr = node.getDelCalleeVariantExpr();
+    if (variantExpr == null) {
+      return rv -> rv.renderDelegateCall(node, "", () -> params.create(rv));
+    }
+    Expression variant = compile(variantExpr);
+    return rv -> {
+      String variantString =
+          rv.variantString(rv.eval(variant, variantExpr, node), variantExpr, node);
+      rv.renderDelegateCall(node, variantString, () -> params.create(rv));
+    };
+  }
+
+  /** The compiled params of a call. */
+  private interface CallParams {
+    SoyRecord create(RenderVisitor rv);
+  }
+
+  /** Sets one compiled {@code {param}} of a call. */
+  private interface ParamSetter {
+    void set(RenderVisitor rv, ParamStore params);
+  }
+
+  /** Compiles the params of a call, with the same results as {@link RenderVisitor}. */
+  private static CallParams compileCallParams(CallNode node) {
+    CallParams params = compileParamsWithoutVariant(node);
+    ExprRootNode variantExpr =
+        node instanceof CallBasicNode ? ((CallBasicNode) node).getVariantExpr() : null;
+    if (variantExpr == null) {
+      return rv -> RenderVisitor.withVariant(params.create(rv), "");
+    }
+    Expression variant = compile(variantExpr);
+    return rv -> {
+      SoyRecord record = params.create(rv);
+      return RenderVisitor.withVariant(
+          record, rv.variantString(rv.eval(variant, variantExpr, node), variantExpr, node));
+    };
+  }
+
+  private static CallParams compileParamsWithoutVariant(CallNode node) {
+    // data="all" calls pass on the defaults of the caller's params that are unset.
+    List<TemplateParam> callerParams =
+        node.isPassingAllData()
+            ? node.getNearestAncestor(TemplateNode.class).getParams()
+            : ImmutableList.of();
+    int numCallerParams = callerParams.size();
+    TemplateParam[] defaultParams =
+        callerParams.stream().filter(TemplateParam::hasDefault).toArray(TemplateParam[]::new);
+    Expression[] defaultValues = new Expression[defaultParams.length];
+    for (int i = 0; i < defaultParams.length; i++) {
+      defaultValues[i] = compile(defaultParams[i].defaultValue());
+    }
+
+    CallParams data;
+    if (!node.isPassingData()) {
+      data = null;
+    } else if (node.isPassingAllData()) {
+      data = rv -> rv.data;
+    } else {
+      ExprRootNode dataExpr = node.getDataExpr();
+      Expression value = compile(dataExpr);
+      data = rv -> RenderVisitor.checkDataRecord(rv.eval(value, dataExpr, node), node);
+    }
+
+    if (node.numChildren() == 0) {
+      if (data == null) {
+        return rv -> ParamStore.EMPTY_INSTANCE;
+      }
+      if (defaultParams.length == 0) {
+        return data;
+      }
+      return rv -> {
+        ParamStore dataWithDefaults = null;
+        for (int i = 0; i < defaultParams.length; i++) {
+          TemplateParam param = defaultParams[i];
+          if (rv.data.getField(param.name()) == null) {
+            if (dataWithDefaults == null) {
+              dataWithDefaults = new ParamStore(rv.data, numCallerParams);
+            }
+            dataWithDefaults.setField(
+                param.name(), rv.lazyEval(defaultValues[i], param.defaultValue(), node));
+          }
+        }
+        return dataWithDefaults == null ? rv.data : dataWithDefaults;
+      };
+    }
+
+    int numParams = node.numChildren();
+    ParamSetter[] setters = new ParamSetter[numParams];
+    for (int i = 0; i < numParams; i++) {
+      CallParamNode child = node.getChild(i);
+      String key = child.getKey().identifier();
+      if (child instanceof CallParamValueNode) {
+        ExprRootNode expr = ((CallParamValueNode) child).getExpr();
+        Expression value = compile(expr);
+        setters[i] = (rv, params) -> params.setField(key, rv.lazyEval(value, expr, child));
+      } else {
+        CallParamContentNode content = (CallParamContentNode) child;
+        setters[i] = (rv, params) -> params.setField(key, rv.renderRenderUnitNode(content));
+      }
+    }
+    return rv -> {
+      ParamStore params;
+      if (data != null) {
+        params = new ParamStore(data.create(rv), numParams);
+        for (int i = 0; i < defaultParams.length; i++) {
+          TemplateParam param = defaultParams[i];
+          if (params.getField(param.name()) == null) {
+            params.setField(
+                param.name(), rv.lazyEval(defaultValues[i], param.defaultValue(), node));
+          }
+        }
+      } else {
+        params = new ParamStore(numParams);
+      }
+      for (ParamSetter setter : setters) {
+        setter.set(rv, params);
+      }
+      return params;
+    };
+  }
+
+  private static Statement compileMsgFallbackGroup(MsgFallbackGroupNode node) {
+    CompiledMsg[] msgs =
+        node.getChildren().stream().map(CompiledMsg::new).toArray(CompiledMsg[]::new);
+    Statement source = sequence(node.getChild(0).getChildren());
+    Statement body =
+        rv -> {
+          SoyMsgBundle bundle = rv.msgBundle;
+          if (bundle != null) {
+            for (CompiledMsg msg : msgs) {
+              ImmutableList<SoyMsgPart> translation = msg.translation(bundle);
+              if (!translation.isEmpty()) {
+                msg.render(rv, translation, bundle.getLocale());
+                return;
+              }
+            }
+          }
+          source.render(rv);
+        };
+    return rv -> rv.renderMsg(node, body);
+  }
+
+  private static Statement compileMsgPlural(MsgPluralNode node) {
+    ExprRootNode expr = node.getExpr();
+    Expression value = compile(expr);
+    List<Integer> caseNumbers = new ArrayList<>();
+    List<Statement> caseBodies = new ArrayList<>();
+    Statement defaultBody = EMPTY;
+    for (CaseOrDefaultNode child : node.getChildren()) {
+      if (child instanceof MsgPluralDefaultNode) {
+        defaultBody = sequence(child.getChildren());
+        break;
+      }
+      caseNumbers.add(((MsgPluralCaseNode) child).getCaseNumber());
+      caseBodies.add(sequence(child.getChildren()));
+    }
+    int[] cases = caseNumbers.stream().mapToInt(Integer::intValue).toArray();
+    Statement[] bodies = caseBodies.toArray(new Statement[0]);
+    Statement otherwise = defaultBody;
+    return rv -> {
+      double pluralValue = evalPluralValue(rv, value, node);
+      for (int i = 0; i < cases.length; i++) {
+        if (cases[i] == pluralValue) {
+          bodies[i].render(rv);
+          return;
+        }
+      }
+      otherwise.render(rv);
+    };
+  }
+
+  private static Statement compileMsgSelect(MsgSelectNode node) {
+    ExprRootNode expr = node.getExpr();
+    Expression value = compile(expr);
+    List<String> caseValues = new ArrayList<>();
+    List<Statement> caseBodies = new ArrayList<>();
+    Statement defaultBody = EMPTY;
+    for (CaseOrDefaultNode child : node.getChildren()) {
+      if (child instanceof MsgSelectDefaultNode) {
+        defaultBody = sequence(child.getChildren());
+        break;
+      }
+      caseValues.add(((MsgSelectCaseNode) child).getCaseValue());
+      caseBodies.add(sequence(child.getChildren()));
+    }
+    String[] cases = caseValues.toArray(new String[0]);
+    Statement[] bodies = caseBodies.toArray(new Statement[0]);
+    Statement otherwise = defaultBody;
+    return rv -> {
+      String selectValue;
+      try {
+        selectValue = rv.eval(value, expr, node).coerceToString();
+      } catch (SoyDataException e) {
+        throw MsgTranslationRenderer.selectFailure(node, e);
+      }
+      for (int i = 0; i < cases.length; i++) {
+        if (cases[i].equals(selectValue)) {
+          bodies[i].render(rv);
+          return;
+        }
+      }
+      otherwise.render(rv);
+    };
+  }
+
+  private static double evalPluralValue(RenderVisitor rv, Expression value, MsgPluralNode node) {
+    try {
+      return rv.eval(value, node.getExpr(), node).numberValue();
+    } catch (SoyDataException e) {
+      throw MsgTranslationRenderer.pluralFailure(node, e);
+    }
+  }
+
+  /**
+   * A message of a fallback group, with its ids computed and its placeholders and plural and select
+   * expressions compiled, for rendering it from a translation.
+   */
+  private static final class CompiledMsg extends MsgTranslationRenderer {
+    final long id;
+    final OptionalLong alternateId;
+    final ImmutableMap<String, Statement> placeholders;
+    /** The compiled expressions of the plural and select variables. */
+    final ImmutableMap<String, Expression> plrselValues;
+
+    CompiledMsg(MsgNode msg) {
+      super(msg);
+      this.id = MsgUtils.computeMsgIdForDualFormat(msg);
+      this.alternateId = msg.getAlternateId();
+      ImmutableMap.Builder<String, Statement> placeholders = ImmutableMap.builder();
+      ImmutableMap.Builder<String, Expression> plrselValues = ImmutableMap.builder();
+      msg.getVarNameToRepNodeMap()
+          .forEach(
+              (name, node) -> {
+                if (node instanceof MsgPlaceholderNode) {
+                  placeholders.put(name, sequence(((MsgPlaceholderNode) node).getChildren()));
+                } else if (node instanceof MsgPluralNode) {
+                  plrselValues.put(name, compile(((MsgPluralNode) node).getExpr()));
+                } else if (node instanceof MsgSelectNode) {
+                  plrselValues.put(name, compile(((MsgSelectNode) node).getExpr()));
+                }
+              });
+      this.placeholders = placeholders.buildOrThrow();
+      this.plrselValues = plrselValues.buildOrThrow();
+    }
+
+    /** Returns the translation of this message, or an empty list if the bundle doesn't have one. */
+    ImmutableList<SoyMsgPart> translation(SoyMsgBundle bundle) {
+      return getTranslation(bundle, id, alternateId);
+    }
+
+    @Override
+    void renderPlaceholder(RenderVisitor rv, String placeholderName) {
+      placeholders.get(placeholderName).render(rv);
+    }
+
+    @Override
+    SoyValue evalPluralVar(RenderVisitor rv, String varName, MsgPluralNode node) {
+      return rv.eval(plrselValues.get(varName), node.getExpr(), node);
+    }
+
+    @Override
+    SoyValue evalSelectVar(RenderVisitor rv, String varName, MsgSelectNode node) {
+      return rv.eval(plrselValues.get(varName), node.getExpr(), node);
+    }
+  }
+
+  private static Expression[] compile(List<? extends ExprNode> exprs) {
+    Expression[] compiled = new Expression[exprs.size()];
+    for (int i = 0; i < compiled.length; i++) {
+      compiled[i] = compile(exprs.get(i));
+    }
+    return compiled;
+  }
+
+  /** Compiles an expression, with the same results as {@link EvalVisitor}. */
+  private static Expression compile(@Nullable ExprNode expr) {
+    if (expr == null) {
+      // RenderVisitor.eval reports the error.
+      return rv -> {
+        throw new AssertionError();
+      };
+    }
+    if (expr instanceof ExprRootNode) {
+      return compile(((ExprRootNode) expr).getRoot());
+    }
+    switch (expr.getKind()) {
+      case NULL_NODE:
+        return constant(NullData.INSTANCE);
+      case BOOLEAN_NODE:
+        return constant(BooleanData.forValue(((BooleanNode) expr).getValue()));
+      case INTEGER_NODE:
+        return constant(IntegerData.forValue(((IntegerNode) expr).getValue()));
+      case FLOAT_NODE:
+        return constant(FloatData.forValue(((FloatNode) expr).getValue()));
+      case STRING_NODE:
+        return constant(StringData.forValue(((StringNode) expr).getValue()));
+      case PROTO_ENUM_VALUE_NODE:
+        return constant(IntegerData.forValue(((ProtoEnumValueNode) expr).getValue()));
+      case LIST_LITERAL_NODE:
+        Expression[] items = compile(((ListLiteralNode) expr).getChildren());
+        return rv -> ListImpl.forProviderList(evalAll(rv, items));
+      case RECORD_LITERAL_NODE:
+        return compileRecordLiteral((RecordLiteralNode) expr);
+      case VAR_REF_NODE:
+        VarDefn var = ((VarRefNode) expr).getDefnDecl();
+        if (var.kind() == VarDefn.Kind.STATE) {
+          break;
+        }
+        if (var.kind() == VarDefn.Kind.PARAM && ((TemplateParam) var).hasDefault()) {
+          Expression defaultValue = compile(((TemplateParam) var).defaultValue());
+          return rv -> {
+            SoyValue value = rv.env.getVar(var);
+            // Use the default value if it has one and the parameter is undefined.
+            return value == UndefinedData.INSTANCE ? defaultValue.eval(rv) : value;
+          };
+        }
+        return rv -> rv.env.getVar(var);
+      case FIELD_ACCESS_NODE:
+      case ITEM_ACCESS_NODE:
+      case METHOD_CALL_NODE:
+        DataAccessNode dataAccess = (DataAccessNode) expr;
+        if (dataAccess.isNullSafe()) {
+          // EvalVisitor rejects these, they should have been rewritten to NullSafeAccessNodes.
+          break;
+        }
+        Expression base = compile(dataAccess.getBaseExprChild());
+        Access access = compileAccess(dataAccess, /* nullSafe= */ false);
+        return rv -> access.apply(rv, base.eval(rv));
+      case NULL_SAFE_ACCESS_NODE:
+        return compileNullSafeAccess((NullSafeAccessNode) expr);
+      case NEGATIVE_OP_NODE:
+        Expression operand = compile(((NegativeOpNode) expr).getChild(0));
+        return rv -> SharedRuntime.negative(operand.eval(rv));
+      case NOT_OP_NODE:
+        Expression negated = compile(((NotOpNode) expr).getChild(0));
+        return rv -> BooleanData.forValue(!negated.eval(rv).coerceToBoolean());
+      case TIMES_OP_NODE:
+        return binary(expr, SharedRuntime::times);
+      case DIVIDE_BY_OP_NODE:
+        return binary(expr, (a, b) -> FloatData.forValue(SharedRuntime.dividedBy(a, b)));
+      case MOD_OP_NODE:
+        return binary(expr, SharedRuntime::mod);
+      case PLUS_OP_NODE:
+        return binary(expr, SharedRuntime::plus);
+      case MINUS_OP_NODE:
+        return binary(expr, SharedRuntime::minus);
+      case SHIFT_LEFT_OP_NODE:
+        return binary(expr, SharedRuntime::shiftLeft);
+      case SHIFT_RIGHT_OP_NODE:
+        return binary(expr, SharedRuntime::shiftRight);
+      case BITWISE_OR_OP_NODE:
+        return binary(expr, SharedRuntime::bitwiseOr);
+      case BITWISE_XOR_OP_NODE:
+        return binary(expr, SharedRuntime::bitwiseXor);
+      case BITWISE_AND_OP_NODE:
+        return binary(expr, SharedRuntime::bitwiseAnd);
+      case LESS_THAN_OP_NODE:
+        return binary(expr, (a, b) -> BooleanData.forValue(SharedRuntime.lessThan(a, b)));
+      case GREATER_THAN_OP_NODE:
+        // note the argument reversal
+        return binary(expr, (a, b) -> BooleanData.forValue(SharedRuntime.lessThan(b, a)));
+      case LESS_THAN_OR_EQUAL_OP_NODE:
+        return binary(expr, (a, b) -> BooleanData.forValue(SharedRuntime.lessThanOrEqual(a, b)));
+      case GREATER_THAN_OR_EQUAL_OP_NODE:
+        return binary(expr, (a, b) -> BooleanData.forValue(SharedRuntime.lessThanOrEqual(b, a)));
+      case EQUAL_OP_NODE:
+        return binary(expr, (a, b) -> BooleanData.forValue(SharedRuntime.equal(a, b)));
+      case NOT_EQUAL_OP_NODE:
+        return binary(expr, (a, b) -> BooleanData.forValue(!SharedRuntime.equal(a, b)));
+      case AND_OP_NODE:
+        {
+          Expression left = compile(((AndOpNode) expr).getChild(0));
+          Expression right = compile(((AndOpNode) expr).getChild(1));
+          return rv ->
+              BooleanData.forValue(
+                  left.eval(rv).coerceToBoolean() && right.eval(rv).coerceToBoolean());
+        }
+      case OR_OP_NODE:
+        {
+          Expression left = compile(((OrOpNode) expr).getChild(0));
+          Expression right = compile(((OrOpNode) expr).getChild(1));
+          return rv ->
+              BooleanData.forValue(
+                  left.eval(rv).coerceToBoolean() || right.eval(rv).coerceToBoolean());
+        }
+      case CONDITIONAL_OP_NODE:
+        {
+          ConditionalOpNode conditional = (ConditionalOpNode) expr;
+          Expression condition = compile(conditional.getChild(0));
+          Expression ifTrue = compile(conditional.getChild(1));
+          Expression ifFalse = compile(conditional.getChild(2));
+          return rv -> condition.eval(rv).coerceToBoolean() ? ifTrue.eval(rv) : ifFalse.eval(rv);
+        }
+      case NULL_COALESCING_OP_NODE:
+        {
+          Expression left = compile(((NullCoalescingOpNode) expr).getChild(0));
+          Expression right = compile(((NullCoalescingOpNode) expr).getChild(1));
+          return rv -> {
+            SoyValue value = left.eval(rv);
+            return value instanceof NullData || value instanceof UndefinedData
+                ? right.eval(rv)
+                : value;
+          };
+        }
+      case ASSERT_NON_NULL_OP_NODE:
+        return compile(((AssertNonNullOpNode) expr).getChild(0));
+      case FUNCTION_NODE:
+        Expression function = compileFunction((FunctionNode) expr);
+        if (function != null) {
+          return function;
+        }
+        break;
+      default:
+        break;
+    }
+    // Comprehensions, map literals, builtin functions and the like are left to the EvalVisitor.
+    return rv -> rv.evalVisitor().exec(expr);
+  }
+
+  private static Expression constant(SoyValue value) {
+    return rv -> value;
+  }
+
+  private static Expression binary(ExprNode expr, BinaryOperator<SoyValue> operator) {
+    ParentExprNode parent = (ParentExprNode) expr;
+    Expression left = compile(parent.getChild(0));
+    Expression right = compile(parent.getChild(1));
+    return rv -> operator.apply(left.eval(rv), right.eval(rv));
+  }
+
+  private static List<SoyValue> evalAll(RenderVisitor rv, Expression[] exprs) {
+    List<SoyValue> values = new ArrayList<>(exprs.length);
+    for (Expression expr : exprs) {
+      values.add(expr.eval(rv));
+    }
+    return values;
+  }
+
+  private static Expression compileRecordLiteral(RecordLiteralNode node) {
+    int numItems = node.numChildren();
+    String[] keys = new String[numItems];
+    for (int i = 0; i < numItems; i++) {
+      keys[i] = node.getKey(i).identifier();
+    }
+    Expression[] values = compile(node.getChildren());
+    return rv -> {
+      Map<String, SoyValue> map = new LinkedHashMap<>();
+      for (int i = 0; i < numItems; i++) {
+        map.put(keys[i], values[i].eval(rv));
+      }
+      return DictImpl.forProviderMap(map, RuntimeMapTypeTracker.Type.LEGACY_OBJECT_MAP_OR_RECORD);
+    };
+  }
+
+  /** A compiled data access, applied to the value of its base expression. */
+  private interface Access {
+    SoyValue apply(RenderVisitor rv, SoyValue base);
+  }
+
+  /**
+   * Compiles a data access and, like {@code EvalVisitor.accumulateDataAccess}, the accesses in its
+   * base expression.
+   */
+  private static Access compileChainedAccess(DataAccessNode node) {
+    if (node.getBaseExprChild() instanceof DataAccessNode) {
+      Access inner = compileChainedAccess((DataAccessNode) node.getBaseExprChild());
+      Access outer = compileAccess(node, /* nullSafe= */ false);
+      return (rv, base) -> outer.apply(rv, inner.apply(rv, base));
+    }
+    return compileAccess(node, /* nullSafe= */ true);
+  }
+
+  /** Compiles a single data access, not including its base expression. */
+  private static Access compileAccess(DataAccessNode node, boolean nullSafe) {
+    switch (node.getKind()) {
+      case FIELD_ACCESS_NODE:
+        FieldAccessNode field = (FieldAccessNode) node;
+        return (rv, base) -> rv.evalVisitor().visitFieldAccessNode(field, base, nullSafe);
+      case ITEM_ACCESS_NODE:
+        ItemAccessNode item = (ItemAccessNode) node;
+        Expression key = compile(item.getKeyExprChild());
+        return (rv, base) -> {
+          EvalVisitor ev = rv.evalVisitor();
+          SoyValue invalidAccess = ev.checkItemAccessBase(item, base, nullSafe);
+          return invalidAccess != null ? invalidAccess : ev.getItem(item, base, key.eval(rv));
+        };
+      case METHOD_CALL_NODE:
+        MethodCallNode call = (MethodCallNode) node;
+        if (call.isMethodResolved() && call.getSoyMethod() instanceof SoySourceFunctionMethod) {
+          JavaPluginExecContext context =
+              JavaPluginExecContext.forMethodCallNode(
+                  call, (SoySourceFunctionMethod) call.getSoyMethod());
+          ExprNode receiver = call.getBaseExprChild();
+          Expression[] params = compile(call.getParams());
+          return (rv, base) -> {
+            // Never allow a null method receiver.
+            base = EvalVisitor.assertNotNull(base, receiver);
+            List<SoyValue> args = new ArrayList<>(params.length + 1);
+            args.add(base);
+            for (Expression param : params) {
+              args.add(param.eval(rv));
+            }
+            return rv.evalVisitor().computeFunctionHelper(args, context);
+          };
+        }
+        return (rv, base) -> rv.evalVisitor().visitMethodCallNode(call, base);
+      default:
+        throw new AssertionError(node.getKind());
+    }
+  }
+
+  private static Expression compileNullSafeAccess(NullSafeAccessNode node) {
+    Expression base = compile(node.getBase());
+    List<Access> steps = new ArrayList<>();
+    ExprNode dataAccess = node.getDataAccess();
+    while (dataAccess.getKind() == ExprNode.Kind.NULL_SAFE_ACCESS_NODE) {
+      NullSafeAccessNode nullSafeAccess = (NullSafeAccessNode) dataAccess;
+      steps.add(compileChainedAccess((DataAccessNode) nullSafeAccess.getBase()));
+      dataAccess = nullSafeAccess.getDataAccess();
+    }
+    if (dataAccess.getKind() == ExprNode.Kind.ASSERT_NON_NULL_OP_NODE) {
+      dataAccess = ((AssertNonNullOpNode) dataAccess).getChild(0);
+    }
+    Access[] chain = steps.toArray(new Access[0]);
+    Access tail = compileChainedAccess((DataAccessNode) dataAccess);
+    return rv -> {
+      SoyValue value = base.eval(rv);
+      for (Access step : chain) {
+        if (EvalVisitor.isNullOrUndefinedBase(value)) {
+          return NullData.INSTANCE;
+        }
+        value = step.apply(rv, value);
+      }
+      if (EvalVisitor.isNullOrUndefinedBase(value)) {
+        return NullData.INSTANCE;
+      }
+      return tail.apply(rv, value);
+    };
+  }
+
+  /** Compiles calls to plugin functions, or returns null for the EvalVisitor to evaluate. */
+  @Nullable
+  private static Expression compileFunction(FunctionNode node) {
+    if (!node.isResolved()) {
+      return null;
+    }
+    Object soyFunction = node.getSoyFunction();
+    if (soyFunction == BuiltinFunction.CHECK_NOT_NULL) {
+      ExprNode child = node.getChild(0);
+      Expression value = compile(child);
+      return rv -> EvalVisitor.assertNotNull(value.eval(rv), child);
+    } else if (soyFunction == BuiltinFunction.TO_FLOAT) {
+      Expression value = compile(node.getChild(0));
+      return rv -> FloatData.forValue((double) ((IntegerData) value.eval(rv)).longValue());
+    } else if (soyFunction instanceof SoyJavaFunction) {
+      SoyJavaFunction fn = (SoyJavaFunction) soyFunction;
+      Expression[] args = compile(node.getChildren());
+      return rv -> rv.evalVisitor().computeFunctionHelper(fn, evalAll(rv, args), node);
+    } else if (soyFunction instanceof SoyJavaSourceFunction) {
+      JavaPluginExecContext context =
+          JavaPluginExecContext.forFunctionNode(node, (SoyJavaSourceFunction) soyFunction);
+      Expression[] args = compile(node.getChildren());
+      return rv -> rv.evalVisitor().computeFunctionHelper(evalAll(rv, args), context);
+    } else if (soyFunction instanceof LoggingFunction) {
+      return constant(StringData.forValue(((LoggingFunction) soyFunction).getPlaceholder()));
+    }
+    return null;
+  }
+}
@@ -29,7 +29,7 @@ import com.google.template.soy.data.SoyAbstractCachingValueProvider;
 import com.google.template.soy.data.SoyAbstractCachingValueProvider.ValueAssertion;
 import com.google.template.soy.data.SoyDataException;
 import com.google.template.soy.data.SoyFutureValueProvider;
-import com.google.template.soy.data.SoyFutureValueProvider.FutureBlockCallback;
+import com.google.template.soy.data.SoyFutureValueProvider.FutureBlockCallbackScope;
 import com.google.template.soy.data.SoyList;
 import com.google.template.soy.data.SoyRecord;
 import com.google.template.soy.data.SoyRecords;
@@ -93,6 +93,7 @@ import com.google.template.soy.soytree.SwitchNode;
 import com.google.template.soy.soytree.TemplateBasicNode;
 import com.google.template.soy.soytree.TemplateNode;
 import com.google.template.soy.soytree.VeLogNode;
+import com.google.template.soy.soytree.defn.ImportedVar;
 import com.google.template.soy.soytree.defn.TemplateParam;
 import com.google.template.soy.types.SoyType.Kind;
 import java.io.Flushable;
@@ -102,6 +103,7 @@ import java.util.Deque;
 import java.util.List;
 import java.util.Optional;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 import javax.annotation.Nullable;
 
 /**
@@ -169,6 +171,9 @@ public class RenderVisitor extends AbstractSoyNodeVisitor<Void> {
   /** The runtime instances for functions. */
   private final PluginInstances pluginInstances;
 
+  /** The compiled template bodies to render, or null to interpret the AST. */
+  @Nullable private final RenderClosures closures;
+
   private static final String VARIANT_PARAM_NAME = "$$__variant__";
 
   /**
@@ -199,6 +204,43 @@ public class RenderVisitor extends AbstractSoyNodeVisitor<Void> {
       @Nullable SoyCssRenamingMap cssRenamingMap,
       boolean debugSoyTemplateInfo,
       PluginInstances pluginInstances) {
+    this(
+        evalVisitorFactory,
+        outputBuf,
+        basicTemplates,
+        deltemplates,
+        constants,
+        externs,
+        data,
+        ijData,
+        activeModSelector,
+        msgBundle,
+        xidRenamingMap,
+        cssRenamingMap,
+        debugSoyTemplateInfo,
+        pluginInstances,
+        /* closures= */ null);
+  }
+
+  /**
+   * @param closures The compiled template bodies to render, or null to interpret the AST.
+   */
+  public RenderVisitor(
+      EvalVisitorFactory evalVisitorFactory,
+      Appendable outputBuf,
+      ImmutableMap<String, TemplateNode> basicTemplates,
+      DelTemplateSelector<TemplateNode> deltemplates,
+      ImmutableTable<SourceFilePath, String, ConstNode> constants,
+      ImmutableTable<SourceFilePath, String, ImmutableList<ExternNode>> externs,
+      SoyRecord data,
+      @Nullable SoyRecord ijData,
+      @Nullable Predicate<String> activeModSelector,
+      @Nullable SoyMsgBundle msgBundle,
+      @Nullable SoyIdRenamingMap xidRenamingMap,
+      @Nullable SoyCssRenamingMap cssRenamingMap,
+      boolean debugSoyTemplateInfo,
+      PluginInstances pluginInstances,
+      @Nullable RenderClosures closures) {
     checkNotNull(data);
 
     this.evalVisitorFactory = evalVisitorFactory;
@@ -214,6 +256,7 @@ public class RenderVisitor extends AbstractSoyNodeVisitor<Void> {
     this.cssRenamingMap = (cssRenamingMap == null) ? SoyCssRenamingMap.EMPTY : cssRenamingMap;
     this.debugSoyTemplateInfo = debugSoyTemplateInfo;
     this.pluginInstances = checkNotNull(pluginInstances);
+    this.closures = closures;
 
     this.evalVisitor = null; // lazily initialized
     this.assistantForMsgs = null; // lazily initialized
@@ -235,10 +278,10 @@ public class RenderVisitor extends AbstractSoyNodeVisitor<Void> {
     if (flushable != null) {
       // only do this in exec() so that all recursively called templates flush the correct top-level
       // output stream
-      FutureBlockCallback old = SoyFutureValueProvider.futureBlockCallback.get();
-      SoyFutureValueProvider.futureBlockCallback.set(flushable);
-      super.exec(node);
-      SoyFutureValueProvider.futureBlockCallback.set(old);
+      try (FutureBlockCallbackScope scope =
+          SoyFutureValueProvider.enterFutureBlockCallback(flushable)) {
+        super.exec(node);
+      }
     } else {
       super.exec(node);
     }
@@ -267,7 +310,8 @@ public class RenderVisitor extends AbstractSoyNodeVisitor<Void> {
         xidRenamingMap,
         cssRenamingMap,
         debugSoyTemplateInfo,
-        pluginInstances);
+        pluginInstances,
+        closures);
   }
 
   /**
@@ -286,14 +330,27 @@ public class RenderVisitor extends AbstractSoyNodeVisitor<Void> {
     // Visit top-level constant and imports explicitly every time we render a new template, in order
     // to populate the variable environment.
     SoyFileNode file = templateToRender.getParent();
-    file.getImports().forEach(this::visitImportNode);
-    file.getConstants().forEach(this::visitConstNode);
+    if (closures != null) {
+      closures.compileFileScope(file).render(this);
+    } else {
+      file.getImports().forEach(this::visitImportNode);
+      file.getConstants().forEach(this::visitConstNode);
+    }
 
     checkStrictParamTypes(templateToRender);
-    visitChildren(templateToRender);
+    renderChildren(templateToRender);
     env = null; // unpin for gc
   }
 
+  /** Renders the children of the given node, with the compiled closures if there are any. */
+  private void renderChildren(ParentSoyNode<?> node) {
+    if (closures != null) {
+      closures.compileChildren(node).render(this);
+    } else {
+      visitChildren(node);
+    }
+  }
+
   /** If the template is a modifiable template, look it up in the map and return the active one. */
   private TemplateNode getTemplateToRender(TemplateNode template) {
     if (template instanceof TemplateBasicNode && ((TemplateBasicNode) template).isModifiable()) {
@@ -324,20 +381,23 @@ public class RenderVisitor extends AbstractSoyNodeVisitor<Void> {
               && var.type().getKind() != Kind.TEMPLATE_TYPE) {
             // Any nested vardefn of a template module import that is not a template type must be a
             // constant.
-            env.bind(
-                var,
-                SoyValueConverter.INSTANCE.convertLazy(
-                    // Bind this lazily since we process every import for every template in the
-                    // file.
-                    () -> {
-                      ConstNode constNode =
-                          constants.get(SourceFilePath.create(node.getPath()), var.getSymbol());
-                      return eval(constNode.getExpr(), constNode);
-                    }));
+            bindImportedConstant(var, SourceFilePath.create(node.getPath()));
           }
         });
   }
 
+  /** Binds an imported constant, which is evaluated the first time it is used. */
+  void bindImportedConstant(ImportedVar var, SourceFilePath path) {
+    env.bind(
+        var,
+        SoyValueConverter.INSTANCE.convertLazy(
+            // Bind this lazily since we process every import for every template in the file.
+            () -> {
+              ConstNode constNode = constants.get(path, var.getSymbol());
+              return eval(constNode.getExpr(), constNode);
+            }));
+  }
+
   @Override
   protected void visitConstNode(ConstNode node) {
     SoyValue constValue = eval(node.getExpr(), node);
@@ -354,17 +414,40 @@ public class RenderVisitor extends AbstractSoyNodeVisitor<Void> {
     append(currOutputBuf, node.getRawText());
   }
 
+  /** Appends text to the current output buffer. */
+  void appendToOutput(CharSequence text) {
+    append(currOutputBuf, text);
+  }
+
+  /** Appends a value to the current output buffer. */
+  void appendToOutput(SoyValue value, SoyNode node) {
+    append(currOutputBuf, value, node);
+  }
+
   @Override
   protected void visitMsgFallbackGroupNode(MsgFallbackGroupNode node) {
+    renderMsg(node, rv -> rv.assistantForMsgs().visitForUseByMaster(node));
+  }
+
+  /** Returns the assistant that renders messages with the bundle of this render. */
+  RenderVisitorAssistantForMsgs assistantForMsgs() {
     if (assistantForMsgs == null) {
       assistantForMsgs = new RenderVisitorAssistantForMsgs(this, msgBundle);
     }
+    return assistantForMsgs;
+  }
+
+  /**
+   * Renders a message group with the given body, escaping the whole message with the group's
+   * escaping directives if it has any.
+   */
+  void renderMsg(MsgFallbackGroupNode node, RenderClosures.Statement body) {
     if (!node.getEscapingDirectives().isEmpty()) {
       // The entire message needs to be escaped, so we need to render to a temporary buffer.
       // Fortunately, for most messages (in HTML context) this is unnecessary.
       pushOutputBuf(new StringBuilder());
     }
-    assistantForMsgs.visitForUseByMaster(node);
+    body.render(this);
     if (!node.getEscapingDirectives().isEmpty()) {
       // Escape the entire message with the required directives.
       SoyValue wholeMsg = StringData.forValue(popOutputBuf().toString());
@@ -384,13 +467,7 @@ public class RenderVisitor extends AbstractSoyNodeVisitor<Void> {
   protected void visitPrintNode(PrintNode node) {
 
     SoyValue result = eval(node.getExpr(), node);
-    if (result instanceof UndefinedData) {
-      throw RenderException.createWithSource(
-          "In 'print' tag, expression \""
-              + node.getExpr().toSourceString()
-              + "\" evaluates to undefined.",
-          node);
-    }
+    checkPrintResult(result, node);
 
     // Process directives.
     for (PrintDirectiveNode directiveNode : node.getChildren()) {
@@ -409,6 +486,17 @@ public class RenderVisitor extends AbstractSoyNodeVisitor<Void> {
     append(currOutputBuf, result, node);
   }
 
+  /** Checks that the value of a {@code print} expression is defined. */
+  static void checkPrintResult(SoyValue result, PrintNode node) {
+    if (result instanceof UndefinedData) {
+      throw RenderException.createWithSource(
+          "In 'print' tag, expression \""
+              + node.getExpr().toSourceString()
+              + "\" evaluates to undefined.",
+          node);
+    }
+  }
+
   @Override
   protected void visitLetValueNode(LetValueNode node) {
     env.bind(node.getVar(), lazyEval(node.getExpr(), node));
@@ -486,19 +574,7 @@ public class RenderVisitor extends AbstractSoyNodeVisitor<Void> {
         }
       }
     } else {
-      SoyValue dataRefValue = eval(node.getExpr(), node);
-      if (!(dataRefValue instanceof SoyList)) {
-        throw RenderException.createWithSource(
-            "In 'for' command "
-                + node.toSourceString()
-                + ", the data reference does not "
-                + "resolve to a SoyList "
-                + "(encountered type "
-                + dataRefValue.getClass().getName()
-                + ").",
-            node);
-      }
-      SoyList foreachList = (SoyList) dataRefValue;
+      SoyList foreachList = asForeachList(eval(node.getExpr(), node), node);
       int listLength = foreachList.length();
       if (listLength > 0) {
         // Case 1: Nonempty list.
@@ -510,15 +586,36 @@ public class RenderVisitor extends AbstractSoyNodeVisitor<Void> {
     }
   }
 
+  /** Returns the list to iterate over in a {@code for} loop. */
+  static SoyList asForeachList(SoyValue dataRefValue, ForNode node) {
+    if (!(dataRefValue instanceof SoyList)) {
+      throw RenderException.createWithSource(
+          "In 'for' command "
+              + node.toSourceString()
+              + ", the data reference does not "
+              + "resolve to a SoyList "
+              + "(encountered type "
+              + dataRefValue.getClass().getName()
+              + ").",
+          node);
+    }
+    return (SoyList) dataRefValue;
+  }
+
   private void executeForeachBody(ForNonemptyNode child, int i, SoyValueProvider value) {
+    bindLoopVariables(child, i, value);
+    visitChildren(child);
+  }
+
+  /** Binds the item and index variables for an iteration of a {@code for} loop. */
+  void bindLoopVariables(ForNonemptyNode child, int i, SoyValueProvider value) {
     env.bindLoopPosition(child.getVar(), value);
     if (child.getIndexVar() != null) {
       env.bind(child.getIndexVar(), SoyValueConverter.INSTANCE.convert(i));
     }
-    visitChildren(child);
   }
 
-  private int evalRangeArg(SoyNode node, ExprNode rangeArg) {
+  int evalRangeArg(SoyNode node, ExprNode rangeArg) {
     SoyValue rangeArgValue = eval(rangeArg, node);
     if (!(rangeArgValue instanceof IntegerData)) {
       throw RenderException.create(
@@ -533,20 +630,35 @@ public class RenderVisitor extends AbstractSoyNodeVisitor<Void> {
 
   @Override
   protected void visitCallBasicNode(CallBasicNode node) {
-    TofuTemplateValue calleeExpr = (TofuTemplateValue) eval(node.getCalleeExpr(), node);
+    renderBasicCall(
+        node, eval(node.getCalleeExpr(), node), () -> createCallParamsWithVariant(node));
+  }
+
+  /**
+   * Renders a call to a basic template.
+   *
+   * @param calleeValue The value of the callee expression.
+   * @param callParams Creates the params of the call, once the callee has been found.
+   */
+  void renderBasicCall(CallBasicNode node, SoyValue calleeValue, Supplier<SoyRecord> callParams) {
+    TofuTemplateValue calleeExpr = (TofuTemplateValue) calleeValue;
     TemplateNode callee = basicTemplates.get(calleeExpr.getTemplateName());
     if (callee == null) {
       throw RenderException.createWithSource(
           "Attempting to render undefined template '" + node.getCalleeName() + "'.", node);
     }
 
-    visitCallNodeHelper(node, callee, calleeExpr.getBoundParameters());
+    visitCallNodeHelper(node, callee, calleeExpr.getBoundParameters(), callParams.get());
   }
 
   /** Returns the variant expression coerce to a string for map lookup. */
   protected String variantString(ExprNode variantExpr, CallNode node) {
+    return variantString(eval(variantExpr, node), variantExpr, node);
+  }
+
+  /** Returns the value of the variant expression coerced to a string for map lookup. */
+  String variantString(SoyValue variantData, ExprNode variantExpr, CallNode node) {
     try {
-      SoyValue variantData = eval(variantExpr, node);
       if (variantData instanceof IntegerData) {
         // An integer constant is being used as variant. Use the value string representation as
         // variant.
@@ -577,6 +689,16 @@ public class RenderVisitor extends AbstractSoyNodeVisitor<Void> {
     } else {
       variant = variantString(variantExpr, node);
     }
+    renderDelegateCall(node, variant, () -> createCallParamsWithVariant(node));
+  }
+
+  /**
+   * Renders a call to a delegate template.
+   *
+   * @param variant The value of the variant expression, or the empty string if there is none.
+   * @param callParams Creates the params of the call, once the callee has been found.
+   */
+  void renderDelegateCall(CallDelegateNode node, String variant, Supplier<SoyRecord> callParams) {
     TemplateNode callee;
     try {
       callee = deltemplates.selectTemplate(node.getDelCalleeName(), variant, activeModSelector);
@@ -585,7 +707,7 @@ public class RenderVisitor extends AbstractSoyNodeVisitor<Void> {
     }
 
     if (callee != null) {
-      visitCallNodeHelper(node, callee, Optional.empty());
+      visitCallNodeHelper(node, callee, Optional.empty(), callParams.get());
     } else {
       throw RenderException.createWithSource(
           "Found no active impl for delegate call to \""
@@ -597,10 +719,9 @@ public class RenderVisitor extends AbstractSoyNodeVisitor<Void> {
   }
 
   private void visitCallNodeHelper(
-      CallNode node, TemplateNode callee, Optional<SoyRecord> boundParams) {
+      CallNode node, TemplateNode callee, Optional<SoyRecord> boundParams, SoyRecord callData) {
 
     // ------ Build the call data. ------
-    SoyRecord callData = createCallParamsWithVariant(node);
     if (boundParams.isPresent()) {
       callData = SoyRecords.merge(boundParams.get(), callData);
     }
@@ -656,9 +777,13 @@ public class RenderVisitor extends AbstractSoyNodeVisitor<Void> {
   }
 
   private SoyRecord createCallParamsWithVariant(CallNode node) {
-    SoyRecord params = createCallParams(node);
+    return withVariant(createCallParams(node), getVariant(node));
+  }
+
+  /** Adds the variant of a call to its params, for the callee's {@code {delcall}}s. */
+  static SoyRecord withVariant(SoyRecord params, String variant) {
     return new ParamStore(params, params.recordSize() + 1)
-        .setField(VARIANT_PARAM_NAME, StringData.forValue(getVariant(node)));
+        .setField(VARIANT_PARAM_NAME, StringData.forValue(variant));
   }
 
   private SoyRecord createCallParams(CallNode node) {
@@ -734,7 +859,11 @@ public class RenderVisitor extends AbstractSoyNodeVisitor<Void> {
   }
 
   private SoyRecord getDataRecord(CallNode node) {
-    SoyValue dataRefValue = eval(node.getDataExpr(), node);
+    return checkDataRecord(eval(node.getDataExpr(), node), node);
+  }
+
+  /** Checks that the value of the data expression of a call is a record. */
+  static SoyRecord checkDataRecord(SoyValue dataRefValue, CallNode node) {
     if (!(dataRefValue instanceof SoyRecord)) {
       throw RenderException.create(
               "In 'call' command "
@@ -755,16 +884,21 @@ public class RenderVisitor extends AbstractSoyNodeVisitor<Void> {
   protected void visitVeLogNode(VeLogNode node) {
     ExprRootNode logonlyExpression = node.getLogonlyExpression();
     if (logonlyExpression != null) {
-      if (eval(logonlyExpression, node).booleanValue()) {
-        throw RenderException.createWithSource(
-            "Cannot set logonly=\"true\" unless there is a logger configured, but tofu doesn't "
-                + "support loggers",
-            node);
-      }
+      checkLogonly(eval(logonlyExpression, node), node);
     }
     visitChildren(node);
   }
 
+  /** Checks that a {@code velog} isn't log only, which requires a logger. */
+  static void checkLogonly(SoyValue logonly, VeLogNode node) {
+    if (logonly.booleanValue()) {
+      throw RenderException.createWithSource(
+          "Cannot set logonly=\"true\" unless there is a logger configured, but tofu doesn't "
+              + "support loggers",
+          node);
+    }
+  }
+
   @Override
   protected void visitLogNode(LogNode node) {
     renderBlock(node, System.out);
@@ -822,11 +956,11 @@ public class RenderVisitor extends AbstractSoyNodeVisitor<Void> {
    */
   private void renderBlock(BlockNode block, Appendable to) {
     pushOutputBuf(to);
-    visitChildren(block);
+    renderChildren(block);
     popOutputBuf();
   }
 
-  private SoyValueProvider renderRenderUnitNode(final RenderUnitNode renderUnitNode) {
+  SoyValueProvider renderRenderUnitNode(final RenderUnitNode renderUnitNode) {
     return new RenderableThunk(fromSanitizedContentKind(renderUnitNode.getContentKind())) {
       @Override
       protected void doRender(Appendable appendable) {
@@ -850,6 +984,46 @@ public class RenderVisitor extends AbstractSoyNodeVisitor<Void> {
           .addStackTraceElement(node);
     }
 
+    try {
+      return evalVisitor().exec(expr);
+    } catch (RenderException e) {
+      throw evalFailure(expr, node, e);
+    } catch (Exception e) {
+      throw evalFailure(expr, node, e);
+    }
+  }
+
+  /**
+   * Evaluates a compiled expression, reporting errors like {@link #eval(ExprNode, SoyNode)}.
+   *
+   * @param expr The expression that {@code compiled} was compiled from.
+   */
+  SoyValue eval(RenderClosures.Expression compiled, ExprNode expr, SoyNode node) {
+    if (expr == null) {
+      return eval(expr, node);
+    }
+    try {
+      return compiled.eval(this);
+    } catch (RenderException e) {
+      throw evalFailure(expr, node, e);
+    } catch (Exception e) {
+      throw evalFailure(expr, node, e);
+    }
+  }
+
+  private static RenderException evalFailure(ExprNode expr, SoyNode node, RenderException e) {
+    // RenderExceptions can be thrown when evaluating lazy transclusions.
+    return RenderException.createFromRenderException(
+        "When evaluating \"" + expr.toSourceString() + "\": " + e.getMessage(), e, node);
+  }
+
+  private static RenderException evalFailure(ExprNode expr, SoyNode node, Exception e) {
+    return RenderException.createWithSource(
+        "When evaluating \"" + expr.toSourceString() + "\": " + e.getMessage(), e, node);
+  }
+
+  /** Returns the visitor for evaluating expressions in the current environment. */
+  EvalVisitor evalVisitor() {
     // Lazily initialize evalVisitor.
     if (evalVisitor == null) {
       evalVisitor =
@@ -864,17 +1038,7 @@ public class RenderVisitor extends AbstractSoyNodeVisitor<Void> {
               deltemplates,
               activeModSelector);
     }
-
-    try {
-      return evalVisitor.exec(expr);
-    } catch (RenderException e) {
-      // RenderExceptions can be thrown when evaluating lazy transclusions.
-      throw RenderException.createFromRenderException(
-          "When evaluating \"" + expr.toSourceString() + "\": " + e.getMessage(), e, node);
-    } catch (Exception e) {
-      throw RenderException.createWithSource(
-          "When evaluating \"" + expr.toSourceString() + "\": " + e.getMessage(), e, node);
-    }
+    return evalVisitor;
   }
 
   /**
@@ -897,6 +1061,22 @@ public class RenderVisitor extends AbstractSoyNodeVisitor<Void> {
     };
   }
 
+  /** A lazy wrapper around {@link #eval(RenderClosures.Expression, ExprNode, SoyNode)}. */
+  SoyValueProvider lazyEval(
+      final RenderClosures.Expression compiled, final ExprNode expr, final SoyNode node) {
+    return new SoyAbstractCachingValueProvider() {
+      @Override
+      protected SoyValue compute() {
+        return eval(compiled, expr, node);
+      }
+
+      @Override
+      public RenderResult status() {
+        return RenderResult.done();
+      }
+    };
+  }
+
   /**
    * This method must only be called by assistant visitors, in particular
    * RenderVisitorAssistantForMsgs.
@@ -934,7 +1114,7 @@ public class RenderVisitor extends AbstractSoyNodeVisitor<Void> {
    * @param node The node with the escaping. Only used for error reporting.
    * @return The result of applying the directive with the given arguments to the given value.
    */
-  private SoyValue applyDirective(
+  SoyValue applyDirective(
       SoyPrintDirective directive, SoyValue value, List<SoyValue> args, SoyNode node) {
 
     // Get directive.
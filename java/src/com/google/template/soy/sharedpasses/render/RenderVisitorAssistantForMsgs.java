@@ -18,18 +18,13 @@ package com.google.template.soy.sharedpasses.render;
 
 import com.google.common.collect.ImmutableList;
 import com.google.template.soy.data.SoyDataException;
+import com.google.template.soy.data.SoyValue;
 import com.google.template.soy.exprtree.ExprRootNode;
 import com.google.template.soy.msgs.SoyMsgBundle;
 import com.google.template.soy.msgs.internal.MsgUtils;
 import com.google.template.soy.msgs.restricted.SoyMsgPart;
-import com.google.template.soy.msgs.restricted.SoyMsgPlaceholderPart;
-import com.google.template.soy.msgs.restricted.SoyMsgPluralPart;
-import com.google.template.soy.msgs.restricted.SoyMsgPluralRemainderPart;
-import com.google.template.soy.msgs.restricted.SoyMsgRawTextPart;
-import com.google.template.soy.msgs.restricted.SoyMsgSelectPart;
 import com.google.template.soy.soytree.AbstractSoyNodeVisitor;
 import com.google.template.soy.soytree.CaseOrDefaultNode;
-import com.google.template.soy.soytree.EscapingMode;
 import com.google.template.soy.soytree.MsgFallbackGroupNode;
 import com.google.template.soy.soytree.MsgHtmlTagNode;
 import com.google.template.soy.soytree.MsgNode;
@@ -42,7 +37,6 @@ import com.google.template.soy.soytree.MsgSelectDefaultNode;
 import com.google.template.soy.soytree.MsgSelectNode;
 import com.google.template.soy.soytree.SoyNode;
 import com.ibm.icu.util.ULocale;
-import java.util.List;
 import javax.annotation.Nullable;
 
 /**
@@ -86,21 +80,13 @@ final class RenderVisitorAssistantForMsgs extends AbstractSoyNodeVisitor<Void> {
     if (msgBundle != null) {
       for (MsgNode msg : node.getChildren()) {
         ImmutableList<SoyMsgPart> translation =
-            msgBundle.getMsgParts(MsgUtils.computeMsgIdForDualFormat(msg));
+            MsgTranslationRenderer.getTranslation(
+                msgBundle, MsgUtils.computeMsgIdForDualFormat(msg), msg.getAlternateId());
         if (!translation.isEmpty()) {
           renderMsgFromTranslation(msg, translation, msgBundle.getLocale());
           foundTranslation = true;
           break;
         }
-        ImmutableList<SoyMsgPart> translationByAlternateId =
-            msg.getAlternateId().isPresent()
-                ? msgBundle.getMsgParts(msg.getAlternateId().getAsLong())
-                : ImmutableList.of();
-        if (!translationByAlternateId.isEmpty()) {
-          renderMsgFromTranslation(msg, translationByAlternateId, msgBundle.getLocale());
-          foundTranslation = true;
-          break;
-        }
       }
     }
     if (!foundTranslation) {
@@ -108,41 +94,27 @@ final class RenderVisitorAssistantForMsgs extends AbstractSoyNodeVisitor<Void> {
     }
   }
 
-  /**
-   * Private helper for visitMsgFallbackGroupNode() to render a message from its translation.
-   *
-   * <p>TODO(lukes): Refactor this to share the implementation with the JbcSrcRuntime.
-   */
+  /** Private helper for visitMsgFallbackGroupNode() to render a message from its translation. */
   private void renderMsgFromTranslation(
       MsgNode msg, ImmutableList<SoyMsgPart> msgParts, @Nullable ULocale locale) {
-    SoyMsgPart firstPart = msgParts.get(0);
-
-    if (firstPart instanceof SoyMsgPluralPart) {
-      new PlrselMsgPartsVisitor(msg, locale).visitPart((SoyMsgPluralPart) firstPart);
-
-    } else if (firstPart instanceof SoyMsgSelectPart) {
-      new PlrselMsgPartsVisitor(msg, locale).visitPart((SoyMsgSelectPart) firstPart);
-
-    } else {
-      for (SoyMsgPart msgPart : msgParts) {
-
-        if (msgPart instanceof SoyMsgRawTextPart) {
-          String s = ((SoyMsgRawTextPart) msgPart).getRawText();
-          if (msg.getEscapingMode() == EscapingMode.ESCAPE_HTML) {
-            // Note that "&" is not replaced because the translation can contain HTML entities.
-            s = s.replace("<", "&lt;");
-          }
-          RenderVisitor.append(master.getCurrOutputBufForUseByAssistants(), s);
+    new MsgTranslationRenderer(msg) {
+      @Override
+      void renderPlaceholder(RenderVisitor rv, String placeholderName) {
+        // Since the content of a placeholder is not altered by translation, just render
+        // the corresponding placeholder node.
+        visit(msg.getRepPlaceholderNode(placeholderName));
+      }
 
-        } else if (msgPart instanceof SoyMsgPlaceholderPart) {
-          String placeholderName = ((SoyMsgPlaceholderPart) msgPart).getPlaceholderName();
-          visit(msg.getRepPlaceholderNode(placeholderName));
+      @Override
+      SoyValue evalPluralVar(RenderVisitor rv, String varName, MsgPluralNode node) {
+        return master.evalForUseByAssistants(node.getExpr(), node);
+      }
 
-        } else {
-          throw new AssertionError();
-        }
+      @Override
+      SoyValue evalSelectVar(RenderVisitor rv, String varName, MsgSelectNode node) {
+        return master.evalForUseByAssistants(node.getExpr(), node);
       }
-    }
+    }.render(master, msgParts, locale);
   }
 
   /** Private helper for visitMsgFallbackGroupNode() to render a message from its source. */
@@ -162,11 +134,7 @@ final class RenderVisitorAssistantForMsgs extends AbstractSoyNodeVisitor<Void> {
     try {
       pluralValue = master.evalForUseByAssistants(pluralExpr, node).numberValue();
     } catch (SoyDataException e) {
-      throw RenderException.createWithSource(
-          String.format(
-              "Plural expression \"%s\" doesn't evaluate to number.", pluralExpr.toSourceString()),
-          e,
-          node);
+      throw MsgTranslationRenderer.pluralFailure(node, e);
     }
 
     // Check each case.
@@ -192,11 +160,7 @@ final class RenderVisitorAssistantForMsgs extends AbstractSoyNodeVisitor<Void> {
     try {
       selectValue = master.evalForUseByAssistants(selectExpr, node).coerceToString();
     } catch (SoyDataException e) {
-      throw RenderException.createWithSource(
-          String.format(
-              "Select expression \"%s\" doesn't evaluate to string.", selectExpr.toSourceString()),
-          e,
-          node);
+      throw MsgTranslationRenderer.selectFailure(node, e);
     }
 
     // Check each case.
@@ -226,173 +190,6 @@ final class RenderVisitorAssistantForMsgs extends AbstractSoyNodeVisitor<Void> {
     visitChildren(node);
   }
 
-  // -----------------------------------------------------------------------------------------------
-  // Helper class for traversing a translated plural/select message.
-
-  /**
-   * Visitor for processing {@code SoyMsgPluralPart} and {@code SoyMsgSelectPart} objects.
-   *
-   * <p>Visits the parts hierarchy, evaluates each part and appends the result into the parent
-   * class' StringBuffer object.
-   *
-   * <p>In addition to writing to output, this inner class uses the outer class's master's eval()
-   * method to evaluate the expressions associated with the nodes.
-   */
-  private class PlrselMsgPartsVisitor {
-
-    /** The parent message node for the parts dealt here. */
-    private final MsgNode msgNode;
-
-    /** The locale for the translated message considered. */
-    private final ULocale locale;
-
-    /**
-     * Constructor.
-     *
-     * @param msgNode The parent message node for the parts dealt here.
-     * @param locale The locale of the Soy message.
-     */
-    public PlrselMsgPartsVisitor(MsgNode msgNode, ULocale locale) {
-      this.msgNode = msgNode;
-      this.locale = locale;
-    }
-
-    /**
-     * Processes a {@code SoyMsgSelectPart} and appends the rendered output to the {@code
-     * StringBuilder} object in {@code RenderVisitor}.
-     *
-     * @param selectPart The Select part.
-     */
-    private void visitPart(SoyMsgSelectPart selectPart) {
-
-      String selectVarName = selectPart.getSelectVarName();
-      MsgSelectNode repSelectNode = msgNode.getRepSelectNode(selectVarName);
-
-      // Associate the select variable with the value.
-      String correctSelectValue;
-      ExprRootNode selectExpr = repSelectNode.getExpr();
-      try {
-        correctSelectValue = master.evalForUseByAssistants(selectExpr, repSelectNode).stringValue();
-      } catch (SoyDataException e) {
-        throw RenderException.createWithSource(
-            String.format(
-                "Select expression \"%s\" doesn't evaluate to string.",
-                selectExpr.toSourceString()),
-            e,
-            repSelectNode);
-      }
-
-      List<SoyMsgPart> caseParts = selectPart.lookupCase(correctSelectValue);
-
-      if (caseParts != null) {
-
-        for (SoyMsgPart casePart : caseParts) {
-
-          if (casePart instanceof SoyMsgSelectPart) {
-            visitPart((SoyMsgSelectPart) casePart);
-
-          } else if (casePart instanceof SoyMsgPluralPart) {
-            visitPart((SoyMsgPluralPart) casePart);
-
-          } else if (casePart instanceof SoyMsgPlaceholderPart) {
-            visitPart((SoyMsgPlaceholderPart) casePart);
-
-          } else if (casePart instanceof SoyMsgRawTextPart) {
-            appendRawTextPart((SoyMsgRawTextPart) casePart);
-
-          } else {
-            throw RenderException.create(
-                    "Unsupported part of type "
-                        + casePart.getClass().getName()
-                        + " under a select case.")
-                .addStackTraceElement(repSelectNode);
-          }
-        }
-      }
-    }
-
-    /**
-     * Processes a {@code SoyMsgPluralPart} and appends the rendered output to the {@code
-     * StringBuilder} object in {@code RenderVisitor}. It uses the message node cached in this
-     * object to get the corresponding Plural node, gets its variable value and offset, and computes
-     * the remainder value to be used to render the {@code SoyMsgPluralRemainderPart} later.
-     *
-     * @param pluralPart The Plural part.
-     */
-    private void visitPart(SoyMsgPluralPart pluralPart) {
-
-      MsgPluralNode repPluralNode = msgNode.getRepPluralNode(pluralPart.getPluralVarName());
-      double correctPluralValue;
-      ExprRootNode pluralExpr = repPluralNode.getExpr();
-      try {
-        correctPluralValue = master.evalForUseByAssistants(pluralExpr, repPluralNode).numberValue();
-      } catch (SoyDataException e) {
-        throw RenderException.createWithSource(
-            String.format(
-                "Plural expression \"%s\" doesn't evaluate to number.",
-                pluralExpr.toSourceString()),
-            e,
-            repPluralNode);
-      }
-
-      // Handle cases.
-      List<SoyMsgPart> caseParts = pluralPart.lookupCase(correctPluralValue, locale);
-
-      for (SoyMsgPart casePart : caseParts) {
-
-        if (casePart instanceof SoyMsgPlaceholderPart) {
-          visitPart((SoyMsgPlaceholderPart) casePart);
-
-        } else if (casePart instanceof SoyMsgRawTextPart) {
-          appendRawTextPart((SoyMsgRawTextPart) casePart);
-
-        } else if (casePart instanceof SoyMsgPluralRemainderPart) {
-          appendPluralRemainder(correctPluralValue - pluralPart.getOffset());
-
-        } else {
-          // Plural parts will not have nested plural/select parts.  So, this is an error.
-          throw RenderException.create(
-                  "Unsupported part of type "
-                      + casePart.getClass().getName()
-                      + " under a plural case.")
-              .addStackTraceElement(repPluralNode);
-        }
-      }
-    }
-
-    /**
-     * Process a {@code SoyMsgPlaceholderPart} and updates the internal data structures.
-     *
-     * @param msgPlaceholderPart the Placeholder part.
-     */
-    private void visitPart(SoyMsgPlaceholderPart msgPlaceholderPart) {
-
-      // Since the content of a placeholder is not altered by translation, just render
-      // the corresponding placeholder node.
-      visit(msgNode.getRepPlaceholderNode(msgPlaceholderPart.getPlaceholderName()));
-    }
-
-    /**
-     * Processes a {@code SoyMsgPluralRemainderPart} and appends the rendered output to the {@code
-     * StringBuilder} object in {@code RenderVisitor}. Since this is precomputed when visiting the
-     * {@code SoyMsgPluralPart} object, it is directly used here.
-     */
-    private void appendPluralRemainder(double currentPluralRemainderValue) {
-      RenderVisitor.append(
-          master.getCurrOutputBufForUseByAssistants(), String.valueOf(currentPluralRemainderValue));
-    }
-
-    /**
-     * Processes a {@code SoyMsgRawTextPart} and appends the contained text to the {@code
-     * StringBuilder} object in {@code RenderVisitor}.
-     *
-     * @param rawTextPart The raw text part.
-     */
-    private void appendRawTextPart(SoyMsgRawTextPart rawTextPart) {
-      RenderVisitor.append(master.getCurrOutputBufForUseByAssistants(), rawTextPart.getRawText());
-    }
-  }
-
   // -----------------------------------------------------------------------------------------------
   // Fallback implementation.
 
@@ -21,6 +21,7 @@ import com.google.template.soy.types.FunctionType;
 import com.google.template.soy.types.SoyType;
 import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 import javax.annotation.Nullable;
 
 /**
@@ -49,6 +50,22 @@ public interface FileMetadata extends PartialFileMetadata {
   /** Returns all templates in this file, including possible naming collisions. */
   Collection<TemplateMetadata> getTemplates();
 
+  /**
+   * Returns the full names of the templates in this file. Unlike {@link #getTemplates}, this
+   * doesn't require the metadata of every template to be built.
+   */
+  Set<String> getTemplateFullNames();
+
+  /** Returns the template with the given full name, or null if it isn't defined in this file. */
+  @Nullable
+  TemplateMetadata getTemplateByFullName(String fullName);
+
+  /**
+   * Returns the templates in this file that delegate calls can select: deltemplates, and modifiable
+   * and modifying templates.
+   */
+  Collection<TemplateMetadata> getDelTemplates();
+
   @Nullable
   Constant getConstant(String name);
 
@@ -16,6 +16,8 @@
 
 package com.google.template.soy.soytree;
 
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
 import com.google.common.base.Preconditions;
 import com.google.template.soy.base.SourceFilePath;
 import com.google.template.soy.shared.internal.DelTemplateSelector;
@@ -58,6 +60,16 @@ public interface FileSetMetadata extends PartialFileSetMetadata {
    */
   Collection<TemplateMetadata> getAllTemplates();
 
+  /**
+   * Returns all templates that delegate calls can select, in no particular order. This is cheaper
+   * than {@link #getAllTemplates} since other templates in deps don't need to be loaded.
+   */
+  default Collection<TemplateMetadata> getAllDelTemplates() {
+    return getAllFiles().stream()
+        .flatMap(f -> f.getDelTemplates().stream())
+        .collect(toImmutableList());
+  }
+
   /**
    * Retrieves a template or element given the template name.
    *
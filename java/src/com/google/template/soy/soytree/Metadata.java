@@ -30,6 +30,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableListMultimap;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
 import com.google.errorprone.annotations.concurrent.LazyInit;
 import com.google.template.soy.base.SourceFilePath;
 import com.google.template.soy.base.internal.SanitizedContentKind;
@@ -51,6 +52,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
 import javax.annotation.Nullable;
 
 /**
@@ -172,6 +175,12 @@ public final class Metadata {
 
     @Nullable
     abstract SoyTypeRegistry typeRegistry();
+
+    /** Types parsed from headers, shared by all the files parsed with this context. */
+    @Memoized
+    Map<SoyTypeP, SoyType> typeCache() {
+      return new ConcurrentHashMap<>();
+    }
   }
 
   /** FileSetMetadata for deps. */
@@ -200,26 +209,19 @@ public final class Metadata {
     }
 
     @Memoized
-    protected ImmutableMap<String, TemplateMetadata> templateIndex() {
-      Map<String, TemplateMetadata> builder = new LinkedHashMap<>();
-      getAllTemplates()
-          .forEach(
-              t -> {
-                TemplateMetadata previous = builder.put(t.getTemplateName(), t);
-                warnNameCollision(context().errorReporter(), previous, t);
-              });
-      return ImmutableMap.copyOf(builder);
+    protected ImmutableMap<String, FileMetadata> templateIndex() {
+      return buildTemplateIndex(getAllFiles(), f -> true, context().errorReporter());
     }
 
     @Override
     public TemplateMetadata getTemplate(String templateFqn) {
-      return templateIndex().get(templateFqn);
+      return Metadata.getTemplate(templateIndex(), templateFqn);
     }
 
     @Override
     @Memoized
     public DelTemplateSelector<TemplateMetadata> getDelTemplateSelector() {
-      return buildDelTemplateSelector(getAllTemplates(), context().errorReporter(), this);
+      return buildDelTemplateSelector(getAllDelTemplates(), context().errorReporter(), this);
     }
 
     @Override
@@ -273,7 +275,7 @@ public final class Metadata {
     private final ParseContext context;
     // The following three fields contain all files/templates from both AST and deps.
     private final ImmutableMap<SourceFilePath, FileMetadata> fullFileIndex;
-    @LazyInit private ImmutableMap<String, TemplateMetadata> lazyFullTemplateIndex;
+    @LazyInit private ImmutableMap<String, FileMetadata> lazyFullTemplateIndex;
     @LazyInit private ImmutableList<TemplateMetadata> lazyAllTemplatesWithCollisions;
     @LazyInit private DelTemplateSelector<TemplateMetadata> delTemplateSelector;
 
@@ -301,42 +303,30 @@ public final class Metadata {
       fullFileIndex = ImmutableMap.copyOf(fullFileIndexBuilder);
     }
 
-    private ImmutableMap<String, TemplateMetadata> templateIndex() {
-      ImmutableMap<String, TemplateMetadata> tmp = lazyFullTemplateIndex;
-      ImmutableList.Builder<TemplateMetadata> allBuilder = ImmutableList.builder();
+    private ImmutableMap<String, FileMetadata> templateIndex() {
+      ImmutableMap<String, FileMetadata> tmp = lazyFullTemplateIndex;
       if (tmp == null) {
-        Map<String, TemplateMetadata> builder = new LinkedHashMap<>();
-        fullFileIndex
-            .values()
-            .forEach(
-                f ->
-                    f.getTemplates()
-                        .forEach(
-                            t -> {
-                              allBuilder.add(t);
-                              TemplateMetadata previous = builder.put(t.getTemplateName(), t);
-                              // Avoid duplicate warnings between deps and AST versions.
-                              if (!(f instanceof DepsFileMetadata)) {
-                                warnNameCollision(context.errorReporter(), previous, t);
-                              }
-                            }));
-        tmp = ImmutableMap.copyOf(builder);
+        tmp =
+            buildTemplateIndex(
+                fullFileIndex.values(),
+                // Avoid duplicate warnings between deps and AST versions.
+                f -> !(f instanceof DepsFileMetadata),
+                context.errorReporter());
         lazyFullTemplateIndex = tmp;
-        lazyAllTemplatesWithCollisions = allBuilder.build();
       }
       return tmp;
     }
 
     @Override
     public TemplateMetadata getTemplate(String templateFqn) {
-      return templateIndex().get(templateFqn);
+      return Metadata.getTemplate(templateIndex(), templateFqn);
     }
 
     @Override
     public DelTemplateSelector<TemplateMetadata> getDelTemplateSelector() {
       DelTemplateSelector<TemplateMetadata> tmp = delTemplateSelector;
       if (tmp == null) {
-        tmp = buildDelTemplateSelector(getAllTemplates(), context.errorReporter(), this);
+        tmp = buildDelTemplateSelector(getAllDelTemplates(), context.errorReporter(), this);
         delTemplateSelector = tmp;
       }
       return tmp;
@@ -354,8 +344,16 @@ public final class Metadata {
 
     @Override
     public ImmutableCollection<TemplateMetadata> getAllTemplates() {
-      templateIndex(); // init lazyAllTemplatesWithCollisions
-      return lazyAllTemplatesWithCollisions;
+      ImmutableList<TemplateMetadata> tmp = lazyAllTemplatesWithCollisions;
+      if (tmp == null) {
+        templateIndex(); // report collisions
+        tmp =
+            fullFileIndex.values().stream()
+                .flatMap(f -> f.getTemplates().stream())
+                .collect(toImmutableList());
+        lazyAllTemplatesWithCollisions = tmp;
+      }
+      return tmp;
     }
   }
 
@@ -383,10 +381,17 @@ public final class Metadata {
     }
 
     @Override
-    public final ImmutableSet<String> getTemplateNames() {
+    public ImmutableSet<String> getTemplateNames() {
       return templateIndex().keySet();
     }
 
+    @Override
+    public Collection<TemplateMetadata> getDelTemplates() {
+      return getTemplates().stream()
+          .filter(t -> t.getDelTemplateName() != null)
+          .collect(toImmutableList());
+    }
+
     @Override
     public final ImmutableSet<String> getConstantNames() {
       return constantIndex().keySet();
@@ -436,25 +441,80 @@ public final class Metadata {
                           c.getName(),
                           TemplateMetadataSerializer.fromProto(
                               c.getType(),
+                              context().typeCache(),
                               context().typeRegistry(),
                               getPath(),
                               context().errorReporter())),
                   (t1, t2) -> t1) /* Will be reported as error elsewhere. */);
     }
 
+    /**
+     * The template protos in this file, by full name. Template metadata is only built from these
+     * protos when it is accessed, since most compiles only use a few templates from each dep.
+     */
+    @Memoized
+    protected ImmutableMap<String, TemplateMetadataP> templateProtoIndex() {
+      return proto().getTemplateList().stream()
+          .collect(
+              toImmutableMap(
+                  t -> TemplateMetadataSerializer.templateNameFromProto(proto(), t),
+                  t -> t,
+                  (t1, t2) -> t1) /* Will be reported as error elsewhere. */);
+    }
+
+    /** The metadata that has been built so far, by full template name. */
+    @Memoized
+    protected Map<String, TemplateMetadata> builtTemplates() {
+      return new ConcurrentHashMap<>();
+    }
+
+    private TemplateMetadata buildTemplate(TemplateMetadataP template) {
+      return TemplateMetadataSerializer.metadataFromProto(
+          proto(),
+          template,
+          kind(),
+          context().typeRegistry(),
+          context().typeCache(),
+          getPath(),
+          context().errorReporter());
+    }
+
+    @Override
+    public ImmutableSet<String> getTemplateFullNames() {
+      return templateProtoIndex().keySet();
+    }
+
+    @Override
+    @Nullable
+    public TemplateMetadata getTemplateByFullName(String fullName) {
+      TemplateMetadataP template = templateProtoIndex().get(fullName);
+      if (template == null) {
+        return null;
+      }
+      return builtTemplates().computeIfAbsent(fullName, name -> buildTemplate(template));
+    }
+
     @Memoized
     @Override
     public ImmutableList<TemplateMetadata> getTemplates() {
       return proto().getTemplateList().stream()
           .map(
-              t ->
-                  TemplateMetadataSerializer.metadataFromProto(
-                      proto(),
-                      t,
-                      kind(),
-                      context().typeRegistry(),
-                      getPath(),
-                      context().errorReporter()))
+              t -> {
+                String name = TemplateMetadataSerializer.templateNameFromProto(proto(), t);
+                // Share metadata with the index, except for collisions which it doesn't contain.
+                return templateProtoIndex().get(name) == t
+                    ? getTemplateByFullName(name)
+                    : buildTemplate(t);
+              })
+          .collect(toImmutableList());
+    }
+
+    @Memoized
+    @Override
+    public ImmutableList<TemplateMetadata> getDelTemplates() {
+      return templateProtoIndex().entrySet().stream()
+          .filter(e -> TemplateMetadataSerializer.isDelegateProto(e.getValue()))
+          .map(e -> getTemplateByFullName(e.getKey()))
           .collect(toImmutableList());
     }
 
@@ -471,6 +531,7 @@ public final class Metadata {
                           (FunctionType)
                               TemplateMetadataSerializer.fromProto(
                                   SoyTypeP.newBuilder().setFunction(e.getSignature()).build(),
+                                  context().typeCache(),
                                   context().typeRegistry(),
                                   getPath(),
                                   context().errorReporter()))));
@@ -481,21 +542,36 @@ public final class Metadata {
       return kind();
     }
 
+    /** Maps the partial names of templates to their full names. */
     @Memoized
-    @Override
-    protected ImmutableMap<String, TemplateMetadata> templateIndex() {
-      return getTemplates().stream()
+    protected ImmutableMap<String, String> partialNameIndex() {
+      return templateProtoIndex().keySet().stream()
           .collect(
               toImmutableMap(
-                  t -> {
-                    String name = t.getTemplateName();
-                    int index = name.lastIndexOf('.');
-                    return index >= 0 ? name.substring(index + 1) : name;
-                  },
-                  t -> t,
+                  Metadata::partialTemplateName,
+                  name -> name,
                   (t1, t2) -> t1) /* Will be reported as error elsewhere. */);
     }
 
+    @Override
+    @Nullable
+    public TemplateMetadata getTemplate(String name) {
+      String fullName = partialNameIndex().get(name);
+      return fullName != null ? getTemplateByFullName(fullName) : null;
+    }
+
+    @Override
+    public ImmutableSet<String> getTemplateNames() {
+      return partialNameIndex().keySet();
+    }
+
+    @Memoized
+    @Override
+    protected ImmutableMap<String, TemplateMetadata> templateIndex() {
+      return ImmutableMap.copyOf(
+          Maps.transformValues(partialNameIndex(), this::getTemplateByFullName));
+    }
+
     @Override
     public String getNamespace() {
       return proto().getNamespace();
@@ -565,6 +641,7 @@ public final class Metadata {
     private final ImmutableMap<String, ConstantImpl> constantIndex;
     private final ImmutableList<TemplateMetadata> allTemplates;
     private final ImmutableMap<String, TemplateMetadata> templateIndex;
+    private final ImmutableMap<String, TemplateMetadata> fullNameIndex;
     private final ImmutableListMultimap<String, ExternImpl> externIndex;
 
     /** ASTs are mutable so we need to copy all data in the constructor. */
@@ -593,6 +670,7 @@ public final class Metadata {
 
       ImmutableList.Builder<TemplateMetadata> templates = ImmutableList.builder();
       Map<String, TemplateMetadata> index = new LinkedHashMap<>();
+      Map<String, TemplateMetadata> fullNames = new LinkedHashMap<>();
       ast.getTemplates()
           .forEach(
               t -> {
@@ -600,9 +678,11 @@ public final class Metadata {
                 templates.add(metadata);
                 // Duplicates reported elsewhere.
                 index.putIfAbsent(t.getPartialTemplateName(), metadata);
+                fullNames.putIfAbsent(t.getTemplateName(), metadata);
               });
       this.allTemplates = templates.build();
       this.templateIndex = ImmutableMap.copyOf(index);
+      this.fullNameIndex = ImmutableMap.copyOf(fullNames);
     }
 
     @Override
@@ -610,6 +690,16 @@ public final class Metadata {
       return allTemplates;
     }
 
+    @Override
+    public ImmutableSet<String> getTemplateFullNames() {
+      return fullNameIndex.keySet();
+    }
+
+    @Override
+    public TemplateMetadata getTemplateByFullName(String fullName) {
+      return fullNameIndex.get(fullName);
+    }
+
     @Override
     protected ImmutableMap<String, ConstantImpl> constantIndex() {
       return constantIndex;
@@ -682,6 +772,7 @@ public final class Metadata {
     private final FileMetadata primary;
     private final ImmutableMap<String, Constant> constantIndex;
     private final ImmutableMap<String, TemplateMetadata> templateIndex;
+    private final ImmutableMap<String, TemplateMetadata> fullNameIndex;
 
     public MergedFileMetadata(FileMetadata primary, FileMetadata secondary) {
       this.primary = primary;
@@ -694,7 +785,12 @@ public final class Metadata {
       Map<String, TemplateMetadata> templates = new LinkedHashMap<>();
       secondary.getTemplates().forEach(t -> templates.put(t.getTemplateName(), t));
       primary.getTemplates().forEach(t -> templates.put(t.getTemplateName(), t));
-      templateIndex = ImmutableMap.copyOf(templates);
+      fullNameIndex = ImmutableMap.copyOf(templates);
+      templateIndex =
+          fullNameIndex.values().stream()
+              .collect(
+                  toImmutableMap(
+                      t -> partialTemplateName(t.getTemplateName()), t -> t, (t1, t2) -> t1));
     }
 
     @Override
@@ -710,7 +806,17 @@ public final class Metadata {
     @Override
     public ImmutableCollection<TemplateMetadata> getTemplates() {
       // Don't report any duplicates with merged since one file overwrites the other.
-      return templateIndex.values();
+      return fullNameIndex.values();
+    }
+
+    @Override
+    public ImmutableSet<String> getTemplateFullNames() {
+      return fullNameIndex.keySet();
+    }
+
+    @Override
+    public TemplateMetadata getTemplateByFullName(String fullName) {
+      return fullNameIndex.get(fullName);
     }
 
     @Override
@@ -734,6 +840,43 @@ public final class Metadata {
     }
   }
 
+  /**
+   * Indexes the files of a file set by the full names of their templates, without building the
+   * metadata of templates unless their names collide.
+   *
+   * @param warnCollisions Whether to report collisions between a template in a file and an earlier
+   *     template with the same name.
+   */
+  private static ImmutableMap<String, FileMetadata> buildTemplateIndex(
+      Collection<? extends FileMetadata> files,
+      Predicate<FileMetadata> warnCollisions,
+      ErrorReporter errorReporter) {
+    Map<String, FileMetadata> index = new LinkedHashMap<>();
+    for (FileMetadata file : files) {
+      for (String name : file.getTemplateFullNames()) {
+        FileMetadata previous = index.put(name, file);
+        if (previous != null && warnCollisions.test(file)) {
+          warnNameCollision(
+              errorReporter,
+              previous.getTemplateByFullName(name),
+              file.getTemplateByFullName(name));
+        }
+      }
+    }
+    return ImmutableMap.copyOf(index);
+  }
+
+  @Nullable
+  private static TemplateMetadata getTemplate(
+      ImmutableMap<String, FileMetadata> templateIndex, String templateFqn) {
+    FileMetadata file = templateIndex.get(templateFqn);
+    return file != null ? file.getTemplateByFullName(templateFqn) : null;
+  }
+
+  private static String partialTemplateName(String templateName) {
+    return templateName.substring(templateName.lastIndexOf('.') + 1);
+  }
+
   private static DelTemplateSelector<TemplateMetadata> buildDelTemplateSelector(
       Collection<TemplateMetadata> allTemplates,
       ErrorReporter errorReporter,
@@ -112,11 +112,18 @@ public final class TemplateMetadataSerializer {
       SourceFilePath headerFilePath,
       ErrorReporter errorReporter) {
     ImmutableList.Builder<TemplateMetadata> templates = ImmutableList.builder();
+    Map<SoyTypeP, SoyType> typeCache = new HashMap<>();
     for (TemplateMetadataP templateProto : fileProto.getTemplateList()) {
       try {
         templates.add(
             metadataFromProto(
-                fileProto, templateProto, fileKind, typeRegistry, headerFilePath, errorReporter));
+                fileProto,
+                templateProto,
+                fileKind,
+                typeRegistry,
+                typeCache,
+                headerFilePath,
+                errorReporter));
       } catch (IllegalArgumentException iae) {
         errorReporter.report(
             new SourceLocation(headerFilePath),
@@ -168,47 +175,69 @@ public final class TemplateMetadataSerializer {
     return builder.build();
   }
 
+  /**
+   * Returns the full name of a template, which {@link #metadataFromProto} would also return from
+   * {@link TemplateMetadata#getTemplateName}. This is much cheaper than building the metadata, so
+   * it can be used to index the templates of a file without parsing their types.
+   */
+  static String templateNameFromProto(SoyFileP fileProto, TemplateMetadataP templateProto) {
+    switch (TEMPLATE_KIND_CONVERTER.convert(templateProto.getTemplateKind())) {
+      case ELEMENT:
+      case BASIC:
+        return TemplateNodeBuilder.combineNsAndName(
+            fileProto.getNamespace(), templateProto.getTemplateName());
+      case DELTEMPLATE:
+        return TemplateNodeBuilder.combineNsAndName(
+            fileProto.getNamespace(),
+            TemplateDelegateNodeBuilder.partialDeltemplateTemplateName(
+                templateProto.getTemplateName(),
+                emptyToNull(fileProto.getModName()),
+                templateProto.getDelTemplateVariant()));
+    }
+    throw new AssertionError();
+  }
+
+  /**
+   * Returns true if the template can be selected by delegate calls, in which case {@link
+   * #metadataFromProto} sets its {@link TemplateMetadata#getDelTemplateName}.
+   */
+  static boolean isDelegateProto(TemplateMetadataP templateProto) {
+    return templateProto.getTemplateKind() == TemplateKindP.DELTEMPLATE
+        || templateProto.getTemplateType().getIsModifiable()
+        || templateProto.getTemplateType().getIsModifying();
+  }
+
+  /**
+   * Builds the metadata of a template.
+   *
+   * @param typeCache Types that have already been parsed, which are reused rather than being
+   *     parsed again. Headers repeat the same types many times, so sharing this across files saves
+   *     both time and memory.
+   */
   static TemplateMetadata metadataFromProto(
       SoyFileP fileProto,
       TemplateMetadataP templateProto,
       SoyFileKind fileKind,
       SoyTypeRegistry typeRegistry,
+      Map<SoyTypeP, SoyType> typeCache,
       SourceFilePath filePath,
       ErrorReporter errorReporter) {
     TemplateMetadata.Builder builder = TemplateMetadata.builder();
     TemplateType.TemplateKind templateKind =
         TEMPLATE_KIND_CONVERTER.convert(templateProto.getTemplateKind());
     @Nullable String modName = emptyToNull(fileProto.getModName());
-    String templateName;
-    String variant = templateProto.getDelTemplateVariant();
-    switch (templateKind) {
-      case ELEMENT:
-      case BASIC:
-        templateName =
-            TemplateNodeBuilder.combineNsAndName(
-                fileProto.getNamespace(), templateProto.getTemplateName());
-        if (templateProto.getTemplateType().getIsModifiable()
-            || templateProto.getTemplateType().getIsModifying()) {
-          builder
-              .setDelTemplateVariant(variant)
-              .setDelTemplateName(templateProto.getModifiableTemplateName());
-        }
-        break;
-      case DELTEMPLATE:
-        String delTemplateName = templateProto.getTemplateName();
-        templateName =
-            TemplateNodeBuilder.combineNsAndName(
-                fileProto.getNamespace(),
-                TemplateDelegateNodeBuilder.partialDeltemplateTemplateName(
-                    delTemplateName, modName, variant));
-        builder.setDelTemplateVariant(variant).setDelTemplateName(delTemplateName);
-        break;
-      default:
-        throw new AssertionError();
+    String templateName = templateNameFromProto(fileProto, templateProto);
+    if (isDelegateProto(templateProto)) {
+      builder
+          .setDelTemplateVariant(templateProto.getDelTemplateVariant())
+          .setDelTemplateName(
+              templateKind == TemplateType.TemplateKind.DELTEMPLATE
+                  ? templateProto.getTemplateName()
+                  : templateProto.getModifiableTemplateName());
     }
 
     SoyTypeP returnTypeP = templateProto.getTemplateType().getReturnType();
-    SoyType returnType = fromProto(returnTypeP, typeRegistry, filePath, errorReporter);
+    SoyType returnType = fromProto(returnTypeP, typeCache, typeRegistry, filePath, errorReporter);
 
     TemplateContentKind templateContentKind =
         returnTypeP.getHtml().getIsElement()
@@ -238,12 +267,14 @@ public final class TemplateMetadataSerializer {
                     parametersFromProto(
                         templateProto.getTemplateType().getParameterList(),
                         typeRegistry,
+                        typeCache,
                         filePath,
                         errorReporter))
                 .setIdentifierForDebugging(templateName)
                 .setUseVariantType(
                     fromProto(
                         templateProto.getTemplateType().getUseVariantType(),
+                        typeCache,
                         typeRegistry,
                         filePath,
                         errorReporter))
@@ -261,6 +292,7 @@ public final class TemplateMetadataSerializer {
   private static ImmutableList<Parameter> parametersFromProto(
       List<ParameterP> parameterList,
       SoyTypeRegistry typeRegistry,
+      Map<SoyTypeP, SoyType> typeCache,
       SourceFilePath filePath,
       ErrorReporter errorReporter) {
     ImmutableList.Builder<Parameter> builder =
@@ -273,7 +305,8 @@ public final class TemplateMetadataSerializer {
               .setRequired(parameter.getRequired())
               .setImplicit(parameter.getImplicit())
               .setTypeLazily(
-                  new SoyTypeSupplier(parameter.getType(), typeRegistry, filePath, errorReporter))
+                  new SoyTypeSupplier(
+                      parameter.getType(), typeRegistry, typeCache, filePath, errorReporter))
               .build());
     }
     return builder.build();
@@ -289,24 +322,53 @@ public final class TemplateMetadataSerializer {
   private static final class SoyTypeSupplier implements Supplier<SoyType> {
     final SoyTypeP typeProto;
     final SoyTypeRegistry typeRegistry;
+    final Map<SoyTypeP, SoyType> typeCache;
     final SourceFilePath filePath;
     final ErrorReporter errorReporter;
 
     SoyTypeSupplier(
         SoyTypeP type,
         SoyTypeRegistry typeRegistry,
+        Map<SoyTypeP, SoyType> typeCache,
         SourceFilePath filePath,
         ErrorReporter errorReporter) {
       this.typeProto = type;
       this.typeRegistry = typeRegistry;
+      this.typeCache = typeCache;
       this.filePath = filePath;
       this.errorReporter = errorReporter;
     }
 
     @Override
     public SoyType get() {
-      return fromProto(typeProto, typeRegistry, filePath, errorReporter);
+      return fromProto(typeProto, typeCache, typeRegistry, filePath, errorReporter);
+    }
+  }
+
+  /**
+   * Like {@link #fromProto(SoyTypeP, SoyTypeRegistry, SourceFilePath, ErrorReporter)}, but reuses
+   * types already in {@code typeCache}. Types that fail to parse aren't cached, so that their
+   * errors are reported for every file that uses them.
+   */
+  static SoyType fromProto(
+      SoyTypeP proto,
+      Map<SoyTypeP, SoyType> typeCache,
+      SoyTypeRegistry typeRegistry,
+      SourceFilePath filePath,
+      ErrorReporter errorReporter) {
+    SoyType type = typeCache.get(proto);
+    if (type != null) {
+      return type;
+    }
+    ErrorReporter.Checkpoint checkpoint = errorReporter.checkpoint();
+    type = fromProto(proto, typeRegistry, filePath, errorReporter);
+    if (!errorReporter.errorsSince(checkpoint)) {
+      SoyType previous = typeCache.putIfAbsent(proto, type);
+      if (previous != null) {
+        type = previous;
+      }
     }
+    return type;
   }
 
   static SoyType fromProto(
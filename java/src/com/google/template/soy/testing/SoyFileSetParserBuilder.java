@@ -59,6 +59,7 @@ import com.google.template.soy.types.SoyTypeRegistryBuilder;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
 import javax.annotation.Nullable;
 
 /** Fluent builder for configuring {@link com.google.template.soy.SoyFileSetParser}s in tests. */
@@ -379,6 +380,13 @@ public final class SoyFileSetParserBuilder {
     return this;
   }
 
+  /** Parses files and runs the single file passes concurrently on the given pool. */
+  @CanIgnoreReturnValue
+  public SoyFileSetParserBuilder runFilePassesInParallel(ForkJoinPool pool) {
+    passManager.runFilePassesInParallel(pool);
+    return this;
+  }
+
   /**
    * Constructs a parse tree from the builder's state, returning the root of the tree.
    *
@@ -48,6 +48,7 @@ import com.google.template.soy.shared.SoyIdRenamingMap;
 import com.google.template.soy.shared.internal.DelTemplateSelector;
 import com.google.template.soy.shared.internal.SoyScopedData;
 import com.google.template.soy.sharedpasses.render.EvalVisitorFactoryImpl;
+import com.google.template.soy.sharedpasses.render.RenderClosures;
 import com.google.template.soy.sharedpasses.render.RenderException;
 import com.google.template.soy.sharedpasses.render.RenderVisitor;
 import com.google.template.soy.soytree.CallDelegateNode;
@@ -92,11 +93,27 @@ public final class BaseTofu implements SoyTofu {
 
   private final PluginInstances pluginInstances;
 
+  /** The compiled templates, or null if templates are rendered by walking the AST. */
+  @Nullable private final RenderClosures closures;
+
   /** @param apiCallScope The scope object that manages the API call scope. */
   public BaseTofu(
       SoyScopedData.Enterable apiCallScope,
       SoyFileSetNode fileSet,
       PluginInstances pluginInstances) {
+    this(apiCallScope, fileSet, pluginInstances, /* compileTemplates= */ false);
+  }
+
+  /**
+   * @param apiCallScope The scope object that manages the API call scope.
+   * @param compileTemplates Whether to compile templates to closures the first time they are
+   *     rendered.
+   */
+  public BaseTofu(
+      SoyScopedData.Enterable apiCallScope,
+      SoyFileSetNode fileSet,
+      PluginInstances pluginInstances,
+      boolean compileTemplates) {
     this.apiCallScope = apiCallScope;
     ImmutableMap.Builder<String, TemplateNode> basicTemplates = ImmutableMap.builder();
     DelTemplateSelector.Builder<TemplateNode> delTemplates = new DelTemplateSelector.Builder<>();
@@ -139,6 +156,7 @@ public final class BaseTofu implements SoyTofu {
     this.templateToIjParamsInfoMap =
         buildTemplateToIjParamsInfoMap(this.basicTemplates, this.delTemplates);
     this.pluginInstances = pluginInstances;
+    this.closures = compileTemplates ? RenderClosures.create() : null;
   }
 
   private static void maybeAddTemplateToModifiableMap(
@@ -395,7 +413,8 @@ public final class BaseTofu implements SoyTofu {
               idRenamingMap,
               cssRenamingMap,
               debugSoyTemplateInfo,
-              pluginInstances);
+              pluginInstances,
+              closures);
       rv.exec(template);
 
     } catch (RenderException re) {
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.Files;
+import com.google.protobuf.ByteString;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class CachingSoyInputCacheTest {
+  @Rule public final TemporaryFolder temp = new TemporaryFolder();
+
+  private final List<String> loads = new ArrayList<>();
+  private final List<String> evictions = new ArrayList<>();
+
+  private final SoyInputCache.CacheLoader<String> loader =
+      new SoyInputCache.CacheLoader<String>() {
+        @Override
+        public String read(File file, SoyCompilerFileReader fileReader, SoyInputCache cache)
+            throws IOException {
+          String content = fileReader.read(file).asCharSource(UTF_8).read();
+          loads.add(content);
+          return content;
+        }
+
+        @Override
+        public void onEvict(String item) {
+          evictions.add(item);
+        }
+      };
+
+  private String read(CachingSoyInputCache cache, File file) throws Exception {
+    return cache.read(file, loader, FileSystemSoyFileReader.INSTANCE);
+  }
+
+  @Test
+  public void testCachesUntilDigestChanges() throws Exception {
+    File file = temp.newFile("a.txt");
+    Files.asCharSink(file, UTF_8).write("v1");
+    CachingSoyInputCache cache = new CachingSoyInputCache();
+
+    cache.startRequest(ImmutableMap.of(file, ByteString.copyFromUtf8("digest1")));
+    assertThat(read(cache, file)).isEqualTo("v1");
+    assertThat(read(cache, file)).isEqualTo("v1");
+    assertThat(loads).containsExactly("v1");
+    assertThat(cache.hitCount()).isEqualTo(1);
+    assertThat(cache.missCount()).isEqualTo(1);
+
+    Files.asCharSink(file, UTF_8).write("v2");
+    cache.startRequest(ImmutableMap.of(file, ByteString.copyFromUtf8("digest1")));
+    // The digest is what the build tool says it is, so this is still served from the cache.
+    assertThat(read(cache, file)).isEqualTo("v1");
+
+    cache.startRequest(ImmutableMap.of(file, ByteString.copyFromUtf8("digest2")));
+    assertThat(evictions).containsExactly("v1");
+    assertThat(read(cache, file)).isEqualTo("v2");
+    assertThat(loads).containsExactly("v1", "v2").inOrder();
+  }
+
+  @Test
+  public void testDependentsAreEvicted() throws Exception {
+    File dep = temp.newFile("dep.txt");
+    File file = temp.newFile("file.txt");
+    Files.asCharSink(dep, UTF_8).write("dep");
+    Files.asCharSink(file, UTF_8).write("file");
+    CachingSoyInputCache cache = new CachingSoyInputCache();
+
+    cache.startRequest(
+        ImmutableMap.of(
+            dep, ByteString.copyFromUtf8("1"), file, ByteString.copyFromUtf8("1")));
+    read(cache, dep);
+    read(cache, file);
+    cache.declareDependency(file, dep);
+
+    cache.startRequest(
+        ImmutableMap.of(
+            dep, ByteString.copyFromUtf8("2"), file, ByteString.copyFromUtf8("1")));
+    assertThat(evictions).containsExactly("dep", "file");
+
+    read(cache, file);
+    assertThat(loads).containsExactly("dep", "file", "file").inOrder();
+  }
+
+  @Test
+  public void testIdleFilesAreEvicted() throws Exception {
+    File used = temp.newFile("used.txt");
+    File idle = temp.newFile("idle.txt");
+    Files.asCharSink(used, UTF_8).write("used");
+    Files.asCharSink(idle, UTF_8).write("idle");
+    CachingSoyInputCache cache = new CachingSoyInputCache(/* maxIdleRequests= */ 2);
+
+    cache.startRequest(ImmutableMap.of());
+    read(cache, used);
+    read(cache, idle);
+    cache.startRequest(ImmutableMap.of());
+    read(cache, used);
+    cache.startRequest(ImmutableMap.of());
+    read(cache, used);
+    assertThat(evictions).isEmpty();
+
+    // idle.txt wasn't read by the last two requests.
+    cache.startRequest(ImmutableMap.of());
+    assertThat(evictions).containsExactly("idle");
+    read(cache, used);
+    read(cache, idle);
+    assertThat(loads).containsExactly("used", "idle", "idle").inOrder();
+  }
+
+  @Test
+  public void testFallsBackToFileStamps() throws Exception {
+    File file = temp.newFile("a.txt");
+    Files.asCharSink(file, UTF_8).write("v1");
+    CachingSoyInputCache cache = new CachingSoyInputCache();
+
+    assertThat(read(cache, file)).isEqualTo("v1");
+    assertThat(read(cache, file)).isEqualTo("v1");
+    Files.asCharSink(file, UTF_8).write("v22");
+    assertThat(read(cache, file)).isEqualTo("v22");
+    assertThat(loads).containsExactly("v1", "v22").inOrder();
+  }
+}
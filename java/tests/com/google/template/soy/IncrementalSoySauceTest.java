@@ -0,0 +1,152 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.template.soy.base.SourceFilePath;
+import com.google.template.soy.base.internal.SoyFileSupplier;
+import com.google.template.soy.error.SoyCompilationException;
+import com.google.template.soy.jbcsrc.api.SoySauce;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link IncrementalSoySauce} */
+@RunWith(JUnit4.class)
+public final class IncrementalSoySauceTest {
+  private static final String CALLER =
+      "{namespace caller}\n"
+          + "import {callee} from 'callee.soy';\n"
+          + "{template main}\n"
+          + "  <b>{call callee}{param name: 'world' /}{/call}</b>\n"
+          + "{/template}\n";
+  private static final String OTHER =
+      "{namespace other}\n" + "{template main}\n" + "  other\n" + "{/template}\n";
+
+  private IncrementalSoySauce sauce;
+
+  @Before
+  public void setUp() {
+    sauce =
+        SoyFileSet.builder()
+            .add(CALLER, "caller.soy")
+            .add(callee("Hello, {$name}", "{@param name: string}"), "callee.soy")
+            .add(OTHER, "other.soy")
+            .build()
+            .compileTemplatesIncrementally();
+  }
+
+  @Test
+  public void testInitialCompile() {
+    assertThat(sauce.lastCompiledFiles())
+        .containsExactly(path("caller.soy"), path("callee.soy"), path("other.soy"));
+    assertThat(render(sauce.soySauce(), "caller.main")).isEqualTo("<b>Hello, world</b>");
+  }
+
+  @Test
+  public void testBodyChangeOnlyCompilesChangedFile() {
+    SoySauce before = sauce.soySauce();
+    SoySauce after = sauce.recompile(file(callee("Goodbye, {$name}", "{@param name: string}")));
+
+    assertThat(sauce.lastCompiledFiles()).containsExactly(path("callee.soy"));
+    assertThat(sauce.soySauce()).isSameInstanceAs(after);
+    // The unchanged caller is linked to the new callee.
+    assertThat(render(after, "caller.main")).isEqualTo("<b>Goodbye, world</b>");
+    assertThat(render(after, "other.main")).isEqualTo("other");
+    // Renders that are still using the old templates aren't affected.
+    assertThat(render(before, "caller.main")).isEqualTo("<b>Hello, world</b>");
+  }
+
+  @Test
+  public void testHeaderChangeCompilesImporters() {
+    sauce.recompile(
+        file(
+            callee(
+                "{$greeting}, {$name}", "{@param name: string}\n  {@param? greeting: string}")));
+
+    assertThat(sauce.lastCompiledFiles()).containsExactly(path("callee.soy"), path("caller.soy"));
+    assertThat(render(sauce.soySauce(), "caller.main")).isEqualTo("<b>null, world</b>");
+  }
+
+  @Test
+  public void testErrorsKeepPreviousTemplates() {
+    SoySauce before = sauce.soySauce();
+    assertThrows(
+        SoyCompilationException.class,
+        () -> sauce.recompile(file(callee("Hello, {$name}", "{@param name: int}"))));
+
+    assertThat(sauce.soySauce()).isSameInstanceAs(before);
+    assertThat(render(sauce.soySauce(), "caller.main")).isEqualTo("<b>Hello, world</b>");
+
+    // The next compile starts from the last successful one.
+    sauce.recompile(file(callee("Hi, {$name}", "{@param name: string}")));
+    assertThat(sauce.lastCompiledFiles()).containsExactly(path("callee.soy"));
+    assertThat(render(sauce.soySauce(), "caller.main")).isEqualTo("<b>Hi, world</b>");
+  }
+
+  @Test
+  public void testAddAndRemoveFiles() {
+    sauce.recompile(
+        ImmutableList.of(
+            SoyFileSupplier.Factory.create(
+                "{namespace added}\n{template main}\n  added\n{/template}\n",
+                path("added.soy"))));
+    assertThat(sauce.lastCompiledFiles()).containsExactly(path("added.soy"));
+    assertThat(render(sauce.soySauce(), "added.main")).isEqualTo("added");
+
+    sauce.recompile(ImmutableList.of(), ImmutableList.of(path("other.soy")));
+    assertThat(sauce.lastCompiledFiles()).isEmpty();
+    assertThat(sauce.soySauce().hasTemplate("other.main")).isFalse();
+    assertThat(render(sauce.soySauce(), "caller.main")).isEqualTo("<b>Hello, world</b>");
+
+    // Removing a file that other files import compiles them again, which fails.
+    assertThrows(
+        SoyCompilationException.class,
+        () -> sauce.recompile(ImmutableList.of(), ImmutableList.of(path("callee.soy"))));
+  }
+
+  private static String callee(String body, String params) {
+    return "{namespace callee}\n"
+        + "{template callee}\n"
+        + "  "
+        + params
+        + "\n"
+        + "  "
+        + body
+        + "\n"
+        + "{/template}\n";
+  }
+
+  private static ImmutableList<SoyFileSupplier> file(String content) {
+    return ImmutableList.of(SoyFileSupplier.Factory.create(content, path("callee.soy")));
+  }
+
+  private static SourceFilePath path(String path) {
+    return SourceFilePath.create(path);
+  }
+
+  private static String render(SoySauce sauce, String template) {
+    Map<String, Object> data = ImmutableMap.of();
+    return sauce.renderTemplate(template).setData(data).renderHtml().get().toString();
+  }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.io.Files;
+import com.google.template.soy.worker.WorkRequest;
+import com.google.template.soy.worker.WorkResponse;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class SoyCompilerWorkerTest {
+  @Rule public final TemporaryFolder temp = new TemporaryFolder();
+
+  private static List<WorkResponse> runWorker(WorkRequest... requests) throws Exception {
+    ByteArrayOutputStream requestBytes = new ByteArrayOutputStream();
+    for (WorkRequest request : requests) {
+      request.writeDelimitedTo(requestBytes);
+    }
+    ByteArrayOutputStream responseBytes = new ByteArrayOutputStream();
+    ByteArrayOutputStream log = new ByteArrayOutputStream();
+
+    int status =
+        new SoyCompilerWorker(SoyMsgExtractor::new, new PluginLoader.Default())
+            .run(
+                new ByteArrayInputStream(requestBytes.toByteArray()),
+                responseBytes,
+                new PrintStream(log, true));
+
+    assertThat(status).isEqualTo(0);
+    assertThat(log.toString()).contains("Soy worker request #" + requests.length + " finished");
+    List<WorkResponse> responses = new ArrayList<>();
+    InputStream in = new ByteArrayInputStream(responseBytes.toByteArray());
+    WorkResponse response;
+    while ((response = WorkResponse.parseDelimitedFrom(in)) != null) {
+      responses.add(response);
+    }
+    return responses;
+  }
+
+  @Test
+  public void testCompilesEachRequest() throws Exception {
+    File soyFile = temp.newFile("temp.soy");
+    Files.asCharSink(soyFile, UTF_8)
+        .write("{namespace ns}\n/***/\n{template a}\n{msg desc=\"a\"}Hello{/msg}\n{/template}");
+    File xmlFile1 = temp.newFile("temp1.xml");
+    File xmlFile2 = temp.newFile("temp2.xml");
+
+    List<WorkResponse> responses =
+        runWorker(
+            WorkRequest.newBuilder()
+                .addArguments("--outputFile")
+                .addArguments(xmlFile1.toString())
+                .addArguments("--srcs")
+                .addArguments(soyFile.toString())
+                .setRequestId(1)
+                .build(),
+            WorkRequest.newBuilder()
+                .addArguments("--outputFile")
+                .addArguments(xmlFile2.toString())
+                .addArguments("--srcs")
+                .addArguments(soyFile.toString())
+                .setRequestId(2)
+                .setVerbosity(10)
+                .build());
+
+    assertThat(responses).hasSize(2);
+    assertThat(responses.get(0).getExitCode()).isEqualTo(0);
+    assertThat(responses.get(0).getRequestId()).isEqualTo(1);
+    assertThat(responses.get(0).getOutput()).isEmpty();
+    assertThat(responses.get(1).getExitCode()).isEqualTo(0);
+    assertThat(responses.get(1).getRequestId()).isEqualTo(2);
+    // The second request reuses the AST parsed by the first.
+    assertThat(responses.get(1).getOutput()).contains("AST cache: 1 hits, 0 misses");
+    assertThat(Files.asCharSource(xmlFile1, UTF_8).read()).contains("<source>Hello</source>");
+    assertThat(Files.asCharSource(xmlFile2, UTF_8).read()).contains("<source>Hello</source>");
+  }
+
+  @Test
+  public void testFailedRequestDoesNotStopWorker() throws Exception {
+    File soyFile = temp.newFile("temp.soy");
+    Files.asCharSink(soyFile, UTF_8).write("{namespace ns}\n{template a}{/template}");
+    File xmlFile = temp.newFile("temp.xml");
+
+    List<WorkResponse> responses =
+        runWorker(
+            WorkRequest.newBuilder().addArguments("--outputFile").addArguments("x.xml").build(),
+            WorkRequest.newBuilder()
+                .addArguments("--outputFile")
+                .addArguments(xmlFile.toString())
+                .addArguments("--srcs")
+                .addArguments(soyFile.toString())
+                .build());
+
+    assertThat(responses).hasSize(2);
+    assertThat(responses.get(0).getExitCode()).isEqualTo(1);
+    assertThat(responses.get(0).getOutput()).contains("Must provide list of source Soy files");
+    assertThat(responses.get(1).getExitCode()).isEqualTo(0);
+  }
+
+  @Test
+  public void testIsPersistentWorker() {
+    assertThat(SoyCompilerWorker.isPersistentWorker("--persistent_worker")).isTrue();
+    assertThat(SoyCompilerWorker.isPersistentWorker("--srcs", "a.soy")).isFalse();
+  }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.io.Files;
+import com.google.template.soy.msgs.SoyMsgBundle;
+import com.google.template.soy.msgs.SoyMsgBundleHandler;
+import com.google.template.soy.msgs.restricted.SoyMsgRawTextPart;
+import com.google.template.soy.xliffmsgplugin.XliffMsgPlugin;
+import java.io.File;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class SoyMsgBundleCompilerTest {
+  @Rule public final TemporaryFolder temp = new TemporaryFolder();
+
+  @Test
+  public void testCompileXliff() throws Exception {
+    File xliffFile = temp.newFile("messages_x-zz.xlf");
+    Files.asCharSink(xliffFile, UTF_8)
+        .write(
+            "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                + "<xliff version=\"1.2\" xmlns=\"urn:oasis:names:tc:xliff:document:1.2\">\n"
+                + "  <file original=\"SoyMsgBundle\" datatype=\"x-soy-msg-bundle\""
+                + " xml:space=\"preserve\" source-language=\"en\" target-language=\"x-zz\">\n"
+                + "    <body>\n"
+                + "      <trans-unit id=\"626010707674174792\" datatype=\"html\">\n"
+                + "        <source>Moscow</source>\n"
+                + "        <target>Zmoscow</target>\n"
+                + "      </trans-unit>\n"
+                + "    </body>\n"
+                + "  </file>\n"
+                + "</xliff>\n");
+    File compiledFile = temp.newFile("messages_x-zz.soymsgs");
+
+    int exitCode =
+        new SoyMsgBundleCompiler()
+            .run(
+                new String[] {
+                  "--translationFile", xliffFile.toString(), "--outputFile", compiledFile.toString()
+                },
+                System.err);
+    assertThat(exitCode).isEqualTo(0);
+
+    SoyMsgBundle bundle =
+        new SoyMsgBundleHandler(new XliffMsgPlugin()).createFromCompiledFile(compiledFile);
+    assertThat(bundle.getLocaleString()).isEqualTo("x-zz");
+    assertThat(bundle.getMsgParts(626010707674174792L))
+        .containsExactly(SoyMsgRawTextPart.of("Zmoscow"));
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.base.internal;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.io.CharStreams;
+import com.google.common.io.Files;
+import com.google.template.soy.base.SourceFilePath;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link ContentHashSoyFileSupplier}. */
+@RunWith(JUnit4.class)
+public final class ContentHashSoyFileSupplierTest {
+  @Rule public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+  @Test
+  public void testVersionTracksContent() throws IOException {
+    File file = tempFolder.newFile("foo.soy");
+    Files.asCharSink(file, UTF_8).write("{namespace foo}");
+    SoyFileSupplier supplier = SoyFileSupplier.Factory.create(file);
+    SoyFileSupplier.Version original = supplier.getVersion();
+    try (Reader reader = supplier.open()) {
+      assertThat(CharStreams.toString(reader)).isEqualTo("{namespace foo}");
+    }
+
+    // Rewriting the same content keeps the version.
+    Files.asCharSink(file, UTF_8).write("{namespace foo}");
+    assertThat(supplier.getVersion()).isEqualTo(original);
+
+    Files.asCharSink(file, UTF_8).write("{namespace bar}");
+    assertThat(supplier.getVersion()).isNotEqualTo(original);
+  }
+
+  @Test
+  public void testSnapshot() throws IOException {
+    File file = tempFolder.newFile("foo.soy");
+    Files.asCharSink(file, UTF_8).write("{namespace foo}");
+    SoyFileSupplier supplier = SoyFileSupplier.Factory.create(file);
+    SoyFileSupplier snapshot = supplier.snapshot();
+
+    // The snapshot keeps the content and version it was taken with.
+    Files.asCharSink(file, UTF_8).write("{namespace bar}");
+    assertThat(snapshot.getVersion()).isNotEqualTo(supplier.getVersion());
+    try (Reader reader = snapshot.open()) {
+      assertThat(CharStreams.toString(reader)).isEqualTo("{namespace foo}");
+    }
+    assertThat(snapshot.getVersion()).isEqualTo(snapshot.snapshot().getVersion());
+    assertThat(snapshot.getFilePath()).isEqualTo(supplier.getFilePath());
+  }
+
+  @Test
+  public void testSameContentAtDifferentPaths() throws IOException {
+    File foo = tempFolder.newFile("foo.soy");
+    File bar = tempFolder.newFile("bar.soy");
+    Files.asCharSink(foo, UTF_8).write("{namespace foo}");
+    Files.asCharSink(bar, UTF_8).write("{namespace foo}");
+    assertThat(
+            new ContentHashSoyFileSupplier(Files.asByteSource(foo), SourceFilePath.create("foo"))
+                .getVersion())
+        .isEqualTo(
+            new ContentHashSoyFileSupplier(Files.asByteSource(bar), SourceFilePath.create("bar"))
+                .getVersion());
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.data;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.base.Strings;
+import com.google.template.soy.data.LoggingAdvisingAppendable.BufferingAppendable;
+import java.io.IOException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link BufferingAppendable} */
+@RunWith(JUnit4.class)
+public final class BufferingAppendableTest {
+  private static final String LONG = Strings.repeat("x", 100);
+
+  @Test
+  public void testSingleLongStringIsNotCopied() throws IOException {
+    BufferingAppendable buffering = LoggingAdvisingAppendable.buffering();
+    buffering.append(LONG);
+    assertThat(buffering.toString()).isSameInstanceAs(LONG);
+  }
+
+  @Test
+  public void testMixedContent() throws IOException {
+    BufferingAppendable buffering = LoggingAdvisingAppendable.buffering();
+    StringBuilder mutable = new StringBuilder(LONG);
+    buffering.append("a").append(LONG).append('b').append(mutable).append("cde", 1, 2);
+    // only the reference to the string is kept, the builder is copied.
+    mutable.setLength(0);
+    buffering.append(LONG).append("f");
+
+    assertThat(buffering.toString()).isEqualTo("a" + LONG + "b" + LONG + "d" + LONG + "f");
+    assertThat(buffering.getAndClearBuffer())
+        .isEqualTo("a" + LONG + "b" + LONG + "d" + LONG + "f");
+    assertThat(buffering.toString()).isEmpty();
+
+    buffering.append("g");
+    assertThat(buffering.getAndClearBuffer()).isEqualTo("g");
+  }
+
+  @Test
+  public void testReplay() throws IOException {
+    LogStatement statement = LogStatement.create(1, null, /* logOnly= */ false);
+    BufferingAppendable buffering = LoggingAdvisingAppendable.buffering();
+    buffering.append("a").append(LONG);
+    buffering.enterLoggableElement(statement);
+    buffering.append("b");
+    buffering.exitLoggableElement();
+    buffering.append(LONG).append("c");
+
+    BufferingAppendable target = LoggingAdvisingAppendable.buffering();
+    buffering.replayOn(target);
+    assertThat(target.toString()).isEqualTo("a" + LONG + "b" + LONG + "c");
+    // replaying doesn't consume the buffer
+    assertThat(buffering.toString()).isEqualTo("a" + LONG + "b" + LONG + "c");
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.data;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.template.soy.data.SoyFutureValueProvider.FutureBlockCallbackScope;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class SoyFutureValueProviderTest {
+
+  @Test
+  public void testFutureBlockCallbackScopes() {
+    List<String> calls = new ArrayList<>();
+    SettableFuture<String> first = SettableFuture.create();
+    SettableFuture<String> second = SettableFuture.create();
+
+    try (FutureBlockCallbackScope outer =
+        SoyFutureValueProvider.enterFutureBlockCallback(
+            () -> {
+              calls.add("outer");
+              second.set("b");
+            })) {
+      try (FutureBlockCallbackScope inner =
+          SoyFutureValueProvider.enterFutureBlockCallback(
+              () -> {
+                calls.add("inner");
+                first.set("a");
+              })) {
+        assertThat(provider(first).resolve().coerceToString()).isEqualTo("a");
+      }
+      assertThat(provider(second).resolve().coerceToString()).isEqualTo("b");
+    }
+
+    assertThat(calls).containsExactly("inner", "outer").inOrder();
+  }
+
+  @Test
+  public void testNoCallbackIfDone() {
+    List<String> calls = new ArrayList<>();
+    try (FutureBlockCallbackScope scope =
+        SoyFutureValueProvider.enterFutureBlockCallback(() -> calls.add("called"))) {
+      SettableFuture<String> future = SettableFuture.create();
+      future.set("a");
+      assertThat(provider(future).resolve().coerceToString()).isEqualTo("a");
+    }
+    assertThat(calls).isEmpty();
+  }
+
+  private static SoyFutureValueProvider provider(SettableFuture<String> future) {
+    return new SoyFutureValueProvider(future, SoyValueConverter.INSTANCE::convert);
+  }
+}
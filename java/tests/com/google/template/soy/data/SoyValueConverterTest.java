@@ -23,9 +23,15 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.util.concurrent.Futures;
+import com.google.template.soy.data.internal.DoubleListImpl;
+import com.google.template.soy.data.internal.LazyJavaToSoyValueList;
+import com.google.template.soy.data.internal.ListImpl;
+import com.google.template.soy.data.internal.LongListImpl;
 import com.google.template.soy.data.restricted.NullData;
 import com.google.template.soy.data.restricted.StringData;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -68,6 +74,51 @@ public class SoyValueConverterTest {
     assertThat(list4.get(1).booleanValue()).isTrue();
   }
 
+  @Test
+  public void testNumericListsArePrimitiveBacked() {
+    assertThat(CONVERTER.convert(new long[] {1, 2}).resolve()).isInstanceOf(LongListImpl.class);
+    assertThat(CONVERTER.convert(new int[] {1, 2}).resolve()).isInstanceOf(LongListImpl.class);
+    assertThat(CONVERTER.convert(new double[] {1.5}).resolve())
+        .isInstanceOf(DoubleListImpl.class);
+    assertThat(CONVERTER.convert(ImmutableList.of(1L, 2)).resolve())
+        .isInstanceOf(LongListImpl.class);
+    assertThat(CONVERTER.convert(ImmutableList.of(1.5, 2.5f)).resolve())
+        .isInstanceOf(DoubleListImpl.class);
+    assertThat(CONVERTER.convert(ImmutableList.of(1L, 2.5)).resolve())
+        .isInstanceOf(ListImpl.class);
+    assertThat(CONVERTER.convert(ImmutableList.of()).resolve()).isInstanceOf(ListImpl.class);
+
+    long[] values = {3, 4};
+    SoyList list = (SoyList) CONVERTER.convert(values).resolve();
+    values[0] = 5;
+    assertThat(list.get(0).longValue()).isEqualTo(3);
+    assertThat(list.get(1).longValue()).isEqualTo(4);
+  }
+
+  @Test
+  public void testMarkAsLazyView() {
+    List<Object> inner = new ArrayList<>();
+    inner.add("a");
+    Map<String, Object> map = new HashMap<>();
+    map.put("list", inner);
+    map.put("num", 3);
+
+    SoyDict dict = (SoyDict) CONVERTER.convert(SoyValueConverter.markAsLazyView(map)).resolve();
+    // Nothing has been converted or copied yet, so this is visible through the view.
+    inner.add(ImmutableMap.of("key", "value"));
+    SoyList list = (SoyList) dict.getField("list");
+
+    assertThat(list).isInstanceOf(LazyJavaToSoyValueList.class);
+    assertThat(list.length()).isEqualTo(2);
+    assertThat(((SoyDict) list.get(1)).getField("key").stringValue()).isEqualTo("value");
+    assertThat(dict.getField("num").integerValue()).isEqualTo(3);
+    assertThat(dict.getField("missing")).isNull();
+
+    SoyList topLevelList =
+        (SoyList) CONVERTER.convert(SoyValueConverter.markAsLazyView(inner)).resolve();
+    assertThat(topLevelList.get(0).stringValue()).isEqualTo("a");
+  }
+
   @Test
   public void testConvertBasic() {
     assertThat(CONVERTER.convert(null)).isEqualTo(NullData.INSTANCE);
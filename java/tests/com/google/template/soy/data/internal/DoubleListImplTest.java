@@ -0,0 +1,64 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.data.internal;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.template.soy.data.SoyList;
+import com.google.template.soy.data.restricted.FloatData;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for DoubleListImpl. */
+@RunWith(JUnit4.class)
+public class DoubleListImplTest {
+
+  @Test
+  public void testListMethods() {
+    SoyList list = DoubleListImpl.forValues(new double[] {1.5, -0.25, 1e21});
+
+    assertThat(list.length()).isEqualTo(3);
+    assertThat(list.get(0).floatValue()).isEqualTo(1.5);
+    assertThat(list.getProvider(1).resolve().floatValue()).isEqualTo(-0.25);
+    assertThat(list.get(3)).isNull();
+    assertThat(list.asJavaList()).hasSize(3);
+    assertThat(list.coerceToString())
+        .isEqualTo("[1.5, -0.25, " + FloatData.toString(1e21) + "]");
+  }
+
+  @Test
+  public void testSorted() {
+    DoubleListImpl list = DoubleListImpl.forValues(new double[] {2.5, -1, Double.NaN, 0});
+
+    DoubleListImpl sorted = ((DoubleListImpl.JavaList) list.asJavaList()).sorted().asSoyList();
+
+    assertThat(sorted.getDouble(0)).isEqualTo(-1);
+    assertThat(sorted.getDouble(1)).isEqualTo(0);
+    assertThat(sorted.getDouble(2)).isEqualTo(2.5);
+    assertThat(sorted.getDouble(3)).isNaN();
+    assertThat(list.getDouble(0)).isEqualTo(2.5);
+    assertThat(((DoubleListImpl.JavaList) list.asJavaList()).getDouble(2)).isNaN();
+  }
+
+  @Test
+  public void testForJavaListUnwrapsView() {
+    DoubleListImpl list = DoubleListImpl.forValues(new double[] {1, 2});
+
+    assertThat(ListImpl.forJavaList(list.asJavaList())).isSameInstanceAs(list);
+  }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.data.internal;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.template.soy.data.SoyValueConverter;
+import com.google.template.soy.data.SoyValueProvider;
+import com.google.template.soy.data.restricted.IntegerData;
+import com.google.template.soy.data.restricted.NullData;
+import com.google.template.soy.data.restricted.StringData;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.function.Function;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class LazyJavaToSoyValueListTest {
+
+  private final List<Object> converted = new ArrayList<>();
+  private final Function<Object, SoyValueProvider> converter =
+      value -> {
+        converted.add(value);
+        return SoyValueConverter.INSTANCE.convert(value);
+      };
+
+  @Test
+  public void length_doesNotConvert() {
+    LazyJavaToSoyValueList list = LazyJavaToSoyValueList.forList(ImmutableList.of(1, 2), converter);
+
+    assertThat(list.length()).isEqualTo(2);
+    assertThat(list.asJavaList()).hasSize(2);
+    assertThat(converted).isEmpty();
+  }
+
+  @Test
+  public void get_convertsOnlyAccessedValues() {
+    LazyJavaToSoyValueList list =
+        LazyJavaToSoyValueList.forList(ImmutableList.of("a", "b", "c"), converter);
+
+    assertThat(list.get(1)).isEqualTo(StringData.forValue("b"));
+    assertThat(list.getProvider(1)).isEqualTo(StringData.forValue("b"));
+    assertThat(list.asJavaList().get(1)).isEqualTo(StringData.forValue("b"));
+    assertThat(converted).containsExactly("b");
+  }
+
+  @Test
+  public void get_outOfBounds_returnsNull() {
+    LazyJavaToSoyValueList list = LazyJavaToSoyValueList.forList(ImmutableList.of(1), converter);
+
+    assertThat(list.get(-1)).isNull();
+    assertThat(list.get(1)).isNull();
+  }
+
+  @Test
+  public void asJavaList_returnsCorrectList() {
+    List<Object> contents = new LinkedList<>();
+    contents.add(1);
+    contents.add("two");
+    contents.add(null);
+
+    LazyJavaToSoyValueList list = LazyJavaToSoyValueList.forList(contents, converter);
+
+    assertThat(list.asResolvedJavaList())
+        .containsExactly(IntegerData.ONE, StringData.forValue("two"), NullData.INSTANCE)
+        .inOrder();
+    assertThat(list.coerceToString()).isEqualTo("[1, two, null]");
+  }
+
+  @Test
+  public void get_valuesCached() {
+    LazyJavaToSoyValueList list =
+        LazyJavaToSoyValueList.forList(ImmutableList.of(ImmutableList.of()), converter);
+
+    SoyValueProvider first = list.getProvider(0);
+
+    assertThat(list.getProvider(0)).isSameInstanceAs(first);
+    assertThat(list.asJavaList().get(0)).isSameInstanceAs(first);
+    assertThat(converted).hasSize(1);
+  }
+}
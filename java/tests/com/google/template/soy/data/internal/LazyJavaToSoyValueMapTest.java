@@ -0,0 +1,101 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.data.internal;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.template.soy.data.SoyValueConverter;
+import com.google.template.soy.data.SoyValueProvider;
+import com.google.template.soy.data.restricted.IntegerData;
+import com.google.template.soy.data.restricted.NullData;
+import com.google.template.soy.data.restricted.StringData;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class LazyJavaToSoyValueMapTest {
+
+  private final List<Object> converted = new ArrayList<>();
+  private final Function<Object, SoyValueProvider> converter =
+      value -> {
+        converted.add(value);
+        return SoyValueConverter.INSTANCE.convert(value);
+      };
+
+  @Test
+  public void size_doesNotConvert() {
+    DictImpl dict = LazyJavaToSoyValueMap.forMap(ImmutableMap.of("a", 1, "b", 2), converter);
+
+    assertThat(dict.recordSize()).isEqualTo(2);
+    assertThat(dict.hasField("a")).isTrue();
+    assertThat(dict.hasField("c")).isFalse();
+    assertThat(converted).isEmpty();
+  }
+
+  @Test
+  public void getField_convertsOnlyAccessedValues() {
+    DictImpl dict =
+        LazyJavaToSoyValueMap.forMap(ImmutableMap.of("a", "x", "b", "y", "c", "z"), converter);
+
+    assertThat(dict.getField("b")).isEqualTo(StringData.forValue("y"));
+    assertThat(dict.getField("missing")).isNull();
+    assertThat(converted).containsExactly("y");
+  }
+
+  @Test
+  public void getField_nullValue() {
+    Map<String, Object> contents = new HashMap<>();
+    contents.put("a", null);
+
+    DictImpl dict = LazyJavaToSoyValueMap.forMap(contents, converter);
+
+    assertThat(dict.hasField("a")).isTrue();
+    assertThat(dict.getField("a")).isEqualTo(NullData.INSTANCE);
+  }
+
+  @Test
+  public void get_valuesCached() {
+    DictImpl dict =
+        LazyJavaToSoyValueMap.forMap(ImmutableMap.of("a", ImmutableList.of(1)), converter);
+
+    SoyValueProvider a = dict.getFieldProvider("a");
+
+    assertThat(dict.getFieldProvider("a")).isSameInstanceAs(a);
+    assertThat(dict.recordAsMap().get("a")).isSameInstanceAs(a);
+    dict.forEach((key, value) -> assertThat(value).isSameInstanceAs(a));
+    assertThat(converted).hasSize(1);
+  }
+
+  @Test
+  public void asMap_convertsAllValues() {
+    DictImpl dict = LazyJavaToSoyValueMap.forMap(ImmutableMap.of("a", 1, "b", "two"), converter);
+
+    assertThat(dict.get(StringData.forValue("a"))).isEqualTo(IntegerData.ONE);
+    assertThat(dict.asJavaMap())
+        .containsExactly(
+            StringData.forValue("a"), IntegerData.ONE,
+            StringData.forValue("b"), StringData.forValue("two"));
+  }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.data.internal;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.template.soy.data.SoyList;
+import com.google.template.soy.data.restricted.IntegerData;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for LongListImpl. */
+@RunWith(JUnit4.class)
+public class LongListImplTest {
+
+  @Test
+  public void testListMethods() {
+    SoyList list = LongListImpl.forValues(new long[] {3, 1, 20});
+
+    assertThat(list.length()).isEqualTo(3);
+    assertThat(list.get(2)).isEqualTo(IntegerData.forValue(20));
+    assertThat(list.getProvider(1)).isEqualTo(IntegerData.ONE);
+    assertThat(list.get(3)).isNull();
+    assertThat(list.get(-1)).isNull();
+    assertThat(list.getItem(IntegerData.ZERO)).isEqualTo(IntegerData.forValue(3));
+    assertThat(list.asJavaList())
+        .containsExactly(IntegerData.forValue(3), IntegerData.ONE, IntegerData.forValue(20))
+        .inOrder();
+    assertThat(list.asResolvedJavaList()).isEqualTo(list.asJavaList());
+    assertThat(list.coerceToString()).isEqualTo("[3, 1, 20]");
+    assertThat(LongListImpl.forValues(new long[0]).coerceToString()).isEqualTo("[]");
+  }
+
+  @Test
+  public void testSorted() {
+    LongListImpl list = LongListImpl.forValues(new long[] {3, Long.MIN_VALUE, 20, -4});
+
+    LongListImpl sorted = ((LongListImpl.JavaList) list.asJavaList()).sorted().asSoyList();
+
+    assertThat(sorted.coerceToString()).isEqualTo("[" + Long.MIN_VALUE + ", -4, 3, 20]");
+    assertThat(list.coerceToString()).isEqualTo("[3, " + Long.MIN_VALUE + ", 20, -4]");
+    assertThat(((LongListImpl.JavaList) sorted.asJavaList()).getLong(0)).isEqualTo(Long.MIN_VALUE);
+  }
+
+  @Test
+  public void testForJavaListUnwrapsView() {
+    LongListImpl list = LongListImpl.forValues(new long[] {1, 2});
+
+    assertThat(ListImpl.forJavaList(list.asJavaList())).isSameInstanceAs(list);
+    assertThat(ListImpl.forJavaList(ImmutableList.of(IntegerData.ONE)))
+        .isInstanceOf(ListImpl.class);
+  }
+}
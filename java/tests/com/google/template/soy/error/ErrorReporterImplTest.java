@@ -21,6 +21,7 @@ import static org.junit.Assert.fail;
 
 import com.google.template.soy.base.SourceLocation;
 import com.google.template.soy.error.ErrorReporter.Checkpoint;
+import com.google.template.soy.error.ErrorReporter.DeferredReports;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
@@ -64,6 +65,26 @@ public final class ErrorReporterImplTest {
         .isEqualTo("unknown:-1: warning: Oh noes.\n");
   }
 
+  @Test
+  public void testDeferReports() {
+    ErrorReporter reporter = ErrorReporter.createForTest();
+    reporter.warn(SourceLocation.UNKNOWN, ERROR);
+    DeferredReports deferred =
+        reporter.deferReports(
+            () -> {
+              Checkpoint cp = reporter.checkpoint();
+              assertThat(reporter.hasErrorsOrWarnings()).isFalse();
+              reporter.report(SourceLocation.UNKNOWN, ERROR);
+              assertThat(reporter.errorsSince(cp)).isTrue();
+              assertThat(reporter.getErrors()).hasSize(1);
+            });
+    assertThat(reporter.hasErrors()).isFalse();
+
+    deferred.commit();
+    assertThat(reporter.getErrors()).hasSize(1);
+    assertThat(reporter.getWarnings()).hasSize(1);
+  }
+
   @Test
   public void testCopyTo() {
     ErrorReporter reporter = ErrorReporter.createForTest();
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.i18ndirectives;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import com.ibm.icu.text.Collator;
+import com.ibm.icu.text.NumberFormat;
+import com.ibm.icu.util.ULocale;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link I18nFormatCache} */
+@RunWith(JUnit4.class)
+public final class I18nFormatCacheTest {
+
+  @Test
+  public void testNumberFormatsAreNotShared() {
+    NumberFormat first = I18nFormatCache.numberFormat(ULocale.US, "decimal", "latn", null, null);
+    NumberFormat second = I18nFormatCache.numberFormat(ULocale.US, "decimal", "latn", null, null);
+    assertThat(second).isNotSameInstanceAs(first);
+
+    // Changing one doesn't affect later formats.
+    first.setMaximumFractionDigits(0);
+    assertThat(first.format(1.25)).isEqualTo("1");
+    assertThat(second.format(1.25)).isEqualTo("1.25");
+    assertThat(format(ULocale.US, "decimal", "latn", null, null, 1.25)).isEqualTo("1.25");
+  }
+
+  @Test
+  public void testNumberFormatOptions() {
+    assertThat(format(ULocale.US, "decimal", "latn", 2, null, 1.5)).isEqualTo("1.50");
+    assertThat(format(ULocale.US, "decimal", "latn", null, 1, 1.25)).isEqualTo("1.2");
+    assertThat(format(ULocale.US, "compact_short", "latn", null, null, 12345)).isEqualTo("12.3K");
+    assertThat(format(ULocale.GERMANY, "decimal", "latn", null, null, 1234.5))
+        .isEqualTo("1.234,5");
+    assertThat(format(new ULocale("ar"), "decimal", "arab", null, null, 12)).isEqualTo("١٢");
+  }
+
+  @Test
+  public void testBadFormatType() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> I18nFormatCache.numberFormat(ULocale.US, "bogus", "latn", null, null));
+  }
+
+  @Test
+  public void testCollatorsAreSharedAndFrozen() {
+    Collator collator = I18nFormatCache.collator(ULocale.US, true, "upper", Collator.PRIMARY);
+    assertThat(I18nFormatCache.collator(ULocale.US, true, "upper", Collator.PRIMARY))
+        .isSameInstanceAs(collator);
+    assertThat(collator.isFrozen()).isTrue();
+    assertThat(collator.getStrength()).isEqualTo(Collator.PRIMARY);
+    assertThat(collator.compare("a2", "a10")).isLessThan(0);
+
+    Collator other = I18nFormatCache.collator(ULocale.US, null, null, null);
+    assertThat(other).isNotSameInstanceAs(collator);
+    assertThat(other.compare("a2", "a10")).isGreaterThan(0);
+  }
+
+  private static String format(
+      ULocale locale,
+      String formatType,
+      String numbersKeyword,
+      Integer minFractionDigits,
+      Integer maxFractionDigits,
+      double number) {
+    return I18nFormatCache.numberFormat(
+            locale, formatType, numbersKeyword, minFractionDigits, maxFractionDigits)
+        .format(number);
+  }
+}
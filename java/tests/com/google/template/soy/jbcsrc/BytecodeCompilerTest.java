@@ -24,6 +24,7 @@ import static com.google.template.soy.jbcsrc.TemplateTester.assertThatFile;
 import static com.google.template.soy.jbcsrc.TemplateTester.assertThatTemplateBody;
 import static com.google.template.soy.jbcsrc.TemplateTester.getDefaultContext;
 import static com.google.template.soy.jbcsrc.TemplateTester.getDefaultContextWithDebugInfo;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.junit.Assert.fail;
 
 import com.google.common.base.Joiner;
@@ -33,6 +34,9 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.google.common.io.ByteSink;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.MoreFiles;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.template.soy.SoyFileSetParser;
 import com.google.template.soy.SoyFileSetParser.ParseResult;
@@ -75,12 +79,25 @@ import com.google.template.soy.shared.restricted.SoyJavaFunction;
 import com.google.template.soy.soytree.Metadata.CompilationUnitAndKind;
 import com.google.template.soy.soytree.TemplateMetadataSerializer;
 import com.google.template.soy.testing.SoyFileSetParserBuilder;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.jar.JarFile;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import javax.annotation.Nullable;
@@ -468,6 +485,59 @@ public class BytecodeCompilerTest {
     assertThatTemplateBody("{for $i in [1,2,3,4,5]}", "  {$i}", "{/for}").rendersAs("12345");
   }
 
+  @Test
+  public void testForNode_primitiveLists() {
+    String[] intLoop = {
+      "{@param list: list<int>}", "{for $i, $n in $list}", "  {$n}:{$i * 2 + 1},", "{/for}"
+    };
+    assertThatTemplateBody(intLoop)
+        .rendersAs("0:3,1:5,2:-1,", ImmutableMap.of("list", new long[] {1, 2, -1}));
+    assertThatTemplateBody(intLoop)
+        .rendersAs("0:3,1:5,2:-1,", ImmutableMap.of("list", ImmutableList.of(1, 2, -1)));
+
+    String[] floatLoop = {
+      "{@param list: list<float>}", "{for $f in $list}", "  {$f * 2},", "{/for}"
+    };
+    assertThatTemplateBody(floatLoop)
+        .rendersAs("1,5,", ImmutableMap.of("list", new double[] {0.5, 2.5}));
+    assertThatTemplateBody(floatLoop)
+        .rendersAs("1,5,", ImmutableMap.of("list", ImmutableList.of(0.5, 2.5)));
+
+    // the loop variable is boxed again when it escapes into a call
+    assertThatTemplateBody(
+            "{@param list: list<float>}",
+            "{for $f in $list}",
+            "  {call bar}{param f: $f /}{/call}",
+            "{/for}",
+            "{/template}",
+            "",
+            "{template bar}",
+            "  {@param f: float}",
+            "  [{$f}]")
+        .rendersAs("[0.5][2]", ImmutableMap.of("list", new double[] {0.5, 2}));
+
+    // nested loops are only specialized in the innermost loop
+    assertThatTemplateBody(
+            "{@param list: list<int>}",
+            "{for $a in $list}{for $b in $list}{$a * $b},{/for}{/for}")
+        .rendersAs("1,2,2,4,", ImmutableMap.of("list", new long[] {1, 2}));
+  }
+
+  @Test
+  public void testForNode_primitiveListsWithOtherElements() {
+    String[] floatLoop = {"{@param list: list<float>}", "{for $f in $list}", "  {$f},", "{/for}"};
+    // Java ints are converted to a list backed by a long[]
+    assertThatTemplateBody(floatLoop)
+        .rendersAs("1,2,", ImmutableMap.of("list", ImmutableList.of(1, 2)));
+    assertThatTemplateBody(floatLoop)
+        .rendersAs("1.5,2,", ImmutableMap.of("list", ImmutableList.of(1.5, 2)));
+    assertThatTemplateBody(floatLoop)
+        .rendersAs("1,2,", ImmutableMap.of("list", new long[] {1, 2}));
+
+    assertThatTemplateBody("{@param list: list<int>}", "{for $i in $list}{$i},{/for}")
+        .rendersAs("1.5,2.5,", ImmutableMap.of("list", ImmutableList.of(1.5, 2.5)));
+  }
+
   @Test
   public void testForLoop_rangeOverConstant() {
     assertThatTemplateBody("{let $len: 10/}{for $i in range($len)}{$i}{/for}")
@@ -1358,6 +1428,132 @@ public class BytecodeCompilerTest {
     }
   }
 
+  @Test
+  public void testCompileToJar_parallelOutputIsIdentical() throws IOException {
+    Map<String, String> files = new LinkedHashMap<>();
+    for (int i = 0; i < 10; i++) {
+      files.put(
+          "ns" + i + ".soy",
+          Joiner.on("\n")
+              .join(
+                  "{namespace ns" + i + "}",
+                  "{template foo}",
+                  "  {@param items: list<string>}",
+                  "  {for $item in $items}",
+                  "    <a href=\"/{$item}\">{$item}</a>",
+                  "  {/for}",
+                  "{/template}",
+                  "{template bar modifiable=\"true\"}",
+                  "  {msg desc=\"...\"}Hello{/msg}",
+                  "{/template}"));
+    }
+    SoyFileSetParser parser = createParserForFileContents(files);
+    ParseResult parseResult = parser.parse();
+    ByteArrayOutputStream serial = new ByteArrayOutputStream();
+    BytecodeCompiler.compileToJar(
+        parseResult.fileSet(),
+        ErrorReporter.exploding(),
+        parser.typeRegistry(),
+        sinkFor(serial),
+        parseResult.registry(),
+        Optional.empty());
+
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      ByteArrayOutputStream parallel = new ByteArrayOutputStream();
+      BytecodeCompiler.compileToJar(
+          parseResult.fileSet(),
+          ErrorReporter.exploding(),
+          parser.typeRegistry(),
+          sinkFor(parallel),
+          parseResult.registry(),
+          Optional.of(pool));
+      assertThat(parallel.toByteArray()).isEqualTo(serial.toByteArray());
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void testCompileToJar_templateIndex() throws Exception {
+    SoyFileSetParser parser =
+        createParserForFileContents(
+            ImmutableMap.of(
+                "ns.soy",
+                Joiner.on("\n")
+                    .join(
+                        "{namespace ns}",
+                        "{template foo}",
+                        "  foo",
+                        "{/template}",
+                        "{template bar modifiable=\"true\"}",
+                        "  bar",
+                        "{/template}")));
+    ParseResult parseResult = parser.parse();
+    Path jar = Files.createTempFile("templates", ".jar");
+    try {
+      BytecodeCompiler.compileToJar(
+          parseResult.fileSet(),
+          ErrorReporter.exploding(),
+          parser.typeRegistry(),
+          MoreFiles.asByteSink(jar),
+          parseResult.registry(),
+          Optional.empty());
+      RecordingClassLoader loader = new RecordingClassLoader(jar);
+      String implName = "ns.bar" + CompiledTemplateMetadata.DEFAULT_IMPL_JBC_CLASS_SUFFIX;
+      try (JarFile jarFile = new JarFile(jar.toFile())) {
+        assertThat(readEntry(jarFile, Names.META_INF_TEMPLATE_INDEX_PATH))
+            .isEqualTo(
+                "ns.foo\tcom.google.template.soy.jbcsrc.gen.ns\n"
+                    + "ns.bar\tcom.google.template.soy.jbcsrc.gen.ns\n"
+                    + implName
+                    + "\tcom.google.template.soy.jbcsrc.gen.ns\tns.bar\t\t\n");
+        assertThat(readEntry(jarFile, Names.META_INF_CLASS_LIST_PATH))
+            .contains("com/google/template/soy/jbcsrc/gen/ns\n");
+      }
+
+      SoySauce sauce = new SoySauceBuilder().withClassLoader(loader).build();
+      // The deltemplate selector is built from the index, without loading any template classes.
+      assertThat(loader.loadedClasses).isEmpty();
+      assertThat(sauce.renderTemplate("ns.bar").renderHtml().get().toString()).isEqualTo("bar");
+      assertThat(loader.loadedClasses).contains("com.google.template.soy.jbcsrc.gen.ns");
+    } finally {
+      Files.delete(jar);
+    }
+  }
+
+  private static String readEntry(JarFile jarFile, String name) throws IOException {
+    try (InputStream in = jarFile.getInputStream(jarFile.getEntry(name))) {
+      return new String(ByteStreams.toByteArray(in), UTF_8);
+    }
+  }
+
+  /** Loads classes from a jar and records the generated classes it loads. */
+  private static final class RecordingClassLoader extends URLClassLoader {
+    final Set<String> loadedClasses = ConcurrentHashMap.newKeySet();
+
+    RecordingClassLoader(Path jar) throws IOException {
+      super(new URL[] {jar.toUri().toURL()}, BytecodeCompilerTest.class.getClassLoader());
+    }
+
+    @Override
+    protected Class<?> findClass(String name) throws ClassNotFoundException {
+      if (name.startsWith(Names.CLASS_PREFIX)) {
+        loadedClasses.add(name);
+      }
+      return super.findClass(name);
+    }
+  }
+
+  private static ByteSink sinkFor(ByteArrayOutputStream out) {
+    return new ByteSink() {
+      @Override
+      public OutputStream openStream() {
+        return out;
+      }
+    };
+  }
+
   private static SoyFileSetParser createParserForFileContents(Map<String, String> soyFileContents) {
     return createParserForFileContentsWithDependencies(soyFileContents, ImmutableList.of());
   }
@@ -215,6 +215,45 @@ public final class DetachStateTest {
     assertThat(output.toString()).isEqualTo("third\nloop-suffix\nsuffix");
   }
 
+  @Test
+  public void testDetachInLoopOverIntList() throws IOException {
+    CompiledTemplates templates =
+        TemplateTester.compileTemplateBody(
+            "{@param list : list<int>}",
+            "prefix",
+            "{for $item in $list}",
+            "  {$item + 1}",
+            "{/for}");
+    CompiledTemplate template = templates.getTemplate("ns.foo");
+    RenderContext context = getDefaultContext(templates);
+    List<SettableFuture<Integer>> futures =
+        ImmutableList.of(SettableFuture.create(), SettableFuture.create());
+    BufferingAppendable output = LoggingAdvisingAppendable.buffering();
+    TemplateRenderer renderer =
+        () ->
+            template.render(
+                asRecord(ImmutableMap.of("list", futures)),
+                ParamStore.EMPTY_INSTANCE,
+                output,
+                context);
+
+    // a list of futures isn't backed by a long[], so each element is resolved when it is used
+    RenderResult result = renderer.render();
+    assertThat(result.type()).isEqualTo(RenderResult.Type.DETACH);
+    assertThat(result.future()).isEqualTo(futures.get(0));
+    assertThat(output.toString()).isEqualTo("prefix");
+    futures.get(0).set(1);
+    result = renderer.render();
+    assertThat(result.type()).isEqualTo(RenderResult.Type.DETACH);
+    assertThat(result.future()).isEqualTo(futures.get(1));
+    assertThat(output.toString()).isEqualTo("prefix2");
+
+    futures.get(1).set(2);
+    result = renderer.render();
+    assertThat(result).isEqualTo(RenderResult.done());
+    assertThat(output.toString()).isEqualTo("prefix23");
+  }
+
   // This test is for a bug where we were generating one detach logic block for a full expressions
   // but it caused stack merge errors because the runtime stack wasn't consistent across all detach
   // points.  See http://mail.ow2.org/wws/arc/asm/2015-04/msg00001.html
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.jbcsrc.api;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static org.junit.Assert.assertThrows;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import com.google.template.soy.SoyFileSet;
+import com.google.template.soy.data.SanitizedContent;
+import com.google.template.soy.jbcsrc.api.AsyncContinuations.FlowControlledAppendable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class AsyncContinuationsTest {
+
+  private SoySauce sauce;
+  private TestAsyncPlugin testAsyncPlugin;
+
+  @Before
+  public void setUp() {
+    testAsyncPlugin = new TestAsyncPlugin();
+    sauce =
+        SoyFileSet.builder()
+            .add(AsyncContinuationsTest.class.getResource("strict.soy"))
+            .addSourceFunction(testAsyncPlugin)
+            .build()
+            .compileTemplates();
+  }
+
+  @Test
+  public void testValueContinuation() throws Exception {
+    ListenableFuture<SanitizedContent> result =
+        AsyncContinuations.toFuture(
+            sauce
+                .renderTemplate("strict_test.withAsyncPluginCall")
+                .setPluginInstances(ImmutableMap.of("testAsyncPlugin", () -> testAsyncPlugin))
+                .renderHtml(),
+            directExecutor());
+    assertThat(result.isDone()).isFalse();
+
+    testAsyncPlugin.resolveTo("Charlie");
+    assertThat(result.get().getContent()).isEqualTo("Hello, Charlie!");
+  }
+
+  @Test
+  public void testWriteContinuation_flowControl() throws Exception {
+    TestAppendable output = new TestAppendable();
+    output.writable = SettableFuture.create();
+    CompletableFuture<String> p = new CompletableFuture<>();
+
+    ListenableFuture<Void> result =
+        AsyncContinuations.toFuture(
+            sauce
+                .renderTemplate("strict_test.withParam")
+                .setData(ImmutableMap.of("p", p))
+                .renderText(output),
+            output,
+            directExecutor());
+    assertThat(result.isDone()).isFalse();
+    assertThat(output.toString()).isEmpty();
+
+    output.writable.set(null);
+    assertThat(result.isDone()).isFalse();
+
+    p.complete("piglet");
+    assertThat(result.isDone()).isTrue();
+    assertThat(output.toString()).isEqualTo("Hello, piglet");
+  }
+
+  @Test
+  public void testFailedFuture() {
+    SettableFuture<String> p = SettableFuture.create();
+    ListenableFuture<String> result =
+        AsyncContinuations.toFuture(
+            sauce
+                .renderTemplate("strict_test.withParam")
+                .setData(ImmutableMap.of("p", p))
+                .renderText(),
+            directExecutor());
+
+    p.setException(new IllegalStateException("no data"));
+    ExecutionException e = assertThrows(ExecutionException.class, result::get);
+    assertThat(e).hasCauseThat().hasCauseThat().hasMessageThat().isEqualTo("no data");
+  }
+
+  @Test
+  public void testCancel() {
+    SettableFuture<String> p = SettableFuture.create();
+    ListenableFuture<String> result =
+        AsyncContinuations.toFuture(
+            sauce
+                .renderTemplate("strict_test.withParam")
+                .setData(ImmutableMap.of("p", p))
+                .renderText(),
+            directExecutor());
+
+    result.cancel(false);
+    p.set("piglet");
+    assertThat(result.isCancelled()).isTrue();
+  }
+
+  private static final class TestAppendable implements FlowControlledAppendable {
+    private final StringBuilder delegate = new StringBuilder();
+    SettableFuture<Void> writable;
+
+    @Override
+    public ListenableFuture<?> whenWritable() {
+      return writable;
+    }
+
+    @CanIgnoreReturnValue
+    @Override
+    public TestAppendable append(CharSequence s) {
+      delegate.append(s);
+      return this;
+    }
+
+    @CanIgnoreReturnValue
+    @Override
+    public TestAppendable append(CharSequence s, int begin, int end) {
+      delegate.append(s, begin, end);
+      return this;
+    }
+
+    @CanIgnoreReturnValue
+    @Override
+    public TestAppendable append(char c) {
+      delegate.append(c);
+      return this;
+    }
+
+    @Override
+    public boolean softLimitReached() {
+      return !writable.isDone();
+    }
+
+    @Override
+    public String toString() {
+      return delegate.toString();
+    }
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.jbcsrc.api;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.template.soy.SoyFileSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Renders many templates that wait on futures at the same time, to check that waiting renders
+ * don't hold on to threads.
+ */
+@RunWith(JUnit4.class)
+public final class ConcurrentRenderStressTest {
+  private static final int RENDERS = 100_000;
+  private static final int THREADS = 4;
+
+  private SoySauce sauce;
+  private ExecutorService executor;
+
+  @Before
+  public void setUp() {
+    sauce =
+        SoyFileSet.builder()
+            .add(ConcurrentRenderStressTest.class.getResource("strict.soy"))
+            .addSourceFunction(new TestAsyncPlugin())
+            .build()
+            .compileTemplates();
+    executor = Executors.newFixedThreadPool(THREADS);
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void testManyPendingRenders() throws Exception {
+    List<SettableFuture<String>> params = new ArrayList<>(RENDERS);
+    List<ListenableFuture<String>> renders = new ArrayList<>(RENDERS);
+    for (int i = 0; i < RENDERS; i++) {
+      SettableFuture<String> param = SettableFuture.create();
+      params.add(param);
+      renders.add(
+          AsyncContinuations.toFuture(
+              sauce
+                  .renderTemplate("strict_test.withParam")
+                  .setData(ImmutableMap.of("p", param))
+                  .renderText(),
+              executor));
+    }
+    // Every render is waiting, and none of them is using a thread to do so.
+    assertThat(renders.stream().noneMatch(ListenableFuture::isDone)).isTrue();
+
+    // Complete the futures from the pool, so that resumed renders compete with the threads
+    // completing them.
+    for (int i = 0; i < RENDERS; i++) {
+      SettableFuture<String> param = params.get(i);
+      String value = "#" + i;
+      executor.execute(() -> param.set(value));
+    }
+
+    List<String> results =
+        Futures.allAsList(renders).get(/* timeout= */ 60, TimeUnit.SECONDS);
+    for (int i = 0; i < RENDERS; i++) {
+      assertThat(results.get(i)).isEqualTo("Hello, #" + i);
+    }
+  }
+}
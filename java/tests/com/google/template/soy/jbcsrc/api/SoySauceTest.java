@@ -16,23 +16,38 @@
 
 package com.google.template.soy.jbcsrc.api;
 
+import static com.google.common.collect.Iterables.getOnlyElement;
 import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
 import static com.google.template.soy.data.UnsafeSanitizedContentOrdainer.ordainAsSafe;
+import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.fail;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.util.concurrent.SettableFuture;
 import com.google.errorprone.annotations.CanIgnoreReturnValue;
 import com.google.template.soy.SoyFileSet;
 import com.google.template.soy.data.SanitizedContent;
 import com.google.template.soy.data.SanitizedContent.ContentKind;
+import com.google.template.soy.data.SoyTemplate;
 import com.google.template.soy.data.SoyValueProvider;
 import com.google.template.soy.data.restricted.IntegerData;
 import com.google.template.soy.data.restricted.NullData;
+import com.google.template.soy.data.restricted.StringData;
 import com.google.template.soy.jbcsrc.api.SoySauce.Continuation;
 import com.google.template.soy.jbcsrc.api.SoySauce.WriteContinuation;
 import com.google.template.soy.jbcsrc.runtime.DetachableSoyValueProvider;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -333,6 +348,110 @@ public class SoySauceTest {
     assertThat(continuation.get().getContent()).isEqualTo("Hello, Charlie!");
   }
 
+  @Test
+  public void testRenderConfiguration() {
+    RenderConfiguration configuration =
+        sauce
+            .newRenderConfiguration()
+            .setPluginInstances(ImmutableMap.of("testAsyncPlugin", () -> testAsyncPlugin))
+            .build();
+
+    // The same configuration can be used by many renderers.
+    for (int i = 0; i < 2; i++) {
+      Continuation<SanitizedContent> continuation =
+          sauce
+              .renderTemplate("strict_test.withAsyncPluginCall")
+              .setRenderConfiguration(configuration)
+              .renderHtml();
+      assertThat(continuation.result().type()).isEqualTo(RenderResult.Type.DETACH);
+      assertThat(continuation.result().future()).isEqualTo(testAsyncPlugin.testAsyncPlugin());
+    }
+  }
+
+  @Test
+  public void testRenderConfiguration_fromOtherSoySauce() {
+    RenderConfiguration configuration =
+        SoyFileSet.builder()
+            .add(SoySauceTest.class.getResource("strict.soy"))
+            .addSourceFunction(testAsyncPlugin)
+            .build()
+            .compileTemplates()
+            .newRenderConfiguration()
+            .build();
+    SoySauce.Renderer renderer = sauce.renderTemplate("strict_test.helloHtml");
+
+    assertThrows(
+        IllegalArgumentException.class, () -> renderer.setRenderConfiguration(configuration));
+  }
+
+  @Test
+  public void testTemplateRenderListener() throws IOException {
+    List<String> events = new ArrayList<>();
+    List<Long> elapsed = new ArrayList<>();
+    TemplateRenderListener listener =
+        new TemplateRenderListener() {
+          @Override
+          public void templateEntered(String templateName) {
+            events.add("enter " + templateName);
+          }
+
+          @Override
+          public void templateExited(
+              String templateName,
+              long elapsedNanos,
+              long selfNanos,
+              long outputBytes,
+              boolean detached,
+              boolean buffered) {
+            assertThat(selfNanos).isAtMost(elapsedNanos);
+            events.add("exit " + templateName + " " + outputBytes);
+            elapsed.add(elapsedNanos);
+          }
+        };
+    TestAppendable builder = new TestAppendable();
+
+    WriteContinuation continuation =
+        sauce
+            .renderTemplate("strict_test.helloHtml")
+            .setTemplateRenderListener(listener)
+            .renderHtml(builder);
+
+    assertThat(continuation.result()).isEqualTo(RenderResult.done());
+    assertThat(builder.toString()).isEqualTo("Hello world");
+    assertThat(events)
+        .containsExactly(
+            "enter strict_test.helloHtml",
+            "enter strict_test.hello",
+            "exit strict_test.hello 11",
+            "exit strict_test.helloHtml 11")
+        .inOrder();
+    assertThat(elapsed.get(0)).isAtMost(elapsed.get(1));
+  }
+
+  @Test
+  public void testTemplateRenderStats_detach() {
+    TemplateRenderStats stats = new TemplateRenderStats();
+    Continuation<SanitizedContent> continuation =
+        sauce
+            .renderTemplate("strict_test.withAsyncPluginCall")
+            .setPluginInstances(ImmutableMap.of("testAsyncPlugin", () -> testAsyncPlugin))
+            .setTemplateRenderListener(stats)
+            .renderHtml();
+    assertThat(continuation.result().type()).isEqualTo(RenderResult.Type.DETACH);
+    testAsyncPlugin.resolveTo("Charlie");
+    continuation = continuation.continueRender();
+    assertThat(continuation.result()).isEqualTo(RenderResult.done());
+
+    TemplateRenderStats.TemplateStats templateStats = getOnlyElement(stats.snapshot());
+    assertThat(templateStats.getTemplateName()).isEqualTo("strict_test.withAsyncPluginCall");
+    assertThat(templateStats.getCalls()).isEqualTo(2);
+    assertThat(templateStats.getDetaches()).isEqualTo(1);
+    assertThat(templateStats.getBufferedCalls()).isEqualTo(0);
+    assertThat(templateStats.getElapsedNanosHistogram().getCount()).isEqualTo(2);
+    assertThat(getOnlyElement(stats.hottest(0.5)).getTemplateName())
+        .isEqualTo("strict_test.withAsyncPluginCall");
+  }
+
   @Test
   public void testExceptionRewriting() {
     SoySauce.Renderer tmpl = sauce.renderTemplate("strict_test.callsItself");
@@ -369,6 +488,69 @@ public class SoySauceTest {
         .isEqualTo("null");
   }
 
+  @Test
+  public void testWarmUp() throws Exception {
+    Set<String> loaded = ConcurrentHashMap.newKeySet();
+    AtomicInteger renders = new AtomicInteger();
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      sauce
+          .newWarmUp()
+          .addRender(
+              params("strict_test.withParam", ImmutableMap.of("p", StringData.forValue("warm"))))
+          .setRenderRepetitions(3)
+          .setProgressListener(
+              new WarmUp.ProgressListener() {
+                @Override
+                public void templateLoaded(String templateName, int count, int total) {
+                  loaded.add(templateName);
+                }
+
+                @Override
+                public void renderCompleted(int completed, int total) {
+                  assertThat(total).isEqualTo(3);
+                  renders.incrementAndGet();
+                }
+              })
+          .start(executor)
+          .get();
+    } finally {
+      executor.shutdown();
+    }
+
+    // All the templates compiled from the file set are loaded by default.
+    assertThat(loaded).containsAtLeast("strict_test.helloHtml", "strict_test.withParam");
+    assertThat(renders.get()).isEqualTo(3);
+  }
+
+  @Test
+  public void testWarmUp_unknownTemplate() {
+    ExecutionException e =
+        assertThrows(
+            ExecutionException.class,
+            () ->
+                sauce
+                    .newWarmUp()
+                    .setTemplates(ImmutableList.of("strict_test.helloHtml", "strict_test.nope"))
+                    .start(directExecutor())
+                    .get());
+    assertThat(e).hasCauseThat().isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private static SoyTemplate params(String templateName, Map<String, ?> params) {
+    return new SoyTemplate() {
+      @Override
+      public String getTemplateName() {
+        return templateName;
+      }
+
+      @Override
+      public Map<String, ?> getParamsAsMap() {
+        return params;
+      }
+    };
+  }
+
   private static final class TestAppendable implements AdvisingAppendable {
     private final StringBuilder delegate = new StringBuilder();
     boolean softLimitReached;
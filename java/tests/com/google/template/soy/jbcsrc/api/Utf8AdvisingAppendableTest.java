@@ -0,0 +1,289 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.jbcsrc.api;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.template.soy.jbcsrc.api.AppendableAsAdvisingAppendable.asAdvisingAppendable;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableMap;
+import com.google.template.soy.SoyFileSet;
+import com.google.template.soy.logging.SoyLogger;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.GatheringByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link Utf8AdvisingAppendable} */
+@RunWith(JUnit4.class)
+public final class Utf8AdvisingAppendableTest {
+  // 1, 2, 3 and 4 byte characters
+  private static final String MIXED = "aé中😀";
+
+  @Test
+  public void testEncoding() throws IOException {
+    // A tiny chunk size so that characters are split across buffers.
+    Utf8AdvisingAppendable appendable = Utf8AdvisingAppendable.create(5, 1024);
+    String content = Strings.repeat(MIXED, 10);
+    appendable.append(content);
+    assertThat(appendable.size()).isEqualTo(content.getBytes(UTF_8).length);
+    assertThat(drain(appendable)).isEqualTo(content);
+    assertThat(appendable.size()).isEqualTo(0);
+  }
+
+  @Test
+  public void testSurrogatePairSplitAcrossAppends() throws IOException {
+    Utf8AdvisingAppendable appendable = Utf8AdvisingAppendable.create();
+    appendable.append('\ud83d').append("\ude00x", 0, 2);
+    assertThat(drain(appendable)).isEqualTo("😀x");
+  }
+
+  @Test
+  public void testUnpairedSurrogates() throws IOException {
+    String content = "a\ud83db\ude00c\ud83d";
+    Utf8AdvisingAppendable appendable = Utf8AdvisingAppendable.create();
+    appendable.append(content).appendUtf8("d".getBytes(UTF_8));
+    assertThat(drain(appendable)).isEqualTo(new String((content + "d").getBytes(UTF_8), UTF_8));
+  }
+
+  @Test
+  public void testFinishFlushesTrailingHighSurrogate() throws IOException {
+    String content = "a\ud83d";
+    Utf8AdvisingAppendable appendable = Utf8AdvisingAppendable.create();
+    appendable.append(content);
+    assertThat(appendable.size()).isEqualTo(1);
+    appendable.finish();
+    assertThat(appendable.size()).isEqualTo(2);
+    assertThat(drain(appendable)).isEqualTo(new String(content.getBytes(UTF_8), UTF_8));
+  }
+
+  @Test
+  public void testAppendUtf8() throws IOException {
+    Utf8AdvisingAppendable appendable = Utf8AdvisingAppendable.create(8, 1024);
+    byte[] bytes = Strings.repeat(MIXED, 3).getBytes(UTF_8);
+    appendable.append("<").appendUtf8(bytes).appendUtf8(bytes, 1, 2).append(">");
+    assertThat(drain(appendable)).isEqualTo("<" + Strings.repeat(MIXED, 3) + "é>");
+  }
+
+  @Test
+  public void testSoftLimit() throws IOException {
+    Utf8AdvisingAppendable appendable = Utf8AdvisingAppendable.create(4, 10);
+    appendable.append("123456789");
+    assertThat(appendable.softLimitReached()).isFalse();
+    appendable.append('0');
+    assertThat(appendable.softLimitReached()).isTrue();
+    drain(appendable);
+    assertThat(appendable.softLimitReached()).isFalse();
+  }
+
+  @Test
+  public void testWriteToChannel() throws IOException {
+    Utf8AdvisingAppendable appendable = Utf8AdvisingAppendable.create(4, 1024);
+    appendable.append("hello world");
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    assertThat(appendable.writeTo(Channels.newChannel(out))).isEqualTo(11);
+    assertThat(out.toString(UTF_8.name())).isEqualTo("hello world");
+
+    // A gathering channel is written to once, and what it doesn't accept stays buffered.
+    appendable.append("hello world");
+    PartialGatheringChannel channel = new PartialGatheringChannel(7);
+    assertThat(appendable.writeTo(channel)).isEqualTo(7);
+    assertThat(channel.writes).isEqualTo(1);
+    assertThat(appendable.size()).isEqualTo(4);
+    assertThat(drain(appendable)).isEqualTo("orld");
+  }
+
+  @Test
+  public void testRenderHtml() throws IOException {
+    SoySauce sauce =
+        SoyFileSet.builder()
+            .add(Utf8AdvisingAppendableTest.class.getResource("strict.soy"))
+            .addSourceFunction(new TestAsyncPlugin())
+            .build()
+            .compileTemplates();
+    Utf8AdvisingAppendable appendable = Utf8AdvisingAppendable.create();
+    assertThat(
+            sauce
+                .renderTemplate("strict_test.withParam")
+                .setData(ImmutableMap.of("p", MIXED))
+                .renderHtml(appendable)
+                .result()
+                .isDone())
+        .isTrue();
+    assertThat(drain(appendable)).isEqualTo("Hello, " + MIXED);
+  }
+
+  @Test
+  public void testOutputAppendableCopiesUtf8Constants() throws IOException {
+    Utf8AdvisingAppendable appendable = Utf8AdvisingAppendable.create();
+    // The bytes differ from the text, to show which one is used.
+    OutputAppendable.create(appendable, SoyLogger.NO_OP)
+        .appendUtf8Constant("text", () -> "bytes".getBytes(UTF_8));
+    assertThat(drain(appendable)).isEqualTo("bytes");
+
+    StringBuilder sb = new StringBuilder();
+    OutputAppendable.create(sb, SoyLogger.NO_OP)
+        .appendUtf8Constant("text", () -> "bytes".getBytes(UTF_8));
+    assertThat(sb.toString()).isEqualTo("text");
+
+    // Through the wrapper that counts output for template render listeners.
+    SoySauceImpl.CountingAdvisingAppendable counter =
+        new SoySauceImpl.CountingAdvisingAppendable(appendable);
+    OutputAppendable.create(counter, SoyLogger.NO_OP)
+        .appendUtf8Constant("text", () -> "bytes".getBytes(UTF_8));
+    assertThat(drain(appendable)).isEqualTo("bytes");
+    assertThat(counter.getCount()).isEqualTo(5);
+
+    // A counted output that only accepts chars gets the text.
+    sb.setLength(0);
+    counter = new SoySauceImpl.CountingAdvisingAppendable(asAdvisingAppendable(sb));
+    OutputAppendable.create(counter, SoyLogger.NO_OP)
+        .appendUtf8Constant("text", () -> "bytes".getBytes(UTF_8));
+    assertThat(sb.toString()).isEqualTo("text");
+  }
+
+  @Test
+  public void testCountingAppendableCountsUtf8Bytes() throws IOException {
+    SoySauceImpl.CountingAdvisingAppendable counter =
+        new SoySauceImpl.CountingAdvisingAppendable(Utf8AdvisingAppendable.create());
+    counter.append(MIXED);
+    assertThat(counter.getCount()).isEqualTo(MIXED.getBytes(UTF_8).length);
+
+    // A surrogate pair split across appends is one code point.
+    counter = new SoySauceImpl.CountingAdvisingAppendable(Utf8AdvisingAppendable.create());
+    counter.append("a\uD83D").append('\uDE00');
+    assertThat(counter.getCount()).isEqualTo(5);
+
+    // Unpaired surrogates count as the '?' that replaces them.
+    String unpaired = "\uDE00a\uD83Db\uD83D";
+    counter = new SoySauceImpl.CountingAdvisingAppendable(Utf8AdvisingAppendable.create());
+    counter.append(unpaired, 0, unpaired.length());
+    assertThat(counter.getCount()).isEqualTo(unpaired.getBytes(UTF_8).length);
+  }
+
+  @Test
+  public void testRenderLongConstants() throws IOException {
+    String longText = Strings.repeat(MIXED, 20);
+    SoySauce sauce =
+        SoyFileSet.builder()
+            .add(
+                "{namespace ns}\n"
+                    + "{template long}\n"
+                    + "  {@param p: string}\n"
+                    + "  <div>"
+                    + longText
+                    + "</div>{$p}<span>"
+                    + longText
+                    + "</span>\n"
+                    + "{/template}\n",
+                "long.soy")
+            .build()
+            .compileTemplates();
+    String expected = "<div>" + longText + "</div>é<span>" + longText + "</span>";
+
+    Utf8AdvisingAppendable appendable = Utf8AdvisingAppendable.create(16, 1 << 20);
+    sauce.renderTemplate("ns.long").setData(ImmutableMap.of("p", "é")).renderHtml(appendable);
+    assertThat(drain(appendable)).isEqualTo(expected);
+
+    StringBuilder sb = new StringBuilder();
+    sauce.renderTemplate("ns.long").setData(ImmutableMap.of("p", "é")).renderHtml(sb);
+    assertThat(sb.toString()).isEqualTo(expected);
+
+    // A listener wraps the output to count it, the constants are still counted.
+    List<Long> outputBytes = new ArrayList<>();
+    TemplateRenderListener listener =
+        new TemplateRenderListener() {
+          @Override
+          public void templateEntered(String templateName) {}
+
+          @Override
+          public void templateExited(
+              String templateName,
+              long elapsedNanos,
+              long selfNanos,
+              long outputByteCount,
+              boolean detached,
+              boolean buffered) {
+            outputBytes.add(outputByteCount);
+          }
+        };
+    sauce
+        .renderTemplate("ns.long")
+        .setData(ImmutableMap.of("p", "é"))
+        .setTemplateRenderListener(listener)
+        .renderHtml(appendable);
+    assertThat(drain(appendable)).isEqualTo(expected);
+    assertThat(outputBytes).containsExactly((long) expected.getBytes(UTF_8).length);
+  }
+
+  private static String drain(Utf8AdvisingAppendable appendable) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    appendable.writeTo(out);
+    return out.toString(UTF_8.name());
+  }
+
+  /** A channel that accepts a limited number of bytes, like a non-blocking socket. */
+  private static final class PartialGatheringChannel implements GatheringByteChannel {
+    final List<Byte> bytes = new ArrayList<>();
+    int capacity;
+    int writes;
+
+    PartialGatheringChannel(int capacity) {
+      this.capacity = capacity;
+    }
+
+    @Override
+    public long write(ByteBuffer[] srcs, int offset, int length) {
+      writes++;
+      long written = 0;
+      for (int i = offset; i < offset + length; i++) {
+        while (capacity > 0 && srcs[i].hasRemaining()) {
+          bytes.add(srcs[i].get());
+          capacity--;
+          written++;
+        }
+      }
+      return written;
+    }
+
+    @Override
+    public long write(ByteBuffer[] srcs) {
+      return write(srcs, 0, srcs.length);
+    }
+
+    @Override
+    public int write(ByteBuffer src) {
+      return (int) write(new ByteBuffer[] {src});
+    }
+
+    @Override
+    public boolean isOpen() {
+      return true;
+    }
+
+    @Override
+    public void close() {}
+  }
+}
@@ -27,6 +27,7 @@ import com.google.template.soy.data.SoyValueProvider;
 import com.google.template.soy.data.restricted.StringData;
 import com.google.template.soy.jbcsrc.api.RenderResult;
 import com.google.template.soy.jbcsrc.runtime.JbcSrcRuntime.MsgRenderer;
+import com.google.template.soy.jbcsrc.shared.MsgPlan;
 import com.google.template.soy.msgs.restricted.SoyMsgPart;
 import com.google.template.soy.msgs.restricted.SoyMsgPlaceholderPart;
 import com.google.template.soy.msgs.restricted.SoyMsgRawTextPart;
@@ -76,6 +77,32 @@ public final class JbcSrcRuntimeTest {
     assertRendersAs(renderer, "Hello world.");
   }
 
+  @Test
+  public void testMessageRendering_duplicatePlaceholder() {
+    MsgRenderer renderer =
+        createRenderer(SoyMsgRawTextPart.of("Hello "), new SoyMsgPlaceholderPart("NAME"));
+    renderer.setPlaceholder("NAME", StringData.forValue("world"));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> renderer.setPlaceholder("NAME", StringData.forValue("again")));
+
+    // Also for placeholders that the translation doesn't use.
+    renderer.setPlaceholder("UNUSED", StringData.forValue("a"));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> renderer.setPlaceholder("UNUSED", StringData.forValue("b")));
+  }
+
+  @Test
+  public void testMessageRendering_missingPlaceholder() {
+    MsgRenderer renderer =
+        createRenderer(SoyMsgRawTextPart.of("Hello "), new SoyMsgPlaceholderPart("NAME"));
+    renderer.setPlaceholder("OTHER", StringData.forValue("world"));
+    assertThat(assertThrows(IllegalStateException.class, renderer::status))
+        .hasMessageThat()
+        .isEqualTo("No value provided for placeholder: 'NAME', expected one of [OTHER]");
+  }
+
   @Test
   public void testMessageRendering_orderConstraints() {
     MsgRenderer renderer =
@@ -236,10 +263,9 @@ public final class JbcSrcRuntimeTest {
   }
 
   private MsgRenderer createRenderer(SoyMsgPart... parts) {
-    ImmutableList<SoyMsgPart> partsCopy = ImmutableList.copyOf(parts);
-    int numPlaceholders =
-        (int) partsCopy.stream().filter(p -> p instanceof SoyMsgPlaceholderPart).count();
     return new JbcSrcRuntime.MsgRenderer(
-        /* msgId=*/ 0L, partsCopy, ULocale.US, numPlaceholders, /* htmlEscape= */ false);
+        /* msgId=*/ 0L,
+        MsgPlan.create(ImmutableList.copyOf(parts), /* htmlEscape= */ false),
+        ULocale.US);
   }
 }
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.jbcsrc.shared;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.template.soy.msgs.SoyMsgBundle;
+import com.google.template.soy.msgs.restricted.SoyMsg;
+import com.google.template.soy.msgs.restricted.SoyMsgBundleImpl;
+import com.google.template.soy.msgs.restricted.SoyMsgPart;
+import com.google.template.soy.msgs.restricted.SoyMsgPart.Case;
+import com.google.template.soy.msgs.restricted.SoyMsgPlaceholderPart;
+import com.google.template.soy.msgs.restricted.SoyMsgPluralCaseSpec;
+import com.google.template.soy.msgs.restricted.SoyMsgPluralPart;
+import com.google.template.soy.msgs.restricted.SoyMsgPluralRemainderPart;
+import com.google.template.soy.msgs.restricted.SoyMsgRawTextPart;
+import com.google.template.soy.msgs.restricted.SoyMsgSelectPart;
+import com.ibm.icu.util.ULocale;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link MsgPlan} */
+@RunWith(JUnit4.class)
+public final class MsgPlanTest {
+
+  @Test
+  public void testPartsAreResolved() {
+    MsgPlan plan =
+        MsgPlan.create(
+            ImmutableList.of(
+                SoyMsgRawTextPart.of("a < b "),
+                new SoyMsgPlaceholderPart("NAME"),
+                SoyMsgRawTextPart.of(" &amp; "),
+                new SoyMsgPlaceholderPart("OTHER"),
+                new SoyMsgPlaceholderPart("NAME")),
+            /* htmlEscape= */ true);
+
+    assertThat(plan.slotCount()).isEqualTo(2);
+    assertThat(plan.slotOf("NAME")).isEqualTo(0);
+    assertThat(plan.slotOf(new String("OTHER"))).isEqualTo(1);
+    assertThat(plan.slotOf("MISSING")).isEqualTo(-1);
+    assertThat(plan.size()).isEqualTo(5);
+    assertThat(plan.slot(0)).isEqualTo(MsgPlan.TEXT);
+    assertThat(plan.text(0)).isEqualTo("a &lt; b ");
+    assertThat(plan.slot(1)).isEqualTo(0);
+    assertThat(plan.text(2)).isEqualTo(" &amp; ");
+    assertThat(plan.slot(3)).isEqualTo(1);
+    assertThat(plan.slot(4)).isEqualTo(0);
+  }
+
+  @Test
+  public void testRawTextMessage() {
+    ImmutableList<SoyMsgPart> parts = ImmutableList.of(SoyMsgRawTextPart.of("1 < 2"));
+    assertThat(MsgPlan.create(parts, /* htmlEscape= */ true).text()).isEqualTo("1 &lt; 2");
+    assertThat(MsgPlan.create(parts, /* htmlEscape= */ false).text()).isEqualTo("1 < 2");
+  }
+
+  @Test
+  public void testCasesShareSlots() {
+    MsgPlan plan =
+        MsgPlan.create(
+            ImmutableList.of(
+                new SoyMsgSelectPart(
+                    "GENDER",
+                    ImmutableList.of(
+                        Case.create("female", ImmutableList.of(pluralPart())),
+                        Case.create(
+                            null,
+                            ImmutableList.of(
+                                SoyMsgRawTextPart.of("Hi "),
+                                new SoyMsgPlaceholderPart("NAME")))))),
+            /* htmlEscape= */ false);
+
+    assertThat(plan.isSelect()).isTrue();
+    assertThat(plan.size()).isEqualTo(0);
+    assertThat(plan.slotCount()).isEqualTo(3);
+    assertThat(plan.slotName(plan.choiceSlot())).isEqualTo("GENDER");
+
+    MsgPlan other = plan.selectCase("male");
+    assertThat(other.text(0)).isEqualTo("Hi ");
+    assertThat(other.slot(1)).isEqualTo(plan.slotOf("NAME"));
+
+    MsgPlan plural = plan.selectCase("female");
+    assertThat(plural.isPlural()).isTrue();
+    assertThat(plural.pluralOffset()).isEqualTo(1);
+    assertThat(plural.slotName(plural.choiceSlot())).isEqualTo("NUM");
+    MsgPlan many = plural.pluralCase(3, ULocale.ENGLISH);
+    assertThat(many.slot(0)).isEqualTo(MsgPlan.PLURAL_REMAINDER);
+    assertThat(many.slot(1)).isEqualTo(plan.slotOf("NAME"));
+    assertThat(plural.pluralCase(1, ULocale.ENGLISH).text()).isEqualTo("one");
+  }
+
+  @Test
+  public void testTranslationsAreCachedPerBundle() {
+    ImmutableList<SoyMsgPart> parts = ImmutableList.of(SoyMsgRawTextPart.of("Hallo"));
+    SoyMsgBundle bundle =
+        new SoyMsgBundleImpl(
+            "de",
+            ImmutableList.of(
+                SoyMsg.builder().setId(1L).setLocaleString("de").setParts(parts).build()));
+    MsgPlan.Translations translations = MsgPlan.Translations.forBundle(bundle);
+
+    assertThat(MsgPlan.Translations.forBundle(bundle)).isSameInstanceAs(translations);
+    MsgPlan plan = translations.get(bundle, 1L, /* htmlEscape= */ true);
+    assertThat(plan.text()).isEqualTo("Hallo");
+    assertThat(translations.get(bundle, 1L, /* htmlEscape= */ true)).isSameInstanceAs(plan);
+    assertThat(translations.get(bundle, 1L, /* htmlEscape= */ false)).isNotSameInstanceAs(plan);
+    assertThat(translations.get(bundle, 2L, /* htmlEscape= */ true)).isNull();
+    assertThat(
+            MsgPlan.Translations.forBundle(SoyMsgBundle.EMPTY)
+                .get(SoyMsgBundle.EMPTY, 1L, /* htmlEscape= */ true))
+        .isNull();
+  }
+
+  @Test
+  public void testManyTranslations() {
+    List<SoyMsg> msgs = new ArrayList<>();
+    for (long id = 0; id < 1000; id += 2) {
+      msgs.add(
+          SoyMsg.builder()
+              .setId(id << 40)
+              .setLocaleString("de")
+              .setParts(ImmutableList.of(SoyMsgRawTextPart.of("msg" + id)))
+              .build());
+    }
+    SoyMsgBundle bundle = new SoyMsgBundleImpl("de", msgs);
+    MsgPlan.Translations translations = MsgPlan.Translations.forBundle(bundle);
+
+    // Enough ids to grow the table several times, with ids that only differ in their high bits.
+    for (long id = 0; id < 1000; id++) {
+      MsgPlan plan = translations.get(bundle, id << 40, /* htmlEscape= */ false);
+      if (id % 2 == 0) {
+        assertThat(plan.text()).isEqualTo("msg" + id);
+      } else {
+        assertThat(plan).isNull();
+      }
+    }
+    for (long id = 0; id < 1000; id += 2) {
+      assertThat(translations.get(bundle, id << 40, /* htmlEscape= */ false).text())
+          .isEqualTo("msg" + id);
+    }
+  }
+
+  private static SoyMsgPluralPart pluralPart() {
+    return new SoyMsgPluralPart(
+        "NUM",
+        /* offset= */ 1,
+        ImmutableList.of(
+            Case.create(
+                new SoyMsgPluralCaseSpec(1), ImmutableList.of(SoyMsgRawTextPart.of("one"))),
+            Case.create(
+                SoyMsgPluralCaseSpec.forType(SoyMsgPluralCaseSpec.Type.OTHER),
+                ImmutableList.of(
+                    new SoyMsgPluralRemainderPart("NUM"),
+                    new SoyMsgPlaceholderPart("NAME")))));
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.jbcsrc.shared;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link TemplateIndex} */
+@RunWith(JUnit4.class)
+public final class TemplateIndexTest {
+
+  @Test
+  public void testRoundTrip() {
+    TemplateIndex index =
+        new TemplateIndex.Builder()
+            .addTemplate("ns.foo")
+            .addDelTemplate("ns.bar_impl", "ns.bar", "mod", "variant")
+            .addDelTemplate("ns.baz_impl", "ns.baz", "", "")
+            .build();
+
+    TemplateIndex parsed = TemplateIndex.parse(lines(index.serialize()));
+    assertThat(parsed.templateNames())
+        .containsExactly("ns.foo", "ns.bar_impl", "ns.baz_impl")
+        .inOrder();
+    assertThat(parsed.get("ns.foo").className).isEqualTo(Names.CLASS_PREFIX + "ns");
+    assertThat(parsed.get("ns.foo").hasDelTemplateMetadata()).isFalse();
+    TemplateIndex.Entry bar = parsed.get("ns.bar_impl");
+    assertThat(bar.delTemplateName).isEqualTo("ns.bar");
+    assertThat(bar.modName).isEqualTo("mod");
+    assertThat(bar.variant).isEqualTo("variant");
+    assertThat(parsed.get("ns.baz_impl").hasDelTemplateMetadata()).isTrue();
+    assertThat(parsed.get("ns.baz_impl").modName).isEmpty();
+    assertThat(parsed.get("ns.missing")).isNull();
+  }
+
+  @Test
+  public void testVariantThatCantBeWritten() {
+    TemplateIndex index =
+        new TemplateIndex.Builder().addDelTemplate("ns.bar_impl", "ns.bar", "", "a\tb").build();
+
+    // The template is still listed, but its class has to be loaded for its metadata.
+    TemplateIndex.Entry entry = TemplateIndex.parse(lines(index.serialize())).get("ns.bar_impl");
+    assertThat(entry.hasDelTemplateMetadata()).isFalse();
+  }
+
+  @Test
+  public void testMergedIndexes() {
+    TemplateIndex index =
+        TemplateIndex.parse(
+            ImmutableList.of("ns.foo\tfirst", "", "ns.bar\tsecond", "ns.foo\tthird"));
+
+    assertThat(index.templateNames()).containsExactly("ns.foo", "ns.bar").inOrder();
+    assertThat(index.get("ns.foo").className).isEqualTo("first");
+  }
+
+  @Test
+  public void testDuplicateTemplate() {
+    TemplateIndex.Builder builder = new TemplateIndex.Builder().addTemplate("ns.foo");
+    assertThrows(IllegalArgumentException.class, () -> builder.addTemplate("ns.foo"));
+  }
+
+  @Test
+  public void testMalformedLine() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> TemplateIndex.parse(ImmutableList.of("ns.foo\tclass\tns.bar")));
+  }
+
+  private static ImmutableList<String> lines(String serialized) {
+    return ImmutableList.copyOf(Splitter.on('\n').split(serialized));
+  }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.jbcsrc.shared;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link TemplateInstrumentation}. */
+@RunWith(JUnit4.class)
+public final class TemplateInstrumentationTest {
+
+  @Test
+  public void testEnable_onlyInvalidatesTheClassLoaderAndItsParents() {
+    ClassLoader parent = new URLClassLoader(new URL[0], null);
+    ClassLoader child = new URLClassLoader(new URL[0], parent);
+    ClassLoader other = new URLClassLoader(new URL[0], null);
+
+    TemplateInstrumentation.enable(child);
+
+    assertThat(TemplateInstrumentation.switchPoint(child).hasBeenInvalidated()).isTrue();
+    assertThat(TemplateInstrumentation.switchPoint(parent).hasBeenInvalidated()).isTrue();
+    assertThat(TemplateInstrumentation.switchPoint(other).hasBeenInvalidated()).isFalse();
+  }
+}
@@ -0,0 +1,248 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.msgs.restricted;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertThrows;
+
+import com.google.common.collect.ImmutableList;
+import com.google.template.soy.msgs.SoyMsgBundle;
+import com.google.template.soy.msgs.SoyMsgException;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for MappedSoyMsgBundleImpl. */
+@RunWith(JUnit4.class)
+public class MappedSoyMsgBundleImplTest {
+
+  private static final String LOCALE = "xx";
+
+  @Rule public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private static SoyMsg createMsg(long id, SoyMsgPart... parts) {
+    ImmutableList<SoyMsgPart> partList = ImmutableList.copyOf(parts);
+    return SoyMsg.builder()
+        .setId(id)
+        .setLocaleString(LOCALE)
+        .setIsPlrselMsg(MsgPartUtils.hasPlrselPart(partList))
+        .setParts(partList)
+        .build();
+  }
+
+  private static final ImmutableList<SoyMsg> TEST_MESSAGES =
+      ImmutableList.of(
+          createMsg(314, SoyMsgRawTextPart.of("Message with ünïcödé ✓")),
+          createMsg(
+              42,
+              SoyMsgRawTextPart.of("Hello "),
+              new SoyMsgPlaceholderPart("USER_NAME", Optional.of("Alice")),
+              new SoyMsgPlaceholderPart("END_LINK")),
+          createMsg(
+              6065559473112027469L,
+              new SoyMsgPluralPart(
+                  "NUM",
+                  1,
+                  ImmutableList.of(
+                      SoyMsgPart.Case.create(
+                          new SoyMsgPluralCaseSpec(0),
+                          ImmutableList.of(SoyMsgRawTextPart.of("none"))),
+                      SoyMsgPart.Case.create(
+                          SoyMsgPluralCaseSpec.forType(SoyMsgPluralCaseSpec.Type.ONE),
+                          ImmutableList.of(SoyMsgRawTextPart.of("one other"))),
+                      SoyMsgPart.Case.create(
+                          SoyMsgPluralCaseSpec.forType(SoyMsgPluralCaseSpec.Type.OTHER),
+                          ImmutableList.of(
+                              new SoyMsgPluralRemainderPart("NUM"),
+                              SoyMsgRawTextPart.of(" others")))))),
+          createMsg(
+              832,
+              new SoyMsgSelectPart(
+                  "GENDER",
+                  ImmutableList.of(
+                      SoyMsgPart.Case.create(
+                          "female", ImmutableList.of(SoyMsgRawTextPart.of("She"))),
+                      SoyMsgPart.Case.create(
+                          (String) null, ImmutableList.of(SoyMsgRawTextPart.of("They")))))),
+          createMsg(7, new SoyMsgPlaceholderPart("ONLY_PLACEHOLDER")));
+
+  private static byte[] compile(SoyMsgBundle bundle) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    MappedSoyMsgBundleImpl.write(bundle, out);
+    return out.toByteArray();
+  }
+
+  private static SoyMsgBundle roundTrip(SoyMsgBundle bundle) throws IOException {
+    return MappedSoyMsgBundleImpl.fromBuffer(ByteBuffer.wrap(compile(bundle)));
+  }
+
+  @Test
+  public void testRoundTrip() throws IOException {
+    SoyMsgBundle bundle = roundTrip(new SoyMsgBundleImpl(LOCALE, TEST_MESSAGES));
+
+    assertThat(bundle.getLocaleString()).isEqualTo(LOCALE);
+    assertThat(bundle.isRtl()).isFalse();
+    assertThat(bundle.getNumMsgs()).isEqualTo(TEST_MESSAGES.size());
+    for (SoyMsg msg : TEST_MESSAGES) {
+      assertThat(bundle.getMsg(msg.getId())).isEqualTo(msg);
+      assertThat(bundle.getMsgParts(msg.getId())).isEqualTo(msg.getParts());
+    }
+    assertThat(bundle.getMsg(315)).isNull();
+    assertThat(bundle.getMsgParts(315)).isEmpty();
+  }
+
+  @Test
+  public void testIteratorIsInIdOrder() throws IOException {
+    SoyMsgBundle bundle = roundTrip(new SoyMsgBundleImpl(LOCALE, TEST_MESSAGES));
+
+    assertThat(bundle)
+        .containsExactlyElementsIn(
+            TEST_MESSAGES.stream()
+                .sorted((a, b) -> Long.compare(a.getId(), b.getId()))
+                .collect(Collectors.toList()))
+        .inOrder();
+  }
+
+  @Test
+  public void testNullLocaleAndRtl() throws IOException {
+    assertThat(roundTrip(new SoyMsgBundleImpl(null, ImmutableList.of())).getLocaleString())
+        .isNull();
+    assertThat(roundTrip(new SoyMsgBundleImpl("ar", ImmutableList.of())).isRtl()).isTrue();
+  }
+
+  @Test
+  public void testEmptyBundle() throws IOException {
+    SoyMsgBundle bundle = roundTrip(SoyMsgBundle.EMPTY);
+
+    assertThat(bundle.getNumMsgs()).isEqualTo(0);
+    assertThat(bundle.getMsg(123L)).isNull();
+    assertThat(bundle).isEmpty();
+  }
+
+  @Test
+  public void testLargerBundle() throws IOException {
+    List<SoyMsg> msgs =
+        IntStream.range(1, 10000)
+            .mapToObj(i -> createMsg(i * 31L, SoyMsgRawTextPart.of("Message #" + i)))
+            .collect(Collectors.toList());
+    SoyMsgBundle bundle = roundTrip(new RenderOnlySoyMsgBundleImpl(LOCALE, msgs));
+
+    for (SoyMsg msg : msgs) {
+      assertThat(bundle.getMsg(msg.getId())).isEqualTo(msg);
+      assertThat(bundle.getMsg(msg.getId() + 1)).isNull();
+    }
+  }
+
+  @Test
+  public void testMapFile() throws IOException {
+    File file = tempFolder.newFile("messages_xx.soymsgs");
+    Files.write(file.toPath(), compile(new SoyMsgBundleImpl(LOCALE, TEST_MESSAGES)));
+
+    SoyMsgBundle bundle = MappedSoyMsgBundleImpl.map(file.toPath());
+
+    assertThat(bundle).containsExactlyElementsIn(TEST_MESSAGES);
+  }
+
+  @Test
+  public void testBadInput() throws IOException {
+    File file = tempFolder.newFile("messages_xx.xlf");
+    Files.write(file.toPath(), "<xliff/>".getBytes(UTF_8));
+    SoyMsgException e =
+        assertThrows(SoyMsgException.class, () -> MappedSoyMsgBundleImpl.map(file.toPath()));
+    assertThat(e).hasMessageThat().contains(file.toString());
+
+    byte[] compiled = compile(new SoyMsgBundleImpl(LOCALE, TEST_MESSAGES));
+    assertThrows(
+        SoyMsgException.class,
+        () ->
+            MappedSoyMsgBundleImpl.fromBuffer(
+                ByteBuffer.wrap(Arrays.copyOf(compiled, compiled.length - 1))));
+  }
+
+  @Test
+  public void testMsgPartsAreDecodedOnce() throws IOException {
+    SoyMsgBundle bundle = roundTrip(new SoyMsgBundleImpl(LOCALE, TEST_MESSAGES));
+
+    assertThat(bundle.getMsgParts(42)).isSameInstanceAs(bundle.getMsgParts(42));
+    assertThat(bundle.getMsg(42).getParts()).isSameInstanceAs(bundle.getMsgParts(42));
+  }
+
+  @Test
+  public void testCorruptInput() throws IOException {
+    byte[] rawText =
+        compile(
+            new SoyMsgBundleImpl(
+                LOCALE, ImmutableList.of(createMsg(1, SoyMsgRawTextPart.of("abc")))));
+    // The number of messages follows the magic number, version and locale string.
+    byte[] hugeCount = rawText.clone();
+    ByteBuffer.wrap(hugeCount).putInt(14, Integer.MAX_VALUE);
+    assertThrows(
+        SoyMsgException.class,
+        () -> MappedSoyMsgBundleImpl.fromBuffer(ByteBuffer.wrap(hugeCount)));
+
+    // The length of the last string, which is followed by its 3 bytes.
+    ByteBuffer.wrap(rawText).putInt(rawText.length - 7, 1000);
+    SoyMsgBundle badString = MappedSoyMsgBundleImpl.fromBuffer(ByteBuffer.wrap(rawText));
+    assertThrows(SoyMsgException.class, () -> badString.getMsgParts(1));
+
+    // -1 encodes null, which raw text can't be.
+    ByteBuffer.wrap(rawText).putInt(rawText.length - 7, -1);
+    SoyMsgBundle nullString = MappedSoyMsgBundleImpl.fromBuffer(ByteBuffer.wrap(rawText));
+    assertThrows(SoyMsgException.class, () -> nullString.getMsgParts(1));
+
+    byte[] remainder =
+        compile(
+            new SoyMsgBundleImpl(
+                LOCALE, ImmutableList.of(createMsg(1, new SoyMsgPluralRemainderPart("NUM")))));
+    // The length of the plural variable name, which is followed by its 3 bytes.
+    ByteBuffer.wrap(remainder).putInt(remainder.length - 7, -1);
+    SoyMsgBundle nullName = MappedSoyMsgBundleImpl.fromBuffer(ByteBuffer.wrap(remainder));
+    assertThrows(SoyMsgException.class, () -> nullName.getMsgParts(1));
+
+    byte[] plural =
+        compile(
+            new SoyMsgBundleImpl(
+                LOCALE,
+                ImmutableList.of(
+                    createMsg(
+                        1,
+                        new SoyMsgPluralPart(
+                            "NUM",
+                            0,
+                            ImmutableList.of(
+                                SoyMsgPart.Case.create(
+                                    SoyMsgPluralCaseSpec.forType(SoyMsgPluralCaseSpec.Type.OTHER),
+                                    ImmutableList.of())))))));
+    // The case type of the only case, which is followed by its empty list of parts.
+    plural[plural.length - 5] = 42;
+    SoyMsgBundle badCase = MappedSoyMsgBundleImpl.fromBuffer(ByteBuffer.wrap(plural));
+    assertThrows(SoyMsgException.class, () -> badCase.getMsgParts(1));
+  }
+}
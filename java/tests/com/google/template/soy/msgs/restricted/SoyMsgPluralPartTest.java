@@ -0,0 +1,122 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.msgs.restricted;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.template.soy.msgs.restricted.SoyMsgPart.Case;
+import com.google.template.soy.msgs.restricted.SoyMsgPluralCaseSpec.Type;
+import com.ibm.icu.text.PluralRules;
+import com.ibm.icu.util.ULocale;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link SoyMsgPluralPart} */
+@RunWith(JUnit4.class)
+public final class SoyMsgPluralPartTest {
+
+  private static final ULocale RUSSIAN = new ULocale("ru");
+
+  @Test
+  public void testExplicitCasesComeFirst() {
+    SoyMsgPluralPart part =
+        plural(
+            0,
+            Case.create(new SoyMsgPluralCaseSpec(1), text("=1")),
+            Case.create(SoyMsgPluralCaseSpec.forType(Type.ONE), text("one")),
+            Case.create(SoyMsgPluralCaseSpec.forType(Type.OTHER), text("other")));
+
+    assertThat(part.lookupCase(1, ULocale.ENGLISH)).isEqualTo(text("=1"));
+    assertThat(part.lookupCase(2, ULocale.ENGLISH)).isEqualTo(text("other"));
+  }
+
+  @Test
+  public void testCategories() {
+    SoyMsgPluralPart part =
+        plural(
+            0,
+            Case.create(new SoyMsgPluralCaseSpec(0), text("=0")),
+            Case.create(SoyMsgPluralCaseSpec.forType(Type.ONE), text("one")),
+            Case.create(SoyMsgPluralCaseSpec.forType(Type.FEW), text("few")),
+            Case.create(SoyMsgPluralCaseSpec.forType(Type.MANY), text("many")),
+            Case.create(SoyMsgPluralCaseSpec.forType(Type.OTHER), text("other")));
+
+    assertThat(part.lookupCase(0, RUSSIAN)).isEqualTo(text("=0"));
+    assertThat(part.lookupCase(21, RUSSIAN)).isEqualTo(text("one"));
+    assertThat(part.lookupCase(3, RUSSIAN)).isEqualTo(text("few"));
+    assertThat(part.lookupCase(11, RUSSIAN)).isEqualTo(text("many"));
+    assertThat(part.lookupCase(1.5, RUSSIAN)).isEqualTo(text("other"));
+    // Beyond the precomputed integers.
+    assertThat(part.lookupCase(1001, RUSSIAN)).isEqualTo(text("one"));
+    assertThat(part.lookupCase(1_000_005, RUSSIAN)).isEqualTo(text("many"));
+  }
+
+  @Test
+  public void testOffset() {
+    SoyMsgPluralPart part =
+        plural(
+            1,
+            Case.create(new SoyMsgPluralCaseSpec(1), text("=1")),
+            Case.create(SoyMsgPluralCaseSpec.forType(Type.ONE), text("one")),
+            Case.create(SoyMsgPluralCaseSpec.forType(Type.OTHER), text("other")));
+
+    // Explicit values are compared before the offset is applied, categories after.
+    assertThat(part.lookupCase(1, ULocale.ENGLISH)).isEqualTo(text("=1"));
+    assertThat(part.lookupCase(2, ULocale.ENGLISH)).isEqualTo(text("one"));
+    assertThat(part.lookupCase(3, ULocale.ENGLISH)).isEqualTo(text("other"));
+  }
+
+  @Test
+  public void testMissingCategoryFallsBackToOther() {
+    SoyMsgPluralPart part =
+        plural(
+            0,
+            Case.create(SoyMsgPluralCaseSpec.forType(Type.ONE), text("one")),
+            Case.create(SoyMsgPluralCaseSpec.forType(Type.OTHER), text("other")));
+
+    assertThat(part.lookupCase(3, RUSSIAN)).isEqualTo(text("other"));
+    // Without categories the locale isn't needed.
+    assertThat(
+            plural(0, Case.create(SoyMsgPluralCaseSpec.forType(Type.OTHER), text("other")))
+                .lookupCase(3, null))
+        .isEqualTo(text("other"));
+  }
+
+  @Test
+  public void testPluralRulesCacheMatchesIcu() {
+    for (String locale : new String[] {"en", "ru", "ar", "pl", "fr", "ja", "cy", "lt"}) {
+      ULocale uLocale = new ULocale(locale);
+      PluralRules rules = PluralRules.forLocale(uLocale);
+      PluralRulesCache cache = PluralRulesCache.forLocale(uLocale);
+      for (double n : new double[] {0, 1, 2, 3, 5, 11, 21, 101, 999, 1000, 1e6, 0.5, 1.5, -1}) {
+        assertThat(cache.select(n))
+            .isEqualTo(SoyMsgPluralCaseSpec.forType(rules.select(n)).getType());
+      }
+    }
+  }
+
+  @SafeVarargs
+  private static SoyMsgPluralPart plural(int offset, Case<SoyMsgPluralCaseSpec>... cases) {
+    return new SoyMsgPluralPart("NUM", offset, ImmutableList.copyOf(cases));
+  }
+
+  private static ImmutableList<SoyMsgPart> text(String text) {
+    return ImmutableList.of(SoyMsgRawTextPart.of(text));
+  }
+}
@@ -25,14 +25,21 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Streams;
 import com.google.template.soy.error.ErrorReporter;
+import com.google.template.soy.error.SoyError;
 import com.google.template.soy.passes.PassManager.AstRewrites;
 import com.google.template.soy.passes.PassManager.PassContinuationRule;
 import com.google.template.soy.shared.SoyGeneralOptions;
+import com.google.template.soy.soytree.SoyFileNode;
+import com.google.template.soy.soytree.SoyFileSetNode;
+import com.google.template.soy.soytree.SoyNode;
+import com.google.template.soy.soytree.SoyTreeUtils;
+import com.google.template.soy.testing.SoyFileSetParserBuilder;
 import com.google.template.soy.types.SoyTypeRegistryBuilder;
 import java.util.Arrays;
 import java.util.LinkedHashSet;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Consumer;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -147,6 +154,71 @@ public final class PassManagerTest {
         .containsAtLeastElementsIn(passesWithoutAnnotations);
   }
 
+  @Test
+  public void testRunFilePassesInParallel() {
+    String[] files = new String[20];
+    for (int i = 0; i < files.length; i++) {
+      files[i] =
+          "{namespace ns"
+              + i
+              + "}\n"
+              + "{template foo}\n"
+              + "  {@param p: string}\n"
+              + "  <div class=\"{$p}\">{$undefined"
+              + i
+              + "}</div>\n"
+              + "  {msg desc=\"...\"}Hello {$p}{/msg}\n"
+              + "{/template}\n";
+    }
+    ErrorReporter serialErrors = ErrorReporter.createForTest();
+    SoyFileSetNode serial =
+        SoyFileSetParserBuilder.forFileContents(files)
+            .errorReporter(serialErrors)
+            .parse()
+            .fileSet();
+
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      ErrorReporter parallelErrors = ErrorReporter.createForTest();
+      SoyFileSetNode parallel =
+          SoyFileSetParserBuilder.forFileContents(files)
+              .errorReporter(parallelErrors)
+              .runFilePassesInParallel(pool)
+              .parse()
+              .fileSet();
+      ErrorReporter parallelErrorsAgain = ErrorReporter.createForTest();
+      SoyFileSetParserBuilder.forFileContents(files)
+          .errorReporter(parallelErrorsAgain)
+          .runFilePassesInParallel(pool)
+          .parse();
+
+      assertThat(messages(parallelErrors)).hasSize(files.length);
+      assertThat(messages(parallelErrors)).containsExactlyElementsIn(messages(serialErrors));
+      // Reports are deterministic, even if the order isn't the same as the serial one.
+      assertThat(messages(parallelErrorsAgain))
+          .containsExactlyElementsIn(messages(parallelErrors))
+          .inOrder();
+      assertThat(sources(parallel)).isEqualTo(sources(serial));
+      ImmutableList<Integer> ids =
+          SoyTreeUtils.allNodesOfType(parallel, SoyNode.class)
+              .map(SoyNode::getId)
+              .collect(toImmutableList());
+      assertThat(ids).containsNoDuplicates();
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  private static ImmutableList<String> messages(ErrorReporter reporter) {
+    return reporter.getErrors().stream().map(SoyError::toString).collect(toImmutableList());
+  }
+
+  private static ImmutableList<String> sources(SoyFileSetNode fileSet) {
+    return fileSet.getChildren().stream()
+        .map(SoyFileNode::toSourceString)
+        .collect(toImmutableList());
+  }
+
   private static void forAllPassManagers(Consumer<PassManager> consumer) {
     for (SoyGeneralOptions soyGeneralOptions : allOptions()) {
       for (boolean allowUnknownGlobals : bools()) {
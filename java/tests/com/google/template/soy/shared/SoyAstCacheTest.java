@@ -27,6 +27,7 @@ import com.google.template.soy.base.internal.SoyFileSupplier.Version;
 import com.google.template.soy.error.ErrorReporter;
 import com.google.template.soy.soytree.NamespaceDeclaration;
 import com.google.template.soy.soytree.SoyFileNode;
+import com.google.template.soy.soytree.SoyTreeUtils;
 import com.google.template.soy.soytree.TemplateNode;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -85,4 +86,43 @@ public final class SoyAstCacheTest {
     assertThat(cache.get(foo, version2)).isNull();
     assertThat(cache.get(bar, version1)).isNull();
   }
+
+  @Test
+  public void testStats() {
+    SourceFilePath foo = SourceFilePath.create("foo");
+    assertThat(cache.get(foo, version1)).isNull();
+    cache.put(foo, version1, fileNode1);
+    assertThat(cache.get(foo, version1)).isSameInstanceAs(fileNode1);
+    assertThat(cache.get(foo, version1)).isSameInstanceAs(fileNode1);
+    assertThat(cache.get(foo, version2)).isNull();
+
+    assertThat(cache.hitCount()).isEqualTo(2);
+    assertThat(cache.missCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void testMaxNodeCount() {
+    long nodesPerFile = SoyTreeUtils.allNodes(fileNode1).count();
+    SoyAstCache bounded = SoyAstCache.withMaxNodeCount(2 * nodesPerFile);
+    SourceFilePath foo = SourceFilePath.create("foo");
+    SourceFilePath bar = SourceFilePath.create("bar");
+    SourceFilePath baz = SourceFilePath.create("baz");
+    bounded.put(foo, version1, fileNode1);
+    bounded.put(bar, version1, fileNode1);
+    assertThat(bounded.evictionCount()).isEqualTo(0);
+    // Touch foo so that bar is the least recently used file.
+    assertThat(bounded.get(foo, version1)).isSameInstanceAs(fileNode1);
+
+    bounded.put(baz, version1, fileNode1);
+    assertThat(bounded.size()).isEqualTo(2);
+    assertThat(bounded.evictionCount()).isEqualTo(1);
+    assertThat(bounded.get(bar, version1)).isNull();
+    assertThat(bounded.get(foo, version1)).isSameInstanceAs(fileNode1);
+
+    // Explicit and out of date removals aren't evictions.
+    assertThat(bounded.evict(foo)).isTrue();
+    assertThat(bounded.get(baz, version2)).isNull();
+    assertThat(bounded.size()).isEqualTo(0);
+    assertThat(bounded.evictionCount()).isEqualTo(1);
+  }
 }
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.template.soy.shared.internal;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import com.google.common.collect.ImmutableSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class DelTemplateSelectorTest {
+
+  private static DelTemplateSelector<String> createSelector() {
+    DelTemplateSelector.Builder<String> builder = new DelTemplateSelector.Builder<>();
+    builder.addDefault("ns.foo", "", "default");
+    builder.add("ns.foo", "modA", "", "modA");
+    builder.add("ns.foo", "modB", "", "modB");
+    builder.addDefault("ns.foo", "v", "default:v");
+    builder.add("ns.bar", "modA", "", "bar:modA");
+    return builder.build();
+  }
+
+  @Test
+  public void testSelectionMatchesSelectTemplate() {
+    DelTemplateSelector<String> selector = createSelector();
+    for (ImmutableSet<String> mods :
+        ImmutableSet.of(
+            ImmutableSet.<String>of(), ImmutableSet.of("modA"), ImmutableSet.of("modB"))) {
+      DelTemplateSelector.Selection<String> selection = selector.forActiveMods(mods);
+      for (String name : ImmutableSet.of("ns.foo", "ns.bar", "ns.missing")) {
+        for (String variant : ImmutableSet.of("", "v", "other")) {
+          assertThat(selection.selectTemplate(name, variant))
+              .isEqualTo(selector.selectTemplate(name, variant, mods::contains));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testActiveMods() {
+    List<String> tested = new ArrayList<>();
+    Predicate<String> activeMods =
+        mod -> {
+          tested.add(mod);
+          return !mod.equals("modA");
+        };
+
+    assertThat(createSelector().activeMods(activeMods)).containsExactly("modB");
+    assertThat(tested).containsExactly("modA", "modB");
+  }
+
+  @Test
+  public void testSelectionIsMemoized() {
+    DelTemplateSelector.Selection<String> selection =
+        createSelector().forActiveMods(ImmutableSet.of("modB"));
+
+    assertThat(selection.selectTemplate("ns.foo", "")).isEqualTo("modB");
+    assertThat(selection.selectTemplate("ns.bar", "")).isNull();
+    assertThat(selection.selectTemplate("ns.foo", "")).isEqualTo("modB");
+    assertThat(selection.selectTemplate("ns.foo", "other")).isEqualTo("modB");
+    assertThat(selection.selectTemplate("ns.bar", "")).isNull();
+  }
+
+  @Test
+  public void testConflictsAreReportedOnEveryLookup() {
+    DelTemplateSelector.Selection<String> selection =
+        createSelector().forActiveMods(ImmutableSet.of("modA", "modB"));
+
+    assertThrows(IllegalArgumentException.class, () -> selection.selectTemplate("ns.foo", ""));
+    assertThrows(IllegalArgumentException.class, () -> selection.selectTemplate("ns.foo", ""));
+    assertThat(selection.selectTemplate("ns.bar", "")).isEqualTo("bar:modA");
+  }
+}
@@ -46,6 +46,10 @@ import com.google.template.soy.msgs.internal.MsgUtils;
 import com.google.template.soy.msgs.restricted.SoyMsg;
 import com.google.template.soy.msgs.restricted.SoyMsgBundleImpl;
 import com.google.template.soy.msgs.restricted.SoyMsgPart;
+import com.google.template.soy.msgs.restricted.SoyMsgPart.Case;
+import com.google.template.soy.msgs.restricted.SoyMsgPlaceholderPart;
+import com.google.template.soy.msgs.restricted.SoyMsgPluralCaseSpec;
+import com.google.template.soy.msgs.restricted.SoyMsgPluralPart;
 import com.google.template.soy.msgs.restricted.SoyMsgRawTextPart;
 import com.google.template.soy.plugin.java.PluginInstances;
 import com.google.template.soy.shared.SoyCssRenamingMap;
@@ -97,6 +101,12 @@ public class RenderVisitorTest {
         }
       };
 
+  /** Returns the compiled templates to render with, or null to interpret the AST. */
+  @Nullable
+  protected RenderClosures closures() {
+    return null;
+  }
+
   static {
     SoyList tri = SoyValueConverterUtility.newList(1, 3, 6, 10, 15, 21);
     TEST_DATA =
@@ -301,7 +311,8 @@ public class RenderVisitorTest {
             xidRenamingMap,
             cssRenamingMap,
             false,
-            PluginInstances.empty());
+            PluginInstances.empty(),
+            closures());
     rv.exec(templateNode);
     return outputSb.toString();
   }
@@ -353,7 +364,8 @@ public class RenderVisitorTest {
             xidRenamingMap,
             cssRenamingMap,
             false,
-            PluginInstances.empty());
+            PluginInstances.empty(),
+            closures());
     TemplateNode templateNode = basicTemplates.get(templateName);
     rv.exec(templateNode);
     return outputSb.toString();
@@ -390,6 +402,22 @@ public class RenderVisitorTest {
     assertRender(templateBody, "   ");
   }
 
+  @Test
+  public void testRenderExpressions() throws Exception {
+    String templateBody =
+        "{@param boo : int}\n"
+            + "{@param moo : float}\n"
+            + "{@param goo : list<int>}\n"
+            + "{@param list0 : list<int>}\n"
+            + "{@param foo : ?}\n"
+            + "  {$boo * 2 - 1 + $moo} {$boo / 4} {$boo % 3} {-$boo} {(($boo << 1) | 1)}{sp}\n"
+            + "  {$boo > 7 and not ($moo < 3)} {$boo == 8 ? 'y' : 'n'} {$list0[0] ?: 'none'}{sp}\n"
+            + "  {$goo[2]} {$goo.length} {max($boo, 10)} {record(a: $boo, b: [1, 2]).b[1]}{sp}\n"
+            + "  {$foo?.bar} {$foo?.baz?.qux ?: 'none'} {checkNotNull($goo)[0]}\n";
+
+    assertRender(templateBody, "18.14 2 2 -8 17 true y none 6 6 10 2 baz none 1");
+  }
+
   @Test
   public void testRenderPrintStmt() throws Exception {
     String templateBody =
@@ -469,6 +497,56 @@ public class RenderVisitorTest {
     assertThat(renderWithDataAndMsgBundle(templateBody, TEST_DATA, msgBundle)).isEqualTo("zbleh");
   }
 
+  @Test
+  public void testRenderPluralMsgWithTranslation() throws Exception {
+    String templateBody =
+        "{@param n: ?}\n"
+            + "{@param person: ?}\n"
+            + "  {msg desc=\"\"}\n"
+            + "    {plural $n}\n"
+            + "      {case 1}Only {$person}\n"
+            + "      {default}{$person} and others\n"
+            + "    {/plural}\n"
+            + "  {/msg}\n";
+    MsgNode msg =
+        SoyTreeUtils.getAllNodesOfType(
+                SoyFileSetParserBuilder.forFileContents(
+                        "{namespace test}\n{template foo}\n" + templateBody + "{/template}")
+                    .parse()
+                    .fileSet(),
+                MsgNode.class)
+            .get(0);
+    SoyMsgPart pluralPart =
+        new SoyMsgPluralPart(
+            "N",
+            0,
+            ImmutableList.of(
+                Case.create(
+                    new SoyMsgPluralCaseSpec(1),
+                    ImmutableList.of(
+                        SoyMsgRawTextPart.of("Nur "), new SoyMsgPlaceholderPart("PERSON"))),
+                Case.create(
+                    SoyMsgPluralCaseSpec.forType(SoyMsgPluralCaseSpec.Type.OTHER),
+                    ImmutableList.of(
+                        new SoyMsgPlaceholderPart("PERSON"),
+                        SoyMsgRawTextPart.of(" und andere")))));
+    SoyMsgBundle msgBundle =
+        new SoyMsgBundleImpl(
+            "de",
+            ImmutableList.of(
+                SoyMsg.builder()
+                    .setId(MsgUtils.computeMsgIdForDualFormat(msg))
+                    .setLocaleString("de")
+                    .setParts(ImmutableList.of(pluralPart))
+                    .build()));
+
+    SoyDict data = SoyValueConverterUtility.newDict("person", "Bob", "n", 1);
+    assertThat(renderWithDataAndMsgBundle(templateBody, data, msgBundle)).isEqualTo("Nur Bob");
+    data = SoyValueConverterUtility.newDict("person", "Bob", "n", 5);
+    assertThat(renderWithDataAndMsgBundle(templateBody, data, msgBundle))
+        .isEqualTo("Bob und andere");
+  }
+
   @Test
   public void testRenderSimpleSelect() throws Exception {
     String templateBody =
@@ -1016,7 +1094,8 @@ public class RenderVisitorTest {
             xidRenamingMap,
             cssRenamingMap,
             false,
-            PluginInstances.empty());
+            PluginInstances.empty(),
+            closures());
     rv.exec(basicTemplates.get("ns.callerTemplate"));
 
     String expectedOutput =
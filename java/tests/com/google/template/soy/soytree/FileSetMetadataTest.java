@@ -34,6 +34,7 @@ import com.google.template.soy.exprtree.TemplateLiteralNode;
 import com.google.template.soy.exprtree.VarRefNode;
 import com.google.template.soy.soytree.Metadata.CompilationUnitAndKind;
 import com.google.template.soy.testing.SoyFileSetParserBuilder;
+import com.google.template.soy.types.SoyTypeRegistryBuilder;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
@@ -336,6 +337,52 @@ public final class FileSetMetadataTest {
                 file1Template1, file1Template2, file2Template1, file2Template2, file3Template1));
   }
 
+  @Test
+  public void testDepsTemplatesAreBuiltLazily() {
+    ParseResult dependencyParseResult =
+        SoyFileSetParserBuilder.forSuppliers(
+                SoyFileSupplier.Factory.create(
+                    "{namespace ns}\n"
+                        + "/** Simple template. */\n"
+                        + "{template foo}\n"
+                        + "  {@param p: [a: string, b: int]}\n"
+                        + "{/template}\n"
+                        + "/** Simple modifiable. */\n"
+                        + "{template baz modifiable='true'}\n"
+                        + "  {@param p: [a: string, b: int]}\n"
+                        + "{/template}",
+                    FILE_PATH))
+            .parse();
+    FileSetMetadata registry =
+        Metadata.metadataForDeps(
+            ImmutableList.of(
+                CompilationUnitAndKind.create(
+                    SoyFileKind.DEP,
+                    TemplateMetadataSerializer.compilationUnitFromFileSet(
+                        dependencyParseResult.fileSet(), dependencyParseResult.registry()))),
+            FAIL,
+            SoyTypeRegistryBuilder.create());
+    Metadata.DepsFileMetadata file = (Metadata.DepsFileMetadata) registry.getFile(FILE_PATH);
+
+    assertThat(file.getTemplateFullNames()).containsExactly("ns.foo", "ns.baz").inOrder();
+    assertThat(file.getTemplateNames()).containsExactly("foo", "baz").inOrder();
+    assertThat(file.builtTemplates()).isEmpty();
+
+    TemplateMetadata foo = registry.getTemplate("ns.foo");
+    assertThat(foo.getTemplateName()).isEqualTo("ns.foo");
+    assertThat(file.builtTemplates().keySet()).containsExactly("ns.foo");
+    assertThat(file.getTemplate("foo")).isSameInstanceAs(foo);
+    assertThat(file.getTemplates().get(0)).isSameInstanceAs(foo);
+
+    TemplateMetadata baz = Iterables.getOnlyElement(registry.getAllDelTemplates());
+    assertThat(baz.getTemplateName()).isEqualTo("ns.baz");
+    assertThat(registry.getDelTemplateSelector().hasDelTemplateNamed("ns.baz")).isTrue();
+
+    // Types repeated across templates share one instance.
+    assertThat(baz.getTemplateType().getParameters().get(0).getType())
+        .isSameInstanceAs(foo.getTemplateType().getParameters().get(0).getType());
+  }
+
   @Test
   public void testDuplicateDeltemplatesInSameMod() {
     String file =
@@ -37,7 +37,7 @@ import org.junit.runners.JUnit4;
 
 /** Unit tests for exception behavior of Tofu. */
 @RunWith(JUnit4.class)
-public final class TofuExceptionsTest {
+public class TofuExceptionsTest {
   private static final String SOY_FILE =
       Joiner.on('\n')
           .join(
@@ -68,13 +68,19 @@ public final class TofuExceptionsTest {
 
   private SoyTofu tofu;
 
+  /** Whether the tofu compiles templates to closures. */
+  protected boolean compileTemplates() {
+    return false;
+  }
+
   @Before
   public void setUp() throws Exception {
     tofu =
         new BaseTofu(
             new NoOpScopedData(),
             SoyFileSetParserBuilder.forFileContents(SOY_FILE).parse().fileSet(),
-            PluginInstances.empty());
+            PluginInstances.empty(),
+            compileTemplates());
   }
 
   @Test